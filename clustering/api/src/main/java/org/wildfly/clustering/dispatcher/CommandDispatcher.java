@@ -78,6 +78,32 @@ public interface CommandDispatcher<C> extends AutoCloseable {
      */
     <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, Node... excludedNodes) throws Exception;
 
+    /**
+     * Submits the specified command on all nodes in the group, excluding the specified nodes.
+     * The future of each node completes as soon as the response of that node arrives, at which time it is also passed to the specified listener.
+     *
+     * @param <R>           the return value type
+     * @param command       the command to execute
+     * @param listener      receives the response of each node as it arrives
+     * @param excludedNodes the set of nodes to exclude
+     * @return a map of command execution results per node.
+     * @throws Exception if the command could not be broadcast
+     */
+    <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception;
+
+    /**
+     * Submits the specified command on all nodes in the group, excluding the specified nodes,
+     * and completes as soon as the specified number of nodes responded, or once all nodes responded if there are fewer.
+     *
+     * @param <R>           the return value type
+     * @param command       the command to execute
+     * @param quorum        the number of responses to wait for, must be positive
+     * @param excludedNodes the set of nodes to exclude
+     * @return a future of the command execution results of the nodes which responded
+     * @throws Exception if the command could not be broadcast
+     */
+    <R> Future<Map<Node, CommandResponse<R>>> submitOnCluster(Command<R, C> command, int quorum, Node... excludedNodes) throws Exception;
+
     /**
      * Closes any resources used by this dispatcher.
      * Once closed, a dispatcher can no longer execute commands.
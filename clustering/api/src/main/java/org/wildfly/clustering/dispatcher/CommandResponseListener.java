@@ -0,0 +1,41 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.dispatcher;
+
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Receives the responses of a command submitted to the cluster, one node at a time, as they arrive.
+ *
+ * @param <R> the response type
+ */
+public interface CommandResponseListener<R> {
+
+    /**
+     * Invoked once per node, as soon as the response of the node arrived, or the node could no longer respond.
+     * Invoked by the thread which received the response, so implementations should not block.
+     *
+     * @param node the node which executed the command
+     * @param response the response of the node
+     */
+    void responseReceived(Node node, CommandResponse<R> response);
+}
@@ -22,6 +22,8 @@
 
 package org.jboss.as.clustering.logging;
 
+import java.io.IOException;
+
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Logger;
@@ -43,4 +45,7 @@ public interface ClusteringLogger extends BasicLogger {
 
     @Message(id = 1, value = "%2$g is not a valid value for parameter %1$s. The value must be %3$s %4$g")
     OperationFailedException parameterValueOutOfBounds(String name, double value, String relationalOperator, double bound);
+
+    @Message(id = 2, value = "Marshalled form of %d bytes is too short to contain its marshalling version")
+    IOException truncatedMarshalledForm(int length);
 }
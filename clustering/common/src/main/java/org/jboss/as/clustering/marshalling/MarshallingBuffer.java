@@ -0,0 +1,178 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.clustering.marshalling;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.jboss.marshalling.ByteOutput;
+
+/**
+ * Output buffer of a marshalling operation, reused by the subsequent operations of the same thread.
+ * A buffer is presized from a running estimate of the marshalled size of objects of the same class, so that it rarely needs to grow.
+ * Buffers which grew larger than {@link #MAX_RETAINED_SIZE} are not kept, so that idle threads do not hold on to large arrays.
+ */
+final class MarshallingBuffer implements ByteOutput {
+
+    static final int MIN_SIZE = 256;
+    static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private static final ClassValue<SizeEstimate> ESTIMATES = new ClassValue<SizeEstimate>() {
+        @Override
+        protected SizeEstimate computeValue(Class<?> targetClass) {
+            return new SizeEstimate();
+        }
+    };
+
+    // Holds the idle buffer of the thread, if any
+    private static final ThreadLocal<MarshallingBuffer> BUFFERS = new ThreadLocal<>();
+
+    /**
+     * Returns an empty buffer for marshalling an object of the specified class.
+     * The buffer must be given back via {@link #release()} once its content was copied.
+     * A nested marshalling operation of the same thread gets a buffer of its own.
+     */
+    static MarshallingBuffer acquire(Class<?> targetClass) {
+        MarshallingBuffer buffer = BUFFERS.get();
+        if (buffer != null) {
+            BUFFERS.set(null);
+        } else {
+            buffer = new MarshallingBuffer();
+        }
+        buffer.reset(ESTIMATES.get(targetClass));
+        return buffer;
+    }
+
+    private byte[] bytes = new byte[MIN_SIZE];
+    private int size;
+    private SizeEstimate estimate;
+
+    private MarshallingBuffer() {
+    }
+
+    private void reset(SizeEstimate estimate) {
+        this.estimate = estimate;
+        this.size = 0;
+        int expected = estimate.get();
+        if (this.bytes.length < expected) {
+            this.bytes = new byte[expected];
+        }
+    }
+
+    /**
+     * Returns a copy of the content of this buffer, and records its size in the estimate of its class.
+     */
+    byte[] toByteArray() {
+        this.estimate.update(this.size);
+        return Arrays.copyOf(this.bytes, this.size);
+    }
+
+    /**
+     * Writes the size of the content of this buffer, followed by the content, to the specified output,
+     * and records its size in the estimate of its class.
+     */
+    void writeTo(DataOutput output) throws IOException {
+        this.estimate.update(this.size);
+        output.writeInt(this.size);
+        output.write(this.bytes, 0, this.size);
+    }
+
+    /**
+     * Gives this buffer back to the current thread.
+     */
+    void release() {
+        this.estimate = null;
+        if ((this.bytes.length <= MAX_RETAINED_SIZE) && (BUFFERS.get() == null)) {
+            BUFFERS.set(this);
+        }
+    }
+
+    void writeInt(int value) {
+        this.ensureCapacity(4);
+        this.bytes[this.size++] = (byte) (value >>> 24);
+        this.bytes[this.size++] = (byte) (value >>> 16);
+        this.bytes[this.size++] = (byte) (value >>> 8);
+        this.bytes[this.size++] = (byte) value;
+    }
+
+    @Override
+    public void write(int value) {
+        this.ensureCapacity(1);
+        this.bytes[this.size++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] bytes) {
+        this.write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        this.ensureCapacity(length);
+        System.arraycopy(bytes, offset, this.bytes, this.size, length);
+        this.size += length;
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to flush
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+
+    private void ensureCapacity(int length) {
+        int required = this.size + length;
+        if (required > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes, Math.max(required, this.bytes.length << 1));
+        }
+    }
+
+    /**
+     * Running estimate of the marshalled size of the objects of a class.
+     * Updates are racy, which only costs precision.
+     */
+    static class SizeEstimate {
+        private volatile int size = MIN_SIZE;
+
+        /**
+         * Returns the estimated size, with some headroom, so that slightly larger objects still fit.
+         */
+        int get() {
+            int size = this.size;
+            return size + (size >> 2);
+        }
+
+        /**
+         * Raises the estimate to a larger size at once, but only moves it an eighth of the way towards a smaller size,
+         * so that an occasional small object does not make the next large one grow its buffer.
+         */
+        void update(int size) {
+            int current = this.size;
+            this.size = (size > current) ? size : Math.max(MIN_SIZE, current + ((size - current) >> 3));
+        }
+    }
+}
@@ -21,6 +21,7 @@
  */
 package org.jboss.as.clustering.marshalling;
 
+import java.io.DataOutput;
 import java.io.IOException;
 
 import org.jboss.marshalling.Marshaller;
@@ -38,4 +39,30 @@ public interface MarshallingContext {
     Unmarshaller createUnmarshaller(int version) throws IOException;
 
     Marshaller createMarshaller(int version) throws IOException;
+
+    /**
+     * Marshals the specified object using the current version, which precedes it in the returned bytes.
+     * @param object the object to marshal
+     * @return the marshalled form of the object
+     * @throws IOException if the object could not be marshalled
+     */
+    byte[] marshal(Object object) throws IOException;
+
+    /**
+     * Marshals the specified object like {@link #marshal(Object)}, and writes the length of its marshalled form, followed by that form, to the specified output.
+     * Unlike writing the result of {@link #marshal(Object)}, this does not copy the marshalled form into an intermediate array.
+     * @param object the object to marshal
+     * @param output the output to which the marshalled form is written
+     * @throws IOException if the object could not be marshalled, or written
+     */
+    void marshal(Object object, DataOutput output) throws IOException;
+
+    /**
+     * Unmarshals an object marshalled via {@link #marshal(Object)}, using the version with which it was marshalled.
+     * @param bytes the marshalled form of an object
+     * @return the unmarshalled object
+     * @throws IOException if the object could not be unmarshalled
+     * @throws ClassNotFoundException if the class of the object, or of one it references, could not be loaded
+     */
+    Object unmarshal(byte[] bytes) throws IOException, ClassNotFoundException;
 }
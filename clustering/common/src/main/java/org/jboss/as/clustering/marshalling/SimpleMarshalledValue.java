@@ -22,19 +22,12 @@
 
 package org.jboss.as.clustering.marshalling;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Arrays;
 
-import org.jboss.marshalling.Marshaller;
-import org.jboss.marshalling.Marshalling;
-import org.jboss.marshalling.SimpleDataInput;
-import org.jboss.marshalling.SimpleDataOutput;
-import org.jboss.marshalling.Unmarshaller;
 import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
@@ -67,17 +60,9 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         byte[] bytes = this.bytes;
         if (bytes != null) return bytes;
         if (this.object == null) return null;
-        int version = this.context.getCurrentVersion();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
         ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
-        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
-            data.writeInt(version);
-            try (Marshaller marshaller = this.context.createMarshaller(version)) {
-                marshaller.start(data);
-                marshaller.writeObject(this.object);
-                marshaller.finish();
-                return output.toByteArray();
-            }
+        try {
+            return this.context.marshal(this.object);
         } finally {
             setThreadContextClassLoader(loader);
         }
@@ -92,16 +77,10 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         if (this.object == null) {
             this.context = context;
             if (this.bytes != null) {
-                ByteArrayInputStream input = new ByteArrayInputStream(this.bytes);
                 ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
-                try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input))) {
-                    int version = data.readInt();
-                    try (Unmarshaller unmarshaller = context.createUnmarshaller(version)) {
-                        unmarshaller.start(data);
-                        this.object = (T) unmarshaller.readObject();
-                        unmarshaller.finish();
-                        this.bytes = null; // Free up memory
-                    }
+                try {
+                    this.object = (T) context.unmarshal(this.bytes);
+                    this.bytes = null; // Free up memory
                 } finally {
                     setThreadContextClassLoader(loader);
                 }
@@ -147,10 +126,18 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
-        byte[] bytes = this.getBytes();
+        byte[] bytes = this.bytes;
         if (bytes != null) {
             out.writeInt(bytes.length);
             out.write(bytes);
+        } else if (this.object != null) {
+            // Write the marshalled form straight from the marshalling buffer, instead of copying it into an array first
+            ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+            try {
+                this.context.marshal(this.object, out);
+            } finally {
+                setThreadContextClassLoader(loader);
+            }
         } else {
             out.writeInt(0);
         }
@@ -22,15 +22,27 @@
 
 package org.jboss.as.clustering.marshalling;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 
+import org.jboss.as.clustering.logging.ClusteringLogger;
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
 import org.jboss.marshalling.MarshallingConfiguration;
 import org.jboss.marshalling.Unmarshaller;
 
 /**
+ * Marshalling context whose {@link #marshal(Object)} and {@link #unmarshal(byte[])} reuse, per thread, the marshallers and unmarshallers
+ * of each version, as well as the output buffer.
+ * Reused instances are taken out of their thread's cache while in use, so that nested operations get instances of their own.
+ * The caches are owned by the context, and only weakly referenced by their threads, so that they do not outlive the context, nor the class loader of its deployment.
  * @author Paul Ferraro
  */
 public class SimpleMarshallingContext implements MarshallingContext {
@@ -38,6 +50,9 @@ public class SimpleMarshallingContext implements MarshallingContext {
     private final MarshallerFactory factory;
     private final VersionedMarshallingConfiguration configuration;
     private final WeakReference<ClassLoader> loader;
+    // Idle marshallers and unmarshallers of each thread, guarded by itself
+    private final Map<Thread, Cache> caches = new WeakHashMap<>();
+    private final ThreadLocal<Reference<Cache>> cache = new ThreadLocal<>();
 
     public SimpleMarshallingContext(MarshallerFactory factory, VersionedMarshallingConfiguration configuration, ClassLoader loader) {
         this.factory = factory;
@@ -65,7 +80,94 @@ public class SimpleMarshallingContext implements MarshallingContext {
         return this.factory.createMarshaller(this.getMarshallingConfiguration(version));
     }
 
+    @Override
+    public byte[] marshal(Object object) throws IOException {
+        MarshallingBuffer buffer = this.marshalToBuffer(object);
+        try {
+            return buffer.toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public void marshal(Object object, DataOutput output) throws IOException {
+        MarshallingBuffer buffer = this.marshalToBuffer(object);
+        try {
+            buffer.writeTo(output);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Marshals the specified object, preceded by the current version, into a buffer, which the caller must release.
+     */
+    private MarshallingBuffer marshalToBuffer(Object object) throws IOException {
+        int version = this.getCurrentVersion();
+        Map<Integer, Marshaller> marshallers = this.getCache().marshallers;
+        Marshaller marshaller = marshallers.remove(version);
+        if (marshaller == null) {
+            marshaller = this.createMarshaller(version);
+        }
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(object.getClass());
+        boolean marshalled = false;
+        try {
+            buffer.writeInt(version);
+            marshaller.start(buffer);
+            marshaller.writeObject(object);
+            marshaller.finish();
+            // Only reuse a marshaller that completed normally, its state is unknown otherwise
+            marshaller.clearClassCache();
+            marshallers.put(version, marshaller);
+            marshalled = true;
+            return buffer;
+        } finally {
+            if (!marshalled) {
+                buffer.release();
+            }
+        }
+    }
+
+    @Override
+    public Object unmarshal(byte[] bytes) throws IOException, ClassNotFoundException {
+        if (bytes.length < 4) {
+            throw ClusteringLogger.ROOT_LOGGER.truncatedMarshalledForm(bytes.length);
+        }
+        int version = ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+        Map<Integer, Unmarshaller> unmarshallers = this.getCache().unmarshallers;
+        Unmarshaller unmarshaller = unmarshallers.remove(version);
+        if (unmarshaller == null) {
+            unmarshaller = this.createUnmarshaller(version);
+        }
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes, 4, bytes.length - 4)));
+        Object object = unmarshaller.readObject();
+        unmarshaller.finish();
+        unmarshaller.clearClassCache();
+        unmarshallers.put(version, unmarshaller);
+        return object;
+    }
+
     private MarshallingConfiguration getMarshallingConfiguration(int version) {
         return this.configuration.getMarshallingConfiguration(version);
     }
+
+    private Cache getCache() {
+        Reference<Cache> reference = this.cache.get();
+        Cache cache = (reference != null) ? reference.get() : null;
+        if (cache == null) {
+            cache = new Cache();
+            synchronized (this.caches) {
+                this.caches.put(Thread.currentThread(), cache);
+            }
+            this.cache.set(new WeakReference<>(cache));
+        }
+        return cache;
+    }
+
+    private static class Cache {
+        // Idle marshallers and unmarshallers, per version
+        final Map<Integer, Marshaller> marshallers = new HashMap<>();
+        final Map<Integer, Unmarshaller> unmarshallers = new HashMap<>();
+    }
 }
@@ -0,0 +1,197 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.clustering.marshalling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.SimpleDataOutput;
+
+/**
+ * Measures the latency and the allocation per marshalling of a {@link SimpleMarshalledValue}, for typical session payloads,
+ * compared to creating a marshaller and a growable output stream per marshalling.
+ * Also measures {@link SimpleMarshalledValue#writeExternal(java.io.ObjectOutput)}, as called for each replicated write,
+ * compared to writing the result of {@link SimpleMarshalledValue#getBytes()}: the bytes copied per write by the marshalled value,
+ * once from the marshalling buffer into the output instead of twice via an intermediate array, and the allocation per write.
+ * Not a test, run it with {@code main}.
+ */
+public class SimpleMarshalledValueBenchmark {
+
+    private static final int ITERATIONS = 100000;
+
+    public static void main(String... args) throws Exception {
+        VersionedMarshallingConfiguration configuration = new VersionedMarshallingConfiguration() {
+            @Override
+            public int getCurrentMarshallingVersion() {
+                return 1;
+            }
+
+            @Override
+            public MarshallingConfiguration getMarshallingConfiguration(int version) {
+                return new MarshallingConfiguration();
+            }
+        };
+        MarshallingContext context = new SimpleMarshallingContext(Marshalling.getMarshallerFactory("river", Marshalling.class.getClassLoader()), configuration, Thread.currentThread().getContextClassLoader());
+
+        Map<String, Object> payloads = new HashMap<>();
+        payloads.put("small session (5 attributes)", session(5, 0));
+        payloads.put("medium session (shopping cart of 50 items)", session(5, 50));
+        payloads.put("large session (32 KiB attribute)", largeSession());
+
+        for (int round = 0; round < 3; round++) {
+            for (Map.Entry<String, Object> payload : payloads.entrySet()) {
+                run(payload.getKey() + ", pooled", context, payload.getValue(), false);
+                run(payload.getKey() + ", unpooled", context, payload.getValue(), true);
+                externalize(payload.getKey() + ", writeExternal", context, payload.getValue(), false);
+                externalize(payload.getKey() + ", write(getBytes())", context, payload.getValue(), true);
+            }
+        }
+    }
+
+    private static void run(String name, MarshallingContext context, Object payload, boolean unpooled) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long size = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            byte[] bytes = unpooled ? marshal(context, payload) : new SimpleMarshalledValue<>(payload, context).getBytes();
+            size += bytes.length;
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+        System.out.printf("%s: %d bytes, %d ns/op, %d bytes allocated/op%n", name, size / ITERATIONS, elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    private static void externalize(String name, MarshallingContext context, Object payload, boolean copy) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        ObjectOutputStream output = new ObjectOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        SimpleMarshalledValue<Object> value = new SimpleMarshalledValue<>(payload, context);
+        long copied = 0;
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (copy) {
+                byte[] bytes = value.getBytes();
+                output.writeInt(bytes.length);
+                output.write(bytes);
+                copied += 2 * bytes.length;
+            } else {
+                value.writeExternal(output);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+        if (!copy) {
+            copied = ITERATIONS * (long) value.getBytes().length;
+        }
+        System.out.printf("%s: %d bytes copied/op, %d ns/op, %d bytes allocated/op%n", name, copied / ITERATIONS, elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    /**
+     * Marshalling as done by {@link SimpleMarshalledValue} before the context reused buffers and marshallers.
+     */
+    private static byte[] marshal(MarshallingContext context, Object object) throws IOException {
+        int version = context.getCurrentVersion();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
+            data.writeInt(version);
+            try (Marshaller marshaller = context.createMarshaller(version)) {
+                marshaller.start(data);
+                marshaller.writeObject(object);
+                marshaller.finish();
+                return output.toByteArray();
+            }
+        }
+    }
+
+    private static Map<String, Object> session(int attributes, int items) {
+        Map<String, Object> session = new HashMap<>();
+        for (int i = 0; i < attributes; i++) {
+            session.put("attribute" + i, "value" + i);
+        }
+        session.put("user", new User(UUID.randomUUID(), "user@example.com", new Date()));
+        if (items > 0) {
+            List<Item> cart = new ArrayList<>(items);
+            for (int i = 0; i < items; i++) {
+                cart.add(new Item("sku-" + i, i % 3 + 1, 9.99 * i));
+            }
+            session.put("cart", cart);
+        }
+        return session;
+    }
+
+    private static Map<String, Object> largeSession() {
+        Map<String, Object> session = session(5, 0);
+        session.put("document", new byte[32 * 1024]);
+        return session;
+    }
+
+    static class User implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final UUID id;
+        final String email;
+        final Date login;
+
+        User(UUID id, String email, Date login) {
+            this.id = id;
+            this.email = email;
+            this.login = login;
+        }
+    }
+
+    static class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String sku;
+        final int quantity;
+        final double price;
+
+        Item(String sku, int quantity, double price) {
+            this.sku = sku;
+            this.quantity = quantity;
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.clustering.marshalling;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jboss.marshalling.ClassTable;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.SimpleDataInput;
+import org.jboss.marshalling.SimpleDataOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SimpleMarshallingContext#marshal(Object)} and {@link SimpleMarshallingContext#unmarshal(byte[])}.
+ */
+public class SimpleMarshallingContextTestCase {
+    private static final int VERSION = 1;
+
+    private final MarshallingContext context = createMarshallingContext(null);
+
+    private static MarshallingContext createMarshallingContext(final ClassTable classTable) {
+        VersionedMarshallingConfiguration configuration = new VersionedMarshallingConfiguration() {
+            @Override
+            public int getCurrentMarshallingVersion() {
+                return VERSION;
+            }
+
+            @Override
+            public MarshallingConfiguration getMarshallingConfiguration(int version) {
+                assertEquals(VERSION, version);
+                MarshallingConfiguration configuration = new MarshallingConfiguration();
+                configuration.setClassTable(classTable);
+                return configuration;
+            }
+        };
+        return new SimpleMarshallingContext(Marshalling.getMarshallerFactory("river", Marshalling.class.getClassLoader()), configuration, Thread.currentThread().getContextClassLoader());
+    }
+
+    @Test
+    public void reuse() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", UUID.randomUUID());
+        map.put("name", "value");
+
+        byte[] bytes = this.context.marshal(map);
+        // A reused marshaller must not refer to objects or classes written by a previous operation
+        assertArrayEquals(bytes, this.context.marshal(map));
+        assertEquals(map, this.context.unmarshal(bytes));
+        assertEquals(map, this.context.unmarshal(bytes));
+
+        byte[] large = new byte[MarshallingBuffer.MAX_RETAINED_SIZE * 2];
+        Arrays.fill(large, (byte) 1);
+        assertArrayEquals(large, (byte[]) this.context.unmarshal(this.context.marshal(large)));
+        assertEquals(map, this.context.unmarshal(this.context.marshal(map)));
+    }
+
+    @Test
+    public void marshalToOutput() throws Exception {
+        UUID id = UUID.randomUUID();
+        byte[] bytes = this.context.marshal(id);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(output)) {
+            this.context.marshal(id, data);
+        }
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            assertEquals(bytes.length, data.readInt());
+            byte[] written = new byte[bytes.length];
+            data.readFully(written);
+            assertArrayEquals(bytes, written);
+            assertEquals(-1, data.read());
+        }
+    }
+
+    @Test
+    public void nested() throws Exception {
+        UUID id = UUID.randomUUID();
+        Wrapper wrapper = new Wrapper(new SimpleMarshalledValue<>(id, this.context));
+
+        Wrapper result = (Wrapper) this.context.unmarshal(this.context.marshal(wrapper));
+
+        assertEquals(id, result.value.get(this.context));
+    }
+
+    @Test
+    public void compatibility() throws Exception {
+        UUID id = UUID.randomUUID();
+
+        // Form written by previous releases
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
+            data.writeInt(VERSION);
+            try (Marshaller marshaller = this.context.createMarshaller(VERSION)) {
+                marshaller.start(data);
+                marshaller.writeObject(id);
+                marshaller.finish();
+            }
+        }
+        assertArrayEquals(output.toByteArray(), this.context.marshal(id));
+        assertEquals(id, this.context.unmarshal(output.toByteArray()));
+
+        try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(new ByteArrayInputStream(this.context.marshal(id))))) {
+            assertEquals(VERSION, data.readInt());
+            try (Unmarshaller unmarshaller = this.context.createUnmarshaller(VERSION)) {
+                unmarshaller.start(data);
+                assertEquals(id, unmarshaller.readObject());
+                unmarshaller.finish();
+            }
+        }
+    }
+
+    @Test
+    public void truncated() throws Exception {
+        for (int length = 0; length < 4; ++length) {
+            try {
+                this.context.unmarshal(new byte[length]);
+                fail(Integer.toString(length));
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void release() throws Exception {
+        ClassTable classTable = new SimpleClassTable(UUID.class);
+        Reference<ClassTable> reference = new WeakReference<>(classTable);
+        MarshallingContext context = createMarshallingContext(classTable);
+        classTable = null;
+        UUID id = UUID.randomUUID();
+        assertEquals(id, context.unmarshal(context.marshal(id)));
+        context = null;
+
+        // The marshallers and unmarshallers cached by this thread, and the configuration they use, must not outlive their context
+        for (int i = 0; (reference.get() != null) && (i < 100); ++i) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    /**
+     * Marshals a marshalled value, which marshals its own object while the outer marshaller is in use.
+     */
+    public static class Wrapper implements Externalizable {
+        SimpleMarshalledValue<UUID> value;
+
+        public Wrapper() {
+        }
+
+        Wrapper(SimpleMarshalledValue<UUID> value) {
+            this.value = value;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            this.value.writeExternal(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            this.value = new SimpleMarshalledValue<>();
+            this.value.readExternal(in);
+        }
+    }
+}
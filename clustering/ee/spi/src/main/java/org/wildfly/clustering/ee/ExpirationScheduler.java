@@ -0,0 +1,58 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ee;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules keys for expiration.
+ * @param <K> the key type
+ */
+public interface ExpirationScheduler<K> extends AutoCloseable {
+    /**
+     * Schedules the specified key to expire after the specified delay, replacing any previous expiration of the key.
+     * @param key a key
+     * @param delay the time after which the key expires
+     * @param unit the unit of the delay
+     */
+    void schedule(K key, long delay, TimeUnit unit);
+
+    /**
+     * Cancels the expiration of the specified key.
+     * @param key a key
+     * @return true, if the expiration was cancelled, false if the key was not scheduled or already expired
+     */
+    boolean cancel(K key);
+
+    /**
+     * Returns the keys currently scheduled for expiration.
+     * @return a read-only view of the scheduled keys
+     */
+    Set<K> getKeys();
+
+    /**
+     * Cancels the expiration of all keys. Keys scheduled afterwards are ignored.
+     */
+    @Override
+    void close();
+}
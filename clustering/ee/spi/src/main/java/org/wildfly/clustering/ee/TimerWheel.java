@@ -0,0 +1,394 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ee;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timer wheel that expires the keys of any number of {@link ExpirationScheduler}s using a single thread.
+ * Scheduling and cancelling a key only enqueues it, so both are O(1) and never contend with each other;
+ * the thread of the wheel moves the enqueued timeouts into the buckets of the wheel on its next tick.
+ * All keys of a scheduler that expire within the same tick are passed to its {@link ExpirationListener} at once, using the executor of the scheduler.
+ * The thread of the wheel is only running while at least one scheduler is open.
+ */
+public class TimerWheel {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    // With the default tick, 4 levels of 64 buckets span about 19 days, keys expiring later are parked in the top level
+    private static final int LEVELS = 4;
+    private static final long DEFAULT_TICK = 100;
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable task) {
+            return AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+                @Override
+                public Thread run() {
+                    Thread thread = new Thread(task, TimerWheel.class.getSimpleName());
+                    thread.setDaemon(true);
+                    // Don't pin the class loader of whichever deployment happened to schedule first
+                    thread.setContextClassLoader(null);
+                    return thread;
+                }
+            });
+        }
+    };
+
+    private static final TimerWheel INSTANCE = new TimerWheel(DEFAULT_TICK, TimeUnit.MILLISECONDS);
+
+    /**
+     * Returns the timer wheel shared by all expiration schedulers of this server, which ticks every 100 ms.
+     * @return a shared timer wheel
+     */
+    public static TimerWheel getInstance() {
+        return INSTANCE;
+    }
+
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final ThreadFactory factory;
+    private final Queue<Timeout<?>> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<?>> cancelled = new ConcurrentLinkedQueue<>();
+
+    // Guarded by this
+    private int schedulers = 0;
+    private Thread ticker = null;
+
+    // Only accessed by the thread of the wheel
+    private final Bucket[][] buckets = new Bucket[LEVELS][WHEEL_SIZE];
+    private final List<Scheduler<?>> expiring = new ArrayList<>();
+    private long tick = 0;
+
+    public TimerWheel(long tick, TimeUnit unit) {
+        this(tick, unit, THREAD_FACTORY);
+    }
+
+    public TimerWheel(long tick, TimeUnit unit, ThreadFactory factory) {
+        this.tickNanos = unit.toNanos(tick);
+        if (this.tickNanos <= 0) {
+            throw new IllegalArgumentException(Long.toString(tick));
+        }
+        this.factory = factory;
+        for (Bucket[] level: this.buckets) {
+            for (int i = 0; i < level.length; ++i) {
+                level[i] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Creates a scheduler whose keys expire on this wheel.
+     * @param listener the listener notified of expired keys
+     * @param executor the executor used to notify the listener
+     * @return a new expiration scheduler, which must be closed when no longer needed
+     */
+    public <K> ExpirationScheduler<K> createScheduler(ExpirationListener<K> listener, Executor executor) {
+        Scheduler<K> scheduler = new Scheduler<>(listener, executor);
+        synchronized (this) {
+            this.schedulers += 1;
+            if (this.ticker == null) {
+                this.ticker = this.factory.newThread(new Ticker());
+                this.ticker.start();
+            }
+        }
+        return scheduler;
+    }
+
+    synchronized void unregister() {
+        this.schedulers -= 1;
+    }
+
+    long currentTick() {
+        return (System.nanoTime() - this.origin) / this.tickNanos;
+    }
+
+    long deadline(long delay, TimeUnit unit) {
+        // Round up, so that a key never expires early
+        long nanos = Math.min(Math.max(unit.toNanos(delay), 0L), Long.MAX_VALUE / 2);
+        return (System.nanoTime() - this.origin + nanos + this.tickNanos - 1) / this.tickNanos;
+    }
+
+    boolean cancel(Timeout<?> timeout) {
+        if (timeout.transition(Timeout.PENDING, Timeout.CANCELLED)) {
+            this.cancelled.add(timeout);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Processes all ticks up to the specified tick and notifies the listeners of the expired keys.
+     * Only invoked by the thread of the wheel.
+     */
+    void advance(long target) {
+        Timeout<?> timeout = this.cancelled.poll();
+        while (timeout != null) {
+            timeout.unlink();
+            timeout = this.cancelled.poll();
+        }
+        timeout = this.scheduled.poll();
+        while (timeout != null) {
+            if (timeout.state == Timeout.PENDING) {
+                this.insert(timeout);
+            }
+            timeout = this.scheduled.poll();
+        }
+        while (this.tick < target) {
+            long tick = ++this.tick;
+            this.cascade(tick);
+            Bucket bucket = this.buckets[0][(int) (tick & WHEEL_MASK)];
+            timeout = bucket.poll();
+            while (timeout != null) {
+                this.expire(timeout);
+                timeout = bucket.poll();
+            }
+        }
+        this.dispatch();
+    }
+
+    private void cascade(long tick) {
+        for (int level = 1; level < LEVELS; ++level) {
+            int shift = level * WHEEL_BITS;
+            if ((tick & ((1L << shift) - 1)) != 0) return;
+            // The timeouts of this bucket are now within the span of the lower levels
+            Bucket bucket = this.buckets[level][(int) ((tick >>> shift) & WHEEL_MASK)];
+            Timeout<?> timeout = bucket.poll();
+            while (timeout != null) {
+                this.insert(timeout);
+                timeout = bucket.poll();
+            }
+        }
+    }
+
+    private void insert(Timeout<?> timeout) {
+        long delta = timeout.deadline - this.tick;
+        if (delta <= 0) {
+            this.expire(timeout);
+            return;
+        }
+        for (int level = 0; level < LEVELS; ++level) {
+            if (delta < (1L << ((level + 1) * WHEEL_BITS))) {
+                this.buckets[level][(int) ((timeout.deadline >>> (level * WHEEL_BITS)) & WHEEL_MASK)].add(timeout);
+                return;
+            }
+        }
+        // Beyond the span of the wheel, park in the top level bucket processed last
+        int shift = (LEVELS - 1) * WHEEL_BITS;
+        this.buckets[LEVELS - 1][(int) (((this.tick >>> shift) + WHEEL_MASK) & WHEEL_MASK)].add(timeout);
+    }
+
+    private <K> void expire(Timeout<K> timeout) {
+        if (timeout.transition(Timeout.PENDING, Timeout.EXPIRED)) {
+            Scheduler<K> scheduler = timeout.scheduler;
+            scheduler.timeouts.remove(timeout.key, timeout);
+            if (scheduler.expired == null) {
+                scheduler.expired = new ArrayList<>();
+                this.expiring.add(scheduler);
+            }
+            scheduler.expired.add(timeout.key);
+        }
+    }
+
+    private void dispatch() {
+        for (Scheduler<?> scheduler: this.expiring) {
+            scheduler.dispatch();
+        }
+        this.expiring.clear();
+    }
+
+    private void clear() {
+        for (Bucket[] level: this.buckets) {
+            for (Bucket bucket: level) {
+                bucket.clear();
+            }
+        }
+        this.scheduled.clear();
+        this.cancelled.clear();
+    }
+
+    private class Ticker implements Runnable {
+        @Override
+        public void run() {
+            TimerWheel wheel = TimerWheel.this;
+            wheel.tick = wheel.currentTick();
+            while (true) {
+                synchronized (wheel) {
+                    if (wheel.schedulers == 0) {
+                        // All timeouts left belong to closed schedulers
+                        wheel.clear();
+                        wheel.ticker = null;
+                        return;
+                    }
+                }
+                wheel.advance(wheel.currentTick());
+                LockSupport.parkNanos(this, wheel.tickNanos - ((System.nanoTime() - wheel.origin) % wheel.tickNanos));
+            }
+        }
+    }
+
+    private class Scheduler<K> implements ExpirationScheduler<K> {
+        final ConcurrentMap<K, Timeout<K>> timeouts = new ConcurrentHashMap<>();
+        private final ExpirationListener<K> listener;
+        private final Executor executor;
+        private volatile boolean closed = false;
+        // Only accessed by the thread of the wheel
+        List<K> expired = null;
+
+        Scheduler(ExpirationListener<K> listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        @Override
+        public void schedule(K key, long delay, TimeUnit unit) {
+            if (this.closed) return;
+            Timeout<K> timeout = new Timeout<>(this, key, TimerWheel.this.deadline(delay, unit));
+            Timeout<K> previous = this.timeouts.put(key, timeout);
+            if (previous != null) {
+                TimerWheel.this.cancel(previous);
+            }
+            TimerWheel.this.scheduled.add(timeout);
+        }
+
+        @Override
+        public boolean cancel(K key) {
+            Timeout<K> timeout = this.timeouts.remove(key);
+            return (timeout != null) && TimerWheel.this.cancel(timeout);
+        }
+
+        @Override
+        public Set<K> getKeys() {
+            return Collections.unmodifiableSet(this.timeouts.keySet());
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (this.closed) return;
+                this.closed = true;
+            }
+            for (K key: this.timeouts.keySet()) {
+                this.cancel(key);
+            }
+            TimerWheel.this.unregister();
+        }
+
+        void dispatch() {
+            final List<K> keys = this.expired;
+            this.expired = null;
+            if (this.closed) return;
+            try {
+                this.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Scheduler.this.listener.expired(keys);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The executor is shutting down, along with whatever owns the expiring objects
+            }
+        }
+    }
+
+    static class Timeout<K> {
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        final Scheduler<K> scheduler;
+        final K key;
+        final long deadline;
+        volatile int state = PENDING;
+        // Only accessed by the thread of the wheel
+        Timeout<?> previous;
+        Timeout<?> next;
+
+        Timeout(Scheduler<K> scheduler, K key, long deadline) {
+            this.scheduler = scheduler;
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        boolean transition(int expected, int state) {
+            return STATE.compareAndSet(this, expected, state);
+        }
+
+        void unlink() {
+            if (this.previous != null) {
+                this.previous.next = this.next;
+                this.next.previous = this.previous;
+                this.previous = null;
+                this.next = null;
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, so that a cancelled timeout can be removed in constant time.
+     */
+    private static class Bucket {
+        private final Timeout<?> head = new Timeout<>(null, null, 0);
+
+        Bucket() {
+            this.clear();
+        }
+
+        void add(Timeout<?> timeout) {
+            Timeout<?> last = this.head.previous;
+            timeout.previous = last;
+            timeout.next = this.head;
+            last.next = timeout;
+            this.head.previous = timeout;
+        }
+
+        Timeout<?> poll() {
+            Timeout<?> first = this.head.next;
+            if (first == this.head) return null;
+            first.unlink();
+            return first;
+        }
+
+        void clear() {
+            this.head.previous = this.head;
+            this.head.next = this.head;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ee;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TimerWheelTestCase {
+
+    static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    };
+
+    // Creates threads that never tick, so that the test can advance the wheel itself
+    static final ThreadFactory IDLE_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable task) {
+            return new Thread();
+        }
+    };
+
+    static class RecordingListener<K> implements ExpirationListener<K> {
+        final List<Collection<K>> batches = new ArrayList<>();
+        final List<K> expired = new ArrayList<>();
+
+        @Override
+        public void expired(Collection<K> keys) {
+            this.batches.add(keys);
+            this.expired.addAll(keys);
+        }
+    }
+
+    @Test
+    public void levels() {
+        // Minute long ticks, so that the test never crosses a tick in real time
+        TimerWheel wheel = new TimerWheel(1, TimeUnit.MINUTES, IDLE_THREAD_FACTORY);
+        RecordingListener<Long> listener = new RecordingListener<>();
+        try (ExpirationScheduler<Long> scheduler = wheel.createScheduler(listener, DIRECT_EXECUTOR)) {
+            // Spans every level, including a delay beyond the span of the wheel
+            long[] delays = new long[] { 0, 1, 62, 63, 64, 100, 4095, 4096, 5000, 262143, 262144, 300000, 16777215, 16777216, 20000000 };
+            for (long delay: delays) {
+                scheduler.schedule(delay, delay, TimeUnit.MINUTES);
+            }
+            assertEquals(delays.length, scheduler.getKeys().size());
+            for (long delay: delays) {
+                // The deadline is rounded up to the next tick
+                long deadline = delay + 1;
+                wheel.advance(deadline - 1);
+                assertFalse(Long.toString(delay), listener.expired.contains(delay));
+                wheel.advance(deadline);
+                assertTrue(Long.toString(delay), listener.expired.contains(delay));
+                assertFalse(scheduler.getKeys().contains(delay));
+            }
+            assertEquals(delays.length, listener.expired.size());
+        }
+    }
+
+    @Test
+    public void batch() {
+        TimerWheel wheel = new TimerWheel(1, TimeUnit.MINUTES, IDLE_THREAD_FACTORY);
+        RecordingListener<String> listener = new RecordingListener<>();
+        try (ExpirationScheduler<String> scheduler = wheel.createScheduler(listener, DIRECT_EXECUTOR)) {
+            scheduler.schedule("a", 10, TimeUnit.MINUTES);
+            scheduler.schedule("b", 10, TimeUnit.MINUTES);
+            scheduler.schedule("c", 10, TimeUnit.MINUTES);
+            scheduler.schedule("d", 20, TimeUnit.MINUTES);
+
+            wheel.advance(11);
+            assertEquals(1, listener.batches.size());
+            assertEquals(3, listener.batches.get(0).size());
+
+            wheel.advance(21);
+            assertEquals(2, listener.batches.size());
+        }
+    }
+
+    @Test
+    public void cancel() {
+        TimerWheel wheel = new TimerWheel(1, TimeUnit.MINUTES, IDLE_THREAD_FACTORY);
+        RecordingListener<String> listener = new RecordingListener<>();
+        try (ExpirationScheduler<String> scheduler = wheel.createScheduler(listener, DIRECT_EXECUTOR)) {
+            scheduler.schedule("cancelled", 10, TimeUnit.MINUTES);
+            scheduler.schedule("rescheduled", 10, TimeUnit.MINUTES);
+            scheduler.schedule("expiring", 10, TimeUnit.MINUTES);
+            // Cancel both before and after the timeout was moved into the wheel
+            assertTrue(scheduler.cancel("cancelled"));
+            wheel.advance(5);
+            scheduler.schedule("rescheduled", 100, TimeUnit.MINUTES);
+            assertFalse(scheduler.cancel("unknown"));
+
+            wheel.advance(11);
+            assertEquals(1, listener.expired.size());
+            assertEquals("expiring", listener.expired.get(0));
+            assertFalse(scheduler.cancel("expiring"));
+
+            wheel.advance(200);
+            assertEquals(2, listener.expired.size());
+            assertEquals("rescheduled", listener.expired.get(1));
+        }
+    }
+
+    @Test
+    public void close() {
+        TimerWheel wheel = new TimerWheel(1, TimeUnit.MINUTES, IDLE_THREAD_FACTORY);
+        RecordingListener<String> listener = new RecordingListener<>();
+        ExpirationScheduler<String> scheduler = wheel.createScheduler(listener, DIRECT_EXECUTOR);
+        scheduler.schedule("key", 10, TimeUnit.MINUTES);
+        scheduler.close();
+        scheduler.schedule("ignored", 1, TimeUnit.MINUTES);
+
+        wheel.advance(20);
+        assertTrue(listener.expired.isEmpty());
+        assertTrue(scheduler.getKeys().isEmpty());
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(1, TimeUnit.MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(2);
+        ExpirationListener<String> listener = new ExpirationListener<String>() {
+            @Override
+            public void expired(Collection<String> keys) {
+                for (int i = 0; i < keys.size(); ++i) {
+                    latch.countDown();
+                }
+            }
+        };
+        try (ExpirationScheduler<String> first = wheel.createScheduler(listener, DIRECT_EXECUTOR)) {
+            try (ExpirationScheduler<String> second = wheel.createScheduler(listener, DIRECT_EXECUTOR)) {
+                long start = System.nanoTime();
+                first.schedule("first", 50, TimeUnit.MILLISECONDS);
+                second.schedule("second", 100, TimeUnit.MILLISECONDS);
+                assertTrue(latch.await(10, TimeUnit.SECONDS));
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            }
+        }
+    }
+}
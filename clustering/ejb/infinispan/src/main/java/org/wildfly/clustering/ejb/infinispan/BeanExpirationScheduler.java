@@ -21,21 +21,22 @@
  */
 package org.wildfly.clustering.ejb.infinispan;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.clustering.infinispan.distribution.Locality;
 import org.wildfly.clustering.ee.Batch;
 import org.wildfly.clustering.ee.Batcher;
+import org.wildfly.clustering.ee.ExpirationListener;
+import org.wildfly.clustering.ee.ExpirationScheduler;
+import org.wildfly.clustering.ee.TimerWheel;
 import org.wildfly.clustering.ee.infinispan.TransactionBatch;
 import org.wildfly.clustering.ejb.Time;
 import org.wildfly.clustering.ejb.infinispan.logging.InfinispanEjbLogger;
 
 /**
  * Schedules a bean for expiration.
+ * Expiration is tracked by the shared {@link TimerWheel}, while expired beans are removed by the executor of the expiration configuration.
  *
  * @author Paul Ferraro
  *
@@ -43,16 +44,24 @@ import org.wildfly.clustering.ejb.infinispan.logging.InfinispanEjbLogger;
  * @param <I> the bean identifier type
  * @param <T> the bean type
  */
-public class BeanExpirationScheduler<G, I, T> implements Scheduler<I> {
-    final Map<I, Future<?>> expirationFutures = new ConcurrentHashMap<>();
+public class BeanExpirationScheduler<G, I, T> implements Scheduler<I>, ExpirationListener<I> {
     final Batcher<TransactionBatch> batcher;
     final BeanRemover<I, T> remover;
     final ExpirationConfiguration<T> expiration;
+    private final ExpirationScheduler<I> scheduler;
+    private volatile boolean closed = false;
+    // Number of expirations running on the shared executor, guarded by this
+    private int expiring = 0;
 
     public BeanExpirationScheduler(Batcher<TransactionBatch> batcher, BeanRemover<I, T> remover, ExpirationConfiguration<T> expiration) {
+        this(batcher, remover, expiration, TimerWheel.getInstance());
+    }
+
+    public BeanExpirationScheduler(Batcher<TransactionBatch> batcher, BeanRemover<I, T> remover, ExpirationConfiguration<T> expiration, TimerWheel wheel) {
         this.batcher = batcher;
         this.remover = remover;
         this.expiration = expiration;
+        this.scheduler = wheel.createScheduler(this, expiration.getExecutor());
     }
 
     @Override
@@ -62,25 +71,18 @@ public class BeanExpirationScheduler<G, I, T> implements Scheduler<I> {
         if (value >= 0) {
             TimeUnit unit = timeout.getUnit();
             InfinispanEjbLogger.ROOT_LOGGER.tracef("Scheduling stateful session bean %s to expire in %d %s", id, value, unit);
-            Runnable task = new ExpirationTask(id);
-            // Make sure the expiration future map insertion happens before map removal (during task execution).
-            synchronized (task) {
-                this.expirationFutures.put(id, this.expiration.getExecutor().schedule(task, value, unit));
-            }
+            this.scheduler.schedule(id, value, unit);
         }
     }
 
     @Override
     public void cancel(I id) {
-        Future<?> future = this.expirationFutures.remove(id);
-        if (future != null) {
-            future.cancel(false);
-        }
+        this.scheduler.cancel(id);
     }
 
     @Override
     public void cancel(Locality locality) {
-        for (I id: this.expirationFutures.keySet()) {
+        for (I id: this.scheduler.getKeys()) {
             if (!locality.isLocal(id)) {
                 this.cancel(id);
             }
@@ -89,53 +91,58 @@ public class BeanExpirationScheduler<G, I, T> implements Scheduler<I> {
 
     @Override
     public void close() {
-        for (Future<?> future: this.expirationFutures.values()) {
-            future.cancel(false);
+        synchronized (this) {
+            this.closed = true;
         }
-        for (Future<?> future: this.expirationFutures.values()) {
-            if (!future.isDone()) {
-                try {
-                    future.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                    // Ignore
+        this.scheduler.close();
+        // The executor is shared, so wait for the expirations already running instead of shutting it down
+        synchronized (this) {
+            try {
+                while (this.expiring > 0) {
+                    this.wait();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
-        this.expirationFutures.clear();
     }
 
-    private class ExpirationTask implements Runnable {
-        private final I id;
-
-        public ExpirationTask(I id) {
-            this.id = id;
+    @Override
+    public void expired(Collection<I> ids) {
+        synchronized (this) {
+            if (this.closed) return;
+            this.expiring += 1;
         }
-
-        @Override
-        public void run() {
-            InfinispanEjbLogger.ROOT_LOGGER.tracef("Expiring stateful session bean %s", this.id);
-            try {
-                Batch batch = BeanExpirationScheduler.this.batcher.createBatch();
-                boolean success = false;
-                try {
-                    BeanExpirationScheduler.this.remover.remove(this.id, BeanExpirationScheduler.this.expiration.getRemoveListener());
-                    success = true;
-                } catch (Throwable e) {
-                    InfinispanEjbLogger.ROOT_LOGGER.failedToExpireBean(e, this.id);
-                } finally {
-                    if (success) {
-                        batch.close();
-                    } else {
-                        batch.discard();
-                    }
-                }
-            } finally {
-                synchronized (this) {
-                    BeanExpirationScheduler.this.expirationFutures.remove(this.id);
+        try {
+            for (I id: ids) {
+                if (this.closed) return;
+                this.expire(id);
+            }
+        } finally {
+            synchronized (this) {
+                this.expiring -= 1;
+                if (this.expiring == 0) {
+                    this.notifyAll();
                 }
             }
         }
     }
+
+    private void expire(I id) {
+        InfinispanEjbLogger.ROOT_LOGGER.tracef("Expiring stateful session bean %s", id);
+        Batch batch = this.batcher.createBatch();
+        boolean success = false;
+        try {
+            this.remover.remove(id, this.expiration.getRemoveListener());
+            success = true;
+        } catch (Throwable e) {
+            InfinispanEjbLogger.ROOT_LOGGER.failedToExpireBean(e, id);
+        } finally {
+            if (success) {
+                batch.close();
+            } else {
+                batch.discard();
+            }
+        }
+    }
 }
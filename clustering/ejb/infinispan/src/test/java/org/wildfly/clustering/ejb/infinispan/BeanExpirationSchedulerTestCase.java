@@ -21,15 +21,21 @@
  */
 package org.wildfly.clustering.ejb.infinispan;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.wildfly.clustering.ee.Batcher;
 import org.wildfly.clustering.ee.infinispan.TransactionBatch;
 import org.wildfly.clustering.ejb.RemoveListener;
@@ -110,4 +116,50 @@ public class BeanExpirationSchedulerTestCase {
         verify(remover, never()).remove(beanId, listener);
         verify(batcher, never()).createBatch();
     }
+
+    @Test
+    public void testCloseWaitsForExpiration() throws InterruptedException {
+        Batcher<TransactionBatch> batcher = mock(Batcher.class);
+        TransactionBatch batch = mock(TransactionBatch.class);
+        BeanRemover<String, Object> remover = mock(BeanRemover.class);
+        ExpirationConfiguration<Object> config = mock(ExpirationConfiguration.class);
+        RemoveListener<Object> listener = mock(RemoveListener.class);
+        String beanId = "expiring";
+        final CountDownLatch removing = new CountDownLatch(1);
+        final CountDownLatch removed = new CountDownLatch(1);
+
+        when(config.getExecutor()).thenReturn(Executors.newSingleThreadScheduledExecutor());
+        when(batcher.createBatch()).thenReturn(batch);
+        when(config.getTimeout()).thenReturn(new Time(1, TimeUnit.MILLISECONDS));
+        when(config.getRemoveListener()).thenReturn(listener);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws InterruptedException {
+                removing.countDown();
+                removed.await();
+                return null;
+            }
+        }).when(remover).remove(beanId, listener);
+
+        final Scheduler<String> scheduler = new BeanExpirationScheduler<>(batcher, remover, config);
+        scheduler.schedule(beanId);
+        assertTrue(removing.await(10, TimeUnit.SECONDS));
+
+        Thread closer = new Thread() {
+            @Override
+            public void run() {
+                scheduler.close();
+            }
+        };
+        closer.start();
+        // The expiration already running on the shared executor completes before the scheduler is closed
+        closer.join(100);
+        assertTrue(closer.isAlive());
+        verify(batch, never()).close();
+
+        removed.countDown();
+        closer.join(10000);
+        assertFalse(closer.isAlive());
+        verify(batch).close();
+    }
 }
@@ -0,0 +1,317 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.server.logging.ClusteringServerLogger;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
+
+/**
+ * {@link CommandDispatcher} decorator that coalesces the commands sent to the same remote node within a window into a single {@link CommandBatch}.
+ * The first command for a node opens a batch, which is sent once the window elapsed, or as soon as it holds the maximum number of commands.
+ * The result of each command is then extracted from the results of its batch.
+ * Commands sent to the local node, and commands sent to the whole cluster, are not batched.
+ * @param <C> command context
+ */
+public class BatchingCommandDispatcher<C> implements CommandDispatcher<C> {
+
+    private final CommandDispatcher<C> dispatcher;
+    private final Node localNode;
+    private final Object id;
+    private final long window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService executor;
+    final ConcurrentMap<Node, Batch> batches = new ConcurrentHashMap<>();
+    private final CommandBatchStatistics statistics;
+
+    /**
+     * @param dispatcher the dispatcher which sends the batches
+     * @param localNode the local node
+     * @param id the identifier of the dispatcher, for logging
+     * @param window the window in ms within which commands for the same node are sent together
+     * @param maxBatchSize the maximum number of commands sent together
+     */
+    public BatchingCommandDispatcher(CommandDispatcher<C> dispatcher, Node localNode, Object id, long window, int maxBatchSize) {
+        this(dispatcher, localNode, id, window, maxBatchSize, null);
+    }
+
+    /**
+     * @param dispatcher the dispatcher which sends the batches
+     * @param localNode the local node
+     * @param id the identifier of the dispatcher, for logging
+     * @param window the window in ms within which commands for the same node are sent together
+     * @param maxBatchSize the maximum number of commands sent together
+     * @param parentStatistics the statistics which also count the batches of this dispatcher, or null
+     */
+    public BatchingCommandDispatcher(CommandDispatcher<C> dispatcher, Node localNode, Object id, long window, int maxBatchSize, CommandBatchStatistics parentStatistics) {
+        this.dispatcher = dispatcher;
+        this.localNode = localNode;
+        this.id = id;
+        this.window = window;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.executor = Executors.newSingleThreadScheduledExecutor(createThreadFactory());
+        this.statistics = new CommandBatchStatistics(parentStatistics);
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        return new JBossThreadFactory(new ThreadGroup(BatchingCommandDispatcher.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+    }
+
+    @Override
+    public <R> CommandResponse<R> executeOnNode(Command<R, C> command, Node node) throws Exception {
+        if (this.localNode.equals(node)) {
+            return this.dispatcher.executeOnNode(command, node);
+        }
+        Future<R> future = this.submitOnNode(command, node);
+        try {
+            return new SimpleCommandResponse<>(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SimpleCommandResponse<>(e);
+        } catch (ExecutionException e) {
+            return new SimpleCommandResponse<>(e);
+        }
+    }
+
+    @Override
+    public <R> Future<R> submitOnNode(Command<R, C> command, Node node) throws Exception {
+        if (this.localNode.equals(node)) {
+            return this.dispatcher.submitOnNode(command, node);
+        }
+        while (true) {
+            Batch batch = this.batches.get(node);
+            if (batch == null) {
+                batch = new Batch(node);
+                Batch existing = this.batches.putIfAbsent(node, batch);
+                if (existing != null) {
+                    batch = existing;
+                } else {
+                    this.executor.schedule(batch, this.window, TimeUnit.MILLISECONDS);
+                }
+            }
+            int index = batch.add(command);
+            if (index >= 0) {
+                if (index + 1 == this.maxBatchSize) {
+                    batch.run();
+                }
+                return new BatchedFuture<>(batch, index);
+            }
+            // Batch was sent concurrently, so retry using a new batch
+        }
+    }
+
+    @Override
+    public <R> Map<Node, CommandResponse<R>> executeOnCluster(Command<R, C> command, Node... excludedNodes) throws Exception {
+        return this.dispatcher.executeOnCluster(command, excludedNodes);
+    }
+
+    @Override
+    public <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, Node... excludedNodes) throws Exception {
+        return this.dispatcher.submitOnCluster(command, excludedNodes);
+    }
+
+    @Override
+    public <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception {
+        return this.dispatcher.submitOnCluster(command, listener, excludedNodes);
+    }
+
+    @Override
+    public <R> Future<Map<Node, CommandResponse<R>>> submitOnCluster(Command<R, C> command, int quorum, Node... excludedNodes) throws Exception {
+        return this.dispatcher.submitOnCluster(command, quorum, excludedNodes);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        // Send any pending batches, so that their callers do not wait forever
+        for (Batch batch: this.batches.values()) {
+            batch.run();
+        }
+        ClusteringServerLogger.ROOT_LOGGER.commandBatches(this.id, this.statistics.getCommandCount(), this.statistics.getBatchCount(), this.statistics.getLargestBatchSize());
+        this.dispatcher.close();
+    }
+
+    /**
+     * @return the number of batches sent
+     */
+    public long getBatchCount() {
+        return this.statistics.getBatchCount();
+    }
+
+    /**
+     * @return the number of commands sent using batches
+     */
+    public long getCommandCount() {
+        return this.statistics.getCommandCount();
+    }
+
+    /**
+     * @return the number of commands of the largest batch sent
+     */
+    public int getLargestBatchSize() {
+        return this.statistics.getLargestBatchSize();
+    }
+
+    void sent(int size) {
+        this.statistics.sent(size);
+    }
+
+    /**
+     * The commands for a node which are not sent yet.
+     * Once sent, a batch accepts no more commands, and provides the results of the commands it holds.
+     */
+    class Batch implements Runnable {
+        private final Node node;
+        private final List<Command<?, C>> commands = new ArrayList<>();
+        private final CountDownLatch sentLatch = new CountDownLatch(1);
+        private boolean sent = false;
+        private volatile Future<Object[]> future;
+        private volatile Exception exception;
+
+        Batch(Node node) {
+            this.node = node;
+        }
+
+        /**
+         * @return the index of the command within this batch, or -1 if this batch was already sent
+         */
+        synchronized int add(Command<?, C> command) {
+            if (this.sent) return -1;
+            this.commands.add(command);
+            return this.commands.size() - 1;
+        }
+
+        /**
+         * Sends this batch, unless it was already sent.
+         */
+        @Override
+        public void run() {
+            BatchingCommandDispatcher.this.batches.remove(this.node, this);
+            synchronized (this) {
+                if (this.sent) return;
+                this.sent = true;
+            }
+            try {
+                this.future = BatchingCommandDispatcher.this.dispatcher.submitOnNode(new CommandBatch<>(this.commands), this.node);
+                BatchingCommandDispatcher.this.sent(this.commands.size());
+            } catch (Exception e) {
+                this.exception = e;
+            } finally {
+                this.sentLatch.countDown();
+            }
+        }
+
+        Object getResult(int index) throws InterruptedException, ExecutionException {
+            this.sentLatch.await();
+            return this.getResult(index, this.getFuture().get());
+        }
+
+        Object getResult(int index, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            if (!this.sentLatch.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return this.getResult(index, this.getFuture().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+        }
+
+        boolean isDone() {
+            Future<Object[]> future = this.future;
+            return (this.exception != null) || ((future != null) && future.isDone());
+        }
+
+        private Future<Object[]> getFuture() throws ExecutionException {
+            if (this.exception != null) {
+                throw new ExecutionException(this.exception);
+            }
+            return this.future;
+        }
+
+        private Object getResult(int index, Object[] results) throws ExecutionException {
+            Object result = results[index];
+            if (result instanceof CommandBatch.Failure) {
+                throw new ExecutionException(((CommandBatch.Failure) result).getException());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Future of the result of a command within a batch.
+     */
+    private static class BatchedFuture<R> implements Future<R> {
+        private final BatchingCommandDispatcher<?>.Batch batch;
+        private final int index;
+
+        BatchedFuture(BatchingCommandDispatcher<?>.Batch batch, int index) {
+            this.batch = batch;
+            this.index = index;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            // Other commands of the batch still need their result
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.batch.isDone();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public R get() throws InterruptedException, ExecutionException {
+            return (R) this.batch.getResult(this.index);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return (R) this.batch.getResult(this.index, timeout, unit);
+        }
+    }
+}
@@ -28,10 +28,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.as.clustering.jgroups.Addressable;
 import org.jgroups.Address;
@@ -40,10 +42,14 @@ import org.jgroups.blocks.MessageDispatcher;
 import org.jgroups.blocks.RequestOptions;
 import org.jgroups.blocks.ResponseMode;
 import org.jgroups.blocks.RspFilter;
+import org.jgroups.util.FutureListener;
+import org.jgroups.util.NotifyingFuture;
 import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
 import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
 import org.wildfly.clustering.group.Node;
 import org.wildfly.clustering.group.NodeFactory;
 
@@ -85,60 +91,70 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
     public <R> Map<Node, CommandResponse<R>> executeOnCluster(Command<R, C> command, Node... excludedNodes) throws Exception {
         RequestOptions options = this.createRequestOptions(excludedNodes);
         Map<Address, Rsp<R>> responses = this.dispatcher.castMessage(null, this.createMessage(command), options);
-
-        Map<Node, CommandResponse<R>> results = new HashMap<>();
-        for (Map.Entry<Address, Rsp<R>> entry: responses.entrySet()) {
-            Address address = entry.getKey();
-            Rsp<R> response = entry.getValue();
-            if (response.wasReceived() && !response.wasSuspected()) {
-                results.put(this.factory.createNode(address), createCommandResponse(response));
-            }
-        }
-
-        return results;
+        return this.createCommandResponses(responses);
     }
 
     @Override
     public <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, Node... excludedNodes) throws Exception {
-        final Future<? extends Map<Address, Rsp<R>>> responses = this.dispatcher.castMessageWithFuture(null, this.createMessage(command), this.createRequestOptions(excludedNodes));
+        return this.submitOnCluster(command, null, excludedNodes);
+    }
 
-        Map<Node, Future<R>> results = new HashMap<>();
+    @Override
+    public <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception {
         Set<Node> excluded = (excludedNodes != null) ? new HashSet<>(Arrays.asList(excludedNodes)) : Collections.<Node>emptySet();
+        ResponseCollector<R> collector = new ResponseCollector<>(Integer.MAX_VALUE);
+        Map<Node, Future<R>> results = new HashMap<>();
         for (Address address: this.dispatcher.getChannel().getView().getMembers()) {
-            final Node node = this.factory.createNode(address);
+            Node node = this.factory.createNode(address);
             if (!excluded.contains(node)) {
-                Future<R> future = new Future<R>() {
-                    @Override
-                    public boolean cancel(boolean mayInterruptIfRunning) {
-                        return responses.cancel(mayInterruptIfRunning);
-                    }
-
-                    @Override
-                    public R get() throws InterruptedException, ExecutionException {
-                        return createCommandResponse(responses.get().get(node)).get();
-                    }
-
-                    @Override
-                    public R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-                        return createCommandResponse(responses.get(timeout, unit).get(node)).get();
-                    }
-
-                    @Override
-                    public boolean isCancelled() {
-                        return responses.isCancelled();
-                    }
-
-                    @Override
-                    public boolean isDone() {
-                        return responses.isDone();
-                    }
-                };
+                CommandResponseFuture<R> future = new CommandResponseFuture<>(node, listener);
+                collector.futures.put(address, future);
                 results.put(node, future);
             }
         }
+        // Futures must be registered before the first response can arrive
+        RequestOptions options = this.createRequestOptions(collector, excludedNodes);
+        NotifyingFuture<RspList<R>> responses = this.dispatcher.castMessageWithFuture(null, this.createMessage(command), options);
+        responses.setListener(collector);
         return results;
     }
 
+    @Override
+    public <R> Future<Map<Node, CommandResponse<R>>> submitOnCluster(Command<R, C> command, int quorum, Node... excludedNodes) throws Exception {
+        if (quorum <= 0) {
+            throw new IllegalArgumentException(Integer.toString(quorum));
+        }
+        // The request completes as soon as the filter needs no more responses
+        RequestOptions options = this.createRequestOptions(new ResponseCollector<R>(quorum), excludedNodes);
+        final NotifyingFuture<RspList<R>> responses = this.dispatcher.castMessageWithFuture(null, this.createMessage(command), options);
+        return new Future<Map<Node, CommandResponse<R>>>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return responses.cancel(mayInterruptIfRunning);
+            }
+
+            @Override
+            public Map<Node, CommandResponse<R>> get() throws InterruptedException, ExecutionException {
+                return ChannelCommandDispatcher.this.createCommandResponses(responses.get());
+            }
+
+            @Override
+            public Map<Node, CommandResponse<R>> get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+                return ChannelCommandDispatcher.this.createCommandResponses(responses.get(timeout, unit));
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return responses.isCancelled();
+            }
+
+            @Override
+            public boolean isDone() {
+                return responses.isDone();
+            }
+        };
+    }
+
     @Override
     public <R> CommandResponse<R> executeOnNode(Command<R, C> command, Node node) throws Exception {
         // Bypass MessageDispatcher if target node is local
@@ -186,7 +202,11 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
     }
 
     private RequestOptions createRequestOptions(Node... excludedNodes) {
-        RequestOptions options = this.createRequestOptions();
+        return this.createRequestOptions(FILTER, excludedNodes);
+    }
+
+    private RequestOptions createRequestOptions(RspFilter filter, Node... excludedNodes) {
+        RequestOptions options = this.createRequestOptions(filter);
         if ((excludedNodes != null) && (excludedNodes.length > 0)) {
             Address[] addresses = new Address[excludedNodes.length];
             for (int i = 0; i < excludedNodes.length; ++i) {
@@ -198,7 +218,23 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
     }
 
     private RequestOptions createRequestOptions() {
-        return new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, FILTER, Message.Flag.DONT_BUNDLE, Message.Flag.OOB);
+        return this.createRequestOptions(FILTER);
+    }
+
+    private RequestOptions createRequestOptions(RspFilter filter) {
+        return new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, filter, Message.Flag.DONT_BUNDLE, Message.Flag.OOB);
+    }
+
+    <R> Map<Node, CommandResponse<R>> createCommandResponses(Map<Address, Rsp<R>> responses) {
+        Map<Node, CommandResponse<R>> results = new HashMap<>();
+        for (Map.Entry<Address, Rsp<R>> entry: responses.entrySet()) {
+            Address address = entry.getKey();
+            Rsp<R> response = entry.getValue();
+            if (response.wasReceived() && !response.wasSuspected()) {
+                results.put(this.factory.createNode(address), createCommandResponse(response));
+            }
+        }
+        return results;
     }
 
     static <R> CommandResponse<R> createCommandResponse(Rsp<R> response) {
@@ -209,4 +245,65 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
     private Address getLocalAddress() {
         return this.dispatcher.getChannel().getAddress();
     }
+
+    /**
+     * Response filter of a broadcast command, which completes the future of each node as soon as its response arrives,
+     * and which stops waiting for responses once the quorum is reached.
+     * Completes the futures of the nodes which did not respond once the request is done, e.g. because they left the view.
+     * @param <R> command response type
+     */
+    private static class ResponseCollector<R> implements RspFilter, FutureListener<RspList<R>> {
+        final Map<Address, CommandResponseFuture<R>> futures = new HashMap<>();
+        private final int quorum;
+        private final AtomicInteger received = new AtomicInteger();
+
+        ResponseCollector(int quorum) {
+            this.quorum = quorum;
+        }
+
+        @Override
+        public boolean isAcceptable(Object response, Address sender) {
+            if (!FILTER.isAcceptable(response, sender)) {
+                return false;
+            }
+            this.received.incrementAndGet();
+            CommandResponseFuture<R> future = this.futures.get(sender);
+            if (future != null) {
+                // Exceptions thrown by the command are received as the response
+                future.complete((response instanceof Throwable) ? new SimpleCommandResponse<R>((Throwable) response) : new SimpleCommandResponse<>(ChannelCommandDispatcher.<R>cast(response)));
+            }
+            return true;
+        }
+
+        @Override
+        public boolean needMoreResponses() {
+            return this.received.get() < this.quorum;
+        }
+
+        @Override
+        public void futureDone(Future<RspList<R>> future) {
+            try {
+                RspList<R> responses = future.get();
+                for (Map.Entry<Address, CommandResponseFuture<R>> entry: this.futures.entrySet()) {
+                    Rsp<R> response = responses.get(entry.getKey());
+                    entry.getValue().complete((response != null) ? createCommandResponse(response) : new SimpleCommandResponse<R>((R) null));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                for (CommandResponseFuture<R> responseFuture: this.futures.values()) {
+                    responseFuture.complete(new SimpleCommandResponse<R>(e));
+                }
+            } catch (CancellationException e) {
+                for (CommandResponseFuture<R> responseFuture: this.futures.values()) {
+                    responseFuture.cancel(false);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <R> R cast(Object value) {
+        return (R) value;
+    }
 }
@@ -64,12 +64,17 @@ public class ChannelCommandDispatcherFactory implements CommandDispatcherFactory
     private final MessageDispatcher dispatcher;
     private final NodeFactory<Address> nodeFactory;
     private final long timeout;
+    private final long batchWindow;
+    private final int maxBatchSize;
+    private final CommandBatchStatistics batchStatistics = new CommandBatchStatistics();
 
     public ChannelCommandDispatcherFactory(ChannelCommandDispatcherFactoryConfiguration config) {
         this.group = config.getGroup();
         this.nodeFactory = config.getNodeFactory();
         this.marshallingContext = config.getMarshallingContext();
         this.timeout = config.getTimeout();
+        this.batchWindow = config.getBatchWindow();
+        this.maxBatchSize = config.getMaxBatchSize();
         final RpcDispatcher.Marshaller marshaller = new CommandResponseMarshaller(this.marshallingContext);
         this.dispatcher = new MuxMessageDispatcher(SCOPE_ID) {
             @Override
@@ -110,6 +115,13 @@ public class ChannelCommandDispatcherFactory implements CommandDispatcherFactory
         return this.group;
     }
 
+    /**
+     * @return the statistics of the batches sent by all the command dispatchers created by this factory, which are only batched if a batch window is configured
+     */
+    public CommandBatchStatistics getBatchStatistics() {
+        return this.batchStatistics;
+    }
+
     @Override
     public <C> CommandDispatcher<C> createCommandDispatcher(final Object id, C context) {
         final int version = this.marshallingContext.getCurrentVersion();
@@ -130,12 +142,13 @@ public class ChannelCommandDispatcherFactory implements CommandDispatcherFactory
         };
         this.contexts.put(id, new AtomicReference<Object>(context));
         final CommandDispatcher<C> localDispatcher = new LocalCommandDispatcher<>(this.group.getLocalNode(), context);
-        return new ChannelCommandDispatcher<C>(this.dispatcher, marshaller, this.nodeFactory, this.timeout, localDispatcher) {
+        CommandDispatcher<C> dispatcher = new ChannelCommandDispatcher<C>(this.dispatcher, marshaller, this.nodeFactory, this.timeout, localDispatcher) {
             @Override
             public void close() {
                 localDispatcher.close();
                 ChannelCommandDispatcherFactory.this.contexts.remove(id);
             }
         };
+        return (this.batchWindow > 0) ? new BatchingCommandDispatcher<>(dispatcher, this.group.getLocalNode(), id, this.batchWindow, this.maxBatchSize, this.batchStatistics) : dispatcher;
     }
 }
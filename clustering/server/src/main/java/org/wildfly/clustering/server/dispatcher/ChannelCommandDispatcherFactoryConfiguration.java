@@ -37,4 +37,14 @@ public interface ChannelCommandDispatcherFactoryConfiguration {
     NodeFactory<Address> getNodeFactory();
     MarshallingContext getMarshallingContext();
     long getTimeout();
+
+    /**
+     * @return the window in ms within which the commands sent to the same node are sent together, or 0 to send each command on its own
+     */
+    long getBatchWindow();
+
+    /**
+     * @return the maximum number of commands sent together
+     */
+    int getMaxBatchSize();
 }
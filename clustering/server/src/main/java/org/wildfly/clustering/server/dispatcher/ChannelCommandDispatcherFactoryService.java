@@ -54,6 +54,7 @@ import org.wildfly.clustering.group.Group;
 import org.wildfly.clustering.group.NodeFactory;
 import org.wildfly.clustering.server.group.ChannelNodeFactory;
 import org.wildfly.clustering.spi.ChannelServiceNames;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Service providing a CommandDispatcherFactory.
@@ -63,6 +64,11 @@ import org.wildfly.clustering.spi.ChannelServiceNames;
 public class ChannelCommandDispatcherFactoryService implements Service<CommandDispatcherFactory>, ChannelCommandDispatcherFactoryConfiguration, VersionedMarshallingConfiguration {
 
     private static final int CURRENT_VERSION = 1;
+    static final String BATCH_WINDOW = "jboss.clustering.dispatcher.batch-window";
+    static final String MAX_BATCH_SIZE = "jboss.clustering.dispatcher.max-batch-size";
+    // A window of 0 sends each command on its own
+    private static final long DEFAULT_BATCH_WINDOW = 0;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
 
     public static ServiceBuilder<CommandDispatcherFactory> build(ServiceTarget target, ServiceName name, String cluster, ModuleIdentifier identifier) {
         ChannelCommandDispatcherFactoryService service = new ChannelCommandDispatcherFactoryService(identifier);
@@ -84,6 +90,8 @@ public class ChannelCommandDispatcherFactoryService implements Service<CommandDi
     private final InjectedValue<ModuleLoader> loader = new InjectedValue<>();
     private final ModuleIdentifier identifier;
     private final long timeout = TimeUnit.MINUTES.toMillis(1);
+    private final long batchWindow = Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(BATCH_WINDOW, Long.toString(DEFAULT_BATCH_WINDOW)));
+    private final int maxBatchSize = Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(MAX_BATCH_SIZE, Integer.toString(DEFAULT_MAX_BATCH_SIZE)));
 
     private volatile MarshallingContext marshallingContext = null;
     private volatile ChannelCommandDispatcherFactory factory = null;
@@ -149,6 +157,16 @@ public class ChannelCommandDispatcherFactoryService implements Service<CommandDi
         return this.timeout;
     }
 
+    @Override
+    public long getBatchWindow() {
+        return this.batchWindow;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
     @Override
     public int getCurrentMarshallingVersion() {
         return CURRENT_VERSION;
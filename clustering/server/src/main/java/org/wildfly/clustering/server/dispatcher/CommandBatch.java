@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.wildfly.clustering.dispatcher.Command;
+
+/**
+ * Command that executes the commands of a {@link BatchingCommandDispatcher} sent to the same node within the same window.
+ * Returns the result of each command, in order, where a command that failed yields a {@link Failure}.
+ * @param <C> command context
+ */
+public class CommandBatch<C> implements Command<Object[], C> {
+    private static final long serialVersionUID = 4806155823562935462L;
+
+    private final List<Command<?, C>> commands;
+
+    public CommandBatch(List<Command<?, C>> commands) {
+        this.commands = commands;
+    }
+
+    @Override
+    public Object[] execute(C context) {
+        Object[] results = new Object[this.commands.size()];
+        for (int i = 0; i < results.length; ++i) {
+            try {
+                results[i] = this.commands.get(i).execute(context);
+            } catch (Throwable e) {
+                // The failure of one command must not prevent the execution of the other commands of the batch
+                results[i] = new Failure(e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Exception thrown by a command of a batch.
+     */
+    static class Failure implements Serializable {
+        private static final long serialVersionUID = -2497830420880286307L;
+
+        private final Throwable exception;
+
+        Failure(Throwable exception) {
+            this.exception = exception;
+        }
+
+        Throwable getException() {
+            return this.exception;
+        }
+    }
+}
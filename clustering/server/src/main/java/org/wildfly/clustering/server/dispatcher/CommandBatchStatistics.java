@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the batches sent by a {@link BatchingCommandDispatcher}.
+ * The statistics of several dispatchers, e.g. those of a {@link ChannelCommandDispatcherFactory}, are aggregated by a common parent.
+ */
+public class CommandBatchStatistics {
+
+    private final CommandBatchStatistics parent;
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong commandCount = new AtomicLong();
+    private final AtomicInteger largestBatchSize = new AtomicInteger();
+
+    public CommandBatchStatistics() {
+        this(null);
+    }
+
+    /**
+     * @param parent the statistics which also count the batches counted by these statistics, or null
+     */
+    public CommandBatchStatistics(CommandBatchStatistics parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @return the number of batches sent
+     */
+    public long getBatchCount() {
+        return this.batchCount.get();
+    }
+
+    /**
+     * @return the number of commands sent using batches
+     */
+    public long getCommandCount() {
+        return this.commandCount.get();
+    }
+
+    /**
+     * @return the number of commands of the largest batch sent
+     */
+    public int getLargestBatchSize() {
+        return this.largestBatchSize.get();
+    }
+
+    void sent(int size) {
+        this.batchCount.incrementAndGet();
+        this.commandCount.addAndGet(size);
+        int largest = this.largestBatchSize.get();
+        while ((size > largest) && !this.largestBatchSize.compareAndSet(largest, size)) {
+            largest = this.largestBatchSize.get();
+        }
+        if (this.parent != null) {
+            this.parent.sent(size);
+        }
+    }
+}
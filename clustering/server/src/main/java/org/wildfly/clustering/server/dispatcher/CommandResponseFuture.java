@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Future of the response of a single node, which notifies a {@link CommandResponseListener} once done.
+ * Either runs a local task, or is completed via {@link #complete(CommandResponse)} when the response of a remote node arrives.
+ * @param <R> command response type
+ */
+public class CommandResponseFuture<R> extends FutureTask<R> {
+
+    private static final Callable<Object> REMOTE = new Callable<Object>() {
+        @Override
+        public Object call() {
+            throw new IllegalStateException();
+        }
+    };
+
+    private final Node node;
+    private final CommandResponseListener<R> listener;
+
+    /**
+     * Creates the future of the response of a remote node.
+     * @param node the remote node
+     * @param listener an optional listener
+     */
+    @SuppressWarnings("unchecked")
+    public CommandResponseFuture(Node node, CommandResponseListener<R> listener) {
+        this(node, (Callable<R>) REMOTE, listener);
+    }
+
+    /**
+     * Creates the future of the specified task, to be executed locally.
+     * @param node the local node
+     * @param task the task computing the response
+     * @param listener an optional listener
+     */
+    public CommandResponseFuture(Node node, Callable<R> task, CommandResponseListener<R> listener) {
+        super(task);
+        this.node = node;
+        this.listener = listener;
+    }
+
+    /**
+     * Completes this future with the specified response, unless it is already done.
+     * @param response a command response
+     */
+    public void complete(CommandResponse<R> response) {
+        try {
+            this.set(response.get());
+        } catch (ExecutionException e) {
+            this.setException(e.getCause());
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (this.listener != null) {
+            this.listener.responseReceived(this.node, this.createCommandResponse());
+        }
+    }
+
+    private CommandResponse<R> createCommandResponse() {
+        try {
+            return new SimpleCommandResponse<>(this.get());
+        } catch (ExecutionException e) {
+            return new SimpleCommandResponse<R>(e);
+        } catch (CancellationException | InterruptedException e) {
+            // Cannot be interrupted, since this future is done
+            return new SimpleCommandResponse<R>(e);
+        }
+    }
+}
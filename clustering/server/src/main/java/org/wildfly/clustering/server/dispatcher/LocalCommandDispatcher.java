@@ -37,6 +37,7 @@ import org.jgroups.UnreachableException;
 import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
 import org.wildfly.clustering.group.Node;
 import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
@@ -79,7 +80,7 @@ public class LocalCommandDispatcher<C> implements CommandDispatcher<C> {
 
     @Override
     public <R> Map<Node, CommandResponse<R>> executeOnCluster(Command<R, C> command, Node... excludedNodes) {
-        if ((excludedNodes != null) && (excludedNodes.length > 0) && Arrays.asList(excludedNodes).contains(this.node)) {
+        if (this.isExcluded(excludedNodes)) {
             return Collections.emptyMap();
         }
         return Collections.singletonMap(this.node, this.executeOnNode(command, this.node));
@@ -101,6 +102,38 @@ public class LocalCommandDispatcher<C> implements CommandDispatcher<C> {
         return Collections.singletonMap(this.node, this.submitOnNode(command, this.node));
     }
 
+    @Override
+    public <R> Map<Node, Future<R>> submitOnCluster(final Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) {
+        if (this.isExcluded(excludedNodes)) {
+            return Collections.emptyMap();
+        }
+        Callable<R> task = new Callable<R>() {
+            @Override
+            public R call() throws Exception {
+                return command.execute(LocalCommandDispatcher.this.context);
+            }
+        };
+        CommandResponseFuture<R> future = new CommandResponseFuture<>(this.node, task, listener);
+        this.executor.execute(future);
+        return Collections.<Node, Future<R>>singletonMap(this.node, future);
+    }
+
+    @Override
+    public <R> Future<Map<Node, CommandResponse<R>>> submitOnCluster(final Command<R, C> command, int quorum, final Node... excludedNodes) {
+        // The only node is either excluded, or makes up the quorum
+        Callable<Map<Node, CommandResponse<R>>> task = new Callable<Map<Node, CommandResponse<R>>>() {
+            @Override
+            public Map<Node, CommandResponse<R>> call() {
+                return LocalCommandDispatcher.this.executeOnCluster(command, excludedNodes);
+            }
+        };
+        return this.executor.submit(task);
+    }
+
+    private boolean isExcluded(Node... excludedNodes) {
+        return (excludedNodes != null) && (excludedNodes.length > 0) && Arrays.asList(excludedNodes).contains(this.node);
+    }
+
     @Override
     public void close() {
         this.executor.shutdown();
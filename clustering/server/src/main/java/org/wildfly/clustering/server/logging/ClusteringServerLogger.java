@@ -79,4 +79,12 @@ public interface ClusteringServerLogger {
 
     @Message(id = 9, value = "Singleton service %s is not started.")
     IllegalStateException notStarted(String serviceName);
+
+    @LogMessage(level = DEBUG)
+    @Message(id = 10, value = "Command dispatcher %s sent %d commands using %d batches, of up to %d commands")
+    void commandBatches(Object id, long commands, long batches, int largestBatchSize);
+
+    @LogMessage(level = DEBUG)
+    @Message(id = 11, value = "Election of the singleton provider of the %s service completed %d ms after the providers changed. %d elections were avoided so far by coalescing changes.")
+    void electionCompleted(String service, long time, long coalescedElections);
 }
@@ -22,6 +22,7 @@
 package org.wildfly.clustering.server.singleton;
 
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.msc.service.AbstractService;
 import org.jboss.msc.service.Service;
@@ -58,6 +59,18 @@ public class LocalSingletonServiceBuilderFactoryService extends AbstractService<
                 return this;
             }
 
+            @Override
+            public SingletonServiceBuilder<T> electionQuietPeriod(long period, TimeUnit unit) {
+                // A local singleton is never elected
+                return this;
+            }
+
+            @Override
+            public SingletonServiceBuilder<T> electionMaxDeferral(long deferral, TimeUnit unit) {
+                // A local singleton is never elected
+                return this;
+            }
+
             @Override
             public ServiceBuilder<T> build(ServiceTarget target) {
                 return target.addService(name, service);
@@ -23,12 +23,20 @@
 package org.wildfly.clustering.server.singleton;
 
 import java.io.Serializable;
+import java.security.AccessController;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.jboss.as.clustering.infinispan.CacheContainer;
@@ -48,6 +56,7 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.jboss.threads.JBossThreadFactory;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandDispatcherFactory;
 import org.wildfly.clustering.dispatcher.CommandResponse;
@@ -61,6 +70,7 @@ import org.wildfly.clustering.singleton.SingletonElectionPolicy;
 import org.wildfly.clustering.singleton.election.SimpleSingletonElectionPolicy;
 import org.wildfly.clustering.spi.CacheServiceNames;
 import org.wildfly.clustering.spi.ChannelServiceNames;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
 /**
  * Decorates an MSC service ensuring that it is only started on one node in the cluster at any given time.
@@ -70,10 +80,12 @@ import org.wildfly.clustering.spi.ChannelServiceNames;
 public class SingletonService<T extends Serializable> implements Service<T>, ServiceProviderRegistration.Listener, SingletonContext<T>, Singleton {
 
     public static final String DEFAULT_CONTAINER = "server";
+    // Unless specified, elections are deferred by at most this many quiet periods
+    private static final int DEFAULT_ELECTION_MAX_DEFERRAL_FACTOR = 10;
 
-    private final InjectedValue<Group> group = new InjectedValue<>();
-    private final InjectedValue<ServiceProviderRegistrationFactory> registrationFactory = new InjectedValue<>();
-    private final InjectedValue<CommandDispatcherFactory> dispatcherFactory = new InjectedValue<>();
+    final InjectedValue<Group> group = new InjectedValue<>();
+    final InjectedValue<ServiceProviderRegistrationFactory> registrationFactory = new InjectedValue<>();
+    final InjectedValue<CommandDispatcherFactory> dispatcherFactory = new InjectedValue<>();
     private final Service<T> service;
     final ServiceName targetServiceName;
     final ServiceName singletonServiceName;
@@ -86,6 +98,16 @@ public class SingletonService<T extends Serializable> implements Service<T>, Ser
     private volatile SingletonElectionPolicy electionPolicy = new SimpleSingletonElectionPolicy();
     private volatile ServiceRegistry container;
     volatile int quorum = 1;
+    private volatile long electionQuietPeriod = 0;
+    private volatile long electionMaxDeferral = 0;
+    private volatile ScheduledExecutorService executor;
+    // Guarded by this
+    private ScheduledFuture<?> pendingElection;
+    private long electionRequestTime;
+
+    private final AtomicLong electionCount = new AtomicLong();
+    private final AtomicLong electionTime = new AtomicLong();
+    private final AtomicLong coalescedElectionCount = new AtomicLong();
 
     public SingletonService(ServiceName serviceName, Service<T> service) {
         this.singletonServiceName = serviceName;
@@ -146,13 +168,30 @@ public class SingletonService<T extends Serializable> implements Service<T>, Ser
     public void start(StartContext context) {
         this.container = context.getController().getServiceContainer();
         this.dispatcher = this.dispatcherFactory.getValue().<SingletonContext<T>>createCommandDispatcher(this.singletonServiceName, this);
+        if (this.electionQuietPeriod > 0) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(createThreadFactory());
+        }
         this.registration = this.registrationFactory.getValue().createRegistration(this.singletonServiceName, this);
         this.started = true;
     }
 
+    private static ThreadFactory createThreadFactory() {
+        return new JBossThreadFactory(new ThreadGroup(SingletonService.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+    }
+
     @Override
     public void stop(StopContext context) {
         this.started = false;
+        ScheduledExecutorService executor = this.executor;
+        if (executor != null) {
+            this.executor = null;
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         this.registration.close();
         this.dispatcher.close();
     }
@@ -170,8 +209,72 @@ public class SingletonService<T extends Serializable> implements Service<T>, Ser
         this.quorum = quorum;
     }
 
+    /**
+     * Defers elections until the providers did not change for the specified period, or elects immediately if 0.
+     */
+    public void setElectionQuietPeriod(long period, TimeUnit unit) {
+        this.electionQuietPeriod = unit.toMillis(Math.max(period, 0));
+    }
+
+    /**
+     * Holds a deferred election at the latest the specified time after the first of the changes it follows,
+     * or after ten quiet periods if 0.
+     */
+    public void setElectionMaxDeferral(long deferral, TimeUnit unit) {
+        this.electionMaxDeferral = unit.toMillis(Math.max(deferral, 0));
+    }
+
+    @Override
+    public long getElectionCount() {
+        return this.electionCount.get();
+    }
+
     @Override
-    public void providersChanged(Set<Node> nodes) {
+    public long getAverageElectionTime() {
+        long count = this.electionCount.get();
+        return (count > 0) ? TimeUnit.NANOSECONDS.toMillis(this.electionTime.get() / count) : 0;
+    }
+
+    @Override
+    public long getCoalescedElectionCount() {
+        return this.coalescedElectionCount.get();
+    }
+
+    @Override
+    public void providersChanged(final Set<Node> nodes) {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            this.elect(nodes, System.nanoTime());
+            return;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            if ((this.pendingElection != null) && this.pendingElection.cancel(false)) {
+                // The pending election will be held along with this one
+                this.coalescedElectionCount.incrementAndGet();
+            } else {
+                this.electionRequestTime = now;
+            }
+            final long requestTime = this.electionRequestTime;
+            long maxDeferral = (this.electionMaxDeferral > 0) ? this.electionMaxDeferral : this.electionQuietPeriod * DEFAULT_ELECTION_MAX_DEFERRAL_FACTOR;
+            // Do not defer the election beyond the maximum deferral, even if the providers keep changing
+            long delay = Math.max(Math.min(this.electionQuietPeriod, maxDeferral - TimeUnit.NANOSECONDS.toMillis(now - requestTime)), 0);
+            Runnable election = new Runnable() {
+                @Override
+                public void run() {
+                    SingletonService.this.elect(nodes, requestTime);
+                }
+            };
+            try {
+                this.pendingElection = executor.schedule(election, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Service is stopping
+                this.pendingElection = null;
+            }
+        }
+    }
+
+    void elect(Set<Node> nodes, long requestTime) {
         if (this.elected(nodes)) {
             if (!this.master.get()) {
                 ClusteringServerLogger.ROOT_LOGGER.electedMaster(this.singletonServiceName.getCanonicalName());
@@ -182,6 +285,10 @@ public class SingletonService<T extends Serializable> implements Service<T>, Ser
             ClusteringServerLogger.ROOT_LOGGER.electedSlave(this.singletonServiceName.getCanonicalName());
             this.stopOldMaster();
         }
+        long time = System.nanoTime() - requestTime;
+        this.electionCount.incrementAndGet();
+        this.electionTime.addAndGet(time);
+        ClusteringServerLogger.ROOT_LOGGER.electionCompleted(this.singletonServiceName.getCanonicalName(), TimeUnit.NANOSECONDS.toMillis(time), this.coalescedElectionCount.get());
     }
 
     private boolean elected(Set<Node> candidates) {
@@ -22,6 +22,7 @@
 package org.wildfly.clustering.server.singleton;
 
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.msc.service.AbstractService;
 import org.jboss.msc.service.Service;
@@ -67,6 +68,18 @@ public class SingletonServiceBuilderFactoryService extends AbstractService<Singl
                 return this;
             }
 
+            @Override
+            public SingletonServiceBuilder<T> electionQuietPeriod(long period, TimeUnit unit) {
+                singleton.setElectionQuietPeriod(period, unit);
+                return this;
+            }
+
+            @Override
+            public SingletonServiceBuilder<T> electionMaxDeferral(long deferral, TimeUnit unit) {
+                singleton.setElectionMaxDeferral(deferral, unit);
+                return this;
+            }
+
             @Override
             public ServiceBuilder<T> build(ServiceTarget target) {
                 return singleton.build(target, SingletonServiceBuilderFactoryService.this.containerName, SingletonServiceBuilderFactoryService.this.cacheName);
@@ -0,0 +1,250 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Unit test for {@link BatchingCommandDispatcher}, whose batches are executed by a mocked dispatcher as soon as they are sent.
+ */
+public class BatchingCommandDispatcherTestCase {
+    private static final long LONG_WINDOW = TimeUnit.HOURS.toMillis(1);
+
+    @SuppressWarnings("unchecked")
+    private final CommandDispatcher<Object> delegate = mock(CommandDispatcher.class);
+    private final Node localNode = mock(Node.class);
+    private final Node node = mock(Node.class);
+    private final Object context = new Object();
+    private BatchingCommandDispatcher<Object> dispatcher;
+
+    @Before
+    public void init() throws Exception {
+        when(this.delegate.submitOnNode(Matchers.<Command<Object[], Object>>any(), same(this.node))).thenAnswer(new Answer<Future<Object[]>>() {
+            @Override
+            public Future<Object[]> answer(InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                final Command<Object[], Object> batch = (Command<Object[], Object>) invocation.getArguments()[0];
+                FutureTask<Object[]> future = new FutureTask<>(new Callable<Object[]>() {
+                    @Override
+                    public Object[] call() throws Exception {
+                        return batch.execute(BatchingCommandDispatcherTestCase.this.context);
+                    }
+                });
+                future.run();
+                return future;
+            }
+        });
+    }
+
+    @After
+    public void destroy() {
+        if (this.dispatcher != null) {
+            this.dispatcher.close();
+        }
+    }
+
+    @Test
+    public void maxBatchSize() throws Exception {
+        this.dispatcher = new BatchingCommandDispatcher<>(this.delegate, this.localNode, "test", LONG_WINDOW, 3);
+
+        Future<String> future1 = this.dispatcher.submitOnNode(this.command("1"), this.node);
+        Future<String> future2 = this.dispatcher.submitOnNode(this.command("2"), this.node);
+        assertFalse(future1.isDone());
+        assertFalse(future2.isDone());
+        verify(this.delegate, never()).submitOnNode(Matchers.<Command<Object[], Object>>any(), same(this.node));
+
+        // The batch is sent as soon as it is full
+        Future<String> future3 = this.dispatcher.submitOnNode(this.command("3"), this.node);
+        verify(this.delegate).submitOnNode(Matchers.<Command<Object[], Object>>any(), same(this.node));
+        assertTrue(future1.isDone());
+        assertEquals("1", future1.get());
+        assertEquals("2", future2.get());
+        assertEquals("3", future3.get());
+
+        // The next command opens a new batch
+        Future<String> future4 = this.dispatcher.submitOnNode(this.command("4"), this.node);
+        assertFalse(future4.isDone());
+
+        assertEquals(1, this.dispatcher.getBatchCount());
+        assertEquals(3, this.dispatcher.getCommandCount());
+        assertEquals(3, this.dispatcher.getLargestBatchSize());
+    }
+
+    @Test
+    public void parentStatistics() throws Exception {
+        CommandBatchStatistics statistics = new CommandBatchStatistics();
+        this.dispatcher = new BatchingCommandDispatcher<>(this.delegate, this.localNode, "test", LONG_WINDOW, 2, statistics);
+        BatchingCommandDispatcher<Object> other = new BatchingCommandDispatcher<>(this.delegate, this.localNode, "other", LONG_WINDOW, 3, statistics);
+        try {
+            for (int i = 0; i < 2; i++) {
+                this.dispatcher.submitOnNode(this.command(String.valueOf(i)), this.node);
+            }
+            for (int i = 0; i < 3; i++) {
+                other.submitOnNode(this.command(String.valueOf(i)), this.node);
+            }
+        } finally {
+            other.close();
+        }
+
+        // The parent counts the batches of both dispatchers
+        assertEquals(1, this.dispatcher.getBatchCount());
+        assertEquals(2, this.dispatcher.getLargestBatchSize());
+        assertEquals(2, statistics.getBatchCount());
+        assertEquals(5, statistics.getCommandCount());
+        assertEquals(3, statistics.getLargestBatchSize());
+    }
+
+    @Test
+    public void window() throws Exception {
+        this.dispatcher = new BatchingCommandDispatcher<>(this.delegate, this.localNode, "test", 50, 100);
+
+        Future<String> future1 = this.dispatcher.submitOnNode(this.command("1"), this.node);
+        Future<String> future2 = this.dispatcher.submitOnNode(this.command("2"), this.node);
+
+        // The batch is sent once the window elapsed
+        assertEquals("1", future1.get(10, TimeUnit.SECONDS));
+        assertEquals("2", future2.get(10, TimeUnit.SECONDS));
+        verify(this.delegate).submitOnNode(Matchers.<Command<Object[], Object>>any(), same(this.node));
+        assertEquals(1, this.dispatcher.getBatchCount());
+        assertEquals(2, this.dispatcher.getCommandCount());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        this.dispatcher = new BatchingCommandDispatcher<>(this.delegate, this.localNode, "test", LONG_WINDOW, 3);
+        Exception exception = new Exception();
+        @SuppressWarnings("unchecked")
+        Command<String, Object> failing = mock(Command.class);
+        when(failing.execute(this.context)).thenThrow(exception);
+
+        Future<String> future1 = this.dispatcher.submitOnNode(this.command("1"), this.node);
+        Future<String> future2 = this.dispatcher.submitOnNode(failing, this.node);
+        Future<String> future3 = this.dispatcher.submitOnNode(this.command("3"), this.node);
+
+        // The failure of a command does not affect the other commands of its batch
+        assertEquals("1", future1.get());
+        try {
+            future2.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertEquals("3", future3.get());
+    }
+
+    @Test
+    public void retry() throws Exception {
+        this.dispatcher = new BatchingCommandDispatcher<>(this.delegate, this.localNode, "test", LONG_WINDOW, 100);
+        // A batch which was sent, but is still seen by a concurrent caller
+        BatchingCommandDispatcher<Object>.Batch sent = this.dispatcher.new Batch(this.node);
+        sent.run();
+        this.dispatcher.batches.put(this.node, sent);
+
+        final Command<String, Object> command = this.command("1");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Future<String>> submission = executor.submit(new Callable<Future<String>>() {
+                @Override
+                public Future<String> call() throws Exception {
+                    return BatchingCommandDispatcherTestCase.this.dispatcher.submitOnNode(command, BatchingCommandDispatcherTestCase.this.node);
+                }
+            });
+            try {
+                submission.get(100, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (TimeoutException e) {
+                // Expected, the command cannot be added to the sent batch
+            }
+            this.dispatcher.batches.remove(this.node, sent);
+
+            // The command is added to a new batch instead
+            Future<String> future = submission.get(10, TimeUnit.SECONDS);
+            assertFalse(future.isDone());
+            this.dispatcher.close();
+            assertEquals("1", future.get());
+            assertEquals(2, this.dispatcher.getBatchCount());
+            assertEquals(1, this.dispatcher.getCommandCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void close() throws Exception {
+        this.dispatcher = new BatchingCommandDispatcher<>(this.delegate, this.localNode, "test", LONG_WINDOW, 100);
+
+        Future<String> future1 = this.dispatcher.submitOnNode(this.command("1"), this.node);
+        Future<String> future2 = this.dispatcher.submitOnNode(this.command("2"), this.node);
+        assertFalse(future1.isDone());
+
+        // Pending batches are sent when closed
+        this.dispatcher.close();
+        assertEquals("1", future1.get());
+        assertEquals("2", future2.get());
+        verify(this.delegate).close();
+    }
+
+    @Test
+    public void interrupted() throws Exception {
+        this.dispatcher = new BatchingCommandDispatcher<>(this.delegate, this.localNode, "test", LONG_WINDOW, 100);
+
+        Thread.currentThread().interrupt();
+        CommandResponse<String> response = this.dispatcher.executeOnNode(this.command("1"), this.node);
+
+        // The interrupt is turned into the response, but not lost
+        assertTrue(Thread.interrupted());
+        try {
+            response.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+    }
+
+    private Command<String, Object> command(String result) throws Exception {
+        @SuppressWarnings("unchecked")
+        Command<String, Object> command = mock(Command.class);
+        when(command.execute(this.context)).thenReturn(result);
+        return command;
+    }
+}
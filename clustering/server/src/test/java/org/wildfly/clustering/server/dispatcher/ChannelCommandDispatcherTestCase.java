@@ -0,0 +1,223 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.jgroups.Address;
+import org.jgroups.Channel;
+import org.jgroups.Message;
+import org.jgroups.View;
+import org.jgroups.blocks.MessageDispatcher;
+import org.jgroups.blocks.RequestOptions;
+import org.jgroups.blocks.RspFilter;
+import org.jgroups.util.FutureListener;
+import org.jgroups.util.NotifyingFuture;
+import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
+import org.jgroups.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.group.NodeFactory;
+
+/**
+ * Unit test for the responses of the commands broadcast by {@link ChannelCommandDispatcher}.
+ */
+public class ChannelCommandDispatcherTestCase {
+    private final MessageDispatcher dispatcher = mock(MessageDispatcher.class);
+    @SuppressWarnings("unchecked")
+    private final CommandMarshaller<Object> marshaller = mock(CommandMarshaller.class);
+    @SuppressWarnings("unchecked")
+    private final NodeFactory<Address> factory = mock(NodeFactory.class);
+    @SuppressWarnings("unchecked")
+    private final CommandDispatcher<Object> localDispatcher = mock(CommandDispatcher.class);
+    @SuppressWarnings("unchecked")
+    private final Command<String, Object> command = mock(Command.class);
+    @SuppressWarnings("unchecked")
+    private final NotifyingFuture<RspList<String>> request = mock(NotifyingFuture.class);
+    private final CommandDispatcher<Object> subject = new ChannelCommandDispatcher<Object>(this.dispatcher, this.marshaller, this.factory, 1000L, this.localDispatcher) {
+        @Override
+        public void close() {
+        }
+    };
+
+    private final Address localAddress = UUID.randomUUID();
+    private final Address address1 = UUID.randomUUID();
+    private final Address address2 = UUID.randomUUID();
+    private final Address address3 = UUID.randomUUID();
+    private final Node localNode = mock(Node.class);
+    private final Node node1 = mock(Node.class);
+    private final Node node2 = mock(Node.class);
+    private final Node node3 = mock(Node.class);
+
+    @Before
+    public void init() {
+        Channel channel = mock(Channel.class);
+        View view = mock(View.class);
+        when(this.dispatcher.getChannel()).thenReturn(channel);
+        when(channel.getAddress()).thenReturn(this.localAddress);
+        when(channel.getView()).thenReturn(view);
+        when(view.getMembers()).thenReturn(Arrays.asList(this.localAddress, this.address1, this.address2, this.address3));
+        when(this.factory.createNode(this.localAddress)).thenReturn(this.localNode);
+        when(this.factory.createNode(this.address1)).thenReturn(this.node1);
+        when(this.factory.createNode(this.address2)).thenReturn(this.node2);
+        when(this.factory.createNode(this.address3)).thenReturn(this.node3);
+    }
+
+    @Test
+    public void submitOnCluster() throws Exception {
+        @SuppressWarnings("unchecked")
+        CommandResponseListener<String> listener = mock(CommandResponseListener.class);
+        ArgumentCaptor<RequestOptions> options = ArgumentCaptor.forClass(RequestOptions.class);
+        when(this.dispatcher.<String>castMessageWithFuture(Matchers.<Collection<Address>>any(), any(Message.class), options.capture())).thenReturn(this.request);
+
+        Map<Node, Future<String>> futures = this.subject.submitOnCluster(this.command, listener, this.localNode);
+
+        assertEquals(3, futures.size());
+        assertFalse(futures.containsKey(this.localNode));
+        RspFilter filter = options.getValue().getRspFilter();
+
+        // The future of a node completes as soon as its response arrives
+        assertTrue(filter.isAcceptable("1", this.address1));
+        Future<String> future1 = futures.get(this.node1);
+        assertTrue(future1.isDone());
+        assertEquals("1", future1.get());
+        assertFalse(futures.get(this.node2).isDone());
+        assertFalse(futures.get(this.node3).isDone());
+        ArgumentCaptor<CommandResponse> response = ArgumentCaptor.forClass(CommandResponse.class);
+        verify(listener).responseReceived(same(this.node1), response.capture());
+        assertEquals("1", response.getValue().get());
+
+        // Exceptions thrown by the command complete the future exceptionally
+        Exception exception = new Exception();
+        assertTrue(filter.isAcceptable(exception, this.address2));
+        Future<String> future2 = futures.get(this.node2);
+        assertTrue(future2.isDone());
+        try {
+            future2.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        verify(listener).responseReceived(same(this.node2), any(CommandResponse.class));
+
+        // All responses are needed
+        assertTrue(filter.needMoreResponses());
+        assertFalse(futures.get(this.node3).isDone());
+
+        // The future of a node that never responded, e.g. because it left the view, completes with the request
+        RspList<String> responses = new RspList<>();
+        responses.addRsp(this.address1, "1");
+        responses.put(this.address2, new Rsp<String>(this.address2, exception));
+        responses.put(this.address3, new Rsp<String>(this.address3, true));
+        this.completeRequest(responses);
+
+        Future<String> future3 = futures.get(this.node3);
+        assertTrue(future3.isDone());
+        assertNull(future3.get());
+        assertEquals("1", future1.get());
+        verify(listener).responseReceived(same(this.node3), any(CommandResponse.class));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void submitOnClusterCancelled() throws Exception {
+        ArgumentCaptor<RequestOptions> options = ArgumentCaptor.forClass(RequestOptions.class);
+        when(this.dispatcher.<String>castMessageWithFuture(Matchers.<Collection<Address>>any(), any(Message.class), options.capture())).thenReturn(this.request);
+
+        Map<Node, Future<String>> futures = this.subject.submitOnCluster(this.command);
+
+        assertEquals(4, futures.size());
+        assertTrue(options.getValue().getRspFilter().isAcceptable("1", this.address1));
+
+        when(this.request.get()).thenThrow(new CancellationException());
+        this.completeRequest();
+
+        assertEquals("1", futures.get(this.node1).get());
+        assertTrue(futures.get(this.node2).isCancelled());
+        assertTrue(futures.get(this.node3).isCancelled());
+        assertTrue(futures.get(this.localNode).isCancelled());
+    }
+
+    @Test
+    public void submitOnClusterQuorum() throws Exception {
+        ArgumentCaptor<RequestOptions> options = ArgumentCaptor.forClass(RequestOptions.class);
+        when(this.dispatcher.<String>castMessageWithFuture(Matchers.<Collection<Address>>any(), any(Message.class), options.capture())).thenReturn(this.request);
+
+        try {
+            this.subject.submitOnCluster(this.command, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        Future<Map<Node, CommandResponse<String>>> future = this.subject.submitOnCluster(this.command, 2, this.localNode);
+        RspFilter filter = options.getValue().getRspFilter();
+
+        assertTrue(filter.needMoreResponses());
+        assertTrue(filter.isAcceptable("1", this.address1));
+        assertTrue(filter.needMoreResponses());
+        // Nodes without the service do not count towards the quorum
+        assertFalse(filter.isAcceptable(new NoSuchService(), this.address2));
+        assertTrue(filter.needMoreResponses());
+        assertTrue(filter.isAcceptable("3", this.address3));
+        assertFalse(filter.needMoreResponses());
+
+        RspList<String> responses = new RspList<>();
+        responses.addRsp(this.address1, "1");
+        responses.put(this.address2, new Rsp<String>(this.address2));
+        responses.addRsp(this.address3, "3");
+        when(this.request.get()).thenReturn(responses);
+
+        Map<Node, CommandResponse<String>> result = future.get();
+        assertEquals(2, result.size());
+        assertEquals("1", result.get(this.node1).get());
+        assertEquals("3", result.get(this.node3).get());
+    }
+
+    private void completeRequest(RspList<String> responses) throws Exception {
+        when(this.request.get()).thenReturn(responses);
+        this.completeRequest();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void completeRequest() {
+        ArgumentCaptor<FutureListener> listener = ArgumentCaptor.forClass(FutureListener.class);
+        verify(this.request).setListener(listener.capture());
+        listener.getValue().futureDone(this.request);
+    }
+}
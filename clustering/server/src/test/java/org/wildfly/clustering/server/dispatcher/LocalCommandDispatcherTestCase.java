@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Unit test for {@link LocalCommandDispatcher}.
+ */
+public class LocalCommandDispatcherTestCase {
+    private final Object context = new Object();
+    private final Node node = mock(Node.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final CommandDispatcher<Object> dispatcher = new LocalCommandDispatcher<>(this.node, this.context, this.executor);
+
+    @After
+    public void destroy() {
+        this.dispatcher.close();
+    }
+
+    @Test
+    public void submitOnCluster() throws Exception {
+        @SuppressWarnings("unchecked")
+        Command<String, Object> command = mock(Command.class);
+        @SuppressWarnings("unchecked")
+        CommandResponseListener<String> listener = mock(CommandResponseListener.class);
+        when(command.execute(this.context)).thenReturn("result");
+
+        Map<Node, Future<String>> futures = this.dispatcher.submitOnCluster(command, listener);
+
+        assertEquals(1, futures.size());
+        assertEquals("result", futures.get(this.node).get());
+        verify(listener, timeout(1000)).responseReceived(same(this.node), any(CommandResponse.class));
+
+        // The only node is excluded
+        assertTrue(this.dispatcher.submitOnCluster(command, listener, this.node).isEmpty());
+        verify(command, times(1)).execute(this.context);
+        verifyNoMoreInteractions(listener);
+    }
+}
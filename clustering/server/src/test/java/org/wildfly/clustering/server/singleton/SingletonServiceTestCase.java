@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.singleton;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandDispatcherFactory;
+import org.wildfly.clustering.group.Group;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.provider.ServiceProviderRegistration;
+import org.wildfly.clustering.provider.ServiceProviderRegistrationFactory;
+import org.wildfly.clustering.singleton.SingletonElectionPolicy;
+
+/**
+ * Unit test for the elections of {@link SingletonService}, which always elect another node than the local one.
+ */
+public class SingletonServiceTestCase {
+    private static final long QUIET_PERIOD = 200;
+
+    private final Node localNode = mock(Node.class);
+    private final Node node1 = mock(Node.class);
+    private final Node node2 = mock(Node.class);
+    private final Group group = mock(Group.class);
+    private final SingletonElectionPolicy policy = mock(SingletonElectionPolicy.class);
+    private final CommandDispatcherFactory dispatcherFactory = mock(CommandDispatcherFactory.class);
+    private final ServiceProviderRegistrationFactory registrationFactory = mock(ServiceProviderRegistrationFactory.class);
+    private SingletonService<Serializable> singleton;
+
+    @Before
+    public void init() {
+        when(this.group.getLocalNode()).thenReturn(this.localNode);
+        when(this.group.getNodes()).thenAnswer(new Answer<List<Node>>() {
+            @Override
+            public List<Node> answer(InvocationOnMock invocation) {
+                return new ArrayList<>(Arrays.asList(SingletonServiceTestCase.this.localNode, SingletonServiceTestCase.this.node1, SingletonServiceTestCase.this.node2));
+            }
+        });
+        when(this.policy.elect(Matchers.<List<Node>>any())).thenReturn(this.node1);
+        when(this.dispatcherFactory.createCommandDispatcher(any(), any())).thenReturn(mock(CommandDispatcher.class));
+        when(this.registrationFactory.createRegistration(any(), any(ServiceProviderRegistration.Listener.class))).thenReturn(mock(ServiceProviderRegistration.class));
+
+        @SuppressWarnings("unchecked")
+        Service<Serializable> service = mock(Service.class);
+        this.singleton = new SingletonService<>(ServiceName.JBOSS.append("singleton"), service);
+        this.singleton.group.inject(this.group);
+        this.singleton.dispatcherFactory.inject(this.dispatcherFactory);
+        this.singleton.registrationFactory.inject(this.registrationFactory);
+        this.singleton.setElectionPolicy(this.policy);
+    }
+
+    @After
+    public void destroy() {
+        if (this.singleton.started) {
+            this.singleton.stop(mock(StopContext.class));
+        }
+    }
+
+    @Test
+    public void immediateElection() {
+        this.start();
+
+        this.singleton.providersChanged(this.nodes(this.localNode, this.node1));
+
+        assertEquals(1, this.singleton.getElectionCount());
+        assertEquals(0, this.singleton.getCoalescedElectionCount());
+        assertFalse(this.singleton.isMaster());
+        verify(this.policy).elect(Arrays.asList(this.localNode, this.node1));
+    }
+
+    @Test
+    public void coalescedElections() throws Exception {
+        this.singleton.setElectionQuietPeriod(QUIET_PERIOD, TimeUnit.MILLISECONDS);
+        this.start();
+
+        this.singleton.providersChanged(this.nodes(this.localNode));
+        this.singleton.providersChanged(this.nodes(this.localNode, this.node1));
+        this.singleton.providersChanged(this.nodes(this.localNode, this.node1, this.node2));
+        this.singleton.providersChanged(this.nodes(this.localNode, this.node2));
+        this.singleton.providersChanged(this.nodes(this.localNode, this.node1));
+        assertEquals(0, this.singleton.getElectionCount());
+
+        // The burst of changes leads to a single election, among the last providers
+        this.awaitElections(1);
+        Thread.sleep(2 * QUIET_PERIOD);
+        assertEquals(1, this.singleton.getElectionCount());
+        assertEquals(4, this.singleton.getCoalescedElectionCount());
+        assertTrue(this.singleton.getAverageElectionTime() >= QUIET_PERIOD);
+        verify(this.policy).elect(Arrays.asList(this.localNode, this.node1));
+        verifyNoMoreInteractions(this.policy);
+
+        // A later change leads to a new election
+        this.singleton.providersChanged(this.nodes(this.localNode, this.node2));
+        this.awaitElections(2);
+        assertEquals(4, this.singleton.getCoalescedElectionCount());
+    }
+
+    @Test
+    public void maxDeferral() throws Exception {
+        this.singleton.setElectionQuietPeriod(1, TimeUnit.HOURS);
+        this.singleton.setElectionMaxDeferral(QUIET_PERIOD, TimeUnit.MILLISECONDS);
+        this.start();
+
+        this.singleton.providersChanged(this.nodes(this.localNode));
+        this.singleton.providersChanged(this.nodes(this.localNode, this.node1));
+
+        // The election is not deferred beyond the maximum deferral
+        this.awaitElections(1);
+        assertEquals(1, this.singleton.getCoalescedElectionCount());
+        long time = this.singleton.getAverageElectionTime();
+        assertTrue(String.valueOf(time), (time >= QUIET_PERIOD) && (time < TimeUnit.HOURS.toMillis(1)));
+        verify(this.policy).elect(Arrays.asList(this.localNode, this.node1));
+    }
+
+    private void start() {
+        ServiceController<?> controller = mock(ServiceController.class);
+        StartContext context = mock(StartContext.class);
+        doReturn(controller).when(context).getController();
+        when(controller.getServiceContainer()).thenReturn(mock(ServiceContainer.class));
+        this.singleton.start(context);
+    }
+
+    private void awaitElections(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while ((this.singleton.getElectionCount() < count) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, this.singleton.getElectionCount());
+    }
+
+    private Set<Node> nodes(Node... nodes) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(nodes)));
+    }
+}
@@ -26,4 +26,19 @@ package org.wildfly.clustering.singleton;
  */
 public interface Singleton {
     boolean isMaster();
+
+    /**
+     * @return the number of elections held by this node
+     */
+    long getElectionCount();
+
+    /**
+     * @return the average time in ms between a change of the providers and the end of the ensuing election
+     */
+    long getAverageElectionTime();
+
+    /**
+     * @return the number of elections, and so of potential failovers, which were avoided by coalescing changes of the providers
+     */
+    long getCoalescedElectionCount();
 }
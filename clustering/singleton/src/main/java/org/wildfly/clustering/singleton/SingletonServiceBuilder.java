@@ -22,6 +22,7 @@
 package org.wildfly.clustering.singleton;
 
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceTarget;
@@ -36,5 +37,25 @@ public interface SingletonServiceBuilder<T extends Serializable> {
 
     SingletonServiceBuilder<T> electionPolicy(SingletonElectionPolicy policy);
 
+    /**
+     * Defers the election which follows a change of the nodes providing the singleton service until no other change happened for the specified quiet period,
+     * so that a series of changes, e.g. during a rolling restart, only triggers a single election.
+     * By default, each change triggers an election immediately.
+     * @param period the quiet period
+     * @param unit the unit of the quiet period
+     * @return this builder
+     */
+    SingletonServiceBuilder<T> electionQuietPeriod(long period, TimeUnit unit);
+
+    /**
+     * Holds an election deferred by {@link #electionQuietPeriod(long, TimeUnit)} at the latest the specified time after the first change it follows,
+     * even if the nodes providing the singleton service keep changing.
+     * By default, an election is deferred by at most ten quiet periods.
+     * @param deferral the maximum deferral
+     * @param unit the unit of the maximum deferral
+     * @return this builder
+     */
+    SingletonServiceBuilder<T> electionMaxDeferral(long deferral, TimeUnit unit);
+
     ServiceBuilder<T> build(ServiceTarget target);
 }
@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.singleton.election;
+
+import java.util.Map;
+
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.registry.Registry;
+
+/**
+ * Weights the nodes by the load they report via a {@link Registry}, so that the least loaded node is elected.
+ * The registry entry of a node holds its load, e.g. its number of active requests, or its system load average.
+ * Nodes which did not report their load are only elected if no candidate did.
+ * Since a registry entry replicates asynchronously, nodes may briefly disagree about the load of a node which just updated its entry,
+ * which is why a load should only be updated periodically, rather than on every change.
+ */
+public class LoadWeight implements Weight {
+    private final Registry<?, ? extends Number> registry;
+
+    public LoadWeight(Registry<?, ? extends Number> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public double weight(Node node) {
+        Map.Entry<?, ? extends Number> entry = this.registry.getEntry(node);
+        Number load = (entry != null) ? entry.getValue() : null;
+        return (load != null) ? -load.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.singleton.election;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Weights the nodes by name, e.g. to prefer some nodes over others, while still electing one of the other nodes if none of the preferred nodes is a candidate.
+ */
+public class NameWeight implements Weight {
+    private final Map<String, Double> weights;
+    private final double defaultWeight;
+
+    /**
+     * @param weights the weight of each node name
+     * @param defaultWeight the weight of the nodes whose name has no weight
+     */
+    public NameWeight(Map<String, ? extends Number> weights, double defaultWeight) {
+        this.weights = new HashMap<>(weights.size());
+        for (Map.Entry<String, ? extends Number> entry: weights.entrySet()) {
+            this.weights.put(entry.getKey(), entry.getValue().doubleValue());
+        }
+        this.defaultWeight = defaultWeight;
+    }
+
+    @Override
+    public double weight(Node node) {
+        Double weight = this.weights.get(node.getName());
+        return (weight != null) ? weight.doubleValue() : this.defaultWeight;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.singleton.election;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.singleton.SingletonElectionPolicy;
+
+/**
+ * An election policy that elects the candidate of highest weight,
+ * and defers to a default policy to elect among the candidates of the same weight.
+ */
+public class WeightedSingletonElectionPolicy implements SingletonElectionPolicy {
+    private final SingletonElectionPolicy policy;
+    private final Weight weight;
+
+    public WeightedSingletonElectionPolicy(SingletonElectionPolicy policy, Weight weight) {
+        this.policy = policy;
+        this.weight = weight;
+    }
+
+    @Override
+    public Node elect(List<Node> candidates) {
+        List<Node> heaviest = new ArrayList<>(candidates.size());
+        double max = Double.NEGATIVE_INFINITY;
+        for (Node candidate: candidates) {
+            double weight = this.weight.weight(candidate);
+            if (weight > max) {
+                max = weight;
+                heaviest.clear();
+            }
+            if (weight == max) {
+                heaviest.add(candidate);
+            }
+        }
+        // Candidates without a comparable weight (i.e. NaN) are only elected if no other candidate has one
+        return this.policy.elect(!heaviest.isEmpty() ? heaviest : candidates);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.singleton.election;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.registry.Registry;
+import org.wildfly.clustering.singleton.election.LoadWeight;
+import org.wildfly.clustering.singleton.election.NameWeight;
+import org.wildfly.clustering.singleton.election.SimpleSingletonElectionPolicy;
+import org.wildfly.clustering.singleton.election.Weight;
+import org.wildfly.clustering.singleton.election.WeightedSingletonElectionPolicy;
+
+public class WeightedSingletonElectionPolicyTestCase {
+    @Test
+    public void elect() {
+        Weight weight = mock(Weight.class);
+        Node node1 = mock(Node.class);
+        Node node2 = mock(Node.class);
+        Node node3 = mock(Node.class);
+
+        when(weight.weight(node1)).thenReturn(1d);
+        when(weight.weight(node2)).thenReturn(2d);
+        when(weight.weight(node3)).thenReturn(2d);
+
+        WeightedSingletonElectionPolicy policy = new WeightedSingletonElectionPolicy(new SimpleSingletonElectionPolicy(), weight);
+
+        // Ties are broken by the default policy
+        assertSame(node2, policy.elect(Arrays.asList(node1, node2, node3)));
+        assertSame(node3, policy.elect(Arrays.asList(node3, node2, node1)));
+        assertSame(node1, policy.elect(Arrays.asList(node1)));
+
+        // Candidates without a weight are only elected if no candidate has one
+        when(weight.weight(node2)).thenReturn(Double.NaN);
+        when(weight.weight(node3)).thenReturn(Double.NaN);
+        assertSame(node1, policy.elect(Arrays.asList(node2, node3, node1)));
+        assertSame(node2, policy.elect(Arrays.asList(node2, node3)));
+    }
+
+    @Test
+    public void nameWeight() {
+        Node node1 = mock(Node.class);
+        Node node2 = mock(Node.class);
+        when(node1.getName()).thenReturn("node1");
+        when(node2.getName()).thenReturn("node2");
+
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("node1", 10);
+        Weight weight = new NameWeight(weights, 1);
+
+        assertEquals(10d, weight.weight(node1), 0d);
+        assertEquals(1d, weight.weight(node2), 0d);
+    }
+
+    @Test
+    public void loadWeight() {
+        @SuppressWarnings("unchecked")
+        Registry<String, Double> registry = mock(Registry.class);
+        Node node1 = mock(Node.class);
+        Node node2 = mock(Node.class);
+        Node node3 = mock(Node.class);
+
+        when(registry.getEntry(node1)).thenReturn(new AbstractMap.SimpleImmutableEntry<>("node1", 0.5));
+        when(registry.getEntry(node2)).thenReturn(new AbstractMap.SimpleImmutableEntry<>("node2", 0.25));
+        Weight weight = new LoadWeight(registry);
+
+        // The least loaded node is the heaviest
+        assertTrue(weight.weight(node2) > weight.weight(node1));
+        assertTrue(Double.isNaN(weight.weight(node3)));
+        assertSame(node2, new WeightedSingletonElectionPolicy(new SimpleSingletonElectionPolicy(), weight).elect(Arrays.asList(node3, node1, node2)));
+        assertSame(node3, new WeightedSingletonElectionPolicy(new SimpleSingletonElectionPolicy(), weight).elect(Collections.singletonList(node3)));
+    }
+}
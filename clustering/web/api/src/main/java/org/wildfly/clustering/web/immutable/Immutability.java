@@ -0,0 +1,39 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.immutable;
+
+/**
+ * Identifies additional types whose instances are immutable, and therefore need not be replicated after being read from a distributable session.
+ * Use this for types that cannot be annotated with {@link org.wildfly.clustering.web.annotation.Immutable}, e.g. the immutable collections of third-party libraries.
+ * <p>
+ * Implementations are located via {@link java.util.ServiceLoader}, using the class loader of the session attribute type.
+ * An application registers an implementation by listing its class name in a <code>META-INF/services/org.wildfly.clustering.web.immutable.Immutability</code> resource.
+ * The verdict is cached per class, so implementations should only depend on the specified class.
+ */
+public interface Immutability {
+    /**
+     * Indicates whether instances of the specified class are immutable.
+     * @param targetClass the class of a session attribute
+     * @return true, if instances of the specified class are immutable, false otherwise
+     */
+    boolean isImmutable(Class<?> targetClass);
+}
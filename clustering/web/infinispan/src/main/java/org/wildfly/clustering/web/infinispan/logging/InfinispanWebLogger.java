@@ -65,4 +65,12 @@ public interface InfinispanWebLogger extends BasicLogger {
     @LogMessage(level = WARN)
     @Message(id = 6, value = "Failed to schedule expiration/passivation of session %s on primary owner.")
     void failedToScheduleSession(@Cause Throwable cause, String sessionId);
+
+    @LogMessage(level = WARN)
+    @Message(id = 7, value = "Failed to determine whether %s is immutable, its instances will be treated as mutable")
+    void failedToDetermineImmutability(@Cause Throwable cause, Class<?> targetClass);
+
+    @LogMessage(level = WARN)
+    @Message(id = 8, value = "Failed to apply replicated changes to a session attribute, as they were made against a different state of the attribute. This node will use the last complete state of the attribute it received until the attribute is replicated whole.")
+    void failedToApplyDelta();
 }
@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.DeltaAware;
+import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+
+/**
+ * The changes between two marshalled forms of a {@link TrackedMarshalledValue}.
+ * A delta either replaces the whole form, or only the bytes between the prefix and the suffix the two forms have in common.
+ */
+public class BinaryDelta implements Delta, Externalizable {
+    private static final long serialVersionUID = 4307406862359311617L;
+
+    private static final long MULTIPLIER = 0xc6a4a7935bd1e995L;
+    private static final int SHIFT = 47;
+
+    // The length of the form this delta applies to, or -1 if this delta replaces any form
+    private int sourceLength;
+    private long sourceHash;
+    private long targetHash;
+    private int prefix;
+    private int suffix;
+    private byte[] bytes;
+
+    public BinaryDelta() {
+        // Required for externalization
+    }
+
+    private BinaryDelta(int sourceLength, long sourceHash, long targetHash, int prefix, int suffix, byte[] bytes) {
+        this.sourceLength = sourceLength;
+        this.sourceHash = sourceHash;
+        this.targetHash = targetHash;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Creates a delta that replaces any form with the specified form.
+     */
+    static BinaryDelta replace(byte[] target, long targetHash) {
+        return new BinaryDelta(-1, 0L, targetHash, 0, 0, target);
+    }
+
+    /**
+     * Creates a delta that turns the specified source form into the specified target form.
+     */
+    static BinaryDelta diff(byte[] source, long sourceHash, byte[] target, long targetHash) {
+        int limit = Math.min(source.length, target.length);
+        int prefix = 0;
+        while ((prefix < limit) && (source[prefix] == target[prefix])) {
+            prefix += 1;
+        }
+        int suffix = 0;
+        while ((suffix < limit - prefix) && (source[source.length - suffix - 1] == target[target.length - suffix - 1])) {
+            suffix += 1;
+        }
+        return new BinaryDelta(source.length, sourceHash, targetHash, prefix, suffix, Arrays.copyOfRange(target, prefix, target.length - suffix));
+    }
+
+    /**
+     * Computes a 64-bit hash of the specified bytes, based on MurmurHash64A.
+     */
+    static long hash(byte[] bytes) {
+        long hash = bytes.length * MULTIPLIER;
+        int index = 0;
+        for (int limit = bytes.length & ~7; index < limit; index += 8) {
+            long value = 0L;
+            for (int i = 7; i >= 0; --i) {
+                value = (value << 8) | (bytes[index + i] & 0xffL);
+            }
+            value *= MULTIPLIER;
+            value ^= value >>> SHIFT;
+            value *= MULTIPLIER;
+            hash ^= value;
+            hash *= MULTIPLIER;
+        }
+        if (index < bytes.length) {
+            long value = 0L;
+            for (int i = bytes.length - 1; i >= index; --i) {
+                value = (value << 8) | (bytes[i] & 0xffL);
+            }
+            hash ^= value;
+            hash *= MULTIPLIER;
+        }
+        hash ^= hash >>> SHIFT;
+        hash *= MULTIPLIER;
+        hash ^= hash >>> SHIFT;
+        return hash;
+    }
+
+    /**
+     * Indicates whether this delta replaces the whole form.
+     */
+    boolean isReplacement() {
+        return this.sourceLength < 0;
+    }
+
+    long getTargetHash() {
+        return this.targetHash;
+    }
+
+    /**
+     * Returns the number of bytes of the marshalled form carried by this delta.
+     */
+    int size() {
+        return this.bytes.length;
+    }
+
+    /**
+     * Applies this delta to the specified form.
+     * @param source a marshalled form, or null if unknown
+     * @param sourceHash the hash of the marshalled form
+     * @return the resulting form, or null if this delta was not made against the specified form
+     */
+    byte[] apply(byte[] source, long sourceHash) {
+        if (this.isReplacement()) return this.bytes;
+        if ((source == null) || (source.length != this.sourceLength) || (sourceHash != this.sourceHash)) return null;
+        byte[] target = new byte[this.prefix + this.bytes.length + this.suffix];
+        System.arraycopy(source, 0, target, 0, this.prefix);
+        System.arraycopy(this.bytes, 0, target, this.prefix, this.bytes.length);
+        System.arraycopy(source, source.length - this.suffix, target, this.prefix + this.bytes.length, this.suffix);
+        return target;
+    }
+
+    @Override
+    public DeltaAware merge(DeltaAware value) {
+        DeltaAware result = (value instanceof TrackedMarshalledValue) ? ((TrackedMarshalledValue<?>) value).merge(this) : null;
+        if (result != null) return result;
+        if (this.isReplacement()) return new TrackedMarshalledValue<>(this.bytes, this.targetHash);
+        // The changes cannot be applied, so keep the current form, marked as stale, until the whole form is replicated again
+        if (!(value instanceof TrackedMarshalledValue)) {
+            InfinispanWebLogger.ROOT_LOGGER.failedToApplyDelta();
+            return TrackedMarshalledValue.stale();
+        }
+        TrackedMarshalledValue<?> current = (TrackedMarshalledValue<?>) value;
+        if (!current.isStale()) {
+            InfinispanWebLogger.ROOT_LOGGER.failedToApplyDelta();
+        }
+        return current.toStale();
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(this.sourceLength);
+        if (!this.isReplacement()) {
+            out.writeLong(this.sourceHash);
+            out.writeInt(this.prefix);
+            out.writeInt(this.suffix);
+        }
+        out.writeLong(this.targetHash);
+        out.writeInt(this.bytes.length);
+        out.write(this.bytes);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.sourceLength = in.readInt();
+        if (!this.isReplacement()) {
+            this.sourceHash = in.readLong();
+            this.prefix = in.readInt();
+            this.suffix = in.readInt();
+        }
+        this.targetHash = in.readLong();
+        this.bytes = new byte[in.readInt()];
+        in.readFully(this.bytes);
+    }
+}
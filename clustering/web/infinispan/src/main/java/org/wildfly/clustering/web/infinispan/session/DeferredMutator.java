@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wildfly.clustering.ee.infinispan.Mutator;
+
+/**
+ * Mutator for a session that defers the mutation of its attributes until the session is closed.
+ * Deferring mutations allows an attribute that was read during a request to be replicated only if it changed by the end of the request.
+ */
+public class DeferredMutator<K> implements Mutator {
+
+    private final Mutator mutator;
+    private final Map<K, Mutator> mutators = new LinkedHashMap<>();
+
+    /**
+     * Creates a deferred mutator.
+     * @param mutator the mutator of the session, performed after the deferred mutations
+     */
+    public DeferredMutator(Mutator mutator) {
+        this.mutator = mutator;
+    }
+
+    /**
+     * Defers the specified mutation of the specified attribute until this mutator is performed.
+     * Only the first mutation deferred for a given attribute is retained.
+     */
+    public synchronized void defer(K key, Mutator mutator) {
+        if (!this.mutators.containsKey(key)) {
+            this.mutators.put(key, mutator);
+        }
+    }
+
+    /**
+     * Discards the mutation deferred for the specified attribute, e.g. if the attribute was replaced or removed.
+     */
+    public synchronized void cancel(K key) {
+        this.mutators.remove(key);
+    }
+
+    @Override
+    public void mutate() {
+        List<Mutator> mutators;
+        synchronized (this) {
+            mutators = new ArrayList<>(this.mutators.values());
+            this.mutators.clear();
+        }
+        for (Mutator mutator: mutators) {
+            mutator.mutate();
+        }
+        this.mutator.mutate();
+    }
+}
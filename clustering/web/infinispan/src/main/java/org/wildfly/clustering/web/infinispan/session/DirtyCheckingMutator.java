@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.io.IOException;
+
+import org.infinispan.Cache;
+import org.infinispan.context.Flag;
+import org.wildfly.clustering.ee.infinispan.Mutator;
+
+/**
+ * Replicates a {@link TrackedMarshalledValue}, but only if its marshalled form changed since it was last replicated.
+ */
+public class DirtyCheckingMutator<K, V> implements Mutator {
+
+    private final Cache<K, V> cache;
+    private final K key;
+    private final V value;
+    private final TrackedMarshalledValue<?> trackedValue;
+    private final int deltaThreshold;
+    private final ReplicationStatistics statistics;
+
+    public DirtyCheckingMutator(Cache<K, V> cache, K key, V value, int deltaThreshold, ReplicationStatistics statistics) {
+        this.cache = cache;
+        this.key = key;
+        this.value = value;
+        this.trackedValue = (TrackedMarshalledValue<?>) value;
+        this.deltaThreshold = deltaThreshold;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void mutate() {
+        byte[] bytes;
+        try {
+            bytes = this.trackedValue.marshal();
+        } catch (IOException e) {
+            // Replicate the whole value, which reports the failure
+            this.trackedValue.commit();
+            this.put();
+            return;
+        }
+        // The object was never unmarshalled, so it cannot have changed
+        if (bytes == null) return;
+        long hash = BinaryDelta.hash(bytes);
+        if (this.trackedValue.isReplicated(bytes, hash)) {
+            this.statistics.skipped(bytes.length);
+            return;
+        }
+        BinaryDelta delta = this.trackedValue.replicate(bytes, hash, this.deltaThreshold);
+        this.put();
+        this.statistics.replicated(bytes.length, delta.size());
+    }
+
+    private void put() {
+        // Only a put merges the delta of the value on other nodes
+        this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).put(this.key, this.value);
+    }
+}
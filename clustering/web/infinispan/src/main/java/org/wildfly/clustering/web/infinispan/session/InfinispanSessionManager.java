@@ -28,6 +28,12 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
 import javax.servlet.http.HttpSession;
 import javax.servlet.http.HttpSessionActivationListener;
 import javax.servlet.http.HttpSessionBindingEvent;
@@ -275,6 +281,16 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
         return this.getSessions(Flag.CACHE_MODE_LOCAL);
     }
 
+    /**
+     * Returns the node-local counters of the replication of the attributes of the specified session,
+     * including the number of marshalled bytes that did not need to be replicated.
+     * @param id a unique session identifier
+     * @return the replication statistics of the session, or null if the session does not exist on this node, or its attributes are not tracked for changes
+     */
+    public ReplicationStatistics getReplicationStatistics(String id) {
+        return this.factory.findReplicationStatistics(id);
+    }
+
     private Set<String> getSessions(Flag... flags) {
         Set<String> result = new HashSet<>();
         for (Object key: this.cache.getAdvancedCache().withFlags(flags).keySet()) {
@@ -310,22 +326,69 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
         if (event.isPre()) {
             String id = event.getKey();
             InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will be removed", id);
-            ImmutableSession session = this.factory.createImmutableSession(id, this.factory.findValue(id));
-            ImmutableSessionAttributes attributes = session.getAttributes();
-
-            HttpSession httpSession = new ImmutableHttpSessionAdapter(session);
-            HttpSessionEvent sessionEvent = new HttpSessionEvent(httpSession);
-            for (HttpSessionListener listener: this.context.getSessionListeners()) {
-                listener.sessionDestroyed(sessionEvent);
+            if (InfinispanWebLogger.ROOT_LOGGER.isDebugEnabled()) {
+                ReplicationStatistics statistics = this.factory.findReplicationStatistics(id);
+                if (statistics != null) {
+                    InfinispanWebLogger.ROOT_LOGGER.debugf("Replication of the attributes of session %s on this node: %s", id, statistics);
+                }
             }
+            // Take a snapshot, since the session can no longer be read once its removal completes
+            final ImmutableSession session = new SimpleImmutableSession(this.factory.createImmutableSession(id, this.factory.findValue(id)));
+            Transaction transaction = this.getTransaction();
+            if (transaction != null) {
+                // Notify listeners only if the removal is committed, so that a removal that is rolled back and retried
+                // notifies them only once
+                try {
+                    transaction.registerSynchronization(new Synchronization() {
+                        @Override
+                        public void beforeCompletion() {
+                        }
 
-            for (String attribute: attributes.getAttributeNames()) {
-                Object value = attributes.getAttribute(attribute);
-                if (value instanceof HttpSessionBindingListener) {
-                    HttpSessionBindingListener listener = (HttpSessionBindingListener) value;
-                    listener.valueUnbound(new HttpSessionBindingEvent(httpSession, attribute, value));
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status == Status.STATUS_COMMITTED) {
+                                InfinispanSessionManager.this.triggerDestroyEvents(session);
+                            }
+                        }
+                    });
+                    return;
+                } catch (RollbackException e) {
+                    // The removal will be rolled back
+                    return;
+                } catch (IllegalStateException | SystemException e) {
+                    InfinispanWebLogger.ROOT_LOGGER.tracef(e, "Could not defer the notification of the removal of session %s", id);
                 }
             }
+            this.triggerDestroyEvents(session);
+        }
+    }
+
+    private Transaction getTransaction() {
+        TransactionManager tm = this.cache.getAdvancedCache().getTransactionManager();
+        if (tm == null) return null;
+        try {
+            Transaction transaction = tm.getTransaction();
+            return ((transaction != null) && (transaction.getStatus() == Status.STATUS_ACTIVE)) ? transaction : null;
+        } catch (SystemException e) {
+            return null;
+        }
+    }
+
+    private void triggerDestroyEvents(ImmutableSession session) {
+        ImmutableSessionAttributes attributes = session.getAttributes();
+
+        HttpSession httpSession = new ImmutableHttpSessionAdapter(session);
+        HttpSessionEvent sessionEvent = new HttpSessionEvent(httpSession);
+        for (HttpSessionListener listener: this.context.getSessionListeners()) {
+            listener.sessionDestroyed(sessionEvent);
+        }
+
+        for (String attribute: attributes.getAttributeNames()) {
+            Object value = attributes.getAttribute(attribute);
+            if (value instanceof HttpSessionBindingListener) {
+                HttpSessionBindingListener listener = (HttpSessionBindingListener) value;
+                listener.valueUnbound(new HttpSessionBindingEvent(httpSession, attribute, value));
+            }
         }
     }
 
@@ -59,6 +59,7 @@ import org.wildfly.clustering.web.session.SessionContext;
 import org.wildfly.clustering.web.session.SessionManager;
 import org.wildfly.clustering.web.session.SessionManagerConfiguration;
 import org.wildfly.clustering.web.session.SessionManagerFactory;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Factory for creating session managers.
@@ -67,6 +68,12 @@ import org.wildfly.clustering.web.session.SessionManagerFactory;
 @SuppressWarnings("rawtypes")
 public class InfinispanSessionManagerFactory extends AbstractService<SessionManagerFactory<TransactionBatch>> implements SessionManagerFactory<TransactionBatch> {
 
+    // Enables the tracking of changes to session attributes, which must be enabled on every node of the cluster
+    static final String TRACK_CHANGES = "jboss.web.session.replication.track-changes";
+    // The minimum size of a marshalled session attribute that may be replicated as a delta
+    static final String DELTA_THRESHOLD = "jboss.web.session.replication.delta-threshold";
+    private static final int DEFAULT_DELTA_THRESHOLD = 4096;
+
     public static ServiceBuilder<SessionManagerFactory<TransactionBatch>> build(ServiceTarget target, ServiceName name, String containerName, String cacheName, SessionManagerConfiguration config) {
         InfinispanSessionManagerFactory factory = new InfinispanSessionManagerFactory(config);
         return target.addService(name, factory)
@@ -142,20 +149,22 @@ public class InfinispanSessionManagerFactory extends AbstractService<SessionMana
     private <L> SessionFactory<?, L> getSessionFactory(SessionContext context, LocalContextFactory<L> localContextFactory) {
         Module module = this.config.getModule();
         MarshallingContext marshallingContext = new SimpleMarshallingContextFactory().createMarshallingContext(new SessionAttributeMarshallingContext(module), module.getClassLoader());
-        MarshalledValueFactory<MarshallingContext> factory = new SimpleMarshalledValueFactory(marshallingContext);
+        boolean trackChanges = Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(TRACK_CHANGES, Boolean.FALSE.toString()));
+        int deltaThreshold = trackChanges ? Math.max(Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(DELTA_THRESHOLD, Integer.toString(DEFAULT_DELTA_THRESHOLD))), 0) : -1;
+        MarshalledValueFactory<MarshallingContext> factory = trackChanges ? new TrackedMarshalledValueFactory(marshallingContext, deltaThreshold) : new SimpleMarshalledValueFactory(marshallingContext);
 
         switch (this.config.getAttributePersistenceStrategy()) {
             case FINE: {
                 Cache<String, FineSessionCacheEntry<L>> sessionCache = this.cache.getValue();
                 Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache = this.cache.getValue();
                 SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller = new MarshalledValueSessionAttributeMarshaller<>(factory, marshallingContext);
-                return new FineSessionFactory<>(sessionCache, attributeCache, context, marshaller, localContextFactory);
+                return new FineSessionFactory<>(sessionCache, attributeCache, context, marshaller, localContextFactory, deltaThreshold);
             }
             case COARSE: {
                 Cache<String, CoarseSessionCacheEntry<L>> sessionCache = this.cache.getValue();
                 Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache = this.cache.getValue();
                 SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller = new MarshalledValueSessionAttributeMarshaller<>(factory, marshallingContext);
-                return new CoarseSessionFactory<>(sessionCache, attributesCache, context, marshaller, localContextFactory);
+                return new CoarseSessionFactory<>(sessionCache, attributesCache, context, marshaller, localContextFactory, deltaThreshold);
             }
             default: {
                 // Impossible
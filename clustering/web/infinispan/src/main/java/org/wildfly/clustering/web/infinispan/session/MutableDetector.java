@@ -34,15 +34,25 @@ import java.security.Permission;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Currency;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 
 import org.wildfly.clustering.web.annotation.Immutable;
+import org.wildfly.clustering.web.immutable.Immutability;
+import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Determines whether a given object is mutable.
+ * The verdict is computed once per class, and cached.
+ * Besides the known immutable types, a class is considered immutable if it is annotated with {@link Immutable},
+ * or if an {@link Immutability} service visible to the class loader of the class says so.
  * @author Paul Ferraro
  */
 public class MutableDetector {
@@ -82,14 +92,66 @@ public class MutableDetector {
             UUID.class
     );
 
+    // Immutable types that are not necessarily available, matched by name against the class and its super classes
+    private static final Set<String> IMMUTABLE_TYPE_NAMES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "java.time.Duration",
+            "java.time.Instant",
+            "java.time.LocalDate",
+            "java.time.LocalDateTime",
+            "java.time.LocalTime",
+            "java.time.MonthDay",
+            "java.time.OffsetDateTime",
+            "java.time.OffsetTime",
+            "java.time.Period",
+            "java.time.Year",
+            "java.time.YearMonth",
+            "java.time.ZoneId",
+            "java.time.ZonedDateTime",
+            "org.joda.time.DateMidnight",
+            "org.joda.time.DateTime",
+            "org.joda.time.DateTimeZone",
+            "org.joda.time.Duration",
+            "org.joda.time.Instant",
+            "org.joda.time.Interval",
+            "org.joda.time.LocalDate",
+            "org.joda.time.LocalDateTime",
+            "org.joda.time.LocalTime",
+            "org.joda.time.Period"
+    )));
+
+    private static final ClassValue<Boolean> IMMUTABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> targetClass) {
+            return isImmutable(targetClass);
+        }
+    };
+
     public static boolean isMutable(Object object) {
         for (Object value: IMMUTABLE_VALUES) {
             if (object == value) return false;
         }
+        return !IMMUTABLE.get(object.getClass());
+    }
+
+    static boolean isImmutable(Class<?> targetClass) {
         for (Class<?> immutableClass: IMMUTABLE_TYPES) {
-            if (immutableClass.isInstance(object)) return false;
+            if (immutableClass.isAssignableFrom(targetClass)) return true;
+        }
+        if (targetClass.isAnnotationPresent(Immutable.class)) return true;
+        for (Class<?> superClass = targetClass; superClass != null; superClass = superClass.getSuperclass()) {
+            if (IMMUTABLE_TYPE_NAMES.contains(superClass.getName())) return true;
+        }
+        ClassLoader loader = WildFlySecurityManager.getClassLoaderPrivileged(targetClass);
+        if (loader != null) {
+            try {
+                for (Immutability immutability: ServiceLoader.load(Immutability.class, loader)) {
+                    if (immutability.isImmutable(targetClass)) return true;
+                }
+            } catch (ServiceConfigurationError | RuntimeException e) {
+                InfinispanWebLogger.ROOT_LOGGER.failedToDetermineImmutability(e, targetClass);
+            }
         }
-        return !object.getClass().isAnnotationPresent(Immutable.class);
+        return false;
     }
 
     private MutableDetector() {
@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local counters of the replication of the attributes of a session whose attributes are tracked for changes.
+ * They are exposed by {@link InfinispanSessionManager#getReplicationStatistics(String)}, and logged at debug level when the session is removed.
+ */
+public class ReplicationStatistics {
+    private final AtomicLong skippedWrites = new AtomicLong();
+    private final AtomicLong deltaWrites = new AtomicLong();
+    private final AtomicLong fullWrites = new AtomicLong();
+    private final AtomicLong avoidedBytes = new AtomicLong();
+
+    /**
+     * Records that an attribute was not replicated, since it did not change.
+     * @param size the size of the marshalled attribute
+     */
+    void skipped(int size) {
+        this.skippedWrites.incrementAndGet();
+        this.avoidedBytes.addAndGet(size);
+    }
+
+    /**
+     * Records that an attribute was replicated.
+     * @param size the size of the marshalled attribute
+     * @param replicatedSize the number of bytes of the marshalled attribute that were replicated
+     */
+    void replicated(int size, int replicatedSize) {
+        if (replicatedSize < size) {
+            this.deltaWrites.incrementAndGet();
+            this.avoidedBytes.addAndGet(size - replicatedSize);
+        } else {
+            this.fullWrites.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of times a mutable attribute was read but not replicated, since it did not change.
+     */
+    public long getSkippedWrites() {
+        return this.skippedWrites.get();
+    }
+
+    /**
+     * Returns the number of times an attribute was replicated as a delta.
+     */
+    public long getDeltaWrites() {
+        return this.deltaWrites.get();
+    }
+
+    /**
+     * Returns the number of times an attribute was replicated whole.
+     */
+    public long getFullWrites() {
+        return this.fullWrites.get();
+    }
+
+    /**
+     * Returns the number of marshalled bytes that did not need to be replicated.
+     */
+    public long getAvoidedBytes() {
+        return this.avoidedBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d skipped, %d delta and %d full writes, %d bytes avoided", this.skippedWrites.get(), this.deltaWrites.get(), this.fullWrites.get(), this.avoidedBytes.get());
+    }
+}
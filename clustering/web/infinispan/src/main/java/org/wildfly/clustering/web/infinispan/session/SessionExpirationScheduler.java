@@ -22,12 +22,12 @@
 package org.wildfly.clustering.web.infinispan.session;
 
 import java.security.AccessController;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
@@ -35,51 +35,68 @@ import org.jboss.as.clustering.infinispan.distribution.Locality;
 import org.jboss.threads.JBossThreadFactory;
 import org.wildfly.clustering.ee.Batch;
 import org.wildfly.clustering.ee.Batcher;
+import org.wildfly.clustering.ee.ExpirationListener;
+import org.wildfly.clustering.ee.ExpirationScheduler;
+import org.wildfly.clustering.ee.TimerWheel;
 import org.wildfly.clustering.ee.infinispan.Remover;
 import org.wildfly.clustering.ee.infinispan.TransactionBatch;
 import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
 import org.wildfly.clustering.web.session.ImmutableSession;
+import org.wildfly.security.manager.WildFlySecurityManager;
 import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
 /**
  * Session expiration scheduler that eagerly expires sessions as soon as they are eligible.
+ * Expiration is tracked by the shared {@link TimerWheel}, while expired sessions are removed by the executor of this scheduler.
+ * Sessions that expire within the same tick of the wheel are removed using a single batch, up to a maximum batch size.
+ * Optionally, expiration times are rounded up to a window, so that more sessions expire together.
  * If/When Infinispan implements expiration notifications (ISPN-694), this will be obsolete.
  * @author Paul Ferraro
  */
-public class SessionExpirationScheduler implements Scheduler {
+public class SessionExpirationScheduler implements Scheduler, ExpirationListener<String> {
+
+    static final String MAX_BATCH_SIZE = "jboss.web.session.expiration.max-batch-size";
+    static final String WINDOW = "jboss.web.session.expiration.window";
+    // A maximum batch size of 1 removes every session using its own batch
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    private static final long DEFAULT_WINDOW = 0;
 
-    final Map<String, Future<?>> expirationFutures = new ConcurrentHashMap<>();
     final Batcher<TransactionBatch> batcher;
     final Remover<String> remover;
-    private final ScheduledExecutorService executor;
+    private final int maxBatchSize;
+    private final long window;
+    private final ExecutorService executor;
+    private final ExpirationScheduler<String> scheduler;
+    private volatile boolean closed = false;
 
     public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover) {
-        this(batcher, remover, createScheduledExecutor(createThreadFactory()));
+        this(batcher, remover, Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(MAX_BATCH_SIZE, Integer.toString(DEFAULT_MAX_BATCH_SIZE))), Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(WINDOW, Long.toString(DEFAULT_WINDOW))));
     }
 
-    private static ThreadFactory createThreadFactory() {
-        return new JBossThreadFactory(new ThreadGroup(SessionExpirationScheduler.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+    /**
+     * @param maxBatchSize the maximum number of sessions removed using the same batch
+     * @param window the window in ms to which expiration times are rounded up, or 0 to expire sessions as soon as possible
+     */
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, int maxBatchSize, long window) {
+        this(batcher, remover, maxBatchSize, window, Executors.newSingleThreadExecutor(createThreadFactory()), TimerWheel.getInstance());
     }
 
-    private static ScheduledExecutorService createScheduledExecutor(ThreadFactory factory) {
-        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, factory);
-        executor.setRemoveOnCancelPolicy(true);
-        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
-        return executor;
+    private static ThreadFactory createThreadFactory() {
+        return new JBossThreadFactory(new ThreadGroup(SessionExpirationScheduler.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
     }
 
-    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, ScheduledExecutorService executor) {
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, int maxBatchSize, long window, ExecutorService executor, TimerWheel wheel) {
         this.batcher = batcher;
         this.remover = remover;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.window = Math.max(window, 0);
         this.executor = executor;
+        this.scheduler = wheel.createScheduler(this, executor);
     }
 
     @Override
     public void cancel(String sessionId) {
-        Future<?> future = this.expirationFutures.remove(sessionId);
-        if (future != null) {
-            future.cancel(false);
-        }
+        this.scheduler.cancel(sessionId);
     }
 
     @Override
@@ -87,19 +104,21 @@ public class SessionExpirationScheduler implements Scheduler {
         long timeout = session.getMetaData().getMaxInactiveInterval(TimeUnit.MILLISECONDS);
         if (timeout > 0) {
             long lastAccessed = session.getMetaData().getLastAccessedTime().getTime();
-            long delay = Math.max(lastAccessed + timeout - System.currentTimeMillis(), 0);
+            long expiration = lastAccessed + timeout;
+            if (this.window > 0) {
+                // Align to the window, so that sessions expiring within the same window are removed together
+                expiration = ((expiration + this.window - 1) / this.window) * this.window;
+            }
+            long delay = Math.max(expiration - System.currentTimeMillis(), 0);
             String id = session.getId();
-            Runnable task = new ExpirationTask(id);
             InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will expire in %d ms", id, timeout);
-            synchronized (task) {
-                this.expirationFutures.put(id, this.executor.schedule(task, delay, TimeUnit.MILLISECONDS));
-            }
+            this.scheduler.schedule(id, delay, TimeUnit.MILLISECONDS);
         }
     }
 
     @Override
     public void cancel(Locality locality) {
-        for (String sessionId: this.expirationFutures.keySet()) {
+        for (String sessionId: this.scheduler.getKeys()) {
             if (!locality.isLocal(sessionId)) {
                 this.cancel(sessionId);
             }
@@ -108,53 +127,74 @@ public class SessionExpirationScheduler implements Scheduler {
 
     @Override
     public void close() {
+        this.closed = true;
+        this.scheduler.close();
         this.executor.shutdown();
-        for (Future<?> future: this.expirationFutures.values()) {
-            future.cancel(false);
+        try {
+            this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        for (Future<?> future: this.expirationFutures.values()) {
-            if (!future.isDone()) {
-                try {
-                    future.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                    // Ignore
+    }
+
+    @Override
+    public void expired(Collection<String> sessionIds) {
+        Iterator<String> ids = sessionIds.iterator();
+        while (ids.hasNext() && !this.closed) {
+            if (this.maxBatchSize == 1) {
+                this.expire(ids.next());
+            } else {
+                List<String> batchIds = new ArrayList<>(Math.min(sessionIds.size(), this.maxBatchSize));
+                while (ids.hasNext() && (batchIds.size() < this.maxBatchSize)) {
+                    batchIds.add(ids.next());
                 }
+                this.expire(batchIds);
             }
         }
-        this.expirationFutures.clear();
     }
 
-    private class ExpirationTask implements Runnable {
-        private final String id;
-
-        public ExpirationTask(String id) {
-            this.id = id;
-        }
-
-        @Override
-        public void run() {
-            InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", this.id);
+    private void expire(List<String> ids) {
+        InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring sessions %s", ids);
+        boolean success = false;
+        try {
+            Batch batch = this.batcher.createBatch();
             try {
-                Batch batch = SessionExpirationScheduler.this.batcher.createBatch();
-                boolean success = false;
-                try {
-                    SessionExpirationScheduler.this.remover.remove(this.id);
-                    success = true;
-                } catch (Throwable e) {
-                    InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, this.id);
-                } finally {
-                    if (success) {
-                        batch.close();
-                    } else {
-                        batch.discard();
-                    }
-                }
-            } finally {
-                synchronized (this) {
-                    SessionExpirationScheduler.this.expirationFutures.remove(this.id);
+                for (String id: ids) {
+                    this.remover.remove(id);
                 }
+            } catch (Throwable e) {
+                batch.discard();
+                throw e;
+            }
+            // Commit may fail as well
+            batch.close();
+            success = true;
+        } catch (Throwable e) {
+            InfinispanWebLogger.ROOT_LOGGER.debugf(e, "Failed to expire sessions %s using a single batch", ids);
+        }
+        if (!success) {
+            // The removals of the whole batch were rolled back, and so were not notified, so isolate the failing session by expiring each one using its own batch
+            for (String id: ids) {
+                if (this.closed) return;
+                this.expire(id);
+            }
+        }
+    }
+
+    private void expire(String id) {
+        InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", id);
+        Batch batch = this.batcher.createBatch();
+        boolean success = false;
+        try {
+            this.remover.remove(id);
+            success = true;
+        } catch (Throwable e) {
+            InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(e, id);
+        } finally {
+            if (success) {
+                batch.close();
+            } else {
+                batch.discard();
             }
         }
     }
@@ -35,4 +35,11 @@ import org.wildfly.clustering.web.session.Session;
 public interface SessionFactory<V, L> extends Creator<String, V>, Locator<String, V>, Remover<String>, Evictor<String> {
     Session<L> createSession(String id, V value);
     ImmutableSession createImmutableSession(String id, V value);
+
+    /**
+     * Returns the node-local replication counters of the attributes of the specified session, without locking the session.
+     * @param id a session identifier
+     * @return the replication counters, or null if the session is not present on this node
+     */
+    ReplicationStatistics findReplicationStatistics(String id);
 }
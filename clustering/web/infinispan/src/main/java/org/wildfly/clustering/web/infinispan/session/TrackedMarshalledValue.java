@@ -0,0 +1,284 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.DeltaAware;
+import org.jboss.as.clustering.marshalling.MarshalledValue;
+import org.jboss.as.clustering.marshalling.MarshallingContext;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * A marshalled value that remembers the form in which its object was last replicated, so that unchanged objects need not be replicated again.
+ * Only the hash of that form is kept, unless the form is at least as large as the delta threshold,
+ * in which case the form itself is retained, so that subsequent changes can be replicated as a {@link BinaryDelta}.
+ * Copies received from other nodes always retain their form, since they may be the target of such a delta.
+ * A copy to which such a delta could not be applied becomes stale: it keeps the last complete form it received, from which it is read,
+ * until the whole form is replicated again, which happens at the latest after a fixed number of consecutive deltas.
+ * A stale copy that is written replicates its whole form, so that it never becomes the source of a partial delta.
+ * <p>
+ * Values of this type must be written to a cache using put operations, as only these merge the {@link #delta()} that is sent to other nodes.
+ */
+public class TrackedMarshalledValue<T> implements MarshalledValue<T, MarshallingContext>, DeltaAware, Externalizable {
+    private static final long serialVersionUID = -2386203208929473592L;
+    // The number of consecutive deltas after which the whole form is replicated, so that stale copies recover
+    static final int MAX_CONSECUTIVE_DELTAS = 16;
+
+    private transient volatile MarshallingContext context;
+    private transient volatile T object;
+    private transient int deltaThreshold;
+    // The last replicated form of the object, if retained
+    private transient byte[] bytes;
+    private transient long hash;
+    private transient boolean hashed;
+    // Indicates that replicated changes could not be applied to this copy, so its form is outdated
+    private transient boolean stale;
+    // The number of consecutive partial deltas with which this value was replicated
+    private transient int deltas;
+    // The delta with which the next write of this value is replicated
+    private transient BinaryDelta delta;
+
+    public TrackedMarshalledValue(T object, MarshallingContext context, int deltaThreshold) {
+        this.context = context;
+        this.object = object;
+        this.deltaThreshold = deltaThreshold;
+    }
+
+    public TrackedMarshalledValue() {
+        // Required for externalization
+    }
+
+    TrackedMarshalledValue(byte[] bytes, long hash) {
+        this.bytes = bytes;
+        this.hash = hash;
+        this.hashed = true;
+    }
+
+    /**
+     * Creates a copy without a form, since replicated changes could not be applied to it, and there was no previous copy.
+     */
+    static <T> TrackedMarshalledValue<T> stale() {
+        TrackedMarshalledValue<T> value = new TrackedMarshalledValue<>();
+        value.stale = true;
+        return value;
+    }
+
+    /**
+     * Creates a copy of this value that keeps its form, since replicated changes could not be applied to it.
+     */
+    synchronized TrackedMarshalledValue<T> toStale() {
+        if (this.stale) return this;
+        TrackedMarshalledValue<T> value = new TrackedMarshalledValue<>();
+        value.bytes = this.bytes;
+        value.hash = this.hash;
+        value.hashed = this.hashed;
+        value.stale = true;
+        return value;
+    }
+
+    boolean isStale() {
+        return this.stale;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized T get(MarshallingContext context) throws IOException, ClassNotFoundException {
+        if (this.object == null) {
+            this.context = context;
+            if (this.bytes != null) {
+                ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+                try {
+                    this.object = (T) context.unmarshal(this.bytes);
+                } finally {
+                    setThreadContextClassLoader(loader);
+                }
+            }
+        }
+        return this.object;
+    }
+
+    /**
+     * Marshals the current state of the object.
+     * @return the marshalled form of the object, or null if the object was not yet unmarshalled
+     */
+    byte[] marshal() throws IOException {
+        T object = this.object;
+        if (object == null) return null;
+        MarshallingContext context = this.context;
+        ClassLoader loader = setThreadContextClassLoader(context.getClassLoader());
+        try {
+            return context.marshal(object);
+        } finally {
+            setThreadContextClassLoader(loader);
+        }
+    }
+
+    /**
+     * Indicates whether the specified form of the object is the form in which it was last replicated.
+     * @param bytes a marshalled form of the object
+     * @param hash the hash of the marshalled form
+     */
+    synchronized boolean isReplicated(byte[] bytes, long hash) {
+        return !this.stale && this.hashed && (this.hash == hash) && ((this.bytes == null) || Arrays.equals(this.bytes, bytes));
+    }
+
+    /**
+     * Records the specified form of the object as replicated, and prepares the delta with which the next write of this value replicates it.
+     * A partial delta is only prepared if this value is not stale, if both the previous and the specified form are at least as large as the delta threshold,
+     * if it is less than half as large as the specified form, and if fewer than {@value #MAX_CONSECUTIVE_DELTAS} partial deltas preceded it.
+     * @param bytes a marshalled form of the object
+     * @param hash the hash of the marshalled form
+     * @param deltaThreshold the minimum size of a marshalled form replicated as a partial delta
+     * @return the delta with which the next write of this value replicates it
+     */
+    synchronized BinaryDelta replicate(byte[] bytes, long hash, int deltaThreshold) {
+        byte[] previous = this.bytes;
+        BinaryDelta delta = null;
+        if (!this.stale && (previous != null) && (previous.length >= deltaThreshold) && (bytes.length >= deltaThreshold) && (this.deltas < MAX_CONSECUTIVE_DELTAS)) {
+            delta = BinaryDelta.diff(previous, this.hash, bytes, hash);
+        }
+        if ((delta != null) && (delta.size() < bytes.length / 2)) {
+            this.delta = delta;
+            this.deltas += 1;
+        } else {
+            this.delta = BinaryDelta.replace(bytes, hash);
+            this.deltas = 0;
+        }
+        this.deltaThreshold = deltaThreshold;
+        this.stale = false;
+        this.bytes = (bytes.length >= deltaThreshold) ? bytes : null;
+        this.hash = hash;
+        this.hashed = true;
+        return this.delta;
+    }
+
+    /**
+     * Applies the specified delta to this value.
+     * @return the resulting value, or null if the delta was not made against the form of this value
+     */
+    synchronized TrackedMarshalledValue<T> merge(BinaryDelta delta) {
+        // The changes may already be reflected by this value, e.g. if they originated from this node
+        if (this.hashed && (this.hash == delta.getTargetHash())) return this.stale ? new TrackedMarshalledValue<T>(this.bytes, this.hash) : this;
+        byte[] bytes = this.hashed ? delta.apply(this.bytes, this.hash) : null;
+        return (bytes != null) ? new TrackedMarshalledValue<T>(bytes, delta.getTargetHash()) : null;
+    }
+
+    @Override
+    public synchronized Delta delta() {
+        BinaryDelta delta = this.delta;
+        if (delta != null) return delta;
+        try {
+            byte[] bytes = this.getBytes();
+            return BinaryDelta.replace(bytes, this.hash);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void commit() {
+        // Subsequent writes replicate the whole form
+        this.delta = null;
+        this.deltas = 0;
+    }
+
+    private synchronized byte[] getBytes() throws IOException {
+        byte[] bytes = this.bytes;
+        if (bytes != null) return bytes;
+        bytes = this.marshal();
+        if (bytes != null) {
+            this.hash = BinaryDelta.hash(bytes);
+            this.hashed = true;
+            if (bytes.length >= this.deltaThreshold) {
+                this.bytes = bytes;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public int hashCode() {
+        T object = this.object;
+        return (object != null) ? object.hashCode() : 0;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof TrackedMarshalledValue)) return false;
+        TrackedMarshalledValue<?> value = (TrackedMarshalledValue<?>) object;
+        Object ours = this.object;
+        Object theirs = value.object;
+        if ((ours != null) && (theirs != null)) {
+            return ours.equals(theirs);
+        }
+        try {
+            byte[] us = this.getBytes();
+            byte[] them = value.getBytes();
+            return ((us != null) && (them != null)) ? Arrays.equals(us, them) : (us == them);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        T object = this.object;
+        return (object != null) ? object.toString() : null;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        byte[] bytes = this.getBytes();
+        int size = (bytes != null) ? bytes.length : 0;
+        // The size of a stale form is written as a negative number
+        out.writeInt(this.stale ? -1 - size : size);
+        if (bytes != null) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public synchronized void readExternal(ObjectInput in) throws IOException {
+        int size = in.readInt();
+        this.stale = (size < 0);
+        if (this.stale) {
+            size = -1 - size;
+        }
+        if (size > 0) {
+            byte[] bytes = new byte[size];
+            in.readFully(bytes);
+            this.bytes = bytes;
+            this.hash = BinaryDelta.hash(bytes);
+            this.hashed = true;
+        }
+    }
+
+    private static ClassLoader setThreadContextClassLoader(ClassLoader loader) {
+        return (loader != null) ? WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader) : null;
+    }
+}
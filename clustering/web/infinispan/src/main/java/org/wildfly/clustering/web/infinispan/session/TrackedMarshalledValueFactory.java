@@ -0,0 +1,43 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import org.jboss.as.clustering.marshalling.MarshalledValueFactory;
+import org.jboss.as.clustering.marshalling.MarshallingContext;
+
+/**
+ * Factory for creating {@link TrackedMarshalledValue}s.
+ */
+public class TrackedMarshalledValueFactory implements MarshalledValueFactory<MarshallingContext> {
+    private final MarshallingContext context;
+    private final int deltaThreshold;
+
+    public TrackedMarshalledValueFactory(MarshallingContext context, int deltaThreshold) {
+        this.context = context;
+        this.deltaThreshold = deltaThreshold;
+    }
+
+    @Override
+    public <T> TrackedMarshalledValue<T> createMarshalledValue(T object) {
+        return new TrackedMarshalledValue<>(object, this.context, this.deltaThreshold);
+    }
+}
@@ -23,6 +23,7 @@ package org.wildfly.clustering.web.infinispan.session.coarse;
 
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.wildfly.clustering.web.infinispan.session.ReplicationStatistics;
 import org.wildfly.clustering.web.session.SessionMetaData;
 
 /**
@@ -33,6 +34,7 @@ public class CoarseSessionCacheEntry<L> {
 
     private final SessionMetaData metaData;
     private final AtomicReference<L> localContext = new AtomicReference<>();
+    private final ReplicationStatistics statistics = new ReplicationStatistics();
 
     public CoarseSessionCacheEntry(SessionMetaData metaData) {
         this.metaData = metaData;
@@ -45,4 +47,8 @@ public class CoarseSessionCacheEntry<L> {
     public AtomicReference<L> getLocalContext() {
         return this.localContext;
     }
+
+    public ReplicationStatistics getReplicationStatistics() {
+        return this.statistics;
+    }
 }
@@ -34,11 +34,15 @@ import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
 import org.wildfly.clustering.ee.infinispan.Mutator;
 import org.wildfly.clustering.web.LocalContextFactory;
 import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.clustering.web.infinispan.session.DeferredMutator;
+import org.wildfly.clustering.web.infinispan.session.DirtyCheckingMutator;
 import org.wildfly.clustering.web.infinispan.session.InfinispanImmutableSession;
 import org.wildfly.clustering.web.infinispan.session.InfinispanSession;
+import org.wildfly.clustering.web.infinispan.session.ReplicationStatistics;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
 import org.wildfly.clustering.web.infinispan.session.SessionFactory;
 import org.wildfly.clustering.web.infinispan.session.SimpleSessionMetaData;
+import org.wildfly.clustering.web.infinispan.session.TrackedMarshalledValue;
 import org.wildfly.clustering.web.session.ImmutableSession;
 import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
 import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
@@ -60,13 +64,20 @@ public class CoarseSessionFactory<L> implements SessionFactory<CoarseSessionEntr
     private final Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache;
     private final SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller;
     private final LocalContextFactory<L> localContextFactory;
+    private final int deltaThreshold;
 
-    public CoarseSessionFactory(Cache<String, CoarseSessionCacheEntry<L>> sessionCache, Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache, SessionContext context, SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory) {
+    /**
+     * Creates a session factory.
+     * @param deltaThreshold the minimum size of the marshalled attributes that may be replicated as a delta,
+     *        or -1 if the attributes are replicated whenever they are mutated, rather than tracked for changes.
+     */
+    public CoarseSessionFactory(Cache<String, CoarseSessionCacheEntry<L>> sessionCache, Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache, SessionContext context, SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory, int deltaThreshold) {
         this.sessionCache = sessionCache;
         this.attributesCache = attributesCache;
         this.context = context;
         this.marshaller = marshaller;
         this.localContextFactory = localContextFactory;
+        this.deltaThreshold = deltaThreshold;
     }
 
     @Override
@@ -74,9 +85,23 @@ public class CoarseSessionFactory<L> implements SessionFactory<CoarseSessionEntr
         CoarseSessionCacheEntry<L> cacheEntry = entry.getCacheEntry();
         SessionMetaData metaData = cacheEntry.getMetaData();
         MarshalledValue<Map<String, Object>, MarshallingContext> value = entry.getAttributes();
+        Mutator sessionMutator = metaData.isNew() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.sessionCache, id, cacheEntry);
+        if ((this.deltaThreshold >= 0) && !metaData.isNew() && (value instanceof TrackedMarshalledValue)) {
+            // Defer the replication of the attributes until the session is closed, and only replicate them if they changed
+            final SessionAttributesCacheKey key = new SessionAttributesCacheKey(id);
+            final Mutator mutator = new DirtyCheckingMutator<>(this.attributesCache, key, value, this.deltaThreshold, cacheEntry.getReplicationStatistics());
+            final DeferredMutator<SessionAttributesCacheKey> deferredMutator = new DeferredMutator<>(sessionMutator);
+            Mutator attributesMutator = new Mutator() {
+                @Override
+                public void mutate() {
+                    deferredMutator.defer(key, mutator);
+                }
+            };
+            SessionAttributes attributes = new CoarseSessionAttributes(value, this.marshaller, attributesMutator);
+            return new InfinispanSession<>(id, metaData, attributes, cacheEntry.getLocalContext(), this.localContextFactory, this.context, deferredMutator, this);
+        }
         Mutator attributesMutator = metaData.isNew() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.attributesCache, new SessionAttributesCacheKey(id), value);
         SessionAttributes attributes = new CoarseSessionAttributes(value, this.marshaller, attributesMutator);
-        Mutator sessionMutator = metaData.isNew() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.sessionCache, id, cacheEntry);
         return new InfinispanSession<>(id, metaData, attributes, cacheEntry.getLocalContext(), this.localContextFactory, this.context, sessionMutator, this);
     }
 
@@ -114,6 +139,12 @@ public class CoarseSessionFactory<L> implements SessionFactory<CoarseSessionEntr
         return new CoarseSessionEntry<>(entry, value);
     }
 
+    @Override
+    public ReplicationStatistics findReplicationStatistics(String id) {
+        CoarseSessionCacheEntry<L> entry = this.sessionCache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_LOAD).get(id);
+        return (entry != null) ? entry.getReplicationStatistics() : null;
+    }
+
     @Override
     public void remove(String id) {
         this.sessionCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).remove(id);
@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.fine;
+
+import java.util.Set;
+
+import org.infinispan.Cache;
+import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
+import org.wildfly.clustering.web.infinispan.session.DeferredMutator;
+import org.wildfly.clustering.web.infinispan.session.DirtyCheckingMutator;
+import org.wildfly.clustering.web.infinispan.session.ReplicationStatistics;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
+import org.wildfly.clustering.web.infinispan.session.TrackedMarshalledValue;
+
+/**
+ * Exposes session attributes for fine granularity sessions, whose mutable attributes are only replicated if they changed by the time the session is closed.
+ */
+public class DirtyTrackingFineSessionAttributes<V> extends FineSessionAttributes<V> {
+    private final Cache<SessionAttributeCacheKey, V> cache;
+    private final DeferredMutator<SessionAttributeCacheKey> mutator;
+    private final int deltaThreshold;
+    private final ReplicationStatistics statistics;
+
+    public DirtyTrackingFineSessionAttributes(String id, Set<String> attributes, Cache<SessionAttributeCacheKey, V> attributeCache, SessionAttributeMarshaller<Object, V> marshaller, DeferredMutator<SessionAttributeCacheKey> mutator, int deltaThreshold, ReplicationStatistics statistics) {
+        super(id, attributes, attributeCache, marshaller);
+        this.cache = attributeCache;
+        this.mutator = mutator;
+        this.deltaThreshold = deltaThreshold;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Object removeAttribute(String name) {
+        this.mutator.cancel(this.createKey(name));
+        return super.removeAttribute(name);
+    }
+
+    @Override
+    public Object setAttribute(String name, Object attribute) {
+        this.mutator.cancel(this.createKey(name));
+        return super.setAttribute(name, attribute);
+    }
+
+    @Override
+    protected void mutate(SessionAttributeCacheKey key, V value) {
+        this.mutator.defer(key, (value instanceof TrackedMarshalledValue) ? new DirtyCheckingMutator<>(this.cache, key, value, this.deltaThreshold, this.statistics) : new CacheEntryMutator<>(this.cache, key, value));
+    }
+}
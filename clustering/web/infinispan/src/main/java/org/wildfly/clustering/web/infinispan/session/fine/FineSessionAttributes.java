@@ -69,8 +69,12 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         Object attribute = this.marshaller.read(value);
         // If the object is mutable, we need to indicate that the attribute should be replicated
         if (MutableDetector.isMutable(attribute)) {
-            new CacheEntryMutator<>(this.cache, key, value).mutate();
+            this.mutate(key, value);
         }
         return attribute;
     }
+
+    protected void mutate(SessionAttributeCacheKey key, V value) {
+        new CacheEntryMutator<>(this.cache, key, value).mutate();
+    }
 }
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.wildfly.clustering.web.infinispan.session.ReplicationStatistics;
 import org.wildfly.clustering.web.session.SessionMetaData;
 
 /**
@@ -36,6 +37,7 @@ public class FineSessionCacheEntry<L> {
     private final SessionMetaData metaData;
     private final Set<String> attributes = new HashSet<>();
     private final AtomicReference<L> localContext = new AtomicReference<>();
+    private final ReplicationStatistics statistics = new ReplicationStatistics();
 
     public FineSessionCacheEntry(SessionMetaData metaData) {
         this.metaData = metaData;
@@ -52,4 +54,8 @@ public class FineSessionCacheEntry<L> {
     public AtomicReference<L> getLocalContext() {
         return this.localContext;
     }
+
+    public ReplicationStatistics getReplicationStatistics() {
+        return this.statistics;
+    }
 }
@@ -31,8 +31,10 @@ import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
 import org.wildfly.clustering.ee.infinispan.Mutator;
 import org.wildfly.clustering.web.LocalContextFactory;
 import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.clustering.web.infinispan.session.DeferredMutator;
 import org.wildfly.clustering.web.infinispan.session.InfinispanImmutableSession;
 import org.wildfly.clustering.web.infinispan.session.InfinispanSession;
+import org.wildfly.clustering.web.infinispan.session.ReplicationStatistics;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
 import org.wildfly.clustering.web.infinispan.session.SessionFactory;
 import org.wildfly.clustering.web.infinispan.session.SimpleSessionMetaData;
@@ -57,19 +59,31 @@ public class FineSessionFactory<L> implements SessionFactory<FineSessionCacheEnt
     private final SessionContext context;
     private final SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller;
     private final LocalContextFactory<L> localContextFactory;
+    private final int deltaThreshold;
 
-    public FineSessionFactory(Cache<String, FineSessionCacheEntry<L>> sessionCache, Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache, SessionContext context, SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory) {
+    /**
+     * Creates a session factory.
+     * @param deltaThreshold the minimum size of a marshalled attribute that may be replicated as a delta,
+     *        or -1 if mutable attributes are replicated whenever they are read, rather than tracked for changes.
+     */
+    public FineSessionFactory(Cache<String, FineSessionCacheEntry<L>> sessionCache, Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache, SessionContext context, SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory, int deltaThreshold) {
         this.sessionCache = sessionCache;
         this.attributeCache = attributeCache;
         this.context = context;
         this.marshaller = marshaller;
         this.localContextFactory = localContextFactory;
+        this.deltaThreshold = deltaThreshold;
     }
 
     @Override
     public Session<L> createSession(String id, FineSessionCacheEntry<L> entry) {
         SessionMetaData metaData = entry.getMetaData();
         Mutator mutator = metaData.isNew() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.sessionCache, id, entry);
+        if (this.deltaThreshold >= 0) {
+            DeferredMutator<SessionAttributeCacheKey> deferredMutator = new DeferredMutator<>(mutator);
+            SessionAttributes attributes = new DirtyTrackingFineSessionAttributes<>(id, entry.getAttributes(), this.attributeCache, this.marshaller, deferredMutator, this.deltaThreshold, entry.getReplicationStatistics());
+            return new InfinispanSession<>(id, entry.getMetaData(), attributes, entry.getLocalContext(), this.localContextFactory, this.context, deferredMutator, this);
+        }
         SessionAttributes attributes = new FineSessionAttributes<>(id, entry.getAttributes(), this.attributeCache, this.marshaller);
         return new InfinispanSession<>(id, entry.getMetaData(), attributes, entry.getLocalContext(), this.localContextFactory, this.context, mutator, this);
     }
@@ -95,6 +109,12 @@ public class FineSessionFactory<L> implements SessionFactory<FineSessionCacheEnt
         return (existing != null) ? existing : entry;
     }
 
+    @Override
+    public ReplicationStatistics findReplicationStatistics(String id) {
+        FineSessionCacheEntry<L> entry = this.sessionCache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_LOAD).get(id);
+        return (entry != null) ? entry.getReplicationStatistics() : null;
+    }
+
     @Override
     public void remove(final String id) {
         FineSessionCacheEntry<L> entry = this.sessionCache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).remove(id);
@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.web.session.ImmutableSession;
+import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
+import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
+import org.wildfly.clustering.web.session.SessionContext;
+
+/**
+ * Unit test for the notification of the removal of a session by {@link InfinispanSessionManager}, and for its replication statistics.
+ */
+public class InfinispanSessionManagerTestCase {
+    private final SessionFactory<Object, Object> factory = mock(SessionFactory.class);
+    private final InfinispanSessionManagerConfiguration configuration = mock(InfinispanSessionManagerConfiguration.class);
+    private final Cache<String, Object> cache = mock(Cache.class);
+    private final AdvancedCache<String, Object> advancedCache = mock(AdvancedCache.class);
+    private final TransactionManager tm = mock(TransactionManager.class);
+    private final SessionContext context = mock(SessionContext.class);
+    private final HttpSessionListener listener = mock(HttpSessionListener.class);
+    private final CacheEntryRemovedEvent<String, Object> event = mock(CacheEntryRemovedEvent.class);
+    private final String id = "session";
+
+    private InfinispanSessionManager<Object, Object> manager;
+
+    @Before
+    public void init() {
+        Configuration config = mock(Configuration.class, RETURNS_DEEP_STUBS);
+        Object value = new Object();
+        ImmutableSession session = mock(ImmutableSession.class);
+        ImmutableSessionAttributes attributes = mock(ImmutableSessionAttributes.class);
+        ImmutableSessionMetaData metaData = mock(ImmutableSessionMetaData.class);
+
+        doReturn(this.cache).when(this.configuration).getCache();
+        when(this.configuration.getSessionContext()).thenReturn(this.context);
+        when(this.cache.getCacheConfiguration()).thenReturn(config);
+        when(config.clustering().cacheMode()).thenReturn(CacheMode.LOCAL);
+        when(this.cache.getAdvancedCache()).thenReturn(this.advancedCache);
+        when(this.advancedCache.getTransactionManager()).thenReturn(this.tm);
+        when(this.context.getSessionListeners()).thenReturn(Collections.singleton(this.listener));
+
+        when(this.event.isPre()).thenReturn(true);
+        when(this.event.getKey()).thenReturn(this.id);
+        when(this.factory.findValue(this.id)).thenReturn(value);
+        when(this.factory.createImmutableSession(this.id, value)).thenReturn(session);
+        when(session.getId()).thenReturn(this.id);
+        when(session.isValid()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.getMetaData()).thenReturn(metaData);
+        when(session.getContext()).thenReturn(this.context);
+        when(attributes.getAttributeNames()).thenReturn(Collections.<String>emptySet());
+        when(metaData.getMaxInactiveInterval(TimeUnit.MILLISECONDS)).thenReturn(0L);
+
+        this.manager = new InfinispanSessionManager<>(this.factory, this.configuration);
+    }
+
+    @Test
+    public void removedWithoutTransaction() {
+        this.manager.removed(this.event);
+
+        verify(this.listener).sessionDestroyed(any(HttpSessionEvent.class));
+    }
+
+    @Test
+    public void removedCommitted() throws Exception {
+        Synchronization synchronization = this.removedWithinTransaction();
+
+        synchronization.beforeCompletion();
+        synchronization.afterCompletion(Status.STATUS_COMMITTED);
+
+        verify(this.listener).sessionDestroyed(any(HttpSessionEvent.class));
+    }
+
+    @Test
+    public void removedRolledBack() throws Exception {
+        Synchronization synchronization = this.removedWithinTransaction();
+
+        synchronization.beforeCompletion();
+        synchronization.afterCompletion(Status.STATUS_ROLLEDBACK);
+
+        // The removal did not take effect, and may be retried
+        verify(this.listener, never()).sessionDestroyed(any(HttpSessionEvent.class));
+    }
+
+    @Test
+    public void getReplicationStatistics() {
+        ReplicationStatistics statistics = new ReplicationStatistics();
+        statistics.skipped(100);
+        statistics.replicated(100, 10);
+        when(this.factory.findReplicationStatistics(this.id)).thenReturn(statistics);
+
+        ReplicationStatistics result = this.manager.getReplicationStatistics(this.id);
+        assertSame(statistics, result);
+        assertEquals(1L, result.getSkippedWrites());
+        assertEquals(1L, result.getDeltaWrites());
+        assertEquals(190L, result.getAvoidedBytes());
+
+        assertNull(this.manager.getReplicationStatistics("unknown"));
+    }
+
+    private Synchronization removedWithinTransaction() throws Exception {
+        Transaction transaction = mock(Transaction.class);
+        when(this.tm.getTransaction()).thenReturn(transaction);
+        when(transaction.getStatus()).thenReturn(Status.STATUS_ACTIVE);
+
+        this.manager.removed(this.event);
+
+        // Listeners are not notified before the transaction completes
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(synchronization.capture());
+        verify(this.listener, never()).sessionDestroyed(any(HttpSessionEvent.class));
+        return synchronization.getValue();
+    }
+}
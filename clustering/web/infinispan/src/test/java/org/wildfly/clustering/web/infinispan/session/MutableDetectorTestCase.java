@@ -47,6 +47,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 import org.wildfly.clustering.web.annotation.Immutable;
+import org.wildfly.clustering.web.immutable.Immutability;
 
 /**
  * Unit test for {@link MutableDetector}
@@ -90,9 +91,24 @@ public class MutableDetectorTestCase {
         assertFalse(MutableDetector.isMutable(FileSystems.getDefault().getRootDirectories().iterator().next()));
         assertFalse(MutableDetector.isMutable(new AllPermission()));
         assertFalse(MutableDetector.isMutable(new ImmutableObject()));
+        assertFalse(MutableDetector.isMutable(new RegisteredObject()));
+        assertTrue(MutableDetector.isMutable(new UnregisteredObject()));
     }
 
     @Immutable
     static class ImmutableObject {
     }
+
+    static class RegisteredObject {
+    }
+
+    static class UnregisteredObject {
+    }
+
+    public static class TestImmutability implements Immutability {
+        @Override
+        public boolean isImmutable(Class<?> targetClass) {
+            return targetClass == RegisteredObject.class;
+        }
+    }
 }
@@ -21,15 +21,26 @@
  */
 package org.wildfly.clustering.web.infinispan.session;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.wildfly.clustering.ee.Batcher;
 import org.wildfly.clustering.ee.infinispan.Remover;
 import org.wildfly.clustering.ee.infinispan.TransactionBatch;
@@ -91,4 +102,75 @@ public class SessionExpirationSchedulerTestCase {
         verify(batch).close();
     }
 
+    @Test
+    public void batch() {
+        Batcher<TransactionBatch> batcher = mock(Batcher.class);
+        TransactionBatch batch = mock(TransactionBatch.class);
+        Remover<String> remover = mock(Remover.class);
+
+        when(batcher.createBatch()).thenReturn(batch);
+
+        try (SessionExpirationScheduler scheduler = new SessionExpirationScheduler(batcher, remover, 2, 0)) {
+            scheduler.expired(Arrays.asList("a", "b", "c"));
+        }
+
+        InOrder order = inOrder(batcher, remover, batch);
+        order.verify(batcher).createBatch();
+        order.verify(remover).remove("a");
+        order.verify(remover).remove("b");
+        order.verify(batch).close();
+        order.verify(batcher).createBatch();
+        order.verify(remover).remove("c");
+        order.verify(batch).close();
+        verify(batch, never()).discard();
+    }
+
+    @Test
+    public void batchFailure() {
+        Batcher<TransactionBatch> batcher = mock(Batcher.class);
+        TransactionBatch batch = mock(TransactionBatch.class);
+        Remover<String> remover = mock(Remover.class);
+        // Listeners are notified of a removal once its batch is committed
+        final List<String> removed = new ArrayList<>();
+        final List<String> notified = new ArrayList<>();
+
+        when(batcher.createBatch()).thenReturn(batch);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                String id = (String) invocation.getArguments()[0];
+                if (id.equals("b")) {
+                    throw new IllegalStateException();
+                }
+                removed.add(id);
+                return null;
+            }
+        }).when(remover).remove(anyString());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                notified.addAll(removed);
+                removed.clear();
+                return null;
+            }
+        }).when(batch).close();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                removed.clear();
+                return null;
+            }
+        }).when(batch).discard();
+
+        try (SessionExpirationScheduler scheduler = new SessionExpirationScheduler(batcher, remover, 10, 0)) {
+            scheduler.expired(Arrays.asList("a", "b", "c"));
+        }
+
+        // The failed batch is rolled back, then every session is expired using its own batch
+        verify(batcher, times(4)).createBatch();
+        verify(batch, times(2)).discard();
+        verify(batch, times(2)).close();
+        // Each expired session is notified exactly once
+        assertEquals(Arrays.asList("a", "c"), notified);
+    }
 }
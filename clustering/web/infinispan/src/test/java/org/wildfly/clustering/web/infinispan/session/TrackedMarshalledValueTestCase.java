@@ -0,0 +1,252 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.context.Flag;
+import org.jboss.as.clustering.marshalling.MarshalledValue;
+import org.jboss.as.clustering.marshalling.MarshallingContext;
+import org.jboss.as.clustering.marshalling.SimpleMarshallingContext;
+import org.jboss.as.clustering.marshalling.VersionedMarshallingConfiguration;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TrackedMarshalledValue}, {@link BinaryDelta} and {@link DirtyCheckingMutator}.
+ */
+public class TrackedMarshalledValueTestCase {
+    private static final int DELTA_THRESHOLD = 1024;
+
+    private final MarshallingContext context;
+    private final TrackedMarshalledValueFactory factory;
+
+    public TrackedMarshalledValueTestCase() {
+        VersionedMarshallingConfiguration configuration = new VersionedMarshallingConfiguration() {
+            @Override
+            public int getCurrentMarshallingVersion() {
+                return 0;
+            }
+
+            @Override
+            public MarshallingConfiguration getMarshallingConfiguration(int version) {
+                return new MarshallingConfiguration();
+            }
+        };
+        this.context = new SimpleMarshallingContext(Marshalling.getMarshallerFactory("river", Marshalling.class.getClassLoader()), configuration, Thread.currentThread().getContextClassLoader());
+        this.factory = new TrackedMarshalledValueFactory(this.context, DELTA_THRESHOLD);
+    }
+
+    @Test
+    public void delta() throws Exception {
+        Map<String, String> map = createMap(100);
+        TrackedMarshalledValue<Map<String, String>> value = this.factory.createMarshalledValue(map);
+        // Replication records the replicated form
+        TrackedMarshalledValue<Map<String, String>> copy = replicate(value);
+        assertEquals(map, copy.get(this.context));
+
+        byte[] bytes = value.marshal();
+        assertTrue(value.isReplicated(bytes, BinaryDelta.hash(bytes)));
+
+        map.put("key50", "changed");
+        bytes = value.marshal();
+        long hash = BinaryDelta.hash(bytes);
+        assertFalse(value.isReplicated(bytes, hash));
+
+        BinaryDelta delta = value.replicate(bytes, hash, DELTA_THRESHOLD);
+        assertFalse(delta.isReplacement());
+        assertTrue(delta.size() < bytes.length / 2);
+        assertSame(delta, value.delta());
+        assertTrue(value.isReplicated(bytes, hash));
+
+        // The changes already apply to the originating value
+        assertSame(value, delta.merge(value));
+
+        TrackedMarshalledValue<?> result = (TrackedMarshalledValue<?>) replicate(delta).merge(copy);
+        assertNotSame(copy, result);
+        assertEquals(map, result.get(this.context));
+
+        // The changes cannot be applied twice, so the outdated copy becomes stale, but can still be read in its last complete form
+        Map<String, String> original = createMap(100);
+        map.put("key60", "changed");
+        bytes = value.marshal();
+        BinaryDelta next = value.replicate(bytes, BinaryDelta.hash(bytes), DELTA_THRESHOLD);
+        TrackedMarshalledValue<?> stale = (TrackedMarshalledValue<?>) next.merge(copy);
+        assertTrue(stale.isStale());
+        assertEquals(original, stale.get(this.context));
+        assertEquals(map, ((TrackedMarshalledValue<?>) next.merge(result)).get(this.context));
+
+        // A stale copy remains stale, and readable, when replicated, or when subsequent partial changes arrive
+        stale = replicate(stale);
+        assertTrue(stale.isStale());
+        assertEquals(original, stale.get(this.context));
+        map.put("key70", "changed");
+        bytes = value.marshal();
+        assertSame(stale, value.replicate(bytes, BinaryDelta.hash(bytes), DELTA_THRESHOLD).merge(stale));
+
+        // A stale copy without a previous copy has no form to fall back to
+        assertNull(replicate(TrackedMarshalledValue.stale()).get(this.context));
+
+        // Committing the value replicates its whole form
+        value.commit();
+        BinaryDelta replacement = (BinaryDelta) value.delta();
+        assertTrue(replacement.isReplacement());
+        assertEquals(map, ((TrackedMarshalledValue<?>) replacement.merge(null)).get(this.context));
+
+        // A stale copy recovers once the whole form is replicated
+        assertEquals(map, ((TrackedMarshalledValue<?>) replacement.merge(stale)).get(this.context));
+    }
+
+    @Test
+    public void staleWrite() throws Exception {
+        Map<String, String> map = createMap(100);
+        TrackedMarshalledValue<Map<String, String>> value = this.factory.createMarshalledValue(map);
+        TrackedMarshalledValue<Map<String, String>> copy = replicate(value);
+
+        map.put("key50", "changed");
+        byte[] bytes = value.marshal();
+        value.replicate(bytes, BinaryDelta.hash(bytes), DELTA_THRESHOLD);
+        map.put("key60", "changed");
+        bytes = value.marshal();
+        // The copy missed the first delta
+        @SuppressWarnings("unchecked")
+        TrackedMarshalledValue<Map<String, String>> stale = (TrackedMarshalledValue<Map<String, String>>) value.replicate(bytes, BinaryDelta.hash(bytes), DELTA_THRESHOLD).merge(copy);
+        assertTrue(stale.isStale());
+
+        // e.g. after failover, the stale copy is read and written by this node, which replicates its whole form
+        Map<String, String> object = stale.get(this.context);
+        assertEquals(createMap(100), object);
+        bytes = stale.marshal();
+        long hash = BinaryDelta.hash(bytes);
+        assertFalse(stale.isReplicated(bytes, hash));
+        assertTrue(stale.replicate(bytes, hash, DELTA_THRESHOLD).isReplacement());
+        assertFalse(stale.isStale());
+        assertTrue(stale.isReplicated(bytes, hash));
+    }
+
+    @Test
+    public void consecutiveDeltas() throws Exception {
+        Map<String, String> map = createMap(100);
+        TrackedMarshalledValue<Map<String, String>> value = this.factory.createMarshalledValue(map);
+        replicate(value);
+
+        for (int i = 0; i < TrackedMarshalledValue.MAX_CONSECUTIVE_DELTAS; ++i) {
+            map.put("key0", "changed" + i);
+            byte[] bytes = value.marshal();
+            assertFalse(value.replicate(bytes, BinaryDelta.hash(bytes), DELTA_THRESHOLD).isReplacement());
+        }
+
+        // The whole form is replicated periodically, so that stale copies recover
+        map.put("key0", "changed");
+        byte[] bytes = value.marshal();
+        assertTrue(value.replicate(bytes, BinaryDelta.hash(bytes), DELTA_THRESHOLD).isReplacement());
+
+        map.put("key0", "changed again");
+        bytes = value.marshal();
+        assertFalse(value.replicate(bytes, BinaryDelta.hash(bytes), DELTA_THRESHOLD).isReplacement());
+    }
+
+    @Test
+    public void small() throws Exception {
+        Map<String, String> map = createMap(1);
+        TrackedMarshalledValue<Map<String, String>> value = this.factory.createMarshalledValue(map);
+        replicate(value);
+
+        map.put("key0", "changed");
+        byte[] bytes = value.marshal();
+        BinaryDelta delta = value.replicate(bytes, BinaryDelta.hash(bytes), DELTA_THRESHOLD);
+        assertTrue(delta.isReplacement());
+        assertEquals(bytes.length, delta.size());
+    }
+
+    @Test
+    public void hash() {
+        byte[] bytes = new byte[17];
+        long hash = BinaryDelta.hash(bytes);
+        assertEquals(hash, BinaryDelta.hash(bytes.clone()));
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = 1;
+            assertNotEquals(hash, BinaryDelta.hash(bytes));
+            bytes[i] = 0;
+        }
+        assertNotEquals(hash, BinaryDelta.hash(new byte[16]));
+    }
+
+    @Test
+    public void mutate() throws Exception {
+        @SuppressWarnings("unchecked")
+        AdvancedCache<String, MarshalledValue<Map<String, String>, MarshallingContext>> cache = mock(AdvancedCache.class);
+        when(cache.getAdvancedCache()).thenReturn(cache);
+        when(cache.withFlags(Flag.IGNORE_RETURN_VALUES)).thenReturn(cache);
+
+        Map<String, String> map = createMap(100);
+        MarshalledValue<Map<String, String>, MarshallingContext> value = this.factory.createMarshalledValue(map);
+        replicate((TrackedMarshalledValue<Map<String, String>>) value);
+        ReplicationStatistics statistics = new ReplicationStatistics();
+        DirtyCheckingMutator<String, MarshalledValue<Map<String, String>, MarshallingContext>> mutator = new DirtyCheckingMutator<>(cache, "key", value, DELTA_THRESHOLD, statistics);
+
+        mutator.mutate();
+        verify(cache, never()).put("key", value);
+        assertEquals(1L, statistics.getSkippedWrites());
+        assertTrue(statistics.getAvoidedBytes() > DELTA_THRESHOLD);
+
+        map.put("key0", "changed");
+        mutator.mutate();
+        verify(cache).put("key", value);
+        assertEquals(1L, statistics.getDeltaWrites());
+
+        map.clear();
+        mutator.mutate();
+        verify(cache, times(2)).put("key", value);
+        assertEquals(1L, statistics.getFullWrites());
+    }
+
+    private static Map<String, String> createMap(int size) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < size; ++i) {
+            map.put("key" + i, "value" + i);
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T replicate(T object) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(output)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+}
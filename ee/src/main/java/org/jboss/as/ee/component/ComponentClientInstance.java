@@ -27,6 +27,12 @@ public class ComponentClientInstance implements Serializable {
     private final Map<Object, Object> contextInformation = new HashMap<Object, Object>();
     private volatile boolean constructionComplete = false;
 
+    /**
+     * The keys and values of the context information, alternately, copied once construction is complete so that
+     * preparing an invocation does not iterate over the map.
+     */
+    private transient volatile Object[] contextEntries;
+
     public Object getViewInstanceData(final Object key) {
         return contextInformation.get(key);
     }
@@ -39,8 +45,24 @@ public class ComponentClientInstance implements Serializable {
     }
 
     void prepareInterceptorContext(InterceptorContext interceptorContext){
-        for(Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
-            interceptorContext.putPrivateData(entry.getKey(), entry.getValue());
+        Object[] entries = contextEntries;
+        if(entries == null) {
+            if(!constructionComplete) {
+                for(Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
+                    interceptorContext.putPrivateData(entry.getKey(), entry.getValue());
+                }
+                return;
+            }
+            entries = new Object[contextInformation.size() * 2];
+            int i = 0;
+            for(Map.Entry<Object, Object> entry : contextInformation.entrySet()) {
+                entries[i++] = entry.getKey();
+                entries[i++] = entry.getValue();
+            }
+            contextEntries = entries;
+        }
+        for(int i = 0; i < entries.length; i += 2) {
+            interceptorContext.putPrivateData(entries[i], entries[i + 1]);
         }
     }
 
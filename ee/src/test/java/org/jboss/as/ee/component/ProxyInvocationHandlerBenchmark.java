@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+
+/**
+ * Measures the latency and the allocation per call of a {@link ProxyInvocationHandler} in front of a no-op interceptor
+ * chain. The client instance data is the one of a stateless or singleton view (none), and of a stateful view (the
+ * session id). Not a test, run it with {@code main}.
+ */
+public class ProxyInvocationHandlerBenchmark {
+
+    private static final int ITERATIONS = 5000000;
+
+    public static void main(String... args) throws Throwable {
+        Method method = Runnable.class.getMethod("run");
+        Map<Method, Interceptor> interceptors = new IdentityHashMap<Method, Interceptor>();
+        interceptors.put(method, new Interceptor() {
+            @Override
+            public Object processInvocation(InterceptorContext context) throws Exception {
+                return null;
+            }
+        });
+
+        ComponentClientInstance statelessInstance = new ComponentClientInstance();
+        statelessInstance.constructionComplete();
+        ComponentClientInstance statefulInstance = new ComponentClientInstance();
+        statefulInstance.setViewInstanceData(String.class, "session");
+        statefulInstance.constructionComplete();
+
+        Object proxy = new Object();
+        ProxyInvocationHandler stateless = new ProxyInvocationHandler(interceptors, statelessInstance, new NoOpView());
+        ProxyInvocationHandler stateful = new ProxyInvocationHandler(interceptors, statefulInstance, new NoOpView());
+        for (int round = 0; round < 3; round++) {
+            run("stateless/singleton", stateless, proxy, method);
+            run("stateful", stateful, proxy, method);
+        }
+    }
+
+    private static void run(String name, ProxyInvocationHandler handler, Object proxy, Method method) throws Throwable {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            handler.invoke(proxy, method, null);
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+        System.out.printf("%s: %d ns/call, %d bytes/call%n", name, elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    private static final class NoOpView implements ComponentView {
+
+        @Override
+        public ManagedReference createInstance() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ManagedReference createInstance(Map<Object, Object> contextData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object invoke(InterceptorContext interceptorContext) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Component getComponent() {
+            return null;
+        }
+
+        @Override
+        public Class<?> getProxyClass() {
+            return Object.class;
+        }
+
+        @Override
+        public Class<?> getViewClass() {
+            return Runnable.class;
+        }
+
+        @Override
+        public Set<Method> getViewMethods() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Method getMethod(String name, String descriptor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T getPrivateData(Class<T> clazz) {
+            return null;
+        }
+
+        @Override
+        public boolean isAsynchronous(Method method) {
+            return false;
+        }
+    }
+}
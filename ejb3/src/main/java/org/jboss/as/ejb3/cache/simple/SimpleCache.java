@@ -21,11 +21,10 @@
  */
 package org.jboss.as.ejb3.cache.simple;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -38,59 +37,59 @@ import org.jboss.as.ejb3.component.stateful.StatefulTimeoutInfo;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.ejb.client.Affinity;
 import org.jboss.ejb.client.NodeAffinity;
+import org.wildfly.clustering.ee.ExpirationListener;
+import org.wildfly.clustering.ee.ExpirationScheduler;
+import org.wildfly.clustering.ee.TimerWheel;
 import org.wildfly.clustering.ejb.IdentifierFactory;
 
 /**
  * Simple {@link Cache} implementation using in-memory storage and eager expiration.
+ * Expiration is tracked by the shared {@link TimerWheel}, while expired beans are removed by the executor of this cache.
  *
  * @author Paul Ferraro
  *
  * @param <K> the cache key type
  * @param <V> the cache value type
  */
-public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
+public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V>, ExpirationListener<K> {
 
-    final Map<K, Future<?>> expirationFutures = new ConcurrentHashMap<>();
     private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
     private final StatefulObjectFactory<V> factory;
     private final IdentifierFactory<K> identifierFactory;
     private final StatefulTimeoutInfo timeout;
     private final ServerEnvironment environment;
     private final ScheduledExecutorService executor;
+    private final TimerWheel wheel;
+    private volatile ExpirationScheduler<K> scheduler;
 
     public SimpleCache(StatefulObjectFactory<V> factory, IdentifierFactory<K> identifierFactory, StatefulTimeoutInfo timeout, ServerEnvironment environment, ScheduledExecutorService executor) {
+        this(factory, identifierFactory, timeout, environment, executor, TimerWheel.getInstance());
+    }
+
+    public SimpleCache(StatefulObjectFactory<V> factory, IdentifierFactory<K> identifierFactory, StatefulTimeoutInfo timeout, ServerEnvironment environment, ScheduledExecutorService executor, TimerWheel wheel) {
         this.factory = factory;
         this.identifierFactory = identifierFactory;
         this.timeout = timeout;
         this.environment = environment;
         this.executor = executor;
+        this.wheel = wheel;
     }
 
     @Override
     public void start() {
-        // Do nothing
+        this.scheduler = this.wheel.createScheduler(this, this.executor);
     }
 
     @Override
     public void stop() {
-        for (Future<?> future: this.expirationFutures.values()) {
-            future.cancel(true);
-        }
-        for (Future<?> future: this.expirationFutures.values()) {
-            if (!future.isCancelled() && !future.isDone()) {
-                try {
-                    future.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                    // Ignore
-                }
-            }
+        ExpirationScheduler<K> scheduler = this.scheduler;
+        if (scheduler != null) {
+            this.scheduler = null;
+            scheduler.close();
         }
         for(Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
             this.factory.destroyInstance(entry.getValue().getValue());
         }
-        this.expirationFutures.clear();
         this.entries.clear();
     }
 
@@ -135,14 +134,17 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
 
     @Override
     public V get(K key) {
-        Future<?> future = this.expirationFutures.get(key);
-        if (future != null) {
-            future.cancel(true);
+        ExpirationScheduler<K> scheduler = this.scheduler;
+        if (scheduler != null) {
+            scheduler.cancel(key);
+        }
+        while (true) {
+            Entry<V> entry = this.entries.get(key);
+            if (entry == null) return null;
+            if (entry.use()) return entry.getValue();
+            // The entry expired, and is about to be removed
+            Thread.yield();
         }
-        Entry<V> entry = this.entries.get(key);
-        if (entry == null) return null;
-        entry.use();
-        return entry.getValue();
     }
 
     @Override
@@ -157,13 +159,10 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         if ((entry != null) && entry.done()) {
             if (this.timeout != null) {
                 long value = this.timeout.getValue();
-                if (value > 0) {
+                ExpirationScheduler<K> scheduler = this.scheduler;
+                if ((value > 0) && (scheduler != null)) {
                     TimeUnit unit = this.timeout.getTimeUnit();
-                    RemoveTask task = new RemoveTask(id);
-                    // Make sure the expiration future map insertion happens before map removal (during task execution).
-                    synchronized (task) {
-                        this.expirationFutures.put(id, this.executor.schedule(task, value, unit));
-                    }
+                    scheduler.schedule(id, value, unit);
                 } else if (value == 0) {
                     // The EJB specification allows a 0 timeout, which means the bean is immediately eligible for removal.
                     // However, removing it directly is faster than scheduling it for immediate removal.
@@ -188,23 +187,22 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         return this.getCacheSize();
     }
 
-    class RemoveTask implements Runnable {
-        private final K key;
-
-        RemoveTask(K key) {
-            this.key = key;
-        }
-
-        @Override
-        public synchronized void run() {
-            if (!Thread.currentThread().isInterrupted()) {
-                SimpleCache.this.remove(this.key);
+    @Override
+    public void expired(Collection<K> keys) {
+        for (K key: keys) {
+            if (this.scheduler == null) return;
+            Entry<V> entry = this.entries.get(key);
+            // The bean may have been retrieved again since it expired, otherwise it can no longer be retrieved
+            if ((entry != null) && entry.invalidate() && this.entries.remove(key, entry)) {
+                this.factory.destroyInstance(entry.getValue());
             }
-            SimpleCache.this.expirationFutures.remove(this.key);
         }
     }
 
     static class Entry<V> {
+        // The number of callers using the bean, or INVALID once the bean expired
+        private static final int INVALID = -1;
+
         private final V value;
         private final AtomicInteger usage = new AtomicInteger();
 
@@ -212,14 +210,30 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
             this.value = value;
         }
 
-        void use() {
-            this.usage.incrementAndGet();
+        /**
+         * Marks the bean as used, unless it expired.
+         * @return true, if the bean can be used, false if it expired
+         */
+        boolean use() {
+            while (true) {
+                int usage = this.usage.get();
+                if (usage == INVALID) return false;
+                if (this.usage.compareAndSet(usage, usage + 1)) return true;
+            }
         }
 
         boolean done() {
             return this.usage.decrementAndGet() == 0;
         }
 
+        /**
+         * Marks an idle bean as expired, so that it can no longer be used.
+         * @return true, if the bean was idle, false if it is in use
+         */
+        boolean invalidate() {
+            return this.usage.compareAndSet(0, INVALID);
+        }
+
         V getValue() {
             return this.value;
         }
@@ -30,6 +30,7 @@ import javax.transaction.TransactionManager;
 import javax.transaction.TransactionSynchronizationRegistry;
 import javax.transaction.UserTransaction;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.rmi.Remote;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -326,7 +327,13 @@ public abstract class EJBComponentDescription extends ComponentDescription {
                     });
                 }
 
-                configuration.addComponentInterceptor(ExecutionTimeInterceptor.FACTORY, InterceptorOrder.Component.EJB_EXECUTION_TIME_INTERCEPTOR, true);
+                // every public method gets its own index into the invocation metrics of the component
+                int methodIndex = 0;
+                for (final Method method : configuration.getClassIndex().getClassMethods()) {
+                    if (Modifier.isPublic(method.getModifiers())) {
+                        configuration.addComponentInterceptor(method, ExecutionTimeInterceptor.factory(methodIndex++), InterceptorOrder.Component.EJB_EXECUTION_TIME_INTERCEPTOR);
+                    }
+                }
             }
         });
 
@@ -103,7 +103,7 @@ public class EntityBeanComponent extends EJBComponent implements PooledComponent
             this.poolName = null;
         } else {
             ROOT_LOGGER.debug("Using pool config " + poolConfig + " to create pool for entity bean " + ejbComponentCreateService.getComponentName());
-            this.pool = poolConfig.createPool(factory);
+            this.pool = poolConfig.createPool(factory, getInvocationMetrics());
             this.poolName = poolConfig.getPoolName();
         }
         this.cache = createEntityCache(ejbComponentCreateService);
@@ -21,8 +21,12 @@
  */
 package org.jboss.as.ejb3.component.invocationmetrics;
 
+import java.util.concurrent.TimeUnit;
+
 import org.jboss.as.ejb3.component.EJBComponent;
 import org.jboss.as.ejb3.component.interceptors.AbstractEJBInterceptor;
+import org.jboss.as.ejb3.component.pool.PooledComponent;
+import org.jboss.as.ejb3.pool.adaptive.AdaptivePool;
 import org.jboss.invocation.ImmediateInterceptorFactory;
 import org.jboss.invocation.InterceptorContext;
 import org.jboss.invocation.InterceptorFactory;
@@ -31,25 +35,39 @@ import org.jboss.invocation.InterceptorFactory;
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
  */
 public class ExecutionTimeInterceptor extends AbstractEJBInterceptor {
-    public static final InterceptorFactory FACTORY = new ImmediateInterceptorFactory(new ExecutionTimeInterceptor());
+    private final int methodIndex;
+
+    private ExecutionTimeInterceptor(final int methodIndex) {
+        this.methodIndex = methodIndex;
+    }
 
-    private ExecutionTimeInterceptor() {
+    /**
+     * @param methodIndex the index of the intercepted method within the {@link InvocationMetrics} of the component
+     * @return a factory for the interceptor of that method
+     */
+    public static InterceptorFactory factory(final int methodIndex) {
+        return new ImmediateInterceptorFactory(new ExecutionTimeInterceptor(methodIndex));
     }
 
     @Override
     public Object processInvocation(final InterceptorContext context) throws Exception {
         final EJBComponent component = getComponent(context, EJBComponent.class);
-        if (!component.isStatisticsEnabled())
+        if (!component.isStatisticsEnabled() && !isAdaptivelyPooled(component))
             return context.proceed();
         final Long startWaitTime = (Long) context.getPrivateData(WaitTimeInterceptor.START_WAIT_TIME);
         final long waitTime = startWaitTime != null && startWaitTime != 0L ? System.currentTimeMillis() - startWaitTime : 0L;
         component.getInvocationMetrics().startInvocation();
-        final long start = System.currentTimeMillis();
+        final long start = System.nanoTime();
         try {
             return context.proceed();
         } finally {
-            final long executionTime = System.currentTimeMillis() - start;
-            component.getInvocationMetrics().finishInvocation(context.getMethod(), waitTime, executionTime);
+            final long executionTime = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            component.getInvocationMetrics().finishInvocation(methodIndex, context.getMethod(), waitTime, executionTime);
         }
     }
+
+    private static boolean isAdaptivelyPooled(final EJBComponent component) {
+        // an adaptive pool is sized from the wait time, so it needs the metrics even if statistics are disabled
+        return component instanceof PooledComponent && ((PooledComponent<?>) component).getPool() instanceof AdaptivePool;
+    }
 }
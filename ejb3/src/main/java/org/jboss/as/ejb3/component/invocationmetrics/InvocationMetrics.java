@@ -22,17 +22,24 @@
 package org.jboss.as.ejb3.component.invocationmetrics;
 
 import java.lang.reflect.Method;
-import java.util.AbstractMap;
-import java.util.AbstractSet;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
+ * The invocation statistics of a component.
+ * <p/>
+ * Every intercepted method is assigned an index when the component is configured. The counters of a method are
+ * spread over a number of cells, each updated by a subset of the threads, so that recording an invocation neither
+ * allocates nor retries on contention. The cells are only summed up when the metrics are read.
+ * <p/>
+ * The execution times are also counted in a {@link LatencyHistogram} per method, from which the percentiles of the
+ * component are computed on demand.
+ *
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
  */
 public class InvocationMetrics {
@@ -60,38 +67,71 @@ public class InvocationMetrics {
         }
     }
 
-    private final AtomicReference<Values> values = new AtomicReference<Values>(new Values(0, 0, 0));
+    /**
+     * The number of cells per method, a power of two.
+     */
+    private static final int CELLS = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1), 16);
+    /**
+     * The number of longs reserved for a cell, so that two cells never share a cache line.
+     */
+    private static final int CELL_SIZE = 8;
+    private static final int INVOCATIONS = 0;
+    private static final int WAIT_TIME = 1;
+    private static final int EXECUTION_TIME = 2;
+
     private final AtomicLong concurrent = new AtomicLong(0);
     private final AtomicLong peakConcurrent = new AtomicLong(0);
 
-    private final ConcurrentMap<String, AtomicReference<Values>> methods = new ConcurrentHashMap<String, AtomicReference<Values>>();
+    /**
+     * The metrics of the invoked methods by method index, copied on write.
+     */
+    private volatile MethodMetrics[] methods = new MethodMetrics[0];
+    private volatile long latencyWindow;
 
-    void finishInvocation(final Method method, final long invocationWaitTime, final long invocationExecutionTime) {
+    /**
+     * @param invocationWaitTime      the wait time in milliseconds
+     * @param invocationExecutionTime the execution time in microseconds
+     */
+    void finishInvocation(final int methodIndex, final Method method, final long invocationWaitTime, final long invocationExecutionTime) {
         concurrent.decrementAndGet();
-        for(;;) {
-            final Values oldv = values.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (values.compareAndSet(oldv, newv))
-                break;
+        final MethodMetrics metrics = methodMetrics(methodIndex, method);
+        metrics.add(invocationWaitTime, invocationExecutionTime);
+        metrics.latency.record(invocationExecutionTime, latencyWindow > 0L ? System.nanoTime() : 0L);
+    }
+
+    private MethodMetrics methodMetrics(final int index, final Method method) {
+        final MethodMetrics[] methods = this.methods;
+        if (index < methods.length) {
+            final MethodMetrics metrics = methods[index];
+            if (metrics != null)
+                return metrics;
         }
-        final AtomicReference<Values> methodValues = ref(methods, method.getName());
-        for (;;) {
-            final Values oldv = methodValues.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (methodValues.compareAndSet(oldv, newv))
-                break;
+        return register(index, method);
+    }
+
+    private synchronized MethodMetrics register(final int index, final Method method) {
+        MethodMetrics[] methods = this.methods;
+        if (index < methods.length) {
+            if (methods[index] != null)
+                return methods[index];
+            methods = methods.clone();
+        } else {
+            methods = Arrays.copyOf(methods, index + 1);
         }
+        final MethodMetrics metrics = new MethodMetrics(method.getName());
+        metrics.latency.setWindow(latencyWindow, TimeUnit.NANOSECONDS);
+        methods[index] = metrics;
+        this.methods = methods;
+        return metrics;
     }
 
-    private static AtomicReference<Values> ref(final ConcurrentMap<String, AtomicReference<Values>> map, final String key) {
-        AtomicReference<Values> ref = map.get(key);
-        if (ref == null) {
-            ref = new AtomicReference<Values>(new Values(0, 0, 0));
-            final AtomicReference<Values> prevRef = map.putIfAbsent(key, ref);
-            if (prevRef != null)
-                ref = prevRef;
+    private long sum(final int counter) {
+        long sum = 0;
+        for (MethodMetrics metrics : methods) {
+            if (metrics != null)
+                sum += metrics.sum(counter);
         }
-        return ref;
+        return sum;
     }
 
     public long getConcurrent() {
@@ -99,62 +139,88 @@ public class InvocationMetrics {
     }
 
     public long getExecutionTime() {
-        return values.get().executionTime;
+        return sum(EXECUTION_TIME) / 1000L;
     }
 
     public long getInvocations() {
-        return values.get().invocations;
+        return sum(INVOCATIONS);
     }
 
+    /**
+     * Returns a snapshot of the metrics by method name. The values of overloaded methods are added up.
+     */
     public Map<String, Values> getMethods() {
-        return new AbstractMap<String, Values>() {
-            @Override
-            public Set<Entry<String, Values>> entrySet() {
-                return new AbstractSet<Entry<String, Values>>() {
-                    @Override
-                    public Iterator<Entry<String, Values>> iterator() {
-                        final Iterator<Entry<String, AtomicReference<Values>>> delegate = methods.entrySet().iterator();
-                        return new Iterator<Entry<String, Values>>() {
-                            @Override
-                            public boolean hasNext() {
-                                return delegate.hasNext();
-                            }
-
-                            @Override
-                            public Entry<String, Values> next() {
-                                final Entry<String, AtomicReference<Values>> next = delegate.next();
-                                return new Entry<String, Values>() {
-                                    @Override
-                                    public String getKey() {
-                                        return next.getKey();
-                                    }
-
-                                    @Override
-                                    public Values getValue() {
-                                        return next.getValue().get();
-                                    }
-
-                                    @Override
-                                    public Values setValue(final Values value) {
-                                        throw new UnsupportedOperationException("NYI");
-                                    }
-                                };
-                            }
-
-                            @Override
-                            public void remove() {
-                                throw new UnsupportedOperationException("NYI");
-                            }
-                        };
-                    }
-
-                    @Override
-                    public int size() {
-                        return methods.size();
-                    }
-                };
+        final Map<String, Values> result = new HashMap<String, Values>();
+        for (MethodMetrics metrics : methods) {
+            if (metrics == null)
+                continue;
+            final Values values = metrics.values();
+            final Values previous = result.get(metrics.name);
+            if (previous == null) {
+                result.put(metrics.name, values);
+            } else {
+                result.put(metrics.name, new Values(previous.invocations + values.invocations, previous.waitTime + values.waitTime, previous.executionTime + values.executionTime));
             }
-        };
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns the distribution of the execution times of all methods, in microseconds.
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        final long now = System.nanoTime();
+        final LatencyHistogram.Snapshot result = new LatencyHistogram.Snapshot();
+        for (MethodMetrics metrics : methods) {
+            if (metrics != null)
+                result.add(metrics.latency.snapshot(now));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the distribution of the execution times, in microseconds, by method name. The values of overloaded
+     * methods are added up.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getMethodLatencies() {
+        final long now = System.nanoTime();
+        final Map<String, LatencyHistogram.Snapshot> result = new HashMap<String, LatencyHistogram.Snapshot>();
+        for (MethodMetrics metrics : methods) {
+            if (metrics == null)
+                continue;
+            final LatencyHistogram.Snapshot snapshot = metrics.latency.snapshot(now);
+            final LatencyHistogram.Snapshot previous = result.get(metrics.name);
+            result.put(metrics.name, previous == null ? snapshot : previous.add(snapshot));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    public long getLatencyWindow(final TimeUnit unit) {
+        return unit.convert(latencyWindow, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the window the latency distributions cover, discarding the values recorded so far.
+     *
+     * @param window the window, 0 to cover all invocations since the last reset
+     * @param unit   the unit of the window
+     */
+    public synchronized void setLatencyWindow(final long window, final TimeUnit unit) {
+        latencyWindow = unit.toNanos(window);
+        for (MethodMetrics metrics : methods) {
+            if (metrics != null)
+                metrics.latency.setWindow(latencyWindow, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Discards the recorded latency distributions. The other counters are left alone.
+     */
+    public void resetLatency() {
+        for (MethodMetrics metrics : methods) {
+            if (metrics != null)
+                metrics.latency.reset();
+        }
     }
 
     public long getPeakConcurrent() {
@@ -162,7 +228,7 @@ public class InvocationMetrics {
     }
 
     public long getWaitTime() {
-        return values.get().waitTime;
+        return sum(WAIT_TIME);
     }
 
     void startInvocation() {
@@ -171,4 +237,34 @@ public class InvocationMetrics {
         if (peakConcurrent.get() < v)
             peakConcurrent.incrementAndGet();
     }
+
+    private static final class MethodMetrics {
+        final String name;
+        final AtomicLongArray cells = new AtomicLongArray(CELLS * CELL_SIZE);
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        MethodMetrics(final String name) {
+            this.name = name;
+        }
+
+        void add(final long waitTime, final long executionTime) {
+            final int cell = ((int) Thread.currentThread().getId() & (CELLS - 1)) * CELL_SIZE;
+            cells.incrementAndGet(cell + INVOCATIONS);
+            if (waitTime != 0L)
+                cells.addAndGet(cell + WAIT_TIME, waitTime);
+            if (executionTime != 0L)
+                cells.addAndGet(cell + EXECUTION_TIME, executionTime);
+        }
+
+        long sum(final int counter) {
+            long sum = 0;
+            for (int i = counter; i < cells.length(); i += CELL_SIZE)
+                sum += cells.get(i);
+            return sum;
+        }
+
+        Values values() {
+            return new Values(sum(INVOCATIONS), sum(WAIT_TIME), sum(EXECUTION_TIME) / 1000L);
+        }
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram of latencies.
+ * <p/>
+ * Values are counted in log-linear buckets: every power of two is split into {@link #SUB_BUCKETS} buckets of equal
+ * width, so that any recorded value is reported with a relative error of at most 1/{@link #SUB_BUCKETS}. Recording a
+ * value increments a single counter and never allocates or locks.
+ * <p/>
+ * By default the histogram covers all values since it was created or last reset. When a window is set, the window is
+ * split into {@link #WINDOW_SLOTS} slots, and the oldest slot is cleared whenever a slot's worth of time has passed.
+ * So the histogram covers at least the last window minus one slot, i.e. three quarters of the window, and never
+ * values older than the window. The slots are rotated by the threads recording or reading values, there is no
+ * background task.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Values up to 2^HIGHEST_BIT - 1 are told apart, larger values are counted in the last bucket.
+     */
+    private static final int HIGHEST_BIT = 36;
+    static final long HIGHEST_TRACKABLE_VALUE = (1L << HIGHEST_BIT) - 1;
+    static final int BUCKETS = (HIGHEST_BIT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    /**
+     * The number of slots a window is split into.
+     */
+    private static final int WINDOW_SLOTS = 4;
+
+    private final AtomicLong nextRotation = new AtomicLong();
+    private volatile Slot[] slots = new Slot[] { new Slot() };
+    private volatile int current;
+    private volatile long window;
+    private volatile long interval;
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are counted as zero
+     * @param now   the current {@link System#nanoTime()}, only looked at if a window is set
+     */
+    public void record(final long value, final long now) {
+        final Slot[] slots = this.slots;
+        if (slots.length > 1)
+            rotate(slots, now);
+        slots[current % slots.length].record(value);
+    }
+
+    /**
+     * Returns a copy of the recorded values.
+     *
+     * @param now the current {@link System#nanoTime()}, only looked at if a window is set
+     */
+    public Snapshot snapshot(final long now) {
+        final Slot[] slots = this.slots;
+        if (slots.length > 1)
+            rotate(slots, now);
+        final Snapshot snapshot = new Snapshot();
+        for (Slot slot : slots)
+            slot.addTo(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Discards the recorded values.
+     */
+    public void reset() {
+        for (Slot slot : slots)
+            slot.clear();
+    }
+
+    public long getWindow(final TimeUnit unit) {
+        return unit.convert(window, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the window the histogram covers. Changing the window discards the recorded values.
+     *
+     * @param window the window, 0 to cover all values since the last reset
+     * @param unit   the unit of the window
+     */
+    public synchronized void setWindow(final long window, final TimeUnit unit) {
+        final long nanos = unit.toNanos(window);
+        if (nanos == this.window)
+            return;
+        final Slot[] slots;
+        if (nanos > 0) {
+            slots = new Slot[WINDOW_SLOTS];
+            for (int i = 0; i < slots.length; i++)
+                slots[i] = new Slot();
+            this.interval = Math.max(1L, nanos / WINDOW_SLOTS);
+            this.nextRotation.set(System.nanoTime() + this.interval);
+        } else {
+            slots = new Slot[] { new Slot() };
+            this.interval = 0L;
+        }
+        this.current = 0;
+        this.window = nanos;
+        this.slots = slots;
+    }
+
+    private void rotate(final Slot[] slots, final long now) {
+        final long next = nextRotation.get();
+        if (now - next < 0)
+            return;
+        final long interval = this.interval;
+        if (interval == 0L || !nextRotation.compareAndSet(next, now + interval))
+            return;
+        // every slot an interval has passed for is stale, after a whole window all of them are
+        final long passed = Math.min(slots.length, 1 + (now - next) / interval);
+        int current = this.current;
+        for (long i = 0; i < passed; i++) {
+            current = (current + 1) % slots.length;
+            slots[current].clear();
+        }
+        this.current = current;
+    }
+
+    static int bucket(final long value) {
+        final long v = Math.min(Math.max(value, 0L), HIGHEST_TRACKABLE_VALUE);
+        if (v < SUB_BUCKETS)
+            return (int) v;
+        final int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return the highest value counted in a bucket
+     */
+    static long highestValue(final int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        final int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        final long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private static final class Slot {
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        final AtomicLong max = new AtomicLong();
+
+        void record(final long value) {
+            counts.incrementAndGet(bucket(value));
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            }
+        }
+
+        void addTo(final Snapshot snapshot) {
+            for (int i = 0; i < BUCKETS; i++) {
+                final long count = counts.get(i);
+                snapshot.counts[i] += count;
+                snapshot.count += count;
+            }
+            snapshot.max = Math.max(snapshot.max, max.get());
+        }
+
+        void clear() {
+            for (int i = 0; i < BUCKETS; i++)
+                counts.set(i, 0L);
+            max.set(0L);
+        }
+    }
+
+    /**
+     * The values of a histogram at one point in time.
+     */
+    public static class Snapshot {
+        final long[] counts = new long[BUCKETS];
+        long count;
+        long max;
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param percentile the percentile, between 0 and 100
+         * @return the highest value of the bucket the percentile falls in, or 0 if no values were recorded
+         */
+        public long getValueAtPercentile(final double percentile) {
+            if (count == 0L)
+                return 0L;
+            final long rank = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+            long seen = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(highestValue(i), max);
+            }
+            return max;
+        }
+
+        /**
+         * Adds the values of another snapshot to this one.
+         */
+        public Snapshot add(final Snapshot other) {
+            for (int i = 0; i < BUCKETS; i++)
+                counts[i] += other.counts[i];
+            count += other.count;
+            max = Math.max(max, other.max);
+            return this;
+        }
+    }
+}
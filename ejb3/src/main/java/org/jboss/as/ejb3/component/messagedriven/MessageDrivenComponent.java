@@ -97,7 +97,7 @@ public class MessageDrivenComponent extends EJBComponent implements PooledCompon
             this.poolName = null;
         } else {
             ROOT_LOGGER.debug("Using pool config " + poolConfig + " to create pool for MDB " + ejbComponentCreateService.getComponentName());
-            this.pool = poolConfig.createPool(factory);
+            this.pool = poolConfig.createPool(factory, getInvocationMetrics());
             this.poolName = poolConfig.getPoolName();
         }
         this.classLoader = ejbComponentCreateService.getModuleClassLoader();
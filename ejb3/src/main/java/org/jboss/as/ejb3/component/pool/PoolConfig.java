@@ -22,6 +22,7 @@
 
 package org.jboss.as.ejb3.component.pool;
 
+import org.jboss.as.ejb3.component.invocationmetrics.InvocationMetrics;
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.ejb3.pool.Pool;
 import org.jboss.as.ejb3.pool.StatelessObjectFactory;
@@ -45,4 +46,21 @@ public abstract class PoolConfig {
     }
 
     public abstract <T> Pool<T> createPool(final StatelessObjectFactory<T> statelessObjectFactory);
+
+    /**
+     * Creates a pool for a component, which may use the metrics of the component to tune itself.
+     *
+     * @param statelessObjectFactory the factory of the pooled instances
+     * @param invocationMetrics      the invocation metrics of the component
+     * @return the pool
+     */
+    public <T> Pool<T> createPool(final StatelessObjectFactory<T> statelessObjectFactory, final InvocationMetrics invocationMetrics) {
+        return this.createPool(statelessObjectFactory);
+    }
+
+    /**
+     * Releases any resources held by this configuration. Called when the pool configuration service stops.
+     */
+    public void close() {
+    }
 }
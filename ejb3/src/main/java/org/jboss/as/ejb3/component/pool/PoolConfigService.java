@@ -58,7 +58,7 @@ public class PoolConfigService implements Service<PoolConfig> {
 
     @Override
     public void stop(StopContext context) {
-
+        this.poolConfig.close();
     }
 
     @Override
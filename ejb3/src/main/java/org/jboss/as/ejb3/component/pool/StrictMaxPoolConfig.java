@@ -22,10 +22,19 @@
 
 package org.jboss.as.ejb3.component.pool;
 
+import org.jboss.as.ejb3.component.invocationmetrics.InvocationMetrics;
 import org.jboss.as.ejb3.pool.Pool;
 import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+import org.jboss.as.ejb3.pool.adaptive.AdaptivePool;
 import org.jboss.as.ejb3.pool.strictmax.StrictMaxPool;
-
+import org.jboss.as.ejb3.pool.striped.StripedPool;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
+
+import java.security.AccessController;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -39,6 +48,17 @@ public class StrictMaxPoolConfig extends PoolConfig {
 
     public static final TimeUnit DEFAULT_TIMEOUT_UNIT = TimeUnit.MINUTES;
 
+    public static final int DEFAULT_MIN_POOL_SIZE = 1;
+
+    /**
+     * The time between two samples of an adaptively sized pool.
+     */
+    public static final long SAMPLE_INTERVAL = 1;
+
+    public static final TimeUnit SAMPLE_INTERVAL_UNIT = TimeUnit.SECONDS;
+
+    private static final ThreadFactory THREAD_FACTORY = new JBossThreadFactory(new ThreadGroup(AdaptivePool.class.getSimpleName()), Boolean.TRUE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+
 
     private volatile int maxPoolSize;
 
@@ -46,16 +66,73 @@ public class StrictMaxPoolConfig extends PoolConfig {
 
     private volatile long timeout;
 
+    /**
+     * The number of stripes of a {@link StripedPool}, or 0 if a plain {@link StrictMaxPool} is used.
+     */
+    private volatile int stripes;
+
+    /**
+     * Whether the maximum size of the pools is adjusted between {@link #minPoolSize} and {@link #maxPoolSize}
+     * at runtime.
+     */
+    private volatile boolean adaptiveSizing;
+
+    private volatile int minPoolSize = DEFAULT_MIN_POOL_SIZE;
+
+    /**
+     * Runs the samples of the adaptively sized pools, created on demand.
+     */
+    private ScheduledExecutorService executor;
+
     public StrictMaxPoolConfig(final String poolName, int maxSize, long timeout, TimeUnit timeUnit) {
+        this(poolName, maxSize, 0, timeout, timeUnit);
+    }
+
+    public StrictMaxPoolConfig(final String poolName, int maxSize, int stripes, long timeout, TimeUnit timeUnit) {
         super(poolName);
         this.maxPoolSize = maxSize;
+        this.stripes = stripes;
         this.timeout = timeout;
         this.timeoutUnit = timeUnit;
     }
 
     @Override
     public <T> Pool<T> createPool(final StatelessObjectFactory<T> statelessObjectFactory) {
-        return new StrictMaxPool<T>(statelessObjectFactory, this.maxPoolSize, this.timeout, this.timeoutUnit);
+        return this.createPool(statelessObjectFactory, this.maxPoolSize);
+    }
+
+    @Override
+    public <T> Pool<T> createPool(final StatelessObjectFactory<T> statelessObjectFactory, final InvocationMetrics invocationMetrics) {
+        if (!this.adaptiveSizing) {
+            return this.createPool(statelessObjectFactory);
+        }
+        final int maxSize = this.maxPoolSize;
+        final int minSize = Math.min(this.minPoolSize, maxSize);
+        // start at the floor, the samples let the pool grow towards the ceiling
+        final Pool<T> pool = this.createPool(statelessObjectFactory, minSize);
+        return new AdaptivePool<T>(pool, invocationMetrics, minSize, maxSize, this.getExecutor(), SAMPLE_INTERVAL, SAMPLE_INTERVAL_UNIT);
+    }
+
+    private <T> Pool<T> createPool(final StatelessObjectFactory<T> statelessObjectFactory, final int maxSize) {
+        if (this.stripes > 0) {
+            return new StripedPool<T>(statelessObjectFactory, maxSize, this.stripes, this.timeout, this.timeoutUnit);
+        }
+        return new StrictMaxPool<T>(statelessObjectFactory, maxSize, this.timeout, this.timeoutUnit);
+    }
+
+    private synchronized ScheduledExecutorService getExecutor() {
+        if (this.executor == null) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
+        }
+        return this.executor;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
     }
 
     public int getMaxPoolSize() {
@@ -66,6 +143,30 @@ public class StrictMaxPoolConfig extends PoolConfig {
         this.maxPoolSize = maxPoolSize;
     }
 
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public boolean isAdaptiveSizing() {
+        return adaptiveSizing;
+    }
+
+    public void setAdaptiveSizing(boolean adaptiveSizing) {
+        this.adaptiveSizing = adaptiveSizing;
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public void setMinPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
     public TimeUnit getTimeoutUnit() {
         return timeoutUnit;
     }
@@ -87,6 +188,9 @@ public class StrictMaxPoolConfig extends PoolConfig {
         return "StrictMaxPoolConfig{" +
                 "name=" + this.poolName +
                 ", maxPoolSize=" + maxPoolSize +
+                ", stripes=" + stripes +
+                ", adaptiveSizing=" + adaptiveSizing +
+                ", minPoolSize=" + minPoolSize +
                 ", timeoutUnit=" + timeoutUnit +
                 ", timeout=" + timeout +
                 '}';
@@ -76,7 +76,7 @@ public class StatelessSessionComponent extends SessionBeanComponent implements P
             this.poolName = null;
         } else {
             ROOT_LOGGER.debug("Using pool config " + poolConfig + " to create pool for Stateless EJB " + slsbComponentCreateService.getComponentName());
-            this.pool = poolConfig.createPool(factory);
+            this.pool = poolConfig.createPool(factory, getInvocationMetrics());
             this.poolName = poolConfig.getPoolName();
         }
 
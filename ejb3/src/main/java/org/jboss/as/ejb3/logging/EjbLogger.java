@@ -3020,4 +3020,68 @@ public interface EjbLogger extends BasicLogger {
     @LogMessage(level = WARN)
     @Message(id = 462, value = "Unable to detect database dialect from connection metadata or JDBC driver name. Please configure this manually using the 'datasource' property in your configuration.  Known database dialect strings are %s")
     void jdbcDatabaseDialectDetectionFailed(String validDialects);
+
+    /**
+     * Logs a warning message indicating that an adaptive pool could not be resized
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 463, value = "Failed to adjust the size of pool %s")
+    void failedToAdjustPoolSize(@Cause Throwable cause, Object pool);
+
+    /**
+     * Logs an error message indicating that the timers of a partition could not be refreshed incrementally
+     */
+    @LogMessage(level = ERROR)
+    @Message(id = 464, value = "Failed to refresh timers of partition %s")
+    void failedToRefreshTimersOfPartition(@Cause Throwable cause, String partition);
+
+    /**
+     * Logs a warning message indicating that the timer table does not support an incremental refresh
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 465, value = "Could not migrate the timer table of %s to track changes, the timers will be refreshed in full")
+    void couldNotMigrateTimerTable(String name, @Cause Throwable cause);
+
+    /**
+     * Logs an error message indicating that a batch of timer updates could not be written
+     */
+    @LogMessage(level = ERROR)
+    @Message(id = 466, value = "Failed to write %d timer updates to the database, they will be retried")
+    void failedToWriteTimerUpdates(@Cause Throwable cause, int count);
+
+    /**
+     * Creates an exception indicating that a timer journal could not be opened or written
+     *
+     * @return a {@link RuntimeException} for the error.
+     */
+    @Message(id = 467, value = "Could not access timer journal %s")
+    RuntimeException failToAccessTimerJournal(File file, @Cause Throwable cause);
+
+    /**
+     * Logs a warning message indicating that the tail of a timer journal was corrupted and dropped
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 468, value = "Timer journal %s is corrupted after offset %d, the records following it were discarded")
+    void timerJournalTruncated(File file, int offset);
+
+    /**
+     * Logs an info message indicating that the timers of an XML file store were imported into a timer journal
+     */
+    @LogMessage(level = INFO)
+    @Message(id = 469, value = "Imported %d timers of %s into timer journal %s")
+    void timersImportedIntoJournal(int count, String timedObjectId, File file);
+
+    /**
+     * Logs a warning message indicating that a timer journal could not be compacted
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 470, value = "Could not compact timer journal %s")
+    void failToCompactTimerJournal(File file, @Cause Throwable cause);
+
+    /**
+     * Logs a warning message indicating that a timer file imported into a timer journal could neither be renamed nor deleted
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 471, value = "Could neither rename nor delete timer file %s after importing it into the timer journal, its timer is imported again on the next start unless the journal holds it")
+    void failToRetireImportedTimerFile(File file);
 }
@@ -66,6 +66,15 @@ public interface Pool<T> {
 
     void setMaxSize(int maxSize);
 
+    /**
+     * Destroy idle objects until no more than the given number
+     * of them is left in the pool.
+     *
+     * @param maxIdle the number of idle objects to keep
+     * @return the number of objects that were destroyed
+     */
+    int trim(int maxIdle);
+
     /**
      * Start the pool.
      */
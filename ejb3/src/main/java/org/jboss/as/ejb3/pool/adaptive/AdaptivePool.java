@@ -0,0 +1,209 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.adaptive;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.ejb3.component.invocationmetrics.InvocationMetrics;
+import org.jboss.as.ejb3.pool.Pool;
+
+/**
+ * A pool which periodically adjusts the maximum size of another pool between a floor and a ceiling.
+ * <p/>
+ * Every sample looks at the average time invocations had to wait before reaching the bean instance, as recorded
+ * by the {@link InvocationMetrics} of the component. If invocations waited, or the pool is exhausted, the maximum
+ * size is doubled. Only after a number of consecutive quiet samples, in which invocations did not wait and at most
+ * half of the instances were in use, the maximum size is reduced by a quarter and idle instances beyond the floor are
+ * destroyed. The gap between the two conditions keeps the size from oscillating under a steady load.
+ */
+public class AdaptivePool<T> implements Pool<T> {
+
+    /**
+     * The average wait time in milliseconds at which the pool grows.
+     */
+    static final double GROW_WAIT_TIME = 1.0;
+    /**
+     * The average wait time in milliseconds below which the pool may shrink.
+     */
+    static final double SHRINK_WAIT_TIME = 0.1;
+    /**
+     * The number of consecutive quiet samples after which the pool shrinks.
+     */
+    static final int SHRINK_SAMPLES = 5;
+
+    private final Pool<T> delegate;
+    private final InvocationMetrics metrics;
+    private final int minSize;
+    private final int maxSize;
+    private final ScheduledExecutorService executor;
+    private final long interval;
+    private final TimeUnit intervalUnit;
+    private final Runnable sampler = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                sample();
+            } catch (RuntimeException e) {
+                ROOT_LOGGER.failedToAdjustPoolSize(e, delegate);
+            }
+        }
+    };
+
+    private volatile ScheduledFuture<?> future;
+
+    // only accessed by the sampling task
+    private long lastInvocations;
+    private long lastWaitTime;
+    private int quietSamples;
+
+    /**
+     * @param delegate     the pool to resize, its current maximum size is kept as the initial size
+     * @param metrics      the metrics of the component using the pool
+     * @param minSize      the floor of the maximum size
+     * @param maxSize      the ceiling of the maximum size
+     * @param executor     the executor which runs the samples
+     * @param interval     the time between two samples
+     * @param intervalUnit the unit of the interval
+     */
+    public AdaptivePool(Pool<T> delegate, InvocationMetrics metrics, int minSize, int maxSize, ScheduledExecutorService executor, long interval, TimeUnit intervalUnit) {
+        assert delegate != null : "delegate is null";
+        assert metrics != null : "metrics is null";
+        assert minSize > 0 && minSize <= maxSize : "minSize must be positive and not exceed maxSize";
+
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.executor = executor;
+        this.interval = interval;
+        this.intervalUnit = intervalUnit;
+    }
+
+    /**
+     * @return the pool whose size is adjusted
+     */
+    public Pool<T> getDelegate() {
+        return this.delegate;
+    }
+
+    public int getMinSize() {
+        return this.minSize;
+    }
+
+    public void discard(T obj) {
+        this.delegate.discard(obj);
+    }
+
+    public T get() {
+        return this.delegate.get();
+    }
+
+    public int getAvailableCount() {
+        return this.delegate.getAvailableCount();
+    }
+
+    public int getCreateCount() {
+        return this.delegate.getCreateCount();
+    }
+
+    public int getCurrentSize() {
+        return this.delegate.getCurrentSize();
+    }
+
+    public int getMaxSize() {
+        return this.delegate.getMaxSize();
+    }
+
+    public int getRemoveCount() {
+        return this.delegate.getRemoveCount();
+    }
+
+    public void release(T obj) {
+        this.delegate.release(obj);
+    }
+
+    /**
+     * Sets the current maximum size. The next samples will adjust it again within the floor and the ceiling.
+     */
+    public void setMaxSize(int maxSize) {
+        this.delegate.setMaxSize(maxSize);
+    }
+
+    public int trim(int maxIdle) {
+        return this.delegate.trim(maxIdle);
+    }
+
+    public void start() {
+        this.delegate.start();
+        this.lastInvocations = this.metrics.getInvocations();
+        this.lastWaitTime = this.metrics.getWaitTime();
+        this.future = this.executor.scheduleWithFixedDelay(this.sampler, this.interval, this.interval, this.intervalUnit);
+    }
+
+    public void stop() {
+        final ScheduledFuture<?> future = this.future;
+        if (future != null) {
+            future.cancel(false);
+            this.future = null;
+        }
+        this.delegate.stop();
+    }
+
+    /**
+     * Takes a sample of the metrics and adjusts the maximum size of the pool if needed.
+     */
+    void sample() {
+        final long invocations = this.metrics.getInvocations();
+        final long waitTime = this.metrics.getWaitTime();
+        final long sampledInvocations = invocations - this.lastInvocations;
+        final double averageWaitTime = sampledInvocations > 0 ? (double) (waitTime - this.lastWaitTime) / sampledInvocations : 0;
+        this.lastInvocations = invocations;
+        this.lastWaitTime = waitTime;
+
+        final int size = this.delegate.getMaxSize();
+        final int available = this.delegate.getAvailableCount();
+        final int inUse = size - available;
+        if (averageWaitTime >= GROW_WAIT_TIME || available == 0) {
+            this.quietSamples = 0;
+            this.resize(size, Math.min(this.maxSize, size * 2));
+        } else if (averageWaitTime < SHRINK_WAIT_TIME && inUse <= size / 2) {
+            if (++this.quietSamples >= SHRINK_SAMPLES) {
+                this.quietSamples = 0;
+                this.resize(size, Math.max(this.minSize, size - Math.max(1, size / 4)));
+                this.delegate.trim(this.minSize);
+            }
+        } else {
+            this.quietSamples = 0;
+        }
+    }
+
+    private void resize(int oldSize, int newSize) {
+        if (newSize != oldSize) {
+            ROOT_LOGGER.debugf("Changing the maximum size of pool %s from %d to %d", this.delegate, oldSize, newSize);
+            this.delegate.setMaxSize(newSize);
+        }
+    }
+}
@@ -45,11 +45,11 @@ public class StrictMaxPool<T> extends AbstractPool<T> {
      * When set, only maxSize instances may be active and any attempt to get an
      * instance will block until an instance is freed.
      */
-    private final Semaphore semaphore;
+    private final ResizableSemaphore semaphore;
     /**
      * The maximum number of instances allowed in the pool
      */
-    private final int maxSize;
+    private volatile int maxSize;
     /**
      * The time to wait for the semaphore.
      */
@@ -64,7 +64,7 @@ public class StrictMaxPool<T> extends AbstractPool<T> {
     public StrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit) {
         super(factory);
         this.maxSize = maxSize;
-        this.semaphore = new Semaphore(maxSize, false);
+        this.semaphore = new ResizableSemaphore(maxSize);
         this.timeout = timeout;
         this.timeUnit = timeUnit;
     }
@@ -86,15 +86,41 @@ public class StrictMaxPool<T> extends AbstractPool<T> {
     }
 
     public int getAvailableCount() {
-        return semaphore.availablePermits();
+        // permits may be negative for a while after the pool has been shrunk
+        return Math.max(0, semaphore.availablePermits());
     }
 
     public int getMaxSize() {
         return maxSize;
     }
 
-    public void setMaxSize(int maxSize) {
-        throw EjbLogger.ROOT_LOGGER.methodNotImplemented();
+    /**
+     * Change the maximum number of instances. If the pool shrinks, instances in use are not affected, but no new
+     * instance is handed out until enough of them have been returned.
+     *
+     * @param maxSize the new maximum size
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        final int delta = maxSize - this.maxSize;
+        if (delta > 0) {
+            semaphore.release(delta);
+        } else if (delta < 0) {
+            semaphore.reducePermits(-delta);
+        }
+        this.maxSize = maxSize;
+    }
+
+    public int trim(int maxIdle) {
+        int trimmed = 0;
+        while (pool.size() > maxIdle) {
+            T obj = pool.poll();
+            if (obj == null) {
+                break;
+            }
+            destroy(obj);
+            trimmed++;
+        }
+        return trimmed;
     }
 
     /**
@@ -171,4 +197,20 @@ public class StrictMaxPool<T> extends AbstractPool<T> {
             destroy(obj);
         }
     }
+
+    /**
+     * A semaphore whose number of permits can be reduced.
+     */
+    private static class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = -2640624925519618467L;
+
+        ResizableSemaphore(int permits) {
+            super(permits, false);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
 }
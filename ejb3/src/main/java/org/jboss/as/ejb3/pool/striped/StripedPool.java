@@ -0,0 +1,328 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.striped;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.pool.AbstractPool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+
+/**
+ * A pool with a maximum size, whose idle instances are spread over a number of thread affine stripes.
+ * <p/>
+ * A thread first looks for an idle instance in its own stripe and only steals from the other stripes if that
+ * one is empty, so under load most threads never touch the same data structure. The strict maximum is enforced by a
+ * single permit counter which is only updated with compare-and-set; threads only block on a lock once no permit
+ * is available.
+ */
+public class StripedPool<T> extends AbstractPool<T> {
+
+    private final Stripe<T>[] stripes;
+    private volatile int maxSize;
+    private final long timeout;
+    private final TimeUnit timeUnit;
+
+    /**
+     * The number of instances that may still be handed out before the pool is exhausted.
+     */
+    private final AtomicInteger permits;
+    /**
+     * The number of threads currently blocked waiting for a permit, so that a release only takes the lock when
+     * somebody actually needs to be woken up.
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final Lock lock = new ReentrantLock();
+    private final Condition permitReleased = this.lock.newCondition();
+
+    @SuppressWarnings("unchecked")
+    public StripedPool(StatelessObjectFactory<T> factory, int maxSize, int stripeCount, long timeout, TimeUnit timeUnit) {
+        super(factory);
+        assert stripeCount > 0 : "stripeCount must be positive";
+
+        this.maxSize = maxSize;
+        this.timeout = timeout;
+        this.timeUnit = timeUnit;
+        this.permits = new AtomicInteger(maxSize);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe<T>();
+        }
+    }
+
+    public void discard(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Discard instance %s#%s", this, ctx);
+        }
+
+        this.releasePermit();
+
+        super.doRemove(ctx);
+    }
+
+    public int getCurrentSize() {
+        return getCreateCount() - getRemoveCount();
+    }
+
+    public int getAvailableCount() {
+        // permits may be negative for a while after the pool has been shrunk
+        return Math.max(0, this.permits.get());
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Change the maximum number of instances. If the pool shrinks, instances in use are not affected, but no new
+     * instance is handed out until enough of them have been returned.
+     *
+     * @param maxSize the new maximum size
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        final int delta = maxSize - this.maxSize;
+        this.maxSize = maxSize;
+        this.permits.addAndGet(delta);
+        if (delta > 0 && this.waiters.get() > 0) {
+            this.lock.lock();
+            try {
+                this.permitReleased.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    public int trim(int maxIdle) {
+        int idle = 0;
+        for (Stripe<T> stripe : this.stripes) {
+            idle += stripe.instances.size();
+        }
+        int trimmed = 0;
+        boolean found = true;
+        // take the least recently used instance of each stripe in turn, so that all stripes keep some
+        while (found && idle - trimmed > maxIdle) {
+            found = false;
+            for (int i = 0; i < this.stripes.length && idle - trimmed > maxIdle; i++) {
+                T obj = this.stripes[i].instances.pollLast();
+                if (obj != null) {
+                    destroy(obj);
+                    trimmed++;
+                    found = true;
+                }
+            }
+        }
+        return trimmed;
+    }
+
+    /**
+     * Get an instance without identity.
+     *
+     * @return Context /w instance
+     */
+    public T get() {
+        try {
+            if (!this.acquirePermit()) {
+                throw EjbLogger.ROOT_LOGGER.failedToAcquirePermit(this.timeout, this.timeUnit);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw EjbLogger.ROOT_LOGGER.acquireSemaphoreInterrupted();
+        }
+
+        final int index = this.stripeIndex();
+        final Stripe<T> home = this.stripes[index];
+        T bean = home.instances.pollFirst();
+        if (bean != null) {
+            home.hits.incrementAndGet();
+            return bean;
+        }
+        // our own stripe is empty, steal the least recently used instance of another stripe
+        for (int i = 1; i < this.stripes.length; i++) {
+            bean = this.stripes[(index + i) % this.stripes.length].instances.pollLast();
+            if (bean != null) {
+                home.steals.incrementAndGet();
+                return bean;
+            }
+        }
+        home.misses.incrementAndGet();
+
+        try {
+            // Pool is empty, create an instance
+            bean = create();
+        } finally {
+            if (bean == null) {
+                this.releasePermit();
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * Return an instance after invocation. The instance is put back on the stripe of the calling thread.
+     *
+     * @param obj
+     */
+    public void release(T obj) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("%s/%s Free instance: %s", this.permits.get(), this.maxSize, this);
+        }
+
+        this.stripes[this.stripeIndex()].instances.offerFirst(obj);
+
+        this.releasePermit();
+    }
+
+    @Override
+    @Deprecated
+    public void remove(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Removing instance: %s#%s", this, ctx);
+        }
+
+        this.releasePermit();
+        super.doRemove(ctx);
+    }
+
+    public void start() {
+        // no-op
+    }
+
+    public void stop() {
+        for (Stripe<T> stripe : this.stripes) {
+            for (T obj = stripe.instances.poll(); obj != null; obj = stripe.instances.poll()) {
+                destroy(obj);
+            }
+        }
+    }
+
+    /**
+     * @return the number of stripes of this pool
+     */
+    public int getStripeCount() {
+        return this.stripes.length;
+    }
+
+    /**
+     * @param stripe the stripe index
+     * @return the number of instances that were served from the requesting thread's own stripe
+     */
+    public long getHitCount(int stripe) {
+        return this.stripes[stripe].hits.get();
+    }
+
+    /**
+     * @param stripe the stripe index
+     * @return the number of requests for which no idle instance was available and a new one was created
+     */
+    public long getMissCount(int stripe) {
+        return this.stripes[stripe].misses.get();
+    }
+
+    /**
+     * @param stripe the stripe index
+     * @return the number of instances that were taken from another stripe
+     */
+    public long getStealCount(int stripe) {
+        return this.stripes[stripe].steals.get();
+    }
+
+    /**
+     * @param stripe the stripe index
+     * @return the number of idle instances currently held by the stripe
+     */
+    public int getIdleCount(int stripe) {
+        return this.stripes[stripe].instances.size();
+    }
+
+    private int stripeIndex() {
+        return (int) (Thread.currentThread().getId() % this.stripes.length);
+    }
+
+    private boolean tryAcquirePermit() {
+        for (;;) {
+            final int available = this.permits.get();
+            if (available <= 0) {
+                return false;
+            }
+            if (this.permits.compareAndSet(available, available - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean acquirePermit() throws InterruptedException {
+        if (this.tryAcquirePermit()) {
+            return true;
+        }
+        long remaining = this.timeUnit.toNanos(this.timeout);
+        this.lock.lockInterruptibly();
+        try {
+            // register before re-checking, so that a concurrent release either sees us or we see its permit
+            this.waiters.incrementAndGet();
+            try {
+                while (!this.tryAcquirePermit()) {
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    remaining = this.permitReleased.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                this.waiters.decrementAndGet();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void releasePermit() {
+        this.permits.incrementAndGet();
+        if (this.waiters.get() > 0) {
+            this.lock.lock();
+            try {
+                this.permitReleased.signal();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    private static class Stripe<T> {
+        final Deque<T> instances = new ConcurrentLinkedDeque<T>();
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong steals = new AtomicLong();
+
+        Stripe() {
+        }
+    }
+}
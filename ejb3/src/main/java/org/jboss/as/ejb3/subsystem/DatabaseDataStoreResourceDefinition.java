@@ -26,19 +26,27 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.ReloadRequiredWriteAttributeHandler;
 import org.jboss.as.controller.ServiceRemoveStepHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.controller.operations.validation.EnumValidator;
 import org.jboss.as.controller.operations.validation.ModelTypeValidator;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
+import org.jboss.as.ejb3.timerservice.persistence.database.DatabaseTimerPersistence;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceController;
 
 /**
  * {@link org.jboss.as.controller.ResourceDefinition} for the databse data store resource.
@@ -46,8 +54,6 @@ import org.jboss.dmr.ModelType;
  */
 public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinition {
 
-    public static final DatabaseDataStoreResourceDefinition INSTANCE = new DatabaseDataStoreResourceDefinition();
-
     public static final SimpleAttributeDefinition DATASOURCE_JNDI_NAME =
             new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.DATASOURCE_JNDI_NAME, ModelType.STRING, false)
                     .setAllowExpression(true)
@@ -77,6 +83,13 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
                     .setDefaultValue(new ModelNode(-1))
                     .build();
 
+    public static final SimpleAttributeDefinition REFRESH_MODE =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.REFRESH_MODE, ModelType.STRING, true)
+                    .setAllowExpression(true)
+                    .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+                    .setDefaultValue(new ModelNode(DatabaseTimerPersistence.RefreshMode.FULL.name()))
+                    .setValidator(new EnumValidator<>(DatabaseTimerPersistence.RefreshMode.class, true, true))
+                    .build();
 
     public static final SimpleAttributeDefinition ALLOW_EXECUTION =
             new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.ALLOW_EXECUTION, ModelType.BOOLEAN, true)
@@ -93,16 +106,35 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
         map.put(DATABASE.getName(), DATABASE);
         map.put(PARTITION.getName(), PARTITION);
         map.put(REFRESH_INTERVAL.getName(), REFRESH_INTERVAL);
+        map.put(REFRESH_MODE.getName(), REFRESH_MODE);
         map.put(ALLOW_EXECUTION.getName(), ALLOW_EXECUTION);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
 
-    private DatabaseDataStoreResourceDefinition() {
+    static final SimpleAttributeDefinition REFRESH_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.REFRESH_COUNT, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
+    static final SimpleAttributeDefinition REFRESH_ROWS_SCANNED =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.REFRESH_ROWS_SCANNED, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
+    static final SimpleAttributeDefinition LAST_REFRESH_ROWS_SCANNED =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.LAST_REFRESH_ROWS_SCANNED, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
+    private final boolean registerRuntimeOnly;
+
+    DatabaseDataStoreResourceDefinition(final boolean registerRuntimeOnly) {
         super(EJB3SubsystemModel.DATABASE_DATA_STORE_PATH,
                 EJB3Extension.getResourceDescriptionResolver(EJB3SubsystemModel.DATABASE_DATA_STORE),
                 DatabaseDataStoreAdd.INSTANCE,
                 new ServiceRemoveStepHandler(TimerPersistence.SERVICE_NAME, DatabaseDataStoreAdd.INSTANCE));
+        this.registerRuntimeOnly = registerRuntimeOnly;
     }
 
     @Override
@@ -110,5 +142,36 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
         for (AttributeDefinition attr : ATTRIBUTES.values()) {
             resourceRegistration.registerReadWriteAttribute(attr, null, new ReloadRequiredWriteAttributeHandler(attr));
         }
+        if (registerRuntimeOnly) {
+            for (AttributeDefinition metric : new AttributeDefinition[] { REFRESH_COUNT, REFRESH_ROWS_SCANNED, LAST_REFRESH_ROWS_SCANNED }) {
+                resourceRegistration.registerMetric(metric, RefreshStatisticsHandler.INSTANCE);
+            }
+        }
+    }
+
+    /**
+     * Reads the refresh counters of the running {@link DatabaseTimerPersistence}.
+     */
+    private static class RefreshStatisticsHandler extends AbstractRuntimeOnlyHandler {
+
+        static final RefreshStatisticsHandler INSTANCE = new RefreshStatisticsHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final String name = PathAddress.pathAddress(operation.get(ModelDescriptionConstants.OP_ADDR)).getLastElement().getValue();
+            final ServiceController<?> controller = context.getServiceRegistry(false).getService(TimerPersistence.SERVICE_NAME.append(name));
+            if (controller != null && controller.getState() == ServiceController.State.UP) {
+                final DatabaseTimerPersistence persistence = (DatabaseTimerPersistence) controller.getValue();
+                final String attributeName = operation.require(ModelDescriptionConstants.NAME).asString();
+                if (EJB3SubsystemModel.REFRESH_COUNT.equals(attributeName)) {
+                    context.getResult().set(persistence.getRefreshCount());
+                } else if (EJB3SubsystemModel.REFRESH_ROWS_SCANNED.equals(attributeName)) {
+                    context.getResult().set(persistence.getRefreshRowsScanned());
+                } else if (EJB3SubsystemModel.LAST_REFRESH_ROWS_SCANNED.equals(attributeName)) {
+                    context.getResult().set(persistence.getLastRefreshRowsScanned());
+                }
+            }
+            context.stepCompleted();
+        }
     }
 }
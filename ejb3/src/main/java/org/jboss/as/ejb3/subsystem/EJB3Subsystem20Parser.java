@@ -193,6 +193,10 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
                     parseDatabaseDataStore(reader, operations);
                     break;
                 }
+                case JOURNAL_DATA_STORE: {
+                    parseJournalDataStore(reader, operations);
+                    break;
+                }
                 default: {
                     throw unexpectedElement(reader);
                 }
@@ -201,6 +205,14 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
     }
 
     private void parseFileDataStore(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
+        parseFileDataStore(reader, operations, FILE_DATA_STORE);
+    }
+
+    protected void parseJournalDataStore(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
+        throw unexpectedElement(reader);
+    }
+
+    protected void parseFileDataStore(final XMLExtendedStreamReader reader, final List<ModelNode> operations, final String dataStoreType) throws XMLStreamException {
         String dataStorePath = null;
         String dataStorePathRelativeTo = null;
         String name = null;
@@ -240,7 +252,7 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
         final ModelNode address = new ModelNode();
         address.add(SUBSYSTEM, EJB3Extension.SUBSYSTEM_NAME);
         address.add(SERVICE, TIMER_SERVICE);
-        address.add(FILE_DATA_STORE, name);
+        address.add(dataStoreType, name);
         final ModelNode fileDataStoreAdd = new ModelNode();
         fileDataStoreAdd.get(OP).set(ADD);
         fileDataStoreAdd.get(ADDRESS).set(address);
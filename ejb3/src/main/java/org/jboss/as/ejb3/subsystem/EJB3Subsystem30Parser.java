@@ -26,6 +26,7 @@ import org.jboss.dmr.ModelNode;
 import org.jboss.staxmapper.XMLExtendedStreamReader;
 
 import javax.xml.stream.XMLStreamException;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -38,7 +39,9 @@ import static org.jboss.as.controller.parsing.ParseUtils.requireNoContent;
 import static org.jboss.as.controller.parsing.ParseUtils.requireNoNamespaceAttribute;
 import static org.jboss.as.controller.parsing.ParseUtils.unexpectedAttribute;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DATABASE_DATA_STORE;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.JOURNAL_DATA_STORE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.SERVICE;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.STRICT_MAX_BEAN_INSTANCE_POOL;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.TIMER_SERVICE;
 
 
@@ -56,6 +59,58 @@ public class EJB3Subsystem30Parser extends EJB3Subsystem20Parser {
         return EJB3SubsystemNamespace.EJB3_3_0;
     }
 
+    @Override
+    protected void parseStrictMaxPool(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
+        String poolName = null;
+        final ModelNode operation = new ModelNode();
+        final int count = reader.getAttributeCount();
+        for (int i = 0; i < count; i++) {
+            requireNoNamespaceAttribute(reader, i);
+            final String value = reader.getAttributeValue(i);
+            final EJB3SubsystemXMLAttribute attribute = EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i));
+            switch (attribute) {
+                case NAME:
+                    poolName = value;
+                    break;
+                case MAX_POOL_SIZE:
+                    StrictMaxPoolResourceDefinition.MAX_POOL_SIZE.parseAndSetParameter(value, operation, reader);
+                    break;
+                case INSTANCE_ACQUISITION_TIMEOUT:
+                    StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.parseAndSetParameter(value, operation, reader);
+                    break;
+                case INSTANCE_ACQUISITION_TIMEOUT_UNIT:
+                    StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.parseAndSetParameter(value, operation, reader);
+                    break;
+                case STRIPES:
+                    StrictMaxPoolResourceDefinition.STRIPES.parseAndSetParameter(value, operation, reader);
+                    break;
+                case ADAPTIVE_SIZING:
+                    StrictMaxPoolResourceDefinition.ADAPTIVE_SIZING.parseAndSetParameter(value, operation, reader);
+                    break;
+                case MIN_POOL_SIZE:
+                    StrictMaxPoolResourceDefinition.MIN_POOL_SIZE.parseAndSetParameter(value, operation, reader);
+                    break;
+                default:
+                    throw unexpectedAttribute(reader, i);
+            }
+        }
+        requireNoContent(reader);
+        if (poolName == null) {
+            throw missingRequired(reader, Collections.singleton(EJB3SubsystemXMLAttribute.NAME.getLocalName()));
+        }
+        final ModelNode address = new ModelNode();
+        address.add(SUBSYSTEM, EJB3Extension.SUBSYSTEM_NAME);
+        address.add(STRICT_MAX_BEAN_INSTANCE_POOL, poolName);
+        operation.get(OP).set(ADD);
+        operation.get(ADDRESS).set(address);
+        operations.add(operation);
+    }
+
+    @Override
+    protected void parseJournalDataStore(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
+        parseFileDataStore(reader, operations, JOURNAL_DATA_STORE);
+    }
+
     @Override
     protected void parseDatabaseDataStore(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
         String name = null;
@@ -87,6 +142,9 @@ public class EJB3Subsystem30Parser extends EJB3Subsystem20Parser {
                 case REFRESH_INTERVAL:
                     DatabaseDataStoreResourceDefinition.REFRESH_INTERVAL.parseAndSetParameter(value, databaseDataStore, reader);
                     break;
+                case REFRESH_MODE:
+                    DatabaseDataStoreResourceDefinition.REFRESH_MODE.parseAndSetParameter(value, databaseDataStore, reader);
+                    break;
                 case ALLOW_EXECUTION:
                     DatabaseDataStoreResourceDefinition.ALLOW_EXECUTION.parseAndSetParameter(value, databaseDataStore, reader);
                     break;
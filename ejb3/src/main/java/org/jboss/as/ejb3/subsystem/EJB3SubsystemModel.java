@@ -60,7 +60,10 @@ public interface EJB3SubsystemModel {
     String FILE_DATA_STORE = "file-data-store";
 
     String MAX_POOL_SIZE = "max-pool-size";
+    String MIN_POOL_SIZE = "min-pool-size";
+    String ADAPTIVE_SIZING = "adaptive-sizing";
     String STRICT_MAX_BEAN_INSTANCE_POOL = "strict-max-bean-instance-pool";
+    String STRIPES = "stripes";
 
     String MAX_THREADS = "max-threads";
     String KEEPALIVE_TIME = "keepalive-time";
@@ -108,8 +111,14 @@ public interface EJB3SubsystemModel {
     String DATABASE_DATA_STORE = "database-data-store";
     String PARTITION  = "partition";
     String REFRESH_INTERVAL = "refresh-interval";
+    String REFRESH_MODE = "refresh-mode";
+    String REFRESH_COUNT = "refresh-count";
+    String REFRESH_ROWS_SCANNED = "refresh-rows-scanned";
+    String LAST_REFRESH_ROWS_SCANNED = "last-refresh-rows-scanned";
     String ALLOW_EXECUTION = "allow-execution";
 
+    String JOURNAL_DATA_STORE = "journal-data-store";
+
     PathElement REMOTE_SERVICE_PATH = PathElement.pathElement(SERVICE, REMOTE);
     PathElement ASYNC_SERVICE_PATH = PathElement.pathElement(SERVICE, ASYNC);
     PathElement TIMER_PATH = PathElement.pathElement(TIMER);
@@ -118,6 +127,7 @@ public interface EJB3SubsystemModel {
     PathElement IIOP_PATH = PathElement.pathElement(SERVICE, IIOP);
     PathElement FILE_DATA_STORE_PATH = PathElement.pathElement(FILE_DATA_STORE);
     PathElement DATABASE_DATA_STORE_PATH = PathElement.pathElement(DATABASE_DATA_STORE);
+    PathElement JOURNAL_DATA_STORE_PATH = PathElement.pathElement(JOURNAL_DATA_STORE);
 
     ServiceName BASE_THREAD_POOL_SERVICE_NAME = ThreadsServices.EXECUTOR.append("ejb3");
 }
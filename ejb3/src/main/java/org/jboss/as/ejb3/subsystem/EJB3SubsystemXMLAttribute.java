@@ -33,6 +33,8 @@ public enum EJB3SubsystemXMLAttribute {
     ALIASES("aliases"),
     ALLOW_EXECUTION("allow-execution"),
 
+    ADAPTIVE_SIZING("adaptive-sizing"),
+
     BEAN_CACHE("bean-cache"),
 
     CACHE_CONTAINER("cache-container"),
@@ -62,11 +64,13 @@ public enum EJB3SubsystemXMLAttribute {
     MAX_POOL_SIZE("max-pool-size"),
     MAX_SIZE("max-size"),
     MAX_THREADS("max-threads"),
+    MIN_POOL_SIZE("min-pool-size"),
 
     NAME("name"),
 
     PARTITION("partition"),
     REFRESH_INTERVAL("refresh-interval"),
+    REFRESH_MODE("refresh-mode"),
     PASS_BY_VALUE("pass-by-value"),
     @Deprecated PASSIVATE_EVENTS_ON_REPLICATE("passivate-events-on-replicate"),
     PASSIVATION_DISABLED_CACHE_REF("passivation-disabled-cache-ref"),
@@ -79,6 +83,7 @@ public enum EJB3SubsystemXMLAttribute {
 
     @Deprecated SESSIONS_PATH("sessions-path"),
     @Deprecated SUBDIRECTORY_COUNT("subdirectory-count"),
+    STRIPES("stripes"),
 
     THREAD_POOL_NAME("thread-pool-name"),
     TYPE("type"),
@@ -53,6 +53,8 @@ public enum EJB3SubsystemXMLElement {
     IIOP("iiop"),
     IN_VM_REMOTE_INTERFACE_INVOCATION("in-vm-remote-interface-invocation"),
 
+    JOURNAL_DATA_STORE(EJB3SubsystemModel.JOURNAL_DATA_STORE),
+
     MDB("mdb"),
 
     POOLS("pools"),
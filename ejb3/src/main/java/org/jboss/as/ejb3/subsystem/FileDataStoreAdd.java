@@ -73,7 +73,7 @@ public class FileDataStoreAdd extends AbstractAddStepHandler {
         final String relativeTo = relativeToNode.isDefined() ? relativeToNode.asString() : null;
 
 
-        final FileTimerPersistence fileTimerPersistence = new FileTimerPersistence(true, path, relativeTo);
+        final FileTimerPersistence fileTimerPersistence = createTimerPersistence(path, relativeTo);
         final PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
         final ServiceName serviceName = TimerPersistence.SERVICE_NAME.append(address.getLastElement().getValue());
         newControllers.add(context.getServiceTarget().addService(serviceName, fileTimerPersistence)
@@ -85,4 +85,8 @@ public class FileDataStoreAdd extends AbstractAddStepHandler {
 
     }
 
+    protected FileTimerPersistence createTimerPersistence(final String path, final String relativeTo) {
+        return new FileTimerPersistence(true, path, relativeTo);
+    }
+
 }
@@ -80,8 +80,13 @@ public class StrictMaxPoolAdd extends AbstractAddStepHandler {
         final int maxPoolSize = StrictMaxPoolResourceDefinition.MAX_POOL_SIZE.resolveModelAttribute(context, strictMaxPoolModel).asInt();
         final long timeout = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.resolveModelAttribute(context, strictMaxPoolModel).asLong();
         final String unit = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.resolveModelAttribute(context, strictMaxPoolModel).asString();
+        final ModelNode stripes = StrictMaxPoolResourceDefinition.STRIPES.resolveModelAttribute(context, strictMaxPoolModel);
+        final boolean adaptiveSizing = StrictMaxPoolResourceDefinition.ADAPTIVE_SIZING.resolveModelAttribute(context, strictMaxPoolModel).asBoolean();
+        final int minPoolSize = StrictMaxPoolResourceDefinition.MIN_POOL_SIZE.resolveModelAttribute(context, strictMaxPoolModel).asInt();
         // create the pool config
-        final PoolConfig strictMaxPoolConfig = new StrictMaxPoolConfig(poolName, maxPoolSize, timeout, TimeUnit.valueOf(unit));
+        final StrictMaxPoolConfig strictMaxPoolConfig = new StrictMaxPoolConfig(poolName, maxPoolSize, stripes.isDefined() ? stripes.asInt() : 0, timeout, TimeUnit.valueOf(unit));
+        strictMaxPoolConfig.setAdaptiveSizing(adaptiveSizing);
+        strictMaxPoolConfig.setMinPoolSize(minPoolSize);
         // create and install the service
         final PoolConfigService poolConfigService = new PoolConfigService(strictMaxPoolConfig);
         final ServiceName serviceName = PoolConfigService.EJB_POOL_CONFIG_BASE_SERVICE_NAME.append(poolName);
@@ -47,7 +47,8 @@ public class StrictMaxPoolWriteHandler extends AbstractWriteAttributeHandler<Voi
 
     private StrictMaxPoolWriteHandler() {
         super(StrictMaxPoolResourceDefinition.MAX_POOL_SIZE, StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT,
-                StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT);
+                StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT, StrictMaxPoolResourceDefinition.STRIPES,
+                StrictMaxPoolResourceDefinition.ADAPTIVE_SIZING, StrictMaxPoolResourceDefinition.MIN_POOL_SIZE);
     }
 
     @Override
@@ -78,6 +79,15 @@ public class StrictMaxPoolWriteHandler extends AbstractWriteAttributeHandler<Voi
                 } else if (StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.getName().equals(attributeName)) {
                     String timeoutUnit = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.resolveModelAttribute(context, model).asString();
                     smpc.setTimeoutUnit(TimeUnit.valueOf(timeoutUnit));
+                } else if (StrictMaxPoolResourceDefinition.STRIPES.getName().equals(attributeName)) {
+                    ModelNode stripes = StrictMaxPoolResourceDefinition.STRIPES.resolveModelAttribute(context, model);
+                    smpc.setStripes(stripes.isDefined() ? stripes.asInt() : 0);
+                } else if (StrictMaxPoolResourceDefinition.ADAPTIVE_SIZING.getName().equals(attributeName)) {
+                    boolean adaptiveSizing = StrictMaxPoolResourceDefinition.ADAPTIVE_SIZING.resolveModelAttribute(context, model).asBoolean();
+                    smpc.setAdaptiveSizing(adaptiveSizing);
+                } else if (StrictMaxPoolResourceDefinition.MIN_POOL_SIZE.getName().equals(attributeName)) {
+                    int minPoolSize = StrictMaxPoolResourceDefinition.MIN_POOL_SIZE.resolveModelAttribute(context, model).asInt();
+                    smpc.setMinPoolSize(minPoolSize);
                 }
             }
         }
@@ -24,6 +24,7 @@ package org.jboss.as.ejb3.subsystem;
 
 import java.util.List;
 import java.util.Timer;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
 import org.jboss.as.controller.AttributeDefinition;
@@ -44,6 +45,8 @@ import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
+import org.wildfly.clustering.ee.TimerWheel;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
 
@@ -56,6 +59,11 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
 
     public static final TimerServiceAdd INSTANCE = new TimerServiceAdd();
 
+    /**
+     * Resolution, in milliseconds, of the timer wheel that expires the timeouts of all timer services
+     */
+    private static final long TIMER_WHEEL_TICK = Long.parseLong(WildFlySecurityManager.getPropertyPrivileged("jboss.ejb.timer.tick", "10"));
+
     private TimerServiceAdd() {
 
     }
@@ -95,6 +103,8 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
 
         newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SERVICE_NAME, new TimerValueService())
                 .install());
+        newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_WHEEL_SERVICE_NAME, new TimerWheelService())
+                .install());
 
     }
 
@@ -118,4 +128,25 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
             return timer;
         }
     }
+
+    private static final class TimerWheelService implements Service<TimerWheel> {
+
+        private TimerWheel wheel;
+
+        @Override
+        public synchronized void start(final StartContext context) throws StartException {
+            // the thread of the wheel is started by the first timer service and ends with the last one
+            wheel = new TimerWheel(TIMER_WHEEL_TICK, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public synchronized void stop(final StopContext context) {
+            wheel = null;
+        }
+
+        @Override
+        public synchronized TimerWheel getValue() throws IllegalStateException, IllegalArgumentException {
+            return wheel;
+        }
+    }
 }
@@ -80,6 +80,7 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
     public static final Map<String, AttributeDefinition> ATTRIBUTES ;
 
     private final PathManager pathManager;
+    private final boolean registerRuntimeOnly;
 
     static {
         Map<String, AttributeDefinition> map = new LinkedHashMap<String, AttributeDefinition>();
@@ -89,12 +90,13 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
 
-    public TimerServiceResourceDefinition(final PathManager pathManager) {
+    public TimerServiceResourceDefinition(final PathManager pathManager, final boolean registerRuntimeOnly) {
         super(EJB3SubsystemModel.TIMER_SERVICE_PATH,
                 EJB3Extension.getResourceDescriptionResolver(EJB3SubsystemModel.TIMER_SERVICE),
                 TimerServiceAdd.INSTANCE, ReloadRequiredRemoveStepHandler.INSTANCE,
                 OperationEntry.Flag.RESTART_ALL_SERVICES, OperationEntry.Flag.RESTART_ALL_SERVICES);
         this.pathManager = pathManager;
+        this.registerRuntimeOnly = registerRuntimeOnly;
     }
 
 
@@ -109,7 +111,9 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
     public void registerChildren(final ManagementResourceRegistration resourceRegistration) {
         resourceRegistration.registerSubModel(new FileDataStoreResourceDefinition(pathManager));
 
-        resourceRegistration.registerSubModel(DatabaseDataStoreResourceDefinition.INSTANCE);
+        resourceRegistration.registerSubModel(new DatabaseDataStoreResourceDefinition(registerRuntimeOnly));
+
+        resourceRegistration.registerSubModel(new JournalDataStoreResourceDefinition(pathManager));
     }
 
     static void registerTransformers_1_1_0(ResourceTransformationDescriptionBuilder parent) {
@@ -131,6 +135,7 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
         timerService.discardOperations(ModelDescriptionConstants.ADD);
         timerService.setCustomResourceTransformer(dataStoreTransformer);
         timerService.rejectChildResource(EJB3SubsystemModel.DATABASE_DATA_STORE_PATH);
+        timerService.rejectChildResource(EJB3SubsystemModel.JOURNAL_DATA_STORE_PATH);
         ResourceTransformationDescriptionBuilder fileDataStore = timerService.addChildRedirection(EJB3SubsystemModel.FILE_DATA_STORE_PATH, new PathAddressTransformer() {
             @Override
             public PathAddress transform(PathElement current, Builder builder) {
@@ -197,6 +202,8 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
                 fileStore = new ModelNode();
             } else if ((untransformedModel.hasDefined(EJB3SubsystemModel.DATABASE_DATA_STORE)
                             && untransformedModel.get(EJB3SubsystemModel.DATABASE_DATA_STORE).keys().size() > 0)
+                        || (untransformedModel.hasDefined(EJB3SubsystemModel.JOURNAL_DATA_STORE)
+                            && untransformedModel.get(EJB3SubsystemModel.JOURNAL_DATA_STORE).keys().size() > 0)
                         || untransformedModel.get(EJB3SubsystemModel.FILE_DATA_STORE).keys().size() > 1) {
                 rejectIncompatibleDataStores(context, address);
             }
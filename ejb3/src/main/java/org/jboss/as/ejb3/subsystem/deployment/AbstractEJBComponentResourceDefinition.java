@@ -26,6 +26,7 @@ import java.util.Map;
 
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.ListAttributeDefinition;
+import org.jboss.as.controller.ObjectListAttributeDefinition;
 import org.jboss.as.controller.ObjectTypeAttributeDefinition;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
@@ -33,13 +34,19 @@ import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.PrimitiveListAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleOperationDefinition;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.ejb3.component.EJBComponent;
 import org.jboss.as.ejb3.component.invocationmetrics.InvocationMetrics;
 import org.jboss.as.ejb3.component.stateful.StatefulSessionComponent;
+import org.jboss.as.ejb3.pool.Pool;
+import org.jboss.as.ejb3.pool.adaptive.AdaptivePool;
+import org.jboss.as.ejb3.pool.striped.StripedPool;
 import org.jboss.as.ejb3.subsystem.EJB3Extension;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
@@ -85,6 +92,52 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
+    // Latency percentiles, in microseconds
+
+    private static final AttributeDefinition P50 = new SimpleAttributeDefinitionBuilder("p50", ModelType.LONG)
+            .setAllowNull(false)
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition P90 = new SimpleAttributeDefinitionBuilder("p90", ModelType.LONG)
+            .setAllowNull(false)
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition P99 = new SimpleAttributeDefinitionBuilder("p99", ModelType.LONG)
+            .setAllowNull(false)
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition P999 = new SimpleAttributeDefinitionBuilder("p999", ModelType.LONG)
+            .setAllowNull(false)
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition MAX = new SimpleAttributeDefinitionBuilder("max", ModelType.LONG)
+            .setAllowNull(false)
+            .setMeasurementUnit(MeasurementUnit.MICROSECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition LATENCY = ObjectTypeAttributeDefinition.Builder.of("latency", P50, P90, P99, P999, MAX)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    public static final SimpleAttributeDefinition LATENCY_WINDOW = new SimpleAttributeDefinitionBuilder("latency-window", ModelType.LONG, false)
+            .setDefaultValue(new ModelNode(0L))
+            .setValidator(new LongRangeValidator(0L, false))
+            .setMeasurementUnit(MeasurementUnit.SECONDS)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    static final String RESET_LATENCY = "reset-latency";
+
     public static final SimpleAttributeDefinition RUN_AS_ROLE = new SimpleAttributeDefinitionBuilder("run-as-role", ModelType.STRING, true)
             .setValidator(new StringLengthValidator(1, true))
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
@@ -127,6 +180,31 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
     public static final SimpleAttributeDefinition POOL_MAX_SIZE = new SimpleAttributeDefinitionBuilder("pool-max-size", ModelType.INT, false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
 
+    private static final AttributeDefinition HITS = new SimpleAttributeDefinitionBuilder("hits", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition MISSES = new SimpleAttributeDefinitionBuilder("misses", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition STEALS = new SimpleAttributeDefinitionBuilder("steals", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition IDLE_COUNT = new SimpleAttributeDefinitionBuilder("idle-count", ModelType.INT)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition POOL_STRIPES = ObjectListAttributeDefinition.Builder.of("pool-stripes", ObjectTypeAttributeDefinition.Builder.of("stripe", HITS, MISSES, STEALS, IDLE_COUNT).build())
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
     private final EJBComponentType componentType;
 
     public AbstractEJBComponentResourceDefinition(final EJBComponentType componentType) {
@@ -153,6 +231,27 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             resourceRegistration.registerReadOnlyAttribute(POOL_REMOVE_COUNT, handler);
             resourceRegistration.registerReadOnlyAttribute(POOL_CURRENT_SIZE, handler);
             resourceRegistration.registerReadWriteAttribute(POOL_MAX_SIZE, handler, handler);
+            resourceRegistration.registerMetric(POOL_STRIPES, new AbstractRuntimeMetricsHandler() {
+                @Override
+                protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                    context.getResult().setEmptyList();
+                    Pool<?> pool = componentType.getPool(component);
+                    if (pool instanceof AdaptivePool) {
+                        pool = ((AdaptivePool<?>) pool).getDelegate();
+                    }
+                    if (pool instanceof StripedPool) {
+                        final StripedPool<?> stripedPool = (StripedPool<?>) pool;
+                        for (int i = 0; i < stripedPool.getStripeCount(); i++) {
+                            final ModelNode result = new ModelNode();
+                            result.get("hits").set(stripedPool.getHitCount(i));
+                            result.get("misses").set(stripedPool.getMissCount(i));
+                            result.get("steals").set(stripedPool.getStealCount(i));
+                            result.get("idle-count").set(stripedPool.getIdleCount(i));
+                            context.getResult().add(result);
+                        }
+                    }
+                }
+            });
         }
 
         if (componentType.equals(EJBComponentType.STATEFUL)) {
@@ -214,6 +313,25 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                 }
             }
         });
+        resourceRegistration.registerMetric(LATENCY, new AbstractRuntimeMetricsHandler() {
+            @Override
+            protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                context.getResult().set(MethodLatencyAttributeDefinition.percentiles(component.getInvocationMetrics().getLatency()));
+            }
+        });
+        resourceRegistration.registerMetric(MethodLatencyAttributeDefinition.INSTANCE, new AbstractRuntimeMetricsHandler() {
+            @Override
+            protected void executeReadMetricStep(final OperationContext context, final ModelNode operation, final EJBComponent component) throws OperationFailedException {
+                MethodLatencyAttributeDefinition.addMethodLatencies(component.getInvocationMetrics().getMethodLatencies(), context.getResult());
+            }
+        });
+        resourceRegistration.registerReadWriteAttribute(LATENCY_WINDOW, handler, handler);
+    }
+
+    @Override
+    public void registerOperations(ManagementResourceRegistration resourceRegistration) {
+        super.registerOperations(resourceRegistration);
+        resourceRegistration.registerOperationHandler(new SimpleOperationDefinition(RESET_LATENCY, getResourceDescriptionResolver()), componentType.getRuntimeHandler());
     }
 
     /* (non-Javadoc)
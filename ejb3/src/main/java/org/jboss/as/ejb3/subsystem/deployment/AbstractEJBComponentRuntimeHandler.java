@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.OperationContext;
@@ -37,6 +38,7 @@ import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.ejb3.logging.EjbLogger;
 import org.jboss.as.ejb3.component.EJBComponent;
+import org.jboss.as.ejb3.component.invocationmetrics.InvocationMetrics;
 import org.jboss.as.ejb3.pool.Pool;
 import org.jboss.as.ejb3.security.EJBSecurityMetaData;
 import org.jboss.dmr.ModelNode;
@@ -47,12 +49,14 @@ import org.jboss.msc.service.ServiceRegistry;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.COMPONENT_CLASS_NAME;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.DECLARED_ROLES;
+import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.LATENCY_WINDOW;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_AVAILABLE_COUNT;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_CREATE_COUNT;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_CURRENT_SIZE;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_MAX_SIZE;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_NAME;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.POOL_REMOVE_COUNT;
+import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.RESET_LATENCY;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.RUN_AS_ROLE;
 import static org.jboss.as.ejb3.subsystem.deployment.AbstractEJBComponentResourceDefinition.SECURITY_DOMAIN;
 
@@ -167,6 +171,8 @@ public abstract class AbstractEJBComponentRuntimeHandler<T extends EJBComponent>
             if (pool != null) {
                 result.set(pool.getMaxSize());
             }
+        } else if (LATENCY_WINDOW.getName().equals(attributeName)) {
+            context.getResult().set(component.getInvocationMetrics().getLatencyWindow(TimeUnit.SECONDS));
         } else {
             // Bug; we were registered for an attribute but there is no code for handling it
             throw EjbLogger.ROOT_LOGGER.unknownAttribute(attributeName);
@@ -186,6 +192,17 @@ public abstract class AbstractEJBComponentRuntimeHandler<T extends EJBComponent>
                     pool.setMaxSize(oldSize);
                 }
             });
+        } else if (LATENCY_WINDOW.getName().equals(attributeName)) {
+            final long newWindow = LATENCY_WINDOW.resolveValue(context, operation.get(VALUE)).asLong();
+            final InvocationMetrics metrics = component.getInvocationMetrics();
+            final long oldWindow = metrics.getLatencyWindow(TimeUnit.SECONDS);
+            metrics.setLatencyWindow(newWindow, TimeUnit.SECONDS);
+            context.completeStep(new OperationContext.RollbackHandler() {
+                @Override
+                public void handleRollback(OperationContext context, ModelNode operation) {
+                    metrics.setLatencyWindow(oldWindow, TimeUnit.SECONDS);
+                }
+            });
         } else {
             // Bug; we were registered for an attribute but there is no code for handling it
             throw EjbLogger.ROOT_LOGGER.unknownAttribute(attributeName);
@@ -193,10 +210,18 @@ public abstract class AbstractEJBComponentRuntimeHandler<T extends EJBComponent>
     }
 
     protected void executeAgainstComponent(OperationContext context, ModelNode operation, T component, String opName, PathAddress address) throws OperationFailedException {
-        throw unknownOperation(opName);
+        if (RESET_LATENCY.equals(opName)) {
+            component.getInvocationMetrics().resetLatency();
+            context.stepCompleted();
+        } else {
+            throw unknownOperation(opName);
+        }
     }
 
     protected boolean isOperationReadOnly(String opName) {
+        if (RESET_LATENCY.equals(opName)) {
+            return false;
+        }
         throw unknownOperation(opName);
     }
 
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.subsystem.deployment;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NILLABLE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.UNIT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE_TYPE;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jboss.as.controller.MapAttributeDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.descriptions.ResourceDescriptionResolver;
+import org.jboss.as.controller.operations.validation.ModelTypeValidator;
+import org.jboss.as.ejb3.component.invocationmetrics.LatencyHistogram;
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+
+/**
+ * Attribute definition for the latency percentiles of an EJB, keyed by method name.
+ */
+public class MethodLatencyAttributeDefinition extends MapAttributeDefinition {
+
+    public static final MethodLatencyAttributeDefinition INSTANCE = new MethodLatencyAttributeDefinition();
+
+    public static final String P50 = "p50";
+    public static final String P90 = "p90";
+    public static final String P99 = "p99";
+    public static final String P999 = "p999";
+    public static final String MAX = "max";
+
+    private MethodLatencyAttributeDefinition() {
+        super("method-latency", false, new ModelTypeValidator(ModelType.OBJECT));
+    }
+
+    @Override
+    protected void addValueTypeDescription(ModelNode node, ResourceBundle bundle) {
+        throw EjbLogger.ROOT_LOGGER.resourceBundleDescriptionsNotSupported(getName());
+    }
+
+    @Override
+    protected void addAttributeValueTypeDescription(ModelNode node, ResourceDescriptionResolver resolver, Locale locale, ResourceBundle bundle) {
+        addValueTypeDescription(node, resolver, locale, bundle);
+    }
+
+    @Override
+    protected void addOperationParameterValueTypeDescription(ModelNode node, String operationName, ResourceDescriptionResolver resolver, Locale locale, ResourceBundle bundle) {
+        addValueTypeDescription(node, resolver, locale, bundle);
+    }
+
+    @Override
+    public void marshallAsElement(ModelNode resourceModel, final boolean marshalDefault, XMLStreamWriter writer) throws XMLStreamException {
+        throw EjbLogger.ROOT_LOGGER.runtimeAttributeNotMarshallable(getName());
+    }
+
+    private void addValueTypeDescription(ModelNode node, ResourceDescriptionResolver resolver, Locale locale, ResourceBundle bundle) {
+        final ModelNode valueTypeNode = node.get(VALUE_TYPE);
+        for (String percentile : new String[] { P50, P90, P99, P999, MAX }) {
+            final ModelNode valNode = valueTypeNode.get(percentile);
+            valNode.get(DESCRIPTION).set(resolver.getResourceAttributeValueTypeDescription(getName(), locale, bundle, percentile));
+            valNode.get(TYPE).set(ModelType.LONG);
+            valNode.get(NILLABLE).set(false);
+            valNode.get(UNIT).set(MeasurementUnit.MICROSECONDS.getName());
+        }
+    }
+
+    public static void addMethodLatencies(final Map<String, LatencyHistogram.Snapshot> latencies, final ModelNode response) {
+        response.setEmptyObject();
+        for (final Map.Entry<String, LatencyHistogram.Snapshot> entry : latencies.entrySet()) {
+            response.get(entry.getKey()).set(percentiles(entry.getValue()));
+        }
+    }
+
+    static ModelNode percentiles(final LatencyHistogram.Snapshot snapshot) {
+        final ModelNode result = new ModelNode();
+        result.get(P50).set(snapshot.getValueAtPercentile(50));
+        result.get(P90).set(snapshot.getValueAtPercentile(90));
+        result.get(P99).set(snapshot.getValueAtPercentile(99));
+        result.get(P999).set(snapshot.getValueAtPercentile(99.9));
+        result.get(MAX).set(snapshot.getMax());
+        return result;
+    }
+}
@@ -22,12 +22,22 @@
 
 package org.jboss.as.ejb3.subsystem.deployment;
 
+import javax.ejb.TimerService;
+
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
 import org.jboss.as.ejb3.component.EJBComponent;
 import org.jboss.as.ejb3.subsystem.EJB3Extension;
 import org.jboss.as.ejb3.subsystem.EJB3SubsystemModel;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 
 /**
  * {@link ResourceDefinition} for the timer-service resource for runtime ejb deployment.
@@ -36,6 +46,15 @@ import org.jboss.as.ejb3.subsystem.EJB3SubsystemModel;
  */
 public class TimerServiceResourceDefinition<T extends EJBComponent> extends SimpleResourceDefinition {
 
+    private static final SimpleAttributeDefinition TIMEOUT_COUNT = new SimpleAttributeDefinitionBuilder("timeout-count",
+            ModelType.LONG, true).setStorageRuntime().build();
+
+    private static final SimpleAttributeDefinition AVERAGE_LATENESS = new SimpleAttributeDefinitionBuilder("average-lateness",
+            ModelType.LONG, true).setStorageRuntime().build();
+
+    private static final SimpleAttributeDefinition MAX_LATENESS = new SimpleAttributeDefinitionBuilder("max-lateness",
+            ModelType.LONG, true).setStorageRuntime().build();
+
     private final AbstractEJBComponentRuntimeHandler<T> parentHandler;
     TimerServiceResourceDefinition(AbstractEJBComponentRuntimeHandler<T> parentHandler) {
         super(EJB3SubsystemModel.TIMER_SERVICE_PATH,
@@ -43,9 +62,45 @@ public class TimerServiceResourceDefinition<T extends EJBComponent> extends Simp
         this.parentHandler = parentHandler;
     }
 
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        resourceRegistration.registerMetric(TIMEOUT_COUNT, new AbstractMetricHandler() {
+            @Override
+            protected long getMetric(TimerServiceImpl timerService) {
+                return timerService.getTimeoutCount();
+            }
+        });
+        resourceRegistration.registerMetric(AVERAGE_LATENESS, new AbstractMetricHandler() {
+            @Override
+            protected long getMetric(TimerServiceImpl timerService) {
+                return timerService.getAverageLateness();
+            }
+        });
+        resourceRegistration.registerMetric(MAX_LATENESS, new AbstractMetricHandler() {
+            @Override
+            protected long getMetric(TimerServiceImpl timerService) {
+                return timerService.getMaxLateness();
+            }
+        });
+    }
+
     @Override
     public void registerChildren(ManagementResourceRegistration resourceRegistration) {
         super.registerChildren(resourceRegistration);
         resourceRegistration.registerSubModel(new TimerResourceDefinition<T>(this.parentHandler));
     }
+
+    private abstract class AbstractMetricHandler extends AbstractRuntimeOnlyHandler {
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final TimerService timerService = parentHandler.getComponent(context, operation).getTimerService();
+            // components without timeout methods are bound to a non-functional timer service
+            context.getResult().set((timerService instanceof TimerServiceImpl) ? getMetric((TimerServiceImpl) timerService) : 0L);
+            context.stepCompleted();
+        }
+
+        protected abstract long getMetric(TimerServiceImpl timerService);
+    }
 }
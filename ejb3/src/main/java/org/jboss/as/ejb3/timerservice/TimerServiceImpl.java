@@ -36,7 +36,11 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ejb.EJBException;
 import javax.ejb.ScheduleExpression;
@@ -74,6 +78,9 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.wildfly.clustering.ee.ExpirationListener;
+import org.wildfly.clustering.ee.ExpirationScheduler;
+import org.wildfly.clustering.ee.TimerWheel;
 import org.wildfly.extension.requestcontroller.ControlPoint;
 import org.xnio.IoUtils;
 
@@ -108,7 +115,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
 
     private final InjectedValue<ExecutorService> executorServiceInjectedValue = new InjectedValue<ExecutorService>();
 
-    private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<TimerWheel> timerWheelInjectedValue = new InjectedValue<TimerWheel>();
 
     private final InjectedValue<TimedObjectInvoker> timedObjectInvoker = new InjectedValue<TimedObjectInvoker>();
 
@@ -125,12 +132,22 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
     /**
      * All timers which were created by this {@link TimerService}
      */
-    private final Map<String, TimerImpl> timers = Collections.synchronizedMap(new HashMap<String, TimerImpl>());
+    private final Map<String, TimerImpl> timers = new ConcurrentHashMap<String, TimerImpl>();
 
     /**
-     * Holds the {@link java.util.concurrent.Future} of each of the timer tasks that have been scheduled
+     * Holds the {@link Task} of each of the timers that have been scheduled
      */
-    private final Map<String, java.util.TimerTask> scheduledTimerFutures = new HashMap<String, java.util.TimerTask>();
+    private final ConcurrentMap<String, Task> scheduledTimerFutures = new ConcurrentHashMap<String, Task>();
+
+    /**
+     * Expires the scheduled tasks on the timer wheel, and hands them to the timer service thread pool
+     */
+    private volatile ExpirationScheduler<Task> scheduler;
+
+    // lateness of the timeouts, i.e. the time between the scheduled expiration and the dispatch of the timeout
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalLateness = new AtomicLong();
+    private final AtomicLong maxLateness = new AtomicLong();
 
     /**
      * Key that is used to store timers that are waiting on transaction completion in the transaction local
@@ -202,6 +219,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
                 timers.add(new ScheduleTimer(entry.getKey(), timer.getScheduleExpression(), timer.getTimerConfig()));
             }
         }
+        this.scheduler = timerWheelInjectedValue.getValue().createScheduler(new TaskExpirationListener(), executorServiceInjectedValue.getValue());
         // restore the timers
         started = true;
         restoreTimers(timers);
@@ -224,7 +242,8 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         this.transactionManager = null;
         IoUtils.safeClose(listenerHandle);
         listenerHandle = null;
-        timerInjectedValue.getValue().purge(); //WFLY-3823
+        // drops whatever is still scheduled, so that no task of this deployment lingers on the wheel (WFLY-3823)
+        scheduler.close();
     }
 
     @Override
@@ -397,12 +416,10 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         Object pk = currentPrimaryKey();
         final Set<Timer> activeTimers = new HashSet<Timer>();
         // get all active timers for this timerservice
-        synchronized (this.timers) {
-            for (final TimerImpl timer : this.timers.values()) {
-                if (timer.isActive()) {
-                    if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
-                        activeTimers.add(timer);
-                    }
+        for (final TimerImpl timer : this.timers.values()) {
+            if (timer.isActive()) {
+                if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
+                    activeTimers.add(timer);
                 }
             }
         }
@@ -849,70 +866,99 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      * Creates and schedules a {@link org.jboss.as.ejb3.timerservice.task.TimerTask} for the next timeout of the passed <code>timer</code>
      */
     protected void scheduleTimeout(TimerImpl timer, boolean newTimer) {
-        synchronized (scheduledTimerFutures) {
-            if (!newTimer && !scheduledTimerFutures.containsKey(timer.getId())) {
-                //this timer has been cancelled by another thread. We just return
-                return;
-            }
+        if (!newTimer && !scheduledTimerFutures.containsKey(timer.getId())) {
+            //this timer has been cancelled by another thread. We just return
+            return;
+        }
 
-            Date nextExpiration = timer.getNextExpiration();
-            if (nextExpiration == null) {
-                ROOT_LOGGER.nextExpirationIsNull(timer);
+        Date nextExpiration = timer.getNextExpiration();
+        if (nextExpiration == null) {
+            ROOT_LOGGER.nextExpirationIsNull(timer);
+            return;
+        }
+        // create the timer task
+        final TimerTask<?> timerTask = timer.getTimerTask();
+        long intervalDuration = timer.getInterval();
+        final Task task = new Task(timerTask, ejbComponentInjectedValue.getValue().getControlPoint(), nextExpiration.getTime(), intervalDuration);
+        // maintain it in timerservice for future use (like cancellation)
+        final Task previous;
+        if (newTimer) {
+            previous = this.scheduledTimerFutures.put(timer.getId(), task);
+        } else {
+            previous = this.scheduledTimerFutures.get(timer.getId());
+            if (previous == null || !this.scheduledTimerFutures.replace(timer.getId(), previous, task)) {
+                //this timer has been cancelled by another thread. We just return
                 return;
             }
-            // create the timer task
-            final TimerTask<?> timerTask = timer.getTimerTask();
-            // find out how long is it away from now
-            long delay = nextExpiration.getTime() - System.currentTimeMillis();
-            // if in past, then trigger immediately
-            if (delay < 0) {
-                delay = 0;
-            }
-            long intervalDuration = timer.getInterval();
-            final Task task = new Task(timerTask, ejbComponentInjectedValue.getValue().getControlPoint());
+        }
+        if (previous != null) {
+            // the task this one replaces has already run, unless the timer was scheduled twice,
+            // and the timeout it dispatched last must not be dispatched again, if the next expiration of the timer is not yet updated
+            task.skip(previous.unschedule());
+        }
+        if (ROOT_LOGGER.isDebugEnabled()) {
+            long delay = Math.max(nextExpiration.getTime() - System.currentTimeMillis(), 0);
             if (intervalDuration > 0) {
                 ROOT_LOGGER.debug("Scheduling timer " + timer + " at fixed rate, starting at " + delay
                         + " milliseconds from now with repeated interval=" + intervalDuration);
-                // schedule the task
-                this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
             } else {
                 ROOT_LOGGER.debug("Scheduling a single action timer " + timer + " starting at " + delay + " milliseconds from now");
-                // schedule the task
-                this.timerInjectedValue.getValue().schedule(task, delay);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
-
             }
         }
+        // schedule the task
+        task.schedule(System.currentTimeMillis());
     }
 
     /**
-     * Cancels any scheduled {@link java.util.concurrent.Future} corresponding to the passed <code>timer</code>
+     * Cancels any scheduled {@link Task} corresponding to the passed <code>timer</code>
      *
      * @param timer
      */
     protected void cancelTimeout(final TimerImpl timer) {
-        synchronized (this.scheduledTimerFutures) {
-            java.util.TimerTask timerTask = this.scheduledTimerFutures.remove(timer.getId());
-            if (timerTask != null) {
-                timerTask.cancel();
-            }
+        Task task = this.scheduledTimerFutures.remove(timer.getId());
+        if (task != null) {
+            task.cancel();
         }
     }
 
     public void invokeTimeout(final TimerImpl timer) {
-        synchronized (this.scheduledTimerFutures) {
-            if (this.scheduledTimerFutures.containsKey(timer.getId())) {
-                timer.getTimerTask().run();
-            }
+        if (this.scheduledTimerFutures.containsKey(timer.getId())) {
+            timer.getTimerTask().run();
         }
     }
 
     public boolean isScheduled(final String tid){
-        synchronized (this.scheduledTimerFutures) {
-            return this.scheduledTimerFutures.containsKey(tid);
+        return this.scheduledTimerFutures.containsKey(tid);
+    }
+
+    /**
+     * Returns the number of timeouts dispatched by this timer service since it was started.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Returns the average time, in milliseconds, between the scheduled expiration of a timer and the dispatch of its timeout.
+     */
+    public long getAverageLateness() {
+        long count = timeoutCount.get();
+        return (count > 0) ? totalLateness.get() / count : 0;
+    }
+
+    /**
+     * Returns the longest time, in milliseconds, between the scheduled expiration of a timer and the dispatch of its timeout.
+     */
+    public long getMaxLateness() {
+        return maxLateness.get();
+    }
+
+    private void recordLateness(long lateness) {
+        timeoutCount.incrementAndGet();
+        totalLateness.addAndGet(lateness);
+        long max = maxLateness.get();
+        while (lateness > max && !maxLateness.compareAndSet(max, lateness)) {
+            max = maxLateness.get();
         }
     }
 
@@ -1076,8 +1122,8 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         return executorServiceInjectedValue;
     }
 
-    public InjectedValue<java.util.Timer> getTimerInjectedValue() {
-        return timerInjectedValue;
+    public InjectedValue<TimerWheel> getTimerWheelInjectedValue() {
+        return timerWheelInjectedValue;
     }
 
     public InjectedValue<TimerPersistence> getTimerPersistence() {
@@ -1194,19 +1240,99 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         }
     }
 
-    private class Task extends java.util.TimerTask {
+    /**
+     * Dispatches the tasks expired by the timer wheel. All tasks expiring within the same tick are passed at once,
+     * and each of them is run on its own thread of the timer service thread pool.
+     */
+    private class TaskExpirationListener implements ExpirationListener<Task> {
+
+        @Override
+        public void expired(Collection<Task> tasks) {
+            final long now = System.currentTimeMillis();
+            for (Task task : tasks) {
+                task.expire(now);
+            }
+        }
+    }
+
+    private class Task implements Runnable {
 
         private final TimerTask<?> delegate;
         private final ControlPoint controlPoint;
+        private final long interval;
+        // guarded by this
+        private long expiration;
+        // the expiration of the last timeout dispatched by this task, or by the tasks it replaced
+        private long dispatched = Long.MIN_VALUE;
+        private boolean cancelled = false;
         /**
          * This is true if a task is queued up to be run by the request controller,
          * used to stop timer tasks banking up when the container is suspended.
          */
         private volatile boolean queued = false;
 
-        public Task(final TimerTask<?> delegate, ControlPoint controlPoint) {
+        public Task(final TimerTask<?> delegate, ControlPoint controlPoint, long expiration, long interval) {
             this.delegate = delegate;
             this.controlPoint = controlPoint;
+            this.expiration = expiration;
+            this.interval = interval;
+        }
+
+        synchronized void schedule(long now) {
+            final ExpirationScheduler<Task> scheduler = TimerServiceImpl.this.scheduler;
+            if (!cancelled && scheduler != null) {
+                // if in past, then trigger immediately
+                scheduler.schedule(this, Math.max(expiration - now, 0), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void expire(long now) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                recordLateness(Math.max(now - expiration, 0));
+                dispatched = expiration;
+                if (interval > 0) {
+                    // fixed rate, so a late timeout does not delay the ones after it
+                    expiration += interval;
+                    schedule(now);
+                } else {
+                    // the next timeout of a calendar timer is scheduled by a new task
+                    cancelled = true;
+                }
+            }
+            run();
+        }
+
+        /**
+         * Stops this task from being scheduled again, without cancelling a timeout that is currently running.
+         *
+         * @return the expiration of the last timeout dispatched by this task
+         */
+        synchronized long unschedule() {
+            cancelled = true;
+            final ExpirationScheduler<Task> scheduler = TimerServiceImpl.this.scheduler;
+            if (scheduler != null) {
+                scheduler.cancel(this);
+            }
+            return dispatched;
+        }
+
+        /**
+         * Skips the timeouts which were already dispatched by the task this one replaces.
+         *
+         * @param dispatched the expiration of the last timeout dispatched by the replaced task
+         */
+        synchronized void skip(long dispatched) {
+            this.dispatched = Math.max(this.dispatched, dispatched);
+            if (expiration <= this.dispatched) {
+                if (interval > 0) {
+                    expiration += ((this.dispatched - expiration) / interval + 1) * interval;
+                } else {
+                    cancelled = true;
+                }
+            }
         }
 
         @Override
@@ -1230,10 +1356,9 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
             }
         }
 
-        @Override
-        public boolean cancel() {
+        public void cancel() {
             delegate.cancel();
-            return super.cancel();
+            unschedule();
         }
     }
 
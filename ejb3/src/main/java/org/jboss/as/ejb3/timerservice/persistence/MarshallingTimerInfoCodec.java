@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.jboss.as.clustering.marshalling.SimpleClassTable;
+import org.jboss.marshalling.ClassResolver;
+import org.jboss.marshalling.InputStreamByteInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+
+/**
+ * The default {@link TimerInfoCodec}, which marshals the values with JBoss Marshalling.
+ * <p/>
+ * The classes most often used as timer info are written as an index into a class table instead of their name. The
+ * encoded values start with a version byte, values without it were written by older versions without the class
+ * table and are still read.
+ */
+public class MarshallingTimerInfoCodec implements TimerInfoCodec {
+
+    /** Marks values written by this codec, marshalled streams themselves start with a small protocol version*/
+    static final byte VERSION = (byte) 0xF1;
+
+    private static final Class<?>[] CLASSES = new Class<?>[] {
+        String.class,
+        Integer.class,
+        Long.class,
+        Short.class,
+        Byte.class,
+        Boolean.class,
+        Character.class,
+        Double.class,
+        Float.class,
+        BigDecimal.class,
+        BigInteger.class,
+        Number.class,
+        Date.class,
+        java.sql.Date.class,
+        java.sql.Timestamp.class,
+        UUID.class,
+        ArrayList.class,
+        LinkedList.class,
+        HashMap.class,
+        LinkedHashMap.class,
+        TreeMap.class,
+        HashSet.class,
+        LinkedHashSet.class,
+        TreeSet.class,
+    };
+
+    private final MarshallerFactory factory = new RiverMarshallerFactory();
+    private final MarshallingConfiguration configuration;
+    private final MarshallingConfiguration legacyConfiguration;
+
+    public MarshallingTimerInfoCodec(final ClassResolver classResolver) {
+        this.legacyConfiguration = new MarshallingConfiguration();
+        this.legacyConfiguration.setClassResolver(classResolver);
+        this.configuration = new MarshallingConfiguration();
+        this.configuration.setClassResolver(classResolver);
+        this.configuration.setClassTable(new SimpleClassTable(CLASSES));
+    }
+
+    @Override
+    public byte[] encode(final Object value) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        try {
+            marshaller.start(new OutputStreamByteOutput(out));
+            marshaller.writeObject(value);
+            marshaller.finish();
+        } finally {
+            marshaller.close();
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object decode(final byte[] data) throws IOException, ClassNotFoundException {
+        final boolean legacy = data.length == 0 || data[0] != VERSION;
+        final ByteArrayInputStream in = new ByteArrayInputStream(data, legacy ? 0 : 1, legacy ? data.length : data.length - 1);
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(legacy ? legacyConfiguration : configuration);
+        try {
+            unmarshaller.start(new InputStreamByteInput(in));
+            final Object value = unmarshaller.readObject();
+            unmarshaller.finish();
+            return value;
+        } finally {
+            unmarshaller.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence;
+
+import java.io.IOException;
+
+/**
+ * Converts the info and the primary key of persistent timers to the bytes stored by a timer persistence.
+ */
+public interface TimerInfoCodec {
+
+    /**
+     * Encodes a value.
+     *
+     * @param value The timer info or primary key, not <code>null</code>
+     * @return The encoded value
+     * @throws IOException If the value cannot be encoded
+     */
+    byte[] encode(Object value) throws IOException;
+
+    /**
+     * Decodes a value encoded by {@link #encode(Object)}.
+     *
+     * @param data The encoded value
+     * @return The timer info or primary key
+     * @throws IOException If the data cannot be decoded
+     * @throws ClassNotFoundException If the class of the value cannot be loaded
+     */
+    Object decode(byte[] data) throws IOException, ClassNotFoundException;
+}
@@ -22,8 +22,6 @@
 
 package org.jboss.as.ejb3.timerservice.persistence.database;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
@@ -33,9 +31,11 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -47,13 +47,17 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.sql.DataSource;
 import javax.transaction.HeuristicMixedException;
 import javax.transaction.HeuristicRollbackException;
 import javax.transaction.NotSupportedException;
 import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
 import javax.transaction.TransactionManager;
 
@@ -62,18 +66,13 @@ import org.jboss.as.ejb3.timerservice.CalendarTimer;
 import org.jboss.as.ejb3.timerservice.TimerImpl;
 import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
 import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.MarshallingTimerInfoCodec;
 import org.jboss.as.ejb3.timerservice.persistence.TimeoutMethod;
+import org.jboss.as.ejb3.timerservice.persistence.TimerInfoCodec;
 import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
 import org.jboss.as.naming.ManagedReference;
 import org.jboss.as.naming.ManagedReferenceFactory;
-import org.jboss.marshalling.InputStreamByteInput;
-import org.jboss.marshalling.Marshaller;
-import org.jboss.marshalling.MarshallerFactory;
-import org.jboss.marshalling.MarshallingConfiguration;
 import org.jboss.marshalling.ModularClassResolver;
-import org.jboss.marshalling.OutputStreamByteOutput;
-import org.jboss.marshalling.Unmarshaller;
-import org.jboss.marshalling.river.RiverMarshallerFactory;
 import org.jboss.modules.ModuleLoader;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
@@ -81,6 +80,7 @@ import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.jboss.util.Base64;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * <p>
@@ -97,6 +97,7 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private final Map<String, TimerChangeListener> changeListeners = Collections.synchronizedMap(new HashMap<String, TimerChangeListener>());
 
     private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<TransactionManager> transactionManager = new InjectedValue<TransactionManager>();
 
     private final Map<String, Set<String>> knownTimerIds = new HashMap<>();
 
@@ -110,12 +111,41 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private final int refreshInterval;
     /** Flag whether this instance should execute persistent timers*/
     private final boolean allowExecution;
+    /** How the timers are refreshed from the persistence store*/
+    private final RefreshMode refreshMode;
+    /** Whether the timer table has been migrated to track the changes, which is required for an incremental refresh*/
+    private volatile boolean changeTracking;
+    /** Rows older than the high-water mark by less than this many millis are read again, to pick up timers whose creation committed late*/
+    private final long incrementalRefreshOverlap;
+    /** Interval in millis after which an incremental refresh also reloads all timers, to pick up timers whose creation committed even later, 0 never does*/
+    private final long fullRefreshInterval;
+    /** Counters of the refreshes and of the rows they had to read*/
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshRowsScanned = new AtomicLong();
+    private volatile long lastRefreshRowsScanned;
     private volatile ManagedReference managedReference;
     private volatile DataSource dataSource;
     private volatile Properties sql;
-    private MarshallerFactory factory;
-    private MarshallingConfiguration configuration;
+    /** Codec for the timer info and primary key, the default one is created on start if none was given*/
+    private volatile TimerInfoCodec codec;
+    private final boolean defaultCodec;
+    /** Whether the primary key and info columns are binary, otherwise the encoded values are stored as Base64 text*/
+    private boolean binaryPrimaryKey;
+    private boolean binaryInfo;
     private RefreshTask refreshTask;
+    private volatile WriteBehindTask writeBehindTask;
+    /** Interval in millis to write the timer updates made outside of a transaction as a batch, 0 writes each of them immediately*/
+    private final long writeBehindInterval;
+    /** Timer updates made outside of a transaction which are not written yet, the latest one per timer id*/
+    private final Map<String, PendingUpdate> pendingUpdates = new HashMap<>();
+    /** Pending updates taken by a batch which is being written, per timer id*/
+    private final Map<String, PendingUpdate> writingUpdates = new HashMap<>();
+    /** Updates written immediately while a batch was writing an older update of the same timer, which the batch writes again*/
+    private final Map<String, PendingUpdate> supersedingUpdates = new HashMap<>();
+    /** Guards the maps of updates above, it is never held while writing to the database*/
+    private final Object writeBehindLock = new Object();
+    /** Orders the updates of a timer*/
+    private final AtomicLong updateSequence = new AtomicLong();
 
     /** Names for the different SQL commands stored in the properties*/
     private static final String CREATE_TABLE = "create-table";
@@ -125,21 +155,63 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private static final String LOAD_TIMER = "load-timer";
     private static final String DELETE_TIMER = "delete-timer";
     private static final String UPDATE_RUNNING = "update-running";
+    private static final String MIGRATE_TABLE = "migrate-table";
+    private static final String LOAD_CHANGED_TIMERS = "load-changed-timers";
+    private static final String LOAD_DELETED_TIMERS = "load-deleted-timers";
+    private static final String CREATE_DELETED_TIMER = "create-deleted-timer";
+    private static final String DELETE_OLD_DELETED_TIMERS = "delete-old-deleted-timers";
+
+    /** Names of the system properties that tune the incremental refresh*/
+    static final String INCREMENTAL_REFRESH_OVERLAP = "jboss.ejb.timer.database.incremental-refresh-overlap";
+    static final String FULL_REFRESH_INTERVAL = "jboss.ejb.timer.database.full-refresh-interval";
+    /** Name of the system property that enables the write-behind of timer updates made outside of a transaction*/
+    static final String WRITE_BEHIND_INTERVAL = "jboss.ejb.timer.database.write-behind-interval";
+    /** How long the records of deleted timers are kept, all nodes of the partition must have refreshed in between*/
+    private static final long DELETED_TIMER_RETENTION = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * The ways to refresh the timers from the database.
+     */
+    public enum RefreshMode {
+        /**
+         * All timers of each timed object are loaded again and compared with the known timers.
+         */
+        FULL,
+        /**
+         * Only timers created or deleted since the last refresh are loaded. This requires an additional column and
+         * table, which are added to the schema on start, and all nodes sharing the partition to write them.
+         */
+        INCREMENTAL,
+    }
 
     public DatabaseTimerPersistence(final String name, final String database, String partition, int refreshInterval, boolean allowExecution) {
+        this(name, database, partition, refreshInterval, allowExecution, RefreshMode.FULL);
+    }
+
+    public DatabaseTimerPersistence(final String name, final String database, String partition, int refreshInterval, boolean allowExecution, RefreshMode refreshMode) {
+        this(name, database, partition, refreshInterval, allowExecution, refreshMode, null);
+    }
+
+    public DatabaseTimerPersistence(final String name, final String database, String partition, int refreshInterval, boolean allowExecution, RefreshMode refreshMode, TimerInfoCodec codec) {
+        this.codec = codec;
+        this.defaultCodec = codec == null;
         this.name = name;
         this.database = database;
         this.partition = partition;
         this.refreshInterval = refreshInterval;
         this.allowExecution = allowExecution;
+        this.refreshMode = refreshMode;
+        this.incrementalRefreshOverlap = Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(INCREMENTAL_REFRESH_OVERLAP, Long.toString(TimeUnit.MINUTES.toMillis(1))));
+        this.fullRefreshInterval = Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(FULL_REFRESH_INTERVAL, Long.toString(TimeUnit.MINUTES.toMillis(10))));
+        this.writeBehindInterval = Long.parseLong(WildFlySecurityManager.getPropertyPrivileged(WRITE_BEHIND_INTERVAL, "0"));
     }
 
     @Override
     public void start(final StartContext context) throws StartException {
 
-        factory = new RiverMarshallerFactory();
-        configuration = new MarshallingConfiguration();
-        configuration.setClassResolver(ModularClassResolver.getInstance(moduleLoader.getValue()));
+        if (defaultCodec) {
+            codec = new MarshallingTimerInfoCodec(ModularClassResolver.getInstance(moduleLoader.getValue()));
+        }
 
         managedReference = dataSourceInjectedValue.getValue().getReference();
         dataSource = (DataSource) managedReference.getInstance();
@@ -155,10 +227,16 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         extractDialects();
         investigateDialect();
         checkDatabase();
+        checkColumnTypes();
+        changeTracking = refreshMode == RefreshMode.INCREMENTAL && migrateDatabase();
+        refreshTask = new RefreshTask();
         if (refreshInterval > 0) {
-            refreshTask = new RefreshTask();
             timerInjectedValue.getValue().schedule(refreshTask, refreshInterval, refreshInterval);
         }
+        if (writeBehindInterval > 0) {
+            writeBehindTask = new WriteBehindTask();
+            timerInjectedValue.getValue().schedule(writeBehindTask, writeBehindInterval, writeBehindInterval);
+        }
     }
 
     @Override
@@ -166,6 +244,11 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         if (refreshTask != null) {
             refreshTask.cancel();
         }
+        if (writeBehindTask != null) {
+            writeBehindTask.cancel();
+            writeBehindTask = null;
+        }
+        writePendingUpdates();
         knownTimerIds.clear();
         managedReference.release();
         managedReference = null;
@@ -295,6 +378,111 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    /**
+     * Checks whether the primary key and info columns of the timer table are binary.
+     */
+    private void checkColumnTypes() {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = dataSource.getConnection();
+            statement = connection.prepareStatement(sql(LOAD_TIMER));
+            statement.setString(1, "NON-EXISTENT");
+            statement.setString(2, "NON-EXISTENT");
+            statement.setString(3, "NON-EXISTENT");
+            resultSet = statement.executeQuery();
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            binaryPrimaryKey = isBinary(metaData.getColumnType(7));
+            binaryInfo = isBinary(metaData.getColumnType(8));
+            EjbLogger.ROOT_LOGGER.debugf("Timer table of %s stores primary keys as %s and infos as %s", name, binaryPrimaryKey ? "binary" : "text", binaryInfo ? "binary" : "text");
+        } catch (SQLException e) {
+            EjbLogger.ROOT_LOGGER.debugf(e, "Unable to read the column types of the timer table of %s, using text", name);
+        } finally {
+            safeClose(resultSet);
+            safeClose(statement);
+            safeClose(connection);
+        }
+    }
+
+    private static boolean isBinary(final int type) {
+        return type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB;
+    }
+
+    /**
+     * Adds the creation date column and the table of deleted timers, which the incremental refresh reads, unless
+     * the schema already has them.
+     *
+     * @return <code>true</code> if the schema supports the incremental refresh
+     */
+    private boolean migrateDatabase() {
+        String migrateTable = sql(MIGRATE_TABLE);
+        if (migrateTable == null || sql(LOAD_CHANGED_TIMERS) == null || sql(LOAD_DELETED_TIMERS) == null) {
+            EjbLogger.ROOT_LOGGER.couldNotMigrateTimerTable(name, null);
+            return false;
+        }
+        try {
+            checkChangeTracking();
+            return true;
+        } catch (SQLException e) {
+            EjbLogger.ROOT_LOGGER.debugf(e, "Timer table of %s does not track changes yet, migrating it", name);
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            // the statements are executed one by one, so that a partially migrated schema is completed
+            for (final String sql : migrateTable.split(";")) {
+                Statement statement = null;
+                try {
+                    statement = connection.createStatement();
+                    statement.executeUpdate(sql);
+                } catch (SQLException e) {
+                    EjbLogger.ROOT_LOGGER.debugf(e, "Migration statement %s failed", sql);
+                } finally {
+                    safeClose(statement);
+                }
+            }
+        } catch (SQLException e) {
+            EjbLogger.ROOT_LOGGER.couldNotMigrateTimerTable(name, e);
+            return false;
+        } finally {
+            safeClose(connection);
+        }
+        try {
+            checkChangeTracking();
+            return true;
+        } catch (SQLException e) {
+            EjbLogger.ROOT_LOGGER.couldNotMigrateTimerTable(name, e);
+            return false;
+        }
+    }
+
+    /**
+     * Runs the queries of the incremental refresh, which fail if the schema lacks the columns or tables they read.
+     */
+    private void checkChangeTracking() throws SQLException {
+        Timestamp future = new Timestamp(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = dataSource.getConnection();
+            for (String query : new String[] { sql(LOAD_CHANGED_TIMERS), sql(LOAD_DELETED_TIMERS) }) {
+                try {
+                    statement = connection.prepareStatement(query);
+                    statement.setString(1, partition);
+                    statement.setTimestamp(2, future);
+                    resultSet = statement.executeQuery();
+                } finally {
+                    safeClose(resultSet);
+                    safeClose(statement);
+                }
+            }
+        } finally {
+            safeClose(connection);
+        }
+    }
+
     private String sql(final String key) {
         if (database != null) {
             String result = sql.getProperty(key + "." + database);
@@ -330,19 +518,102 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void persistTimer(final TimerImpl timerEntity) {
+        final boolean delete = timerEntity.getState() == TimerState.CANCELED || timerEntity.getState() == TimerState.EXPIRED;
+        if (!delete && writeBehindTask != null && !transactionActive()) {
+            synchronized (this) {
+                knownTimerIds.get(timerEntity.getTimedObjectId()).add(timerEntity.getId());
+            }
+            // written by the next batch, replacing any update of the timer which is still pending
+            final PendingUpdate update = new PendingUpdate(timerEntity);
+            synchronized (writeBehindLock) {
+                pendingUpdates.put(update.id, update);
+            }
+            return;
+        }
+        // this update supersedes a pending one, which must not overwrite it later on
+        final PendingUpdate update = delete ? null : new PendingUpdate(timerEntity);
+        final boolean racing;
+        synchronized (writeBehindLock) {
+            pendingUpdates.remove(timerEntity.getId());
+            racing = writingUpdates.containsKey(timerEntity.getId());
+        }
+        writeTimer(timerEntity, delete);
+        if (update != null && racing) {
+            // a batch may still write the older update after this one, in which case this one is written again
+            if (transactionActive()) {
+                try {
+                    transactionManager.getValue().getTransaction().registerSynchronization(new Synchronization() {
+                        @Override
+                        public void beforeCompletion() {
+                        }
+
+                        @Override
+                        public void afterCompletion(final int status) {
+                            if (status == Status.STATUS_COMMITTED) {
+                                superseded(update);
+                            }
+                        }
+                    });
+                } catch (RollbackException e) {
+                    // the update will not be committed
+                } catch (SystemException e) {
+                    throw new RuntimeException(e);
+                }
+            } else {
+                superseded(update);
+            }
+        }
+    }
+
+    /**
+     * Records an update that was written immediately while a batch was writing an older update of the same timer.
+     */
+    private void superseded(final PendingUpdate update) {
+        synchronized (writeBehindLock) {
+            if (writingUpdates.containsKey(update.id)) {
+                // written again once the batch completes
+                final PendingUpdate existing = supersedingUpdates.get(update.id);
+                if (existing == null || existing.sequence < update.sequence) {
+                    supersedingUpdates.put(update.id, update);
+                }
+            } else {
+                // the batch completed already, possibly after this update was written
+                queue(update);
+            }
+        }
+    }
+
+    /**
+     * Makes the given update pending, unless a newer update of the timer is pending already. Must hold the write-behind lock.
+     */
+    private void queue(final PendingUpdate update) {
+        final PendingUpdate existing = pendingUpdates.get(update.id);
+        if (existing == null || existing.sequence < update.sequence) {
+            pendingUpdates.put(update.id, update);
+        }
+    }
+
+    private void writeTimer(final TimerImpl timerEntity, final boolean delete) {
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         try {
             connection = dataSource.getConnection();
-            if (timerEntity.getState() == TimerState.CANCELED ||
-                    timerEntity.getState() == TimerState.EXPIRED) {
+            if (delete) {
                 String deleteTimer = sql(DELETE_TIMER);
                 statement = connection.prepareStatement(deleteTimer);
                 statement.setString(1, timerEntity.getTimedObjectId());
                 statement.setString(2, timerEntity.getId());
                 statement.setString(3, partition);
                 statement.execute();
+                if (changeTracking) {
+                    safeClose(statement);
+                    statement = connection.prepareStatement(sql(CREATE_DELETED_TIMER));
+                    statement.setString(1, timerEntity.getId());
+                    statement.setString(2, timerEntity.getTimedObjectId());
+                    statement.setString(3, partition);
+                    statement.execute();
+                }
                 synchronized (this) {
                     knownTimerIds.get(timerEntity.getTimedObjectId()).remove(timerEntity.getId());
                 }
@@ -375,6 +646,8 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             //timers never execute on this node
             return false;
         }
+        // the compare-and-set must see the latest state of the timer written by this node
+        writePendingUpdate(timer.getId());
         String loadTimer = sql(UPDATE_RUNNING);
         Connection connection = null;
         PreparedStatement statement = null;
@@ -423,6 +696,107 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    private boolean transactionActive() {
+        try {
+            final int status = transactionManager.getValue().getStatus();
+            return status != Status.STATUS_NO_TRANSACTION && status != Status.STATUS_UNKNOWN;
+        } catch (SystemException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the pending update of the given timer, if there is one.
+     */
+    private void writePendingUpdate(final String timerId) {
+        writePendingUpdates(Collections.singleton(timerId), true);
+    }
+
+    /**
+     * Writes all pending updates as one batch, waiting for the timers that a concurrent batch is writing.
+     */
+    void writePendingUpdates() {
+        final Set<String> timerIds;
+        synchronized (writeBehindLock) {
+            timerIds = new HashSet<>(pendingUpdates.keySet());
+        }
+        writePendingUpdates(timerIds, true);
+    }
+
+    /**
+     * Writes the pending updates of the given timers as one batch. A timer whose update is being written by a concurrent
+     * batch is either waited for, so that the updates of a timer are written in order, or left for the next batch.
+     */
+    private void writePendingUpdates(final Set<String> timerIds, final boolean wait) {
+        final List<PendingUpdate> updates = new ArrayList<>();
+        synchronized (writeBehindLock) {
+            if (wait) {
+                try {
+                    while (!Collections.disjoint(writingUpdates.keySet(), timerIds)) {
+                        writeBehindLock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            for (String timerId : timerIds) {
+                if (!writingUpdates.containsKey(timerId)) {
+                    final PendingUpdate update = pendingUpdates.remove(timerId);
+                    if (update != null) {
+                        writingUpdates.put(timerId, update);
+                        updates.add(update);
+                    }
+                }
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        final boolean written = writeUpdates(updates);
+        synchronized (writeBehindLock) {
+            for (PendingUpdate update : updates) {
+                writingUpdates.remove(update.id);
+                if (!written) {
+                    // retried by the next batch, unless a newer update of the timer is pending by now
+                    queue(update);
+                }
+                final PendingUpdate superseding = supersedingUpdates.remove(update.id);
+                if (superseding != null && superseding.sequence > update.sequence) {
+                    queue(superseding);
+                }
+            }
+            writeBehindLock.notifyAll();
+        }
+    }
+
+    private boolean writeUpdates(final List<PendingUpdate> updates) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = dataSource.getConnection();
+            statement = connection.prepareStatement(sql(UPDATE_TIMER));
+            for (PendingUpdate update : updates) {
+                statement.setTimestamp(1, update.nextDate);
+                statement.setTimestamp(2, update.previousRun);
+                statement.setString(3, update.state.name());
+                statement.setString(4, update.timedObjectId);
+                statement.setString(5, update.id);
+                statement.setString(6, partition);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            EjbLogger.ROOT_LOGGER.tracef("Wrote %d timer updates of %s", updates.size(), name);
+            return true;
+        } catch (SQLException e) {
+            EjbLogger.ROOT_LOGGER.failedToWriteTimerUpdates(e, updates.size());
+            return false;
+        } finally {
+            safeClose(statement);
+            safeClose(connection);
+        }
+    }
+
     @Override
     public synchronized void timerUndeployed(final String timedObjectId) {
         knownTimerIds.remove(timedObjectId);
@@ -430,6 +804,7 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public List<TimerImpl> loadActiveTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+        writePendingUpdates();
         String loadTimer = sql(LOAD_ALL_TIMERS);
         Connection connection = null;
         PreparedStatement statement = null;
@@ -527,8 +902,8 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         builder.setRepeatInterval(resultSet.getLong(4));
         builder.setNextDate(resultSet.getTimestamp(5));
         builder.setPreviousRun(resultSet.getTimestamp(6));
-        builder.setPrimaryKey(deSerialize(resultSet.getString(7)));
-        builder.setInfo((Serializable) deSerialize(resultSet.getString(8)));
+        builder.setPrimaryKey(decode(resultSet, 7, binaryPrimaryKey));
+        builder.setInfo((Serializable) decode(resultSet, 8, binaryInfo));
         builder.setTimerState(TimerState.valueOf(resultSet.getString(9)));
         builder.setPersistent(true);
         return builder.build(timerService);
@@ -541,8 +916,8 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         statement.setLong(4, timerEntity.getInterval());
         statement.setTimestamp(5, timestamp(timerEntity.getNextExpiration()));
         statement.setTimestamp(6, timestamp(timerEntity.getPreviousRun()));
-        statement.setString(7, serialize((Serializable) timerEntity.getPrimaryKey()));
-        statement.setString(8, serialize(timerEntity.getTimerInfo()));
+        encode(statement, 7, timerEntity.getPrimaryKey(), binaryPrimaryKey);
+        encode(statement, 8, timerEntity.getTimerInfo(), binaryInfo);
         statement.setString(9, timerEntity.getState().name());
 
         if (timerEntity instanceof CalendarTimer) {
@@ -596,40 +971,39 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         statement.setString(25, partition);
     }
 
-    private String serialize(final Serializable serializable) {
-        if (serializable == null) {
-            return null;
+    private void encode(final PreparedStatement statement, final int index, final Object value, final boolean binary) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, binary ? Types.VARBINARY : Types.VARCHAR);
+            return;
         }
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] data;
         try {
-            final Marshaller marshaller = factory.createMarshaller(configuration);
-            marshaller.start(new OutputStreamByteOutput(out));
-            marshaller.writeObject(serializable);
-            marshaller.finish();
-            out.flush();
+            data = codec.encode(value);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return Base64.encodeBytes(out.toByteArray());
+        if (binary) {
+            statement.setBytes(index, data);
+        } else {
+            statement.setString(index, Base64.encodeBytes(data));
+        }
     }
 
-    public Object deSerialize(final String data) throws SQLException {
+    private Object decode(final ResultSet resultSet, final int index, final boolean binary) throws SQLException {
+        final byte[] data;
+        if (binary) {
+            data = resultSet.getBytes(index);
+        } else {
+            final String text = resultSet.getString(index);
+            data = text == null ? null : Base64.decode(text);
+        }
         if (data == null) {
             return null;
         }
-        InputStream in = new ByteArrayInputStream(Base64.decode(data));
         try {
-            final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
-            unmarshaller.start(new InputStreamByteInput(in));
-            Object ret = unmarshaller.readObject();
-            unmarshaller.finish();
-            return ret;
-        } catch (IOException e) {
+            return codec.decode(data);
+        } catch (IOException | ClassNotFoundException e) {
             throw new RuntimeException(e);
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(e);
-        } finally {
-            safeClose(in);
         }
     }
 
@@ -653,6 +1027,10 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         return timerInjectedValue;
     }
 
+    public InjectedValue<TransactionManager> getTransactionManager() {
+        return transactionManager;
+    }
+
     private static void safeClose(final Closeable resource) {
         try {
             if (resource != null) {
@@ -693,72 +1071,257 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    /**
+     * @return the number of refreshes against the database
+     */
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    /**
+     * @return the number of timer rows read by all refreshes
+     */
+    public long getRefreshRowsScanned() {
+        return refreshRowsScanned.get();
+    }
+
+    /**
+     * @return the number of timer rows read by the last refresh
+     */
+    public long getLastRefreshRowsScanned() {
+        return lastRefreshRowsScanned;
+    }
+
+    /**
+     * Refreshes the timers from the database now, rather than on the next run of the refresh task.
+     */
+    void refresh() {
+        refreshTask.run();
+    }
+
     private class RefreshTask extends TimerTask {
 
         private volatile AtomicBoolean running = new AtomicBoolean();
+        /** The latest database time of a change seen by an incremental refresh*/
+        private Timestamp highWaterMark;
+        /** The local time of the last refresh that reloaded all timers, which the initial load does as well*/
+        private long lastFullRefresh = System.currentTimeMillis();
 
         @Override
         public void run() {
             if (running.compareAndSet(false, true)) {
                 try {
-                    Set<String> timedObjects;
-                    synchronized (DatabaseTimerPersistence.this) {
-                        timedObjects = new HashSet<>(knownTimerIds.keySet());
+                    long scanned = changeTracking ? refreshChanges() : refreshAll();
+                    final long now = System.currentTimeMillis();
+                    if (changeTracking && fullRefreshInterval > 0 && now - lastFullRefresh >= fullRefreshInterval) {
+                        // timers whose creation committed later than the overlap are only found this way
+                        lastFullRefresh = now;
+                        scanned += refreshAll();
                     }
-                    for (String timedObjectId : timedObjects) {
-                        TimerChangeListener listener = changeListeners.get(timedObjectId);
-                        if (listener == null) {
-                            continue;
-                        }
-                        final Set<String> existing;
-                        synchronized (DatabaseTimerPersistence.this) {
-                            existing = new HashSet<>(knownTimerIds.get(timedObjectId));
-                        }
-                        String loadTimer = sql(LOAD_ALL_TIMERS);
-                        Connection connection = null;
-                        PreparedStatement statement = null;
-                        ResultSet resultSet = null;
+                    lastRefreshRowsScanned = scanned;
+                    refreshRowsScanned.addAndGet(scanned);
+                    refreshes.incrementAndGet();
+                    EjbLogger.ROOT_LOGGER.tracef("Refresh of timers in %s read %d rows", name, scanned);
+                } finally {
+                    running.set(false);
+                }
+            }
+
+        }
+
+        private long refreshAll() {
+            long scanned = 0;
+            Set<String> timedObjects;
+            synchronized (DatabaseTimerPersistence.this) {
+                timedObjects = new HashSet<>(knownTimerIds.keySet());
+            }
+            for (String timedObjectId : timedObjects) {
+                TimerChangeListener listener = changeListeners.get(timedObjectId);
+                if (listener == null) {
+                    continue;
+                }
+                final Set<String> existing;
+                synchronized (DatabaseTimerPersistence.this) {
+                    existing = new HashSet<>(knownTimerIds.get(timedObjectId));
+                }
+                String loadTimer = sql(LOAD_ALL_TIMERS);
+                Connection connection = null;
+                PreparedStatement statement = null;
+                ResultSet resultSet = null;
+                try {
+                    connection = dataSource.getConnection();
+                    statement = connection.prepareStatement(loadTimer);
+                    statement.setString(1, timedObjectId);
+                    statement.setString(2, partition);
+                    resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        scanned++;
                         try {
-                            connection = dataSource.getConnection();
-                            statement = connection.prepareStatement(loadTimer);
-                            statement.setString(1, timedObjectId);
-                            statement.setString(2, partition);
-                            resultSet = statement.executeQuery();
-                            while (resultSet.next()) {
-                                try {
-                                    String id = resultSet.getString(1);
-                                    if (!existing.remove(id)) {
-                                        synchronized (DatabaseTimerPersistence.this) {
-                                            knownTimerIds.get(timedObjectId).add(id);
-                                        }
-                                        final TimerImpl timerImpl = timerFromResult(resultSet, listener.getTimerService());
-                                        listener.timerAdded(timerImpl);
-                                    }
-                                } catch (Exception e) {
-                                    EjbLogger.ROOT_LOGGER.timerReinstatementFailed(resultSet.getString(2), resultSet.getString(1), e);
+                            String id = resultSet.getString(1);
+                            if (!existing.remove(id)) {
+                                synchronized (DatabaseTimerPersistence.this) {
+                                    knownTimerIds.get(timedObjectId).add(id);
                                 }
+                                final TimerImpl timerImpl = timerFromResult(resultSet, listener.getTimerService());
+                                listener.timerAdded(timerImpl);
                             }
+                        } catch (Exception e) {
+                            EjbLogger.ROOT_LOGGER.timerReinstatementFailed(resultSet.getString(2), resultSet.getString(1), e);
+                        }
+                    }
 
-                            synchronized (DatabaseTimerPersistence.this) {
-                                Set<String> timers = knownTimerIds.get(timedObjectId);
-                                for (String timer : existing) {
-                                    timers.remove(timer);
-                                    listener.timerRemoved(timer);
-                                }
-                            }
-                        } catch (SQLException e) {
-                            EjbLogger.ROOT_LOGGER.failedToRefreshTimers(timedObjectId);
-                        } finally {
-                            safeClose(resultSet);
-                            safeClose(statement);
-                            safeClose(connection);
+                    synchronized (DatabaseTimerPersistence.this) {
+                        Set<String> timers = knownTimerIds.get(timedObjectId);
+                        for (String timer : existing) {
+                            timers.remove(timer);
+                            listener.timerRemoved(timer);
                         }
                     }
+                } catch (SQLException e) {
+                    EjbLogger.ROOT_LOGGER.failedToRefreshTimers(timedObjectId);
                 } finally {
-                    running.set(false);
+                    safeClose(resultSet);
+                    safeClose(statement);
+                    safeClose(connection);
+                }
+            }
+            return scanned;
+        }
+
+        /**
+         * Reads the timers of the partition created or deleted since the high-water mark, in one pass for all timed
+         * objects. The mark is a database time, so the clocks of the nodes do not matter, and the rows close to it are
+         * read again in case their transaction committed after the previous refresh. Rows which committed even later
+         * are picked up by the periodic full refresh.
+         */
+        private long refreshChanges() {
+            long scanned = 0;
+            final Timestamp since = highWaterMark == null ? new Timestamp(0) : new Timestamp(highWaterMark.getTime() - incrementalRefreshOverlap);
+            Timestamp mark = highWaterMark;
+            final Map<String, Set<String>> deleted = new HashMap<>();
+            Connection connection = null;
+            PreparedStatement statement = null;
+            ResultSet resultSet = null;
+            try {
+                connection = dataSource.getConnection();
+                statement = connection.prepareStatement(sql(LOAD_DELETED_TIMERS));
+                statement.setString(1, partition);
+                statement.setTimestamp(2, since);
+                resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    scanned++;
+                    String timedObjectId = resultSet.getString(2);
+                    Set<String> ids = deleted.get(timedObjectId);
+                    if (ids == null) {
+                        ids = new HashSet<>();
+                        deleted.put(timedObjectId, ids);
+                    }
+                    ids.add(resultSet.getString(1));
+                    mark = latest(mark, resultSet.getTimestamp(3));
+                }
+                safeClose(resultSet);
+                safeClose(statement);
+
+                statement = connection.prepareStatement(sql(LOAD_CHANGED_TIMERS));
+                statement.setString(1, partition);
+                statement.setTimestamp(2, since);
+                resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    scanned++;
+                    mark = latest(mark, resultSet.getTimestamp(25));
+                    String id = resultSet.getString(1);
+                    String timedObjectId = resultSet.getString(2);
+                    TimerChangeListener listener = changeListeners.get(timedObjectId);
+                    Set<String> deletedIds = deleted.get(timedObjectId);
+                    if (listener == null || (deletedIds != null && deletedIds.contains(id))) {
+                        continue;
+                    }
+                    try {
+                        synchronized (DatabaseTimerPersistence.this) {
+                            Set<String> known = knownTimerIds.get(timedObjectId);
+                            if (known == null || !known.add(id)) {
+                                continue;
+                            }
+                        }
+                        final TimerImpl timerImpl = timerFromResult(resultSet, listener.getTimerService());
+                        listener.timerAdded(timerImpl);
+                    } catch (Exception e) {
+                        EjbLogger.ROOT_LOGGER.timerReinstatementFailed(timedObjectId, id, e);
+                    }
                 }
+
+                for (Map.Entry<String, Set<String>> entry : deleted.entrySet()) {
+                    TimerChangeListener listener = changeListeners.get(entry.getKey());
+                    if (listener == null) {
+                        continue;
+                    }
+                    synchronized (DatabaseTimerPersistence.this) {
+                        Set<String> known = knownTimerIds.get(entry.getKey());
+                        if (known == null) {
+                            continue;
+                        }
+                        for (String id : entry.getValue()) {
+                            if (known.remove(id)) {
+                                listener.timerRemoved(id);
+                            }
+                        }
+                    }
+                }
+                highWaterMark = mark;
+
+                if (mark != null) {
+                    safeClose(resultSet);
+                    safeClose(statement);
+                    statement = connection.prepareStatement(sql(DELETE_OLD_DELETED_TIMERS));
+                    statement.setString(1, partition);
+                    statement.setTimestamp(2, new Timestamp(mark.getTime() - DELETED_TIMER_RETENTION));
+                    statement.executeUpdate();
+                }
+            } catch (SQLException e) {
+                EjbLogger.ROOT_LOGGER.failedToRefreshTimersOfPartition(e, partition);
+            } finally {
+                safeClose(resultSet);
+                safeClose(statement);
+                safeClose(connection);
             }
+            return scanned;
+        }
+    }
+
+    /**
+     * The state of a timer as of an update, which is written by the {@link WriteBehindTask}.
+     */
+    private final class PendingUpdate {
+        final String id;
+        final String timedObjectId;
+        final Timestamp nextDate;
+        final Timestamp previousRun;
+        final TimerState state;
+        final long sequence = updateSequence.incrementAndGet();
 
+        PendingUpdate(final TimerImpl timer) {
+            this.id = timer.getId();
+            this.timedObjectId = timer.getTimedObjectId();
+            this.nextDate = timestamp(timer.getNextExpiration());
+            this.previousRun = timestamp(timer.getPreviousRun());
+            this.state = timer.getState();
         }
     }
+
+    private class WriteBehindTask extends TimerTask {
+
+        @Override
+        public void run() {
+            final Set<String> timerIds;
+            synchronized (writeBehindLock) {
+                timerIds = new HashSet<>(pendingUpdates.keySet());
+            }
+            // timers being written by a concurrent flush are written by the next run
+            writePendingUpdates(timerIds, false);
+        }
+    }
+
+    private static Timestamp latest(final Timestamp current, final Timestamp candidate) {
+        return candidate == null || (current != null && !candidate.after(current)) ? current : candidate;
+    }
 }
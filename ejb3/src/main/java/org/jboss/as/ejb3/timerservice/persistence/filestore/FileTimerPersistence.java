@@ -195,16 +195,13 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             if (status == Status.STATUS_NO_TRANSACTION ||
                     status == Status.STATUS_UNKNOWN || isBeforeCompletion()
                     || status == Status.STATUS_COMMITTED) {
-                Map<String, TimerImpl> map = getTimers(timer.getTimedObjectId(), timer.getTimerService());
                 if (timer.getState() == TimerState.CANCELED ||
                         timer.getState() == TimerState.EXPIRED) {
-                    map.remove(timer.getId());
-                    writeFile(timer);
-                } else if (newTimer || map.containsKey(timer.getId())) {
-                    //if it is not a new timer and is not in the map then it has
+                    writeTimer(timer);
+                } else if (newTimer || containsTimer(timer)) {
+                    //if it is not a new timer and is not in the store then it has
                     //been removed by another thread.
-                    map.put(timer.getId(), timer);
-                    writeFile(timer);
+                    writeTimer(timer);
                 }
             } else {
 
@@ -312,17 +309,42 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
      * @param timedObjectId The timed object id
      * @return The timers for the object
      */
-    private Map<String, TimerImpl> getTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+    protected Map<String, TimerImpl> getTimers(final String timedObjectId, final TimerServiceImpl timerService) {
         return loadTimersFromFile(timedObjectId, timerService);
     }
 
-    private Map<String, TimerImpl> loadTimersFromFile(String timedObjectId, TimerServiceImpl timerService) {
+    /**
+     * Checks if the store still holds a timer. Should be called under lock
+     *
+     * @param timer The timer
+     * @return true if the timer has not been removed from the store
+     */
+    protected boolean containsTimer(final TimerImpl timer) {
+        return getTimers(timer.getTimedObjectId(), timer.getTimerService()).containsKey(timer.getId());
+    }
+
+    /**
+     * Writes the current state of a timer to the store, removing it if it is cancelled or expired. Should be called under lock
+     *
+     * @param timer The timer
+     */
+    protected void writeTimer(final TimerImpl timer) {
+        writeFile(timer);
+    }
+
+    /**
+     * Loads the timers of an object from the XML files of its directory, converting timers of the legacy format.
+     *
+     * @param timedObjectId The timed object id
+     * @return The timers for the object
+     */
+    protected Map<String, TimerImpl> loadTimersFromFile(String timedObjectId, TimerServiceImpl timerService) {
         Map<String, TimerImpl> timers = new HashMap<>();
         String directory = getDirectory(timedObjectId);
 
         timers.putAll(LegacyFileStore.loadTimersFromFile(timedObjectId, timerService, directory, factory, configuration));
         for(Map.Entry<String, TimerImpl> entry : timers.entrySet()) {
-            writeFile(entry.getValue()); //write legacy timers into the new format
+            writeTimer(entry.getValue()); //write legacy timers into the new format
             //the legacy code handling code will write a marker file, to make sure that the old timers will not be loaded on next restart.
         }
         final File file = new File(directory);
@@ -390,7 +412,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
      * @param timedObjectId The timed object
      * @return The directory
      */
-    private String getDirectory(String timedObjectId) {
+    protected String getDirectory(String timedObjectId) {
         String dirName = directories.get(timedObjectId);
         if (dirName == null) {
             dirName = baseDir.getAbsolutePath() + File.separator + timedObjectId.replace(File.separator, "-");
@@ -436,17 +458,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             try {
                 lock.lock();
                 if (status == Status.STATUS_COMMITTED) {
-                    final Map<String, TimerImpl> map = getTimers(timer.getTimedObjectId(), timer.getTimerService());
-                    if (timer.getState() == TimerState.CANCELED ||
-                            timer.getState() == TimerState.EXPIRED) {
-                        map.remove(timer.getId());
-                    } else {
-                        if (newTimer || map.containsKey(timer.getId())) {
-                            //if an existing timer is not in the map it has been cancelled by another thread
-                            map.put(timer.getId(), timer);
-                        }
-                    }
-                    writeFile(timer);
+                    writeTimer(timer);
                 }
             } finally {
                 lock.unlock();
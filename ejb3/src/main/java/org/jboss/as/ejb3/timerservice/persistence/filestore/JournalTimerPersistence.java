@@ -0,0 +1,305 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.timerservice.CalendarTimer;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.MarshallingTimerInfoCodec;
+import org.jboss.as.ejb3.timerservice.persistence.TimeoutMethod;
+import org.jboss.as.ejb3.timerservice.persistence.TimerInfoCodec;
+import org.jboss.marshalling.ModularClassResolver;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.xnio.IoUtils;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+/**
+ * File based persistent timer store that appends the changes of the timers of each timed object to a memory mapped
+ * {@link TimerJournal}, instead of rewriting an XML file per timer.
+ * <p/>
+ * The journal of a timed object lives in the same directory as the XML files of the {@link FileTimerPersistence}. The
+ * timers of any XML files are imported into the journal when it is opened, and the files are renamed so that they are
+ * not imported again. Files left behind by an interrupted import are imported on the next start, except for the timers
+ * the journal already holds.
+ */
+public class JournalTimerPersistence extends FileTimerPersistence {
+
+    static final String JOURNAL_FILE = "timers.journal";
+    static final String MIGRATED_SUFFIX = ".migrated";
+
+    private static final byte TIMER = 0;
+    private static final byte CALENDAR_TIMER = 1;
+
+    private final ConcurrentMap<String, TimerJournal> journals = new ConcurrentHashMap<String, TimerJournal>();
+    private volatile TimerInfoCodec codec;
+
+    public JournalTimerPersistence(final boolean createIfNotExists, final String path, final String pathRelativeTo) {
+        super(createIfNotExists, path, pathRelativeTo);
+    }
+
+    @Override
+    public synchronized void start(final StartContext context) {
+        super.start(context);
+        codec = new MarshallingTimerInfoCodec(ModularClassResolver.getInstance(getModuleLoader().getValue()));
+    }
+
+    @Override
+    public void stop(final StopContext context) {
+        for (TimerJournal journal : journals.values()) {
+            IoUtils.safeClose(journal);
+        }
+        journals.clear();
+        codec = null;
+        super.stop(context);
+    }
+
+    @Override
+    public void timerUndeployed(final String timedObjectId) {
+        IoUtils.safeClose(journals.remove(timedObjectId));
+        super.timerUndeployed(timedObjectId);
+    }
+
+    @Override
+    protected Map<String, TimerImpl> getTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+        final Map<String, TimerImpl> timers = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : getJournal(timedObjectId, timerService).getRecords().entrySet()) {
+            try {
+                timers.put(entry.getKey(), readState(timedObjectId, entry.getKey(), entry.getValue(), timerService));
+            } catch (Exception e) {
+                ROOT_LOGGER.timerReinstatementFailed(timedObjectId, entry.getKey(), e);
+            }
+        }
+        return timers;
+    }
+
+    @Override
+    protected boolean containsTimer(final TimerImpl timer) {
+        return getJournal(timer.getTimedObjectId(), timer.getTimerService()).contains(timer.getId());
+    }
+
+    @Override
+    protected void writeTimer(final TimerImpl timer) {
+        final TimerJournal journal = getJournal(timer.getTimedObjectId(), timer.getTimerService());
+        try {
+            if (timer.getState() == TimerState.CANCELED ||
+                    timer.getState() == TimerState.EXPIRED) {
+                journal.remove(timer.getId());
+            } else {
+                journal.put(timer.getId(), writeState(timer, codec));
+            }
+        } catch (IOException e) {
+            throw EjbLogger.ROOT_LOGGER.failToAccessTimerJournal(journal.getFile(), e);
+        }
+    }
+
+    /**
+     * Gets the journal of a timed object, opening it if necessary. Should be called under lock
+     */
+    private TimerJournal getJournal(final String timedObjectId, final TimerServiceImpl timerService) {
+        TimerJournal journal = journals.get(timedObjectId);
+        if (journal == null) {
+            final File directory = new File(getDirectory(timedObjectId));
+            final File file = new File(directory, JOURNAL_FILE);
+            try {
+                journal = new TimerJournal(file);
+            } catch (IOException e) {
+                throw EjbLogger.ROOT_LOGGER.failToAccessTimerJournal(file, e);
+            }
+            journals.put(timedObjectId, journal);
+            importTimers(timedObjectId, timerService, journal, directory);
+        }
+        return journal;
+    }
+
+    /**
+     * Imports the timers stored as XML files, or in the legacy format, into the journal, unless it holds them already.
+     */
+    private void importTimers(final String timedObjectId, final TimerServiceImpl timerService, final TimerJournal journal, final File directory) {
+        final Map<String, TimerImpl> timers = loadTimersFromFile(timedObjectId, timerService);
+        if (timers.isEmpty()) {
+            return;
+        }
+        int imported = 0;
+        for (TimerImpl timer : timers.values()) {
+            // the journal holds a more recent state of the timers imported by an earlier, interrupted import
+            if (!journal.contains(timer.getId())) {
+                writeTimer(timer);
+                imported++;
+            }
+        }
+        journal.force();
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(".xml") && !file.renameTo(new File(file.getPath() + MIGRATED_SUFFIX)) && !file.delete()) {
+                    ROOT_LOGGER.failToRetireImportedTimerFile(file);
+                }
+            }
+        }
+        ROOT_LOGGER.timersImportedIntoJournal(imported, timedObjectId, journal.getFile());
+    }
+
+    private static byte[] writeState(final TimerImpl timer, final TimerInfoCodec codec) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final boolean calendarTimer = timer instanceof CalendarTimer;
+        out.writeByte(calendarTimer ? CALENDAR_TIMER : TIMER);
+        out.writeUTF(timer.getState().name());
+        writeDate(out, timer.getInitialExpiration());
+        writeDate(out, timer.getNextExpiration());
+        writeDate(out, timer.getPreviousRun());
+        if (calendarTimer) {
+            final CalendarTimer calendar = (CalendarTimer) timer;
+            final ScheduleExpression schedule = calendar.getScheduleExpression();
+            out.writeUTF(schedule.getSecond());
+            out.writeUTF(schedule.getMinute());
+            out.writeUTF(schedule.getHour());
+            out.writeUTF(schedule.getDayOfWeek());
+            out.writeUTF(schedule.getDayOfMonth());
+            out.writeUTF(schedule.getMonth());
+            out.writeUTF(schedule.getYear());
+            writeDate(out, schedule.getStart());
+            writeDate(out, schedule.getEnd());
+            writeString(out, schedule.getTimezone());
+            out.writeBoolean(calendar.isAutoTimer());
+            if (calendar.isAutoTimer()) {
+                final Method method = calendar.getTimeoutMethod();
+                out.writeUTF(method.getDeclaringClass().getName());
+                out.writeUTF(method.getName());
+                out.writeShort(method.getParameterTypes().length);
+                for (Class<?> param : method.getParameterTypes()) {
+                    out.writeUTF(param.getName());
+                }
+            }
+        } else {
+            out.writeLong(timer.getInterval());
+        }
+        writeValue(out, timer.getTimerInfo(), codec);
+        writeValue(out, timer.getPrimaryKey(), codec);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private TimerImpl readState(final String timedObjectId, final String id, final byte[] state, final TimerServiceImpl timerService) throws Exception {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+        final boolean calendarTimer = in.readByte() == CALENDAR_TIMER;
+        final CalendarTimer.Builder calendarBuilder = calendarTimer ? CalendarTimer.builder() : null;
+        final TimerImpl.Builder builder = calendarTimer ? calendarBuilder : TimerImpl.builder();
+        builder.setId(id);
+        builder.setTimedObjectId(timedObjectId);
+        builder.setPersistent(true);
+        builder.setTimerState(TimerState.valueOf(in.readUTF()));
+        builder.setInitialDate(readDate(in));
+        builder.setNextDate(readDate(in));
+        builder.setPreviousRun(readDate(in));
+        if (calendarTimer) {
+            calendarBuilder.setScheduleExprSecond(in.readUTF());
+            calendarBuilder.setScheduleExprMinute(in.readUTF());
+            calendarBuilder.setScheduleExprHour(in.readUTF());
+            calendarBuilder.setScheduleExprDayOfWeek(in.readUTF());
+            calendarBuilder.setScheduleExprDayOfMonth(in.readUTF());
+            calendarBuilder.setScheduleExprMonth(in.readUTF());
+            calendarBuilder.setScheduleExprYear(in.readUTF());
+            calendarBuilder.setScheduleExprStartDate(readDate(in));
+            calendarBuilder.setScheduleExprEndDate(readDate(in));
+            calendarBuilder.setScheduleExprTimezone(readString(in));
+            final boolean autoTimer = in.readBoolean();
+            calendarBuilder.setAutoTimer(autoTimer);
+            if (autoTimer) {
+                final String declaringClass = in.readUTF();
+                final String methodName = in.readUTF();
+                final String[] params = new String[in.readShort()];
+                for (int i = 0; i < params.length; ++i) {
+                    params[i] = in.readUTF();
+                }
+                calendarBuilder.setTimeoutMethod(CalendarTimer.getTimeoutMethod(new TimeoutMethod(declaringClass, methodName, params), timerService.getTimedObjectInvoker().getValue().getClassLoader()));
+            }
+        } else {
+            builder.setRepeatInterval(in.readLong());
+        }
+        builder.setInfo((Serializable) readValue(in, codec));
+        builder.setPrimaryKey(readValue(in, codec));
+        return builder.build(timerService);
+    }
+
+    private static void writeDate(final DataOutputStream out, final Date date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.getTime());
+        }
+    }
+
+    private static Date readDate(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeValue(final DataOutputStream out, final Object value, final TimerInfoCodec codec) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] data = codec.encode(value);
+            out.writeInt(data.length);
+            out.write(data);
+        }
+    }
+
+    private static Object readValue(final DataInputStream in, final TimerInfoCodec codec) throws IOException, ClassNotFoundException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] data = new byte[length];
+        in.readFully(data);
+        return codec.decode(data);
+    }
+}
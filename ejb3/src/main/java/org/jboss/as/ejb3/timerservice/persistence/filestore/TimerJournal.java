@@ -0,0 +1,299 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+
+/**
+ * Append only journal of the persistent timers of one timed object, kept in a memory mapped file.
+ * <p/>
+ * Every change of a timer appends a record holding either its new state or its removal, so a timer that fires
+ * repeatedly only costs a write into the mapped buffer instead of a new file. Each record is protected by a checksum,
+ * and a record whose checksum does not match ends the journal, which drops a record torn by a crash. Once the journal
+ * grew to more than twice the size of its live records it is compacted into a new file, which replaces the journal by
+ * an atomic rename.
+ * <p/>
+ * Layout: a header of a magic number and a version, followed by records of
+ * <code>[int length][int crc32][byte operation][short id length][id][state]</code>, where length and checksum cover
+ * everything after the checksum. A length of 0 marks the end of the journal.
+ */
+final class TimerJournal implements Closeable {
+
+    private static final int MAGIC = 0x454A544A;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    private final File file;
+    // the latest state of each live timer, in the order they were added
+    private final Map<String, byte[]> records = new LinkedHashMap<String, byte[]>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    // the size the records in this map would take in a compacted journal
+    private long liveSize;
+
+    TimerJournal(final File file) throws IOException {
+        this.file = file;
+        this.open();
+    }
+
+    File getFile() {
+        return this.file;
+    }
+
+    synchronized Map<String, byte[]> getRecords() {
+        return Collections.unmodifiableMap(new LinkedHashMap<String, byte[]>(this.records));
+    }
+
+    synchronized boolean contains(final String id) {
+        return this.records.containsKey(id);
+    }
+
+    synchronized void put(final String id, final byte[] state) throws IOException {
+        // the caller may reuse its array, while the live records are written again by a compaction
+        final byte[] copy = state.clone();
+        final byte[] previous = this.records.put(id, copy);
+        if (previous != null) {
+            this.liveSize -= recordSize(id, previous);
+        }
+        this.liveSize += recordSize(id, copy);
+        this.append(PUT, id, copy);
+    }
+
+    synchronized void remove(final String id) throws IOException {
+        final byte[] previous = this.records.remove(id);
+        if (previous != null) {
+            this.liveSize -= recordSize(id, previous);
+            this.append(REMOVE, id, new byte[0]);
+        }
+    }
+
+    /**
+     * Flushes the mapped journal to the disk.
+     */
+    synchronized void force() {
+        this.buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.channel != null) {
+            this.buffer.force();
+            this.channel.close();
+            this.channel = null;
+            this.buffer = null;
+        }
+    }
+
+    private void open() throws IOException {
+        final boolean exists = this.file.length() >= HEADER_SIZE;
+        this.channel = new RandomAccessFile(this.file, "rw").getChannel();
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(this.channel.size(), INITIAL_CAPACITY));
+        if (!exists || this.buffer.getInt(0) != MAGIC) {
+            this.buffer.putInt(4, VERSION);
+            this.buffer.putInt(0, MAGIC);
+            if (exists) {
+                this.truncate(HEADER_SIZE);
+            }
+            this.buffer.position(HEADER_SIZE);
+            return;
+        }
+        this.buffer.position(HEADER_SIZE);
+        while (this.buffer.remaining() >= RECORD_HEADER_SIZE) {
+            final int offset = this.buffer.position();
+            final int length = this.buffer.getInt();
+            if (length == 0) {
+                this.buffer.position(offset);
+                return;
+            }
+            final int checksum = this.buffer.getInt();
+            if (length < 3 || length > this.buffer.remaining()) {
+                this.truncate(offset);
+                return;
+            }
+            final byte[] record = new byte[length];
+            this.buffer.get(record);
+            final CRC32 crc = new CRC32();
+            crc.update(record);
+            if ((int) crc.getValue() != checksum) {
+                this.truncate(offset);
+                return;
+            }
+            this.apply(ByteBuffer.wrap(record));
+        }
+    }
+
+    private void apply(final ByteBuffer record) {
+        final byte operation = record.get();
+        final byte[] id = new byte[record.getShort() & 0xFFFF];
+        record.get(id);
+        final String timerId = new String(id, StandardCharsets.UTF_8);
+        final byte[] previous;
+        if (operation == PUT) {
+            final byte[] state = new byte[record.remaining()];
+            record.get(state);
+            previous = this.records.put(timerId, state);
+            this.liveSize += recordSize(timerId, state);
+        } else {
+            previous = this.records.remove(timerId);
+        }
+        if (previous != null) {
+            this.liveSize -= recordSize(timerId, previous);
+        }
+    }
+
+    /**
+     * Drops everything from the specified offset, so that the remains of the corrupted records are never read back
+     * once new records were appended before them.
+     */
+    private void truncate(final int offset) {
+        EjbLogger.ROOT_LOGGER.timerJournalTruncated(this.file, offset);
+        this.buffer.position(offset);
+        while (this.buffer.remaining() >= 8) {
+            this.buffer.putLong(0L);
+        }
+        while (this.buffer.hasRemaining()) {
+            this.buffer.put((byte) 0);
+        }
+        this.buffer.position(offset);
+    }
+
+    private void append(final byte operation, final String id, final byte[] state) throws IOException {
+        final byte[] record = record(operation, id, state);
+        if (this.buffer.remaining() < RECORD_HEADER_SIZE + record.length + RECORD_HEADER_SIZE) {
+            if (this.shouldCompact() && this.compact()) {
+                // the compacted journal already holds this change
+                return;
+            }
+            this.grow(RECORD_HEADER_SIZE + record.length + RECORD_HEADER_SIZE);
+        }
+        final int offset = this.buffer.position();
+        final CRC32 crc = new CRC32();
+        crc.update(record);
+        // the length is written last, a record cut short before it is not part of the journal
+        this.buffer.position(offset + RECORD_HEADER_SIZE);
+        this.buffer.put(record);
+        this.buffer.putInt(offset + 4, (int) crc.getValue());
+        this.buffer.putInt(offset, record.length);
+        if (this.shouldCompact()) {
+            this.compact();
+        }
+    }
+
+    private boolean shouldCompact() {
+        final int size = this.buffer.position();
+        return size > MIN_COMPACTION_SIZE && size > 2 * (HEADER_SIZE + this.liveSize);
+    }
+
+    private void grow(final int required) throws IOException {
+        long capacity = this.buffer.capacity();
+        while (capacity - this.buffer.position() < required) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException(this.file.toString());
+        }
+        final int position = this.buffer.position();
+        this.buffer.force();
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.buffer.position(position);
+    }
+
+    /**
+     * Writes the live records into a new file that atomically replaces the journal.
+     *
+     * @return true if the journal was compacted
+     */
+    private boolean compact() throws IOException {
+        long capacity = INITIAL_CAPACITY;
+        while (capacity < 2 * (HEADER_SIZE + this.liveSize + RECORD_HEADER_SIZE)) {
+            capacity *= 2;
+        }
+        final ByteBuffer compacted = ByteBuffer.allocate((int) (HEADER_SIZE + this.liveSize));
+        compacted.putInt(MAGIC);
+        compacted.putInt(VERSION);
+        for (Map.Entry<String, byte[]> entry : this.records.entrySet()) {
+            final byte[] record = record(PUT, entry.getKey(), entry.getValue());
+            final CRC32 crc = new CRC32();
+            crc.update(record);
+            compacted.putInt(record.length);
+            compacted.putInt((int) crc.getValue());
+            compacted.put(record);
+        }
+        compacted.flip();
+        final File compactedFile = new File(this.file.getPath() + ".compact");
+        try (FileChannel out = new RandomAccessFile(compactedFile, "rw").getChannel()) {
+            out.truncate(0);
+            while (compacted.hasRemaining()) {
+                out.write(compacted);
+            }
+            out.force(true);
+        }
+        this.buffer.force();
+        try {
+            Files.move(compactedFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // e.g. the platform does not allow replacing a mapped file, just keep appending to the current journal
+            EjbLogger.ROOT_LOGGER.failToCompactTimerJournal(this.file, e);
+            Files.deleteIfExists(compactedFile.toPath());
+            return false;
+        }
+        this.channel.close();
+        this.channel = new RandomAccessFile(this.file, "rw").getChannel();
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.buffer.position((int) (HEADER_SIZE + this.liveSize));
+        return true;
+    }
+
+    private static byte[] record(final byte operation, final String id, final byte[] state) {
+        final byte[] timerId = id.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer record = ByteBuffer.allocate(3 + timerId.length + state.length);
+        record.put(operation);
+        record.putShort((short) timerId.length);
+        record.put(timerId);
+        record.put(state);
+        return record.array();
+    }
+
+    private static long recordSize(final String id, final byte[] state) {
+        return RECORD_HEADER_SIZE + 3 + id.getBytes(StandardCharsets.UTF_8).length + state.length;
+    }
+}
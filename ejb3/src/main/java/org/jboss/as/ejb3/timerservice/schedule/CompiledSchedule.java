@@ -0,0 +1,273 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.schedule;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.timerservice.schedule.attribute.DayOfMonth;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.DayOfWeek;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Hour;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Minute;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Month;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Second;
+import org.jboss.as.ejb3.timerservice.schedule.attribute.Year;
+
+/**
+ * The attributes of a {@link ScheduleExpression}, parsed once into per field matchers.
+ * <p>
+ * A compiled schedule does not depend on the timezone, start or end of the expression, and is immutable, so it is
+ * shared by all the {@link CalendarBasedTimeout}s created from the same second, minute, hour, day-of-month,
+ * day-of-week, month and year values.
+ * </p>
+ */
+final class CompiledSchedule {
+
+    /**
+     * The maximum number of compiled schedules kept for reuse. Expressions beyond that are compiled for each timeout.
+     */
+    private static final int MAX_CACHED_SCHEDULES = 1024;
+
+    private static final ConcurrentMap<List<String>, CompiledSchedule> SCHEDULES = new ConcurrentHashMap<List<String>, CompiledSchedule>();
+
+    private static final int DAYS_IN_WEEK = 7;
+
+    private final Second second;
+    private final Minute minute;
+    private final Hour hour;
+    private final DayOfMonth dayOfMonth;
+    private final DayOfWeek dayOfWeek;
+    private final Month month;
+    private final Year year;
+
+    /**
+     * The days of a month accepted by the day-of-week, indexed by the day of the week of the first day of the month,
+     * bit <code>n</code> standing for day <code>n</code>
+     */
+    private final long[] daysOfMonthByFirstDayOfWeek = new long[DAYS_IN_WEEK + 1];
+
+    /**
+     * Returns the compiled schedule of the passed <code>schedule</code>, compiling it if it was not already.
+     *
+     * @param schedule The schedule, whose attributes have been checked for null values
+     * @return the compiled schedule
+     */
+    static CompiledSchedule compile(ScheduleExpression schedule) {
+        List<String> key = Arrays.asList(schedule.getSecond(), schedule.getMinute(), schedule.getHour(), schedule.getDayOfMonth(),
+                schedule.getDayOfWeek(), schedule.getMonth(), schedule.getYear());
+        CompiledSchedule compiled = SCHEDULES.get(key);
+        if (compiled == null) {
+            compiled = new CompiledSchedule(schedule);
+            if (SCHEDULES.size() < MAX_CACHED_SCHEDULES) {
+                CompiledSchedule existing = SCHEDULES.putIfAbsent(key, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    private CompiledSchedule(ScheduleExpression schedule) {
+        this.second = new Second(schedule.getSecond());
+        this.minute = new Minute(schedule.getMinute());
+        this.hour = new Hour(schedule.getHour());
+        this.dayOfWeek = new DayOfWeek(schedule.getDayOfWeek());
+        this.dayOfMonth = new DayOfMonth(schedule.getDayOfMonth());
+        this.month = new Month(schedule.getMonth());
+        this.year = new Year(schedule.getYear());
+        for (int firstDayOfWeek = Calendar.SUNDAY; firstDayOfWeek <= Calendar.SATURDAY; firstDayOfWeek++) {
+            long daysOfMonth = 0;
+            for (int day = 1; day <= DayOfMonth.MAX_DAY_OF_MONTH; day++) {
+                // the day-of-week values are 0 (Sunday) to 6 (Saturday)
+                if (this.dayOfWeek.matches((firstDayOfWeek - 1 + day - 1) % DAYS_IN_WEEK)) {
+                    daysOfMonth |= 1L << day;
+                }
+            }
+            this.daysOfMonthByFirstDayOfWeek[firstDayOfWeek] = daysOfMonth;
+        }
+    }
+
+    int getFirstSecond() {
+        return this.second.getFirst();
+    }
+
+    int getFirstMinute() {
+        return this.minute.getFirst();
+    }
+
+    int getFirstHour() {
+        return this.hour.getFirst();
+    }
+
+    /**
+     * Moves the passed calendar forward to the first time, at or after its current time, which is matched by this schedule.
+     * The calendar is the only object being updated, no matter how far the next match is.
+     * <p>
+     * A matching time which does not exist, because it falls in a daylight saving time transition, is replaced by the
+     * time the calendar moves it to, rather than skipped.
+     * </p>
+     *
+     * @param cal The calendar to move forward
+     * @param end The time, in milliseconds, after which there are no more matches, or {@link Long#MAX_VALUE}
+     * @return true if the calendar was moved to a match, false if there is no match before the end
+     */
+    boolean advance(GregorianCalendar cal, long end) {
+        while (true) {
+            int year = cal.get(Calendar.YEAR);
+            if (year > Year.MAX_YEAR || cal.getTimeInMillis() > end) {
+                return false;
+            }
+            int nextYear = this.year.getNextValue(year);
+            if (nextYear != year) {
+                if (nextYear < 0) {
+                    return false;
+                }
+                this.set(cal, nextYear, this.month.getFirstValue() - 1, 1, this.second.getFirst());
+                continue;
+            }
+            // calendar months are 0 based, schedule months are 1 based
+            int month = cal.get(Calendar.MONTH);
+            int nextMonth = this.month.getNextValue(month + 1) - 1;
+            if (nextMonth != month) {
+                if (nextMonth < 0) {
+                    this.set(cal, year + 1, this.month.getFirstValue() - 1, 1, this.second.getFirst());
+                } else {
+                    this.set(cal, year, nextMonth, 1, this.second.getFirst());
+                }
+                continue;
+            }
+            int dayOfMonth = cal.get(Calendar.DAY_OF_MONTH);
+            long nextDaysOfMonth = this.getDaysOfMonth(cal, year, month, dayOfMonth) & (-1L << dayOfMonth);
+            if (nextDaysOfMonth == 0) {
+                // the (lenient) calendar rolls over to the next year after December
+                this.set(cal, year, month + 1, 1, this.second.getFirst());
+                continue;
+            }
+            int nextDayOfMonth = Long.numberOfTrailingZeros(nextDaysOfMonth);
+            if (nextDayOfMonth != dayOfMonth) {
+                if (this.set(cal, year, month, nextDayOfMonth, this.second.getFirst())) {
+                    return cal.getTimeInMillis() <= end;
+                }
+                continue;
+            }
+            int hour = cal.get(Calendar.HOUR_OF_DAY);
+            int nextHour = this.hour.getNextValue(hour);
+            if (nextHour != hour) {
+                if (nextHour < 0) {
+                    this.set(cal, year, month, dayOfMonth + 1, this.second.getFirst());
+                } else if (this.set(cal, year, month, dayOfMonth, nextHour, this.minute.getFirst(), this.second.getFirst())) {
+                    return cal.getTimeInMillis() <= end;
+                }
+                continue;
+            }
+            int minute = cal.get(Calendar.MINUTE);
+            int nextMinute = this.minute.getNextValue(minute);
+            if (nextMinute != minute) {
+                if (nextMinute < 0) {
+                    this.set(cal, year, month, dayOfMonth, hour + 1, this.minute.getFirst(), this.second.getFirst());
+                } else if (this.set(cal, year, month, dayOfMonth, hour, nextMinute, this.second.getFirst())) {
+                    return cal.getTimeInMillis() <= end;
+                }
+                continue;
+            }
+            int second = cal.get(Calendar.SECOND);
+            int nextSecond = this.second.getNextValue(second);
+            if (nextSecond != second) {
+                if (nextSecond < 0) {
+                    this.set(cal, year, month, dayOfMonth, hour, minute + 1, this.second.getFirst());
+                } else if (this.set(cal, year, month, dayOfMonth, hour, minute, nextSecond)) {
+                    return cal.getTimeInMillis() <= end;
+                }
+                continue;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns the days of the current month of the calendar accepted by the day-of-month and day-of-week of this schedule.
+     */
+    private long getDaysOfMonth(GregorianCalendar cal, int year, int month, int dayOfMonth) {
+        int lastDayOfMonth = lastDayOfMonth(cal, year, month);
+        int firstDayOfWeek = (cal.get(Calendar.DAY_OF_WEEK) - dayOfMonth % DAYS_IN_WEEK + DAYS_IN_WEEK) % DAYS_IN_WEEK + 1;
+        long daysOfWeek = this.daysOfMonthByFirstDayOfWeek[firstDayOfWeek] & ((-1L >>> (63 - lastDayOfMonth)) & ~1L);
+        // a wildcard day-of-month leaves the choice to the day-of-week, and the other way round.
+        // Otherwise a day matches if it matches either of them
+        if (this.dayOfMonth.isWildcard()) {
+            return daysOfWeek;
+        }
+        long daysOfMonth = this.dayOfMonth.getDaysOfMonth(lastDayOfMonth, firstDayOfWeek);
+        if (this.dayOfWeek.isWildcard()) {
+            return daysOfMonth;
+        }
+        return daysOfMonth | daysOfWeek;
+    }
+
+    private boolean set(GregorianCalendar cal, int year, int month, int dayOfMonth, int second) {
+        return this.set(cal, year, month, dayOfMonth, this.hour.getFirst(), this.minute.getFirst(), second);
+    }
+
+    /**
+     * Sets the time of the passed calendar. Values beyond the range of their field roll over to the next field. A time
+     * which occurs twice, when the clocks are set back, is set to its first occurrence unless that one is already past.
+     *
+     * @return true if the time does not exist, because of a daylight saving time transition, and the calendar was moved
+     *         past the transition instead
+     */
+    private boolean set(GregorianCalendar cal, int year, int month, int dayOfMonth, int hour, int minute, int second) {
+        long from = cal.getTimeInMillis();
+        cal.set(year, month, dayOfMonth, hour, minute, second);
+        cal.set(Calendar.MILLISECOND, 0);
+        TimeZone zone = cal.getTimeZone();
+        int savings = zone.getDSTSavings();
+        if (savings > 0) {
+            long time = cal.getTimeInMillis();
+            long earlier = time - savings;
+            if (earlier >= from && zone.getOffset(earlier) == zone.getOffset(time) + savings) {
+                cal.setTimeInMillis(earlier);
+            }
+        }
+        return cal.get(Calendar.HOUR_OF_DAY) != hour || cal.get(Calendar.MINUTE) != minute;
+    }
+
+    private static int lastDayOfMonth(GregorianCalendar cal, int year, int month) {
+        switch (month) {
+            case Calendar.FEBRUARY:
+                return cal.isLeapYear(year) ? 29 : 28;
+            case Calendar.APRIL:
+            case Calendar.JUNE:
+            case Calendar.SEPTEMBER:
+            case Calendar.NOVEMBER:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
@@ -28,14 +28,14 @@ import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleValue;
 import org.jboss.as.ejb3.timerservice.schedule.value.SingleValue;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 /**
@@ -124,6 +124,22 @@ public class DayOfMonth extends IntegerBasedExpression {
 
     }
 
+    /**
+     * One or more spaces (which includes tabs and other forms of space)
+     */
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    /**
+     * The absolute days of the month of this expression, bit <code>n</code> standing for day <code>n</code>
+     */
+    private final long absoluteDaysOfMonth;
+
+    /**
+     * The relative values of this expression, resolved against a month each time it is matched. Single values
+     * are held as a range with the same start and end.
+     */
+    private final Day[][] relativeDaysOfMonth;
+
 
     /**
      * Creates a {@link DayOfMonth} by parsing the passed {@link String} <code>value</code>
@@ -139,6 +155,22 @@ public class DayOfMonth extends IntegerBasedExpression {
      */
     public DayOfMonth(String value) {
         super(value);
+        long absoluteDaysOfMonth = 0;
+        for (Integer dayOfMonth : this.absoluteValues) {
+            absoluteDaysOfMonth |= days(dayOfMonth, dayOfMonth);
+        }
+        this.absoluteDaysOfMonth = absoluteDaysOfMonth;
+        List<Day[]> relativeDaysOfMonth = new ArrayList<Day[]>(this.relativeValues.size());
+        for (ScheduleValue relativeValue : this.relativeValues) {
+            if (relativeValue instanceof SingleValue) {
+                Day day = this.parseDay(((SingleValue) relativeValue).getValue());
+                relativeDaysOfMonth.add(new Day[] { day, day });
+            } else if (relativeValue instanceof RangeValue) {
+                RangeValue range = (RangeValue) relativeValue;
+                relativeDaysOfMonth.add(new Day[] { this.parseDay(range.getStart()), this.parseDay(range.getEnd()) });
+            }
+        }
+        this.relativeDaysOfMonth = relativeDaysOfMonth.toArray(new Day[relativeDaysOfMonth.size()][]);
     }
 
     /**
@@ -165,20 +197,12 @@ public class DayOfMonth extends IntegerBasedExpression {
         if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
             return currentCal.get(Calendar.DAY_OF_MONTH);
         }
-        int currentDayOfMonth = currentCal.get(Calendar.DAY_OF_MONTH);
-        SortedSet<Integer> eligibleDaysOfMonth = this.getEligibleDaysOfMonth(currentCal);
-        if (eligibleDaysOfMonth.isEmpty()) {
+        long daysOfMonth = this.getDaysOfMonth(currentCal);
+        if (daysOfMonth == 0) {
             return null;
         }
-        for (Integer hour : eligibleDaysOfMonth) {
-            if (currentDayOfMonth == hour) {
-                return currentDayOfMonth;
-            }
-            if (hour > currentDayOfMonth) {
-                return hour;
-            }
-        }
-        return eligibleDaysOfMonth.first();
+        long nextDaysOfMonth = daysOfMonth & (-1L << currentCal.get(Calendar.DAY_OF_MONTH));
+        return Long.numberOfTrailingZeros(nextDaysOfMonth != 0 ? nextDaysOfMonth : daysOfMonth);
     }
 
     @Override
@@ -189,115 +213,75 @@ public class DayOfMonth extends IntegerBasedExpression {
         super.assertValid(value);
     }
 
-    private boolean hasRelativeDayOfMonth() {
-        if (this.relativeValues.isEmpty()) {
-            return false;
+    /**
+     * Returns the days of a month accepted by this expression, bit <code>n</code> of the returned mask standing for
+     * day <code>n</code>. Relative values are resolved against the month, so days beyond its last day are never
+     * part of the mask.
+     *
+     * @param lastDayOfMonth The number of days in the month
+     * @param firstDayOfWeek The day of the week of the first day of the month, as defined by {@link Calendar#DAY_OF_WEEK}
+     * @return the mask of the accepted days
+     */
+    public long getDaysOfMonth(int lastDayOfMonth, int firstDayOfWeek) {
+        long month = days(1, lastDayOfMonth);
+        if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
+            return month;
         }
-        return true;
+        long daysOfMonth = this.absoluteDaysOfMonth;
+        for (Day[] range : this.relativeDaysOfMonth) {
+            int start = range[0].resolve(lastDayOfMonth, firstDayOfWeek);
+            int end = range[1].resolve(lastDayOfMonth, firstDayOfWeek);
+            if (start > end) {
+                // In range "x-y", if x is larger than y, the range is equivalent to
+                // "x-max, min-y", where max is the largest value of the corresponding attribute
+                // and min is the smallest.
+                daysOfMonth |= days(start, MAX_DAY_OF_MONTH) | days(MIN_DAY_OF_MONTH, end);
+            } else {
+                daysOfMonth |= days(start, end);
+            }
+        }
+        return daysOfMonth & month;
     }
 
-    private SortedSet<Integer> getEligibleDaysOfMonth(Calendar cal) {
-        if (this.hasRelativeDayOfMonth() == false) {
-            return this.absoluteValues;
-        }
-        SortedSet<Integer> eligibleDaysOfMonth = new TreeSet<Integer>(this.absoluteValues);
-        for (ScheduleValue relativeValue : this.relativeValues) {
-            if (relativeValue instanceof SingleValue) {
-                SingleValue singleValue = (SingleValue) relativeValue;
-                String value = singleValue.getValue();
-                Integer absoluteDayOfMonth = this.getAbsoluteDayOfMonth(cal, value);
-                eligibleDaysOfMonth.add(absoluteDayOfMonth);
-            } else if (relativeValue instanceof RangeValue) {
-                RangeValue range = (RangeValue) relativeValue;
-                String start = range.getStart();
-                String end = range.getEnd();
-
-                Integer dayOfMonthStart = null;
-                // either start will be relative or end will be relative or both are relative
-                if (this.isRelativeValue(start)) {
-                    dayOfMonthStart = this.getAbsoluteDayOfMonth(cal, start);
-                } else {
-                    dayOfMonthStart = this.parseInt(start);
-                }
-
-                Integer dayOfMonthEnd = null;
-                if (this.isRelativeValue(end)) {
-                    dayOfMonthEnd = this.getAbsoluteDayOfMonth(cal, end);
-                } else {
-                    dayOfMonthEnd = this.parseInt(end);
-                }
-                // validations
-                this.assertValid(dayOfMonthStart);
-                this.assertValid(dayOfMonthEnd);
-
-                // start and end are both the same. So it's just a single value
-                if (dayOfMonthStart.equals(dayOfMonthEnd)) {
-                    eligibleDaysOfMonth.add(dayOfMonthEnd);
-                    continue;
-
-                }
-                if (dayOfMonthStart > dayOfMonthEnd) {
-                    // In range "x-y", if x is larger than y, the range is equivalent to
-                    // "x-max, min-y", where max is the largest value of the corresponding attribute
-                    // and min is the smallest.
-                    for (int i = dayOfMonthStart; i <= this.getMaxValue(); i++) {
-                        eligibleDaysOfMonth.add(i);
-                    }
-                    for (int i = this.getMinValue(); i <= dayOfMonthEnd; i++) {
-                        eligibleDaysOfMonth.add(i);
-                    }
-                } else {
-                    // just keep adding from range start to range end (both inclusive).
-                    for (int i = dayOfMonthStart; i <= dayOfMonthEnd; i++) {
-                        eligibleDaysOfMonth.add(i);
-                    }
-                }
-            }
+    private long getDaysOfMonth(Calendar cal) {
+        int dayOfMonth = cal.get(Calendar.DAY_OF_MONTH);
+        int firstDayOfWeek = (cal.get(Calendar.DAY_OF_WEEK) - dayOfMonth % 7 + 7) % 7 + 1;
+        return this.getDaysOfMonth(CalendarUtil.getLastDateOfMonth(cal), firstDayOfWeek);
+    }
 
+    /**
+     * Returns the mask of the days from <code>start</code> to <code>end</code> (both inclusive), ignoring those which
+     * cannot be a day of a month.
+     */
+    private static long days(int start, int end) {
+        int from = Math.max(start, 1);
+        int to = Math.min(end, MAX_DAY_OF_MONTH);
+        if (from > to) {
+            return 0;
         }
-        return eligibleDaysOfMonth;
+        return (-1L << from) & (-1L >>> (63 - to));
     }
 
-    private int getAbsoluteDayOfMonth(Calendar cal, String relativeDayOfMonth) {
-        if (relativeDayOfMonth == null || relativeDayOfMonth.trim().isEmpty()) {
-            throw EjbLogger.ROOT_LOGGER.relativeDayOfMonthIsNull();
+    private Day parseDay(String value) {
+        String trimmedValue = value.trim();
+        if (this.isRelativeValue(trimmedValue) == false) {
+            Integer dayOfMonth = this.parseInt(trimmedValue);
+            this.assertValid(dayOfMonth);
+            return new Day(Day.ABSOLUTE, dayOfMonth, 0);
         }
-        String trimmedRelativeDayOfMonth = relativeDayOfMonth.trim();
-        if (trimmedRelativeDayOfMonth.equalsIgnoreCase("last")) {
-            int lastDayOfCurrentMonth = CalendarUtil.getLastDateOfMonth(cal);
-            return lastDayOfCurrentMonth;
+        if (trimmedValue.equalsIgnoreCase("last")) {
+            return new Day(Day.FROM_LAST, 0, 0);
         }
-        if (this.isValidNegativeDayOfMonth(trimmedRelativeDayOfMonth)) {
-            Integer negativeRelativeDayOfMonth = Integer.parseInt(trimmedRelativeDayOfMonth);
-            int lastDayOfCurrentMonth = CalendarUtil.getLastDateOfMonth(cal);
-            return lastDayOfCurrentMonth + negativeRelativeDayOfMonth;
+        if (this.isValidNegativeDayOfMonth(trimmedValue)) {
+            return new Day(Day.FROM_LAST, Integer.parseInt(trimmedValue), 0);
         }
-        if (this.isDayOfWeekBased(trimmedRelativeDayOfMonth)) {
-
-            String[] parts = trimmedRelativeDayOfMonth.split("\\s+");
-            String ordinal = parts[0];
-            String day = parts[1];
-            int dayOfWeek = DAY_OF_MONTH_ALIAS.get(day.toLowerCase(Locale.ENGLISH));
-
-            Integer date = null;
-            if (ordinal.equalsIgnoreCase("last")) {
-                date = CalendarUtil.getDateOfLastDayOfWeekInMonth(cal, dayOfWeek);
-            } else {
-                int weekNumber = ORDINAL_TO_WEEK_NUMBER_MAPPING.get(ordinal.toLowerCase(Locale.ENGLISH));
-                date = CalendarUtil.getNthDayOfMonth(cal, weekNumber, dayOfWeek);
-            }
-
-            // TODO: Rethink about this. The reason why we have this currently is to handle cases like:
-            // 5th Wed which may not be valid for all months (i.e. all months do not have 5 weeks). In such
-            // cases we set the date to last date of the month.
-            // This needs to be thought about a bit more in detail, to understand it's impact on other scenarios.
-            if (date == null) {
-                date = CalendarUtil.getLastDateOfMonth(cal);
-            }
-
-            return date;
+        String[] parts = SPACES.split(trimmedValue);
+        String ordinal = parts[0].toLowerCase(Locale.ENGLISH);
+        int dayOfWeek = DAY_OF_MONTH_ALIAS.get(parts[1].toLowerCase(Locale.ENGLISH));
+        if (ordinal.equals("last")) {
+            return new Day(Day.LAST_DAY_OF_WEEK, 0, dayOfWeek);
         }
-        throw EjbLogger.ROOT_LOGGER.invalidRelativeValue(relativeDayOfMonth);
+        return new Day(Day.NTH_DAY_OF_WEEK, ORDINAL_TO_WEEK_NUMBER_MAPPING.get(ordinal), dayOfWeek);
     }
 
     private boolean isValidNegativeDayOfMonth(String dayOfMonth) {
@@ -315,9 +299,7 @@ public class DayOfMonth extends IntegerBasedExpression {
 
     private boolean isDayOfWeekBased(String relativeVal) {
         String trimmedVal = relativeVal.trim();
-        // one or more spaces (which includes tabs and other forms of space)
-        Pattern p = Pattern.compile("\\s+");
-        String[] relativeParts = p.split(trimmedVal);
+        String[] relativeParts = SPACES.split(trimmedVal);
         if (relativeParts == null) {
             return false;
         }
@@ -376,11 +358,11 @@ public class DayOfMonth extends IntegerBasedExpression {
         if (this.scheduleExpressionType == ScheduleExpressionType.WILDCARD) {
             return Calendar.SUNDAY;
         }
-        SortedSet<Integer> eligibleDaysOfMonth = this.getEligibleDaysOfMonth(cal);
-        if (eligibleDaysOfMonth.isEmpty()) {
+        long daysOfMonth = this.getDaysOfMonth(cal);
+        if (daysOfMonth == 0) {
             return null;
         }
-        return eligibleDaysOfMonth.first();
+        return Long.numberOfTrailingZeros(daysOfMonth);
     }
 
     @Override
@@ -395,4 +377,42 @@ public class DayOfMonth extends IntegerBasedExpression {
         }
         return null;
     }
+
+    /**
+     * A day of the month, which is either absolute or relative to the month it gets resolved against.
+     */
+    private static final class Day {
+        static final int ABSOLUTE = 0;
+        static final int FROM_LAST = 1;
+        static final int NTH_DAY_OF_WEEK = 2;
+        static final int LAST_DAY_OF_WEEK = 3;
+
+        private final int type;
+        private final int value;
+        private final int dayOfWeek;
+
+        Day(int type, int value, int dayOfWeek) {
+            this.type = type;
+            this.value = value;
+            this.dayOfWeek = dayOfWeek;
+        }
+
+        int resolve(int lastDayOfMonth, int firstDayOfWeek) {
+            switch (this.type) {
+                case FROM_LAST:
+                    return lastDayOfMonth + this.value;
+                case NTH_DAY_OF_WEEK:
+                    int date = 1 + (this.dayOfWeek - firstDayOfWeek + 7) % 7 + 7 * (this.value - 1);
+                    // TODO: Rethink about this. The reason why we have this currently is to handle cases like:
+                    // 5th Wed which may not be valid for all months (i.e. all months do not have 5 weeks). In such
+                    // cases we set the date to last date of the month.
+                    return date <= lastDayOfMonth ? date : lastDayOfMonth;
+                case LAST_DAY_OF_WEEK:
+                    int lastDayOfWeek = (firstDayOfWeek - 1 + lastDayOfMonth - 1) % 7 + 1;
+                    return lastDayOfMonth - (lastDayOfWeek - this.dayOfWeek + 7) % 7;
+                default:
+                    return this.value;
+            }
+        }
+    }
 }
@@ -139,14 +139,7 @@ public class DayOfWeek extends IntegerBasedExpression {
             return currentCal.get(Calendar.DAY_OF_WEEK);
         }
         int currentDayOfWeek = currentCal.get(Calendar.DAY_OF_WEEK);
-        for (Integer dayOfWeek : this.offsetAdjustedDaysOfWeek) {
-            if (currentDayOfWeek == dayOfWeek) {
-                return currentDayOfWeek;
-            }
-            if (dayOfWeek > currentDayOfWeek) {
-                return dayOfWeek;
-            }
-        }
-        return this.offsetAdjustedDaysOfWeek.first();
+        int next = this.getNextValue(currentDayOfWeek + OFFSET);
+        return (next >= 0 ? next : this.getFirstValue()) - OFFSET;
     }
 }
@@ -127,14 +127,7 @@ public class Hour extends IntegerBasedExpression {
             return null;
         }
         int currentHour = currentCal.get(Calendar.HOUR_OF_DAY);
-        for (Integer hour : this.absoluteValues) {
-            if (currentHour == hour) {
-                return currentHour;
-            }
-            if (hour > currentHour) {
-                return hour;
-            }
-        }
-        return this.absoluteValues.first();
+        int next = this.getNextValue(currentHour);
+        return next >= 0 ? next : this.getFirstValue();
     }
 }
@@ -30,6 +30,7 @@ import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleExpressionType;
 import org.jboss.as.ejb3.timerservice.schedule.value.ScheduleValue;
 import org.jboss.as.ejb3.timerservice.schedule.value.SingleValue;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.SortedSet;
@@ -62,6 +63,12 @@ public abstract class IntegerBasedExpression {
 
     protected final String origValue;
 
+    /**
+     * The {@link #absoluteValues} as a bit set, which is built on first use, once the subclass has adjusted them.
+     * Expressions are immutable after construction, so racing threads would just build the same bit set.
+     */
+    private volatile BitSet values;
+
     public IntegerBasedExpression(String value) {
         this.origValue = value;
         // check the type of value
@@ -213,4 +220,57 @@ public abstract class IntegerBasedExpression {
 
     public abstract boolean isRelativeValue(String value);
 
+    /**
+     * Returns true if this expression is a wildcard, that is if it accepts any value.
+     */
+    public boolean isWildcard() {
+        return this.scheduleExpressionType == ScheduleExpressionType.WILDCARD;
+    }
+
+    /**
+     * Returns the smallest (non-negative) absolute value of this expression which is greater than or equal to the passed
+     * <code>value</code>, or -1 if there is no such value. A wildcard accepts any value, so the passed value is returned as is.
+     *
+     * @param value The value to start searching from
+     */
+    public int getNextValue(int value) {
+        if (this.isWildcard()) {
+            return value;
+        }
+        return this.getValues().nextSetBit(value);
+    }
+
+    /**
+     * Returns true if the passed <code>value</code> is accepted by this expression, ignoring its relative values.
+     *
+     * @param value The value to check
+     */
+    public boolean matches(int value) {
+        return this.isWildcard() || (value >= 0 && this.getValues().get(value));
+    }
+
+    /**
+     * Returns the smallest (non-negative) absolute value of this expression, or -1 if it has none.
+     */
+    public int getFirstValue() {
+        if (this.isWildcard()) {
+            return this.getMinValue();
+        }
+        return this.getValues().nextSetBit(0);
+    }
+
+    private BitSet getValues() {
+        BitSet values = this.values;
+        if (values == null) {
+            values = new BitSet();
+            for (Integer value : this.absoluteValues) {
+                if (value >= 0) {
+                    values.set(value);
+                }
+            }
+            this.values = values;
+        }
+        return values;
+    }
+
 }
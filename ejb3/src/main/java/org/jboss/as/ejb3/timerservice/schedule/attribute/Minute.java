@@ -139,14 +139,7 @@ public class Minute extends IntegerBasedExpression {
             return null;
         }
         int currentMinute = currentCal.get(Calendar.MINUTE);
-        for (Integer minute : this.absoluteValues) {
-            if (currentMinute == minute) {
-                return currentMinute;
-            }
-            if (minute > currentMinute) {
-                return minute;
-            }
-        }
-        return this.absoluteValues.first();
+        int next = this.getNextValue(currentMinute);
+        return next >= 0 ? next : this.getFirstValue();
     }
 }
@@ -128,15 +128,8 @@ public class Month extends IntegerBasedExpression {
             return null;
         }
         int currentMonth = currentCal.get(Calendar.MONTH);
-        for (Integer month : this.offsetAdjustedMonths) {
-            if (currentMonth == month) {
-                return currentMonth;
-            }
-            if (month > currentMonth) {
-                return month;
-            }
-        }
-        return this.offsetAdjustedMonths.first();
+        int next = this.getNextValue(currentMonth + OFFSET);
+        return (next >= 0 ? next : this.getFirstValue()) - OFFSET;
     }
 
     public Integer getFirstMatch() {
@@ -83,15 +83,8 @@ public class Second extends IntegerBasedExpression {
             return null;
         }
         int currentSecond = currentCal.get(Calendar.SECOND);
-        for (Integer second : this.absoluteValues) {
-            if (currentSecond == second) {
-                return currentSecond;
-            }
-            if (second > currentSecond) {
-                return second;
-            }
-        }
-        return this.absoluteValues.first();
+        int next = this.getNextValue(currentSecond);
+        return next >= 0 ? next : this.getFirstValue();
     }
 
     public int getFirst() {
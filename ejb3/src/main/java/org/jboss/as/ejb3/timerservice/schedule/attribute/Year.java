@@ -121,14 +121,7 @@ public class Year extends IntegerBasedExpression {
             return null;
         }
         int currentYear = currentCal.get(Calendar.YEAR);
-        for (Integer year : this.absoluteValues) {
-            if (currentYear == year) {
-                return currentYear;
-            }
-            if (year > currentYear) {
-                return year;
-            }
-        }
-        return this.absoluteValues.first();
+        int next = this.getNextValue(currentYear);
+        return next >= 0 ? next : this.getFirstValue();
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.jboss.as.ejb3.cache.Identifiable;
+import org.jboss.as.ejb3.cache.StatefulObjectFactory;
+import org.jboss.as.server.ServerEnvironment;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.clustering.ee.ExpirationListener;
+import org.wildfly.clustering.ee.ExpirationScheduler;
+import org.wildfly.clustering.ee.TimerWheel;
+import org.wildfly.clustering.ejb.IdentifierFactory;
+
+/**
+ * Tests the expiration of the beans of a {@link SimpleCache}.
+ */
+public class SimpleCacheUnitTestCase {
+
+    @SuppressWarnings("unchecked")
+    private final StatefulObjectFactory<Bean> factory = mock(StatefulObjectFactory.class);
+    private SimpleCache<String, Bean> cache;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        TimerWheel wheel = mock(TimerWheel.class);
+        when(wheel.createScheduler(any(ExpirationListener.class), any(Executor.class))).thenReturn(mock(ExpirationScheduler.class));
+        when(factory.createInstance()).thenReturn(new Bean("bean"));
+        cache = new SimpleCache<>(factory, mock(IdentifierFactory.class), null, mock(ServerEnvironment.class), mock(ScheduledExecutorService.class), wheel);
+        cache.start();
+    }
+
+    @Test
+    public void testBeanInUseDoesNotExpire() {
+        Bean bean = cache.create();
+        assertSame(bean, cache.get("bean"));
+
+        cache.expired(Collections.singleton("bean"));
+        verify(factory, never()).destroyInstance(same(bean));
+        assertTrue(cache.contains("bean"));
+    }
+
+    @Test
+    public void testIdleBeanExpires() {
+        Bean bean = cache.create();
+        assertSame(bean, cache.get("bean"));
+        cache.release(bean);
+
+        cache.expired(Collections.singleton("bean"));
+        verify(factory).destroyInstance(same(bean));
+        assertNull(cache.get("bean"));
+        assertEquals(0, cache.getCacheSize());
+    }
+
+    @Test
+    public void testExpiredEntryCannotBeUsed() {
+        SimpleCache.Entry<Bean> entry = new SimpleCache.Entry<>(new Bean("bean"));
+        assertTrue(entry.use());
+        // a bean in use cannot expire
+        assertFalse(entry.invalidate());
+        assertTrue(entry.done());
+
+        assertTrue(entry.invalidate());
+        // an expired bean cannot be used, nor expire again
+        assertFalse(entry.use());
+        assertFalse(entry.invalidate());
+    }
+
+    static class Bean implements Identifiable<String> {
+        private final String id;
+
+        Bean(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests the counters of {@link InvocationMetrics}.
+ */
+public class InvocationMetricsUnitTestCase {
+
+    public static class Bean {
+        public void foo() {
+        }
+
+        public void foo(int i) {
+        }
+
+        public void bar() {
+        }
+    }
+
+    @Test
+    public void testTotals() throws Exception {
+        InvocationMetrics metrics = new InvocationMetrics();
+        Method foo = Bean.class.getMethod("foo");
+        Method bar = Bean.class.getMethod("bar");
+
+        invoke(metrics, 0, foo, 1, 10000);
+        invoke(metrics, 0, foo, 2, 20000);
+        invoke(metrics, 1, bar, 3, 30000);
+
+        assertEquals(3, metrics.getInvocations());
+        assertEquals(6, metrics.getWaitTime());
+        assertEquals(60, metrics.getExecutionTime());
+        assertEquals(0, metrics.getConcurrent());
+        assertEquals(1, metrics.getPeakConcurrent());
+
+        Map<String, InvocationMetrics.Values> methods = metrics.getMethods();
+        assertEquals(2, methods.size());
+        assertEquals(2, methods.get("foo").getInvocations());
+        assertEquals(3, methods.get("foo").getWaitTime());
+        assertEquals(30, methods.get("foo").getExecutionTime());
+        assertEquals(1, methods.get("bar").getInvocations());
+    }
+
+    @Test
+    public void testOverloadedMethodsReportedByName() throws Exception {
+        InvocationMetrics metrics = new InvocationMetrics();
+
+        // register the higher index first, so that the method table has to grow and be filled in
+        invoke(metrics, 2, Bean.class.getMethod("foo", int.class), 0, 5000);
+        invoke(metrics, 0, Bean.class.getMethod("foo"), 0, 7000);
+
+        Map<String, InvocationMetrics.Values> methods = metrics.getMethods();
+        assertEquals(1, methods.size());
+        assertEquals(2, methods.get("foo").getInvocations());
+        assertEquals(12, methods.get("foo").getExecutionTime());
+        assertEquals(2, metrics.getMethodLatencies().get("foo").getCount());
+    }
+
+    @Test
+    public void testLatency() throws Exception {
+        InvocationMetrics metrics = new InvocationMetrics();
+        Method foo = Bean.class.getMethod("foo");
+        Method bar = Bean.class.getMethod("bar");
+
+        for (int i = 1; i <= 99; i++) {
+            invoke(metrics, 0, foo, 0, 100);
+        }
+        invoke(metrics, 1, bar, 0, 5000);
+
+        LatencyHistogram.Snapshot latency = metrics.getLatency();
+        assertEquals(100, latency.getCount());
+        assertEquals(100, latency.getValueAtPercentile(50), 100 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(100, latency.getValueAtPercentile(99), 100 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(5000, latency.getValueAtPercentile(99.9));
+        assertEquals(5000, latency.getMax());
+        assertEquals(100, metrics.getMethodLatencies().get("foo").getMax());
+
+        metrics.resetLatency();
+        assertEquals(0, metrics.getLatency().getCount());
+        assertEquals(100, metrics.getInvocations());
+
+        // a window set later also applies to the methods registered afterwards
+        metrics.setLatencyWindow(1, TimeUnit.MINUTES);
+        invoke(metrics, 2, Bean.class.getMethod("foo", int.class), 0, 10);
+        assertEquals(1, metrics.getLatency().getCount());
+        assertEquals(60, metrics.getLatencyWindow(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMultiThread() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics();
+        final Method foo = Bean.class.getMethod("foo");
+        final Method bar = Bean.class.getMethod("bar");
+
+        Callable<Void> task = new Callable<Void>() {
+            public Void call() throws Exception {
+                for (int i = 0; i < 1000; i++) {
+                    invoke(metrics, i % 2, i % 2 == 0 ? foo : bar, 1, 2);
+                }
+                return null;
+            }
+        };
+
+        ExecutorService service = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] results = new Future<?>[16];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = service.submit(task);
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            service.shutdown();
+        }
+
+        assertEquals(16000, metrics.getInvocations());
+        assertEquals(16000, metrics.getWaitTime());
+        assertEquals(32, metrics.getExecutionTime());
+        assertEquals(16000, metrics.getLatency().getCount());
+        assertEquals(8000, metrics.getMethods().get("bar").getInvocations());
+        assertEquals(0, metrics.getConcurrent());
+    }
+
+    private static void invoke(InvocationMetrics metrics, int methodIndex, Method method, long waitTime, long executionTime) {
+        metrics.startInvocation();
+        metrics.finishInvocation(methodIndex, method, waitTime, executionTime);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests the buckets, percentiles and window of the {@link LatencyHistogram}.
+ */
+public class LatencyHistogramUnitTestCase {
+
+    @Test
+    public void testBuckets() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(bucket == previous || bucket == previous + 1);
+            assertTrue(value <= LatencyHistogram.highestValue(bucket));
+            // the relative error is bounded by the number of sub buckets
+            assertTrue(LatencyHistogram.highestValue(bucket) - value <= value / LatencyHistogram.SUB_BUCKETS);
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(LatencyHistogram.HIGHEST_TRACKABLE_VALUE));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(LatencyHistogram.HIGHEST_TRACKABLE_VALUE, LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1));
+        assertEquals(0, LatencyHistogram.bucket(-1));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot(0).getValueAtPercentile(99));
+
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value, 0);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(0);
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000, snapshot.getMax());
+        assertEquals(500, snapshot.getValueAtPercentile(50), 500 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(900, snapshot.getValueAtPercentile(90), 900 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(990, snapshot.getValueAtPercentile(99), 990 / LatencyHistogram.SUB_BUCKETS);
+        // never beyond the highest recorded value
+        assertEquals(1000, snapshot.getValueAtPercentile(99.9));
+        assertEquals(1000, snapshot.getValueAtPercentile(100));
+        assertEquals(1, snapshot.getValueAtPercentile(0));
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot(0).getCount());
+        assertEquals(0, histogram.snapshot(0).getMax());
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10, 0);
+        second.record(20, 0);
+        second.record(30, 0);
+
+        LatencyHistogram.Snapshot snapshot = first.snapshot(0).add(second.snapshot(0));
+        assertEquals(3, snapshot.getCount());
+        assertEquals(30, snapshot.getMax());
+        assertEquals(10, snapshot.getValueAtPercentile(33));
+    }
+
+    @Test
+    public void testWindow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5, 0);
+        histogram.setWindow(4, TimeUnit.SECONDS);
+        assertEquals(0, histogram.snapshot(0).getCount());
+        assertEquals(4, histogram.getWindow(TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        long slot = TimeUnit.SECONDS.toNanos(1);
+        histogram.record(10, start);
+        histogram.record(20, start + slot);
+        histogram.record(30, start + 2 * slot);
+        assertEquals(3, histogram.snapshot(start + 2 * slot).getCount());
+
+        // the slot of the first value is cleared once the window has passed it
+        assertEquals(3, histogram.snapshot(start + 3 * slot).getCount());
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(start + 4 * slot);
+        assertEquals(2, snapshot.getCount());
+        assertEquals(20, snapshot.getValueAtPercentile(0));
+
+        // nothing is left after a whole window without values
+        assertEquals(0, histogram.snapshot(start + 10 * slot).getCount());
+
+        histogram.setWindow(0, TimeUnit.SECONDS);
+        histogram.record(40, start + 20 * slot);
+        assertEquals(1, histogram.snapshot(start + 100 * slot).getCount());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.adaptive;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.ejb3.component.invocationmetrics.InvocationMetrics;
+import org.jboss.as.ejb3.pool.common.MockBean;
+import org.jboss.as.ejb3.pool.common.MockFactory;
+import org.jboss.as.ejb3.pool.strictmax.StrictMaxPool;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the sizing decisions of the {@link AdaptivePool}.
+ */
+public class AdaptivePoolUnitTestCase {
+
+    @Before
+    public void setUp() {
+        MockBean.reset();
+    }
+
+    private static AdaptivePool<MockBean> createPool(int size, int minSize, int maxSize) {
+        StrictMaxPool<MockBean> delegate = new StrictMaxPool<MockBean>(new MockFactory(), size, 1, TimeUnit.SECONDS);
+        return new AdaptivePool<MockBean>(delegate, new InvocationMetrics(), minSize, maxSize, null, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testGrowWhenExhausted() {
+        AdaptivePool<MockBean> pool = createPool(2, 1, 5);
+        pool.get();
+        pool.get();
+
+        pool.sample();
+        assertEquals(4, pool.getMaxSize());
+        assertEquals(2, pool.getAvailableCount());
+
+        pool.get();
+        pool.get();
+        pool.sample();
+        // never beyond the ceiling
+        assertEquals(5, pool.getMaxSize());
+        pool.get();
+        pool.sample();
+        assertEquals(5, pool.getMaxSize());
+    }
+
+    @Test
+    public void testShrinkAfterQuietSamples() {
+        AdaptivePool<MockBean> pool = createPool(8, 2, 8);
+        MockBean[] beans = new MockBean[8];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        for (MockBean bean : beans) {
+            pool.release(bean);
+        }
+
+        for (int i = 1; i < AdaptivePool.SHRINK_SAMPLES; i++) {
+            pool.sample();
+            assertEquals(8, pool.getMaxSize());
+        }
+        pool.sample();
+        assertEquals(6, pool.getMaxSize());
+        // idle instances beyond the floor are destroyed
+        assertEquals(2, pool.getCurrentSize());
+        assertEquals(6, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testShrinkToFloor() {
+        AdaptivePool<MockBean> pool = createPool(3, 2, 8);
+        for (int i = 0; i < 3 * AdaptivePool.SHRINK_SAMPLES; i++) {
+            pool.sample();
+        }
+        assertEquals(2, pool.getMaxSize());
+    }
+
+    @Test
+    public void testBusySampleResetsShrinking() {
+        AdaptivePool<MockBean> pool = createPool(8, 2, 8);
+        for (int i = 1; i < AdaptivePool.SHRINK_SAMPLES; i++) {
+            pool.sample();
+        }
+
+        // more than half of the instances in use, neither grow nor shrink
+        MockBean[] beans = new MockBean[5];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        pool.sample();
+        assertEquals(8, pool.getMaxSize());
+        for (MockBean bean : beans) {
+            pool.release(bean);
+        }
+
+        for (int i = 1; i < AdaptivePool.SHRINK_SAMPLES; i++) {
+            pool.sample();
+            assertEquals(8, pool.getMaxSize());
+        }
+        pool.sample();
+        assertEquals(6, pool.getMaxSize());
+    }
+
+    @Test
+    public void testScheduledSampling() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            StrictMaxPool<MockBean> delegate = new StrictMaxPool<MockBean>(new MockFactory(), 1, 1, TimeUnit.SECONDS);
+            AdaptivePool<MockBean> pool = new AdaptivePool<MockBean>(delegate, new InvocationMetrics(), 1, 4, executor, 10, TimeUnit.MILLISECONDS);
+            pool.start();
+            pool.get();
+            // blocks until a sample finds the pool exhausted and grows it
+            pool.get();
+            pool.stop();
+
+            assertEquals(2, MockBean.getPostConstructs());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
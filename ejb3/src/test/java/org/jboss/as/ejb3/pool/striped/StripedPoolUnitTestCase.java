@@ -0,0 +1,251 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.striped;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.pool.common.MockBean;
+import org.jboss.as.ejb3.pool.common.MockFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link StripedPool} with the same scenarios as the strict max pool.
+ */
+public class StripedPoolUnitTestCase {
+
+    @Before
+    public void setUp() {
+        MockBean.reset();
+    }
+
+    @Test
+    public void testGetRelease() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 10, 4, 1, TimeUnit.SECONDS);
+        pool.start();
+
+        MockBean[] beans = new MockBean[10];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        assertEquals(0, pool.getAvailableCount());
+
+        for (int i = 0; i < beans.length; i++) {
+            pool.release(beans[i]);
+            beans[i] = null;
+        }
+        assertEquals(10, pool.getAvailableCount());
+
+        pool.stop();
+
+        assertEquals(10, MockBean.getPostConstructs());
+        assertEquals(10, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testReuseFromOwnStripe() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 10, 4, 1, TimeUnit.SECONDS);
+        int stripe = (int) (Thread.currentThread().getId() % pool.getStripeCount());
+
+        MockBean bean = pool.get();
+        pool.release(bean);
+        assertSame(bean, pool.get());
+
+        assertEquals(1, pool.getMissCount(stripe));
+        assertEquals(1, pool.getHitCount(stripe));
+        assertEquals(0, pool.getStealCount(stripe));
+        assertEquals(1, pool.getCurrentSize());
+    }
+
+    @Test
+    public void testSteal() throws Exception {
+        final StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 10, 2, 1, TimeUnit.SECONDS);
+        final int stripe = (int) (Thread.currentThread().getId() % pool.getStripeCount());
+
+        // release an instance from a thread that maps to the other stripe
+        final MockBean bean = pool.get();
+        Thread thread = null;
+        while (thread == null) {
+            Thread candidate = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    pool.release(bean);
+                }
+            });
+            if (candidate.getId() % pool.getStripeCount() != stripe) {
+                thread = candidate;
+            }
+        }
+        thread.start();
+        thread.join();
+
+        assertEquals(0, pool.getIdleCount(stripe));
+        assertSame(bean, pool.get());
+        assertEquals(1, pool.getStealCount(stripe));
+        assertEquals(1, MockBean.getPostConstructs());
+    }
+
+    /**
+     * More threads than the pool size.
+     */
+    @Test
+    public void testMultiThread() throws Exception {
+        final StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 10, 4, 60, TimeUnit.SECONDS);
+        final AtomicInteger used = new AtomicInteger(0);
+        pool.start();
+
+        final CountDownLatch in = new CountDownLatch(1);
+        final CountDownLatch ready = new CountDownLatch(10);
+
+        Callable<Void> task = new Callable<Void>() {
+            public Void call() throws Exception {
+                MockBean bean = pool.get();
+                ready.countDown();
+                in.await();
+                pool.release(bean);
+
+                used.incrementAndGet();
+
+                return null;
+            }
+        };
+
+        ExecutorService service = Executors.newFixedThreadPool(20);
+        try {
+            Future<?>[] results = new Future<?>[20];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = service.submit(task);
+            }
+
+            ready.await(120, TimeUnit.SECONDS);
+            in.countDown();
+
+            for (Future<?> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            service.shutdown();
+        }
+
+        pool.stop();
+
+        assertEquals(20, used.intValue());
+        assertEquals(10, MockBean.getPostConstructs());
+        assertEquals(10, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testTooMany() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 10, 4, 1, TimeUnit.SECONDS);
+        pool.start();
+
+        MockBean[] beans = new MockBean[10];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+
+        try {
+            pool.get();
+            fail("should have thrown an exception");
+        } catch (Exception e) {
+            assertEquals(EjbLogger.ROOT_LOGGER.failedToAcquirePermit(1, TimeUnit.SECONDS).getMessage(), e.getMessage());
+        }
+
+        for (int i = 0; i < beans.length; i++) {
+            pool.release(beans[i]);
+            beans[i] = null;
+        }
+
+        pool.stop();
+
+        assertEquals(10, MockBean.getPostConstructs());
+        assertEquals(10, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testDiscardReleasesPermit() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 1, 2, 1, TimeUnit.SECONDS);
+
+        pool.discard(pool.get());
+        pool.release(pool.get());
+
+        assertEquals(1, pool.getAvailableCount());
+        assertEquals(2, MockBean.getPostConstructs());
+        assertEquals(1, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testSetMaxSize() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 2, 2, 1, TimeUnit.MILLISECONDS);
+        MockBean first = pool.get();
+        MockBean second = pool.get();
+
+        pool.setMaxSize(3);
+        assertEquals(1, pool.getAvailableCount());
+        MockBean third = pool.get();
+
+        // shrinking does not affect the instances in use, but no new ones are handed out until enough are returned
+        pool.setMaxSize(1);
+        assertEquals(0, pool.getAvailableCount());
+        pool.release(first);
+        pool.release(second);
+        assertEquals(0, pool.getAvailableCount());
+        try {
+            pool.get();
+            fail("should have thrown an exception");
+        } catch (Exception e) {
+            assertEquals(EjbLogger.ROOT_LOGGER.failedToAcquirePermit(1, TimeUnit.MILLISECONDS).getMessage(), e.getMessage());
+        }
+        pool.release(third);
+        assertEquals(1, pool.getAvailableCount());
+        assertEquals(1, pool.getMaxSize());
+    }
+
+    @Test
+    public void testTrim() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 10, 4, 1, TimeUnit.SECONDS);
+        MockBean[] beans = new MockBean[10];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        for (int i = 0; i < beans.length; i++) {
+            pool.release(beans[i]);
+        }
+
+        assertEquals(7, pool.trim(3));
+        assertEquals(0, pool.trim(3));
+        assertEquals(3, pool.getCurrentSize());
+        assertEquals(7, MockBean.getPreDestroys());
+        assertEquals(10, pool.getAvailableCount());
+    }
+}
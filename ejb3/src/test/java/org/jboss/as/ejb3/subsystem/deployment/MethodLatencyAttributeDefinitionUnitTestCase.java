@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.subsystem.deployment;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ATTRIBUTES;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.jboss.as.controller.descriptions.ResourceDescriptionResolver;
+import org.jboss.as.ejb3.component.invocationmetrics.LatencyHistogram;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.Test;
+
+/**
+ * Tests that the method-latency metric reads as described by {@link MethodLatencyAttributeDefinition}.
+ */
+public class MethodLatencyAttributeDefinitionUnitTestCase {
+
+    @Test
+    public void testReadMatchesDescription() {
+        ResourceDescriptionResolver resolver = mock(ResourceDescriptionResolver.class, RETURNS_MOCKS);
+        ModelNode resourceDescription = new ModelNode();
+        MethodLatencyAttributeDefinition.INSTANCE.addResourceAttributeDescription(resourceDescription, resolver, Locale.ENGLISH, null);
+        ModelNode description = resourceDescription.get(ATTRIBUTES, "method-latency");
+        assertEquals(ModelType.OBJECT, description.get(TYPE).asType());
+        ModelNode valueType = description.get(VALUE_TYPE);
+        assertEquals(ModelType.OBJECT, valueType.getType());
+        assertEquals(5, valueType.keys().size());
+
+        Map<String, LatencyHistogram.Snapshot> latencies = new HashMap<String, LatencyHistogram.Snapshot>();
+        latencies.put("foo", snapshot(10, 20, 30));
+        latencies.put("bar", snapshot(1000));
+        ModelNode result = new ModelNode();
+        MethodLatencyAttributeDefinition.addMethodLatencies(latencies, result);
+
+        // one object of the described percentiles per method
+        assertEquals(ModelType.OBJECT, result.getType());
+        assertEquals(latencies.keySet(), result.keys());
+        for (String method : result.keys()) {
+            ModelNode percentiles = result.get(method);
+            assertEquals(valueType.keys(), percentiles.keys());
+            for (String percentile : percentiles.keys()) {
+                assertEquals(valueType.get(percentile, TYPE).asType(), percentiles.get(percentile).getType());
+            }
+        }
+        assertEquals(30, result.get("foo", MethodLatencyAttributeDefinition.MAX).asLong());
+        assertEquals(20, result.get("foo", MethodLatencyAttributeDefinition.P50).asLong());
+        assertEquals(1000, result.get("bar", MethodLatencyAttributeDefinition.MAX).asLong());
+    }
+
+    @Test
+    public void testNoMethodsInvoked() {
+        ModelNode result = new ModelNode();
+        MethodLatencyAttributeDefinition.addMethodLatencies(new HashMap<String, LatencyHistogram.Snapshot>(), result);
+        assertEquals(ModelType.OBJECT, result.getType());
+        assertEquals(0, result.keys().size());
+    }
+
+    private static LatencyHistogram.Snapshot snapshot(long... values) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value : values) {
+            histogram.record(value, 0);
+        }
+        return histogram.snapshot(0);
+    }
+}
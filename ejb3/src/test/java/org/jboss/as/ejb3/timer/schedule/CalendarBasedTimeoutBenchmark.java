@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timer.schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.timerservice.schedule.CalendarBasedTimeout;
+
+/**
+ * Measures the throughput of {@link CalendarBasedTimeout#getNextTimeout(Calendar)} for typical cron style expressions,
+ * and of restoring a large number of schedule timers with {@link CalendarBasedTimeout#getNextTimeouts(List, Calendar)}.
+ * Not a test, run it with {@code main}.
+ */
+public class CalendarBasedTimeoutBenchmark {
+
+    private static final int ITERATIONS = 200000;
+
+    private static final int RESTORED_TIMERS = 50000;
+
+    /**
+     * second, minute, hour, day-of-month, day-of-week, month
+     */
+    private static final String[][] EXPRESSIONS = {
+            { "0", "*/5", "*", "*", "*", "*" },
+            { "0", "15", "5", "*", "*", "*" },
+            { "0", "30", "8", "*", "Mon-Fri", "*" },
+            { "0", "0", "0", "Last", "*", "*" },
+            { "0", "0", "2", "1st Mon", "*", "Jan,Apr,Jul,Oct" },
+            { "30", "0", "12", "29", "*", "Feb" },
+    };
+
+    public static void main(String... args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            for (String[] expression : EXPRESSIONS) {
+                System.out.printf("%s: %,d/s%n", Arrays.toString(expression), run(new CalendarBasedTimeout(schedule(expression))));
+            }
+            long start = System.nanoTime();
+            List<CalendarBasedTimeout> timeouts = new ArrayList<CalendarBasedTimeout>(RESTORED_TIMERS);
+            for (int i = 0; i < RESTORED_TIMERS; i++) {
+                timeouts.add(new CalendarBasedTimeout(schedule(EXPRESSIONS[i % EXPRESSIONS.length])));
+            }
+            Date[] nextTimeouts = CalendarBasedTimeout.getNextTimeouts(timeouts, new GregorianCalendar());
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("restore %,d timers: %,d ms%n", nextTimeouts.length, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    private static ScheduleExpression schedule(String[] expression) {
+        return new ScheduleExpression().second(expression[0]).minute(expression[1]).hour(expression[2])
+                .dayOfMonth(expression[3]).dayOfWeek(expression[4]).month(expression[5]);
+    }
+
+    private static long run(CalendarBasedTimeout timeout) {
+        long start = System.nanoTime();
+        Calendar current = timeout.getFirstTimeout();
+        long hash = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            Calendar next = timeout.getNextTimeout(current);
+            if (next == null) {
+                next = timeout.getFirstTimeout();
+            }
+            hash += next.getTimeInMillis();
+            current = next;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (hash == 42) {
+            System.out.println();
+        }
+        return ITERATIONS * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+}
@@ -586,6 +586,63 @@ public class CalendarBasedTimeoutTestCase {
         } while (start.before(end));
     }
 
+    /**
+     * Asserts that a day-of-week restricted to some months is not matched by the first days of a following month.
+     * Uses expression dayOfWeek=Mon month=Jan,Jul hour=23 minute=30, from MON 2025-01-27.
+     * Expected next timeout is MON 2025-07-07 23:30:00
+     */
+    @Test
+    public void testNextDayOfWeekInNextMonth() {
+        ScheduleExpression expression = new ScheduleExpression();
+        expression.dayOfWeek("Mon");
+        expression.month("Jan,Jul");
+        expression.hour("23");
+        expression.minute("30");
+        expression.timezone("UTC");
+        CalendarBasedTimeout calendarTimeout = new CalendarBasedTimeout(expression);
+
+        Calendar current = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        current.clear();
+        current.set(2025, Calendar.JANUARY, 27, 23, 30, 0);
+        Calendar nextTimeout = calendarTimeout.getNextTimeout(current);
+        Assert.assertNotNull(nextTimeout);
+        Assert.assertEquals(2025, nextTimeout.get(Calendar.YEAR));
+        Assert.assertEquals(Calendar.JULY, nextTimeout.get(Calendar.MONTH));
+        Assert.assertEquals(7, nextTimeout.get(Calendar.DAY_OF_MONTH));
+        Assert.assertEquals(Calendar.MONDAY, nextTimeout.get(Calendar.DAY_OF_WEEK));
+        Assert.assertEquals(23, nextTimeout.get(Calendar.HOUR_OF_DAY));
+        Assert.assertEquals(30, nextTimeout.get(Calendar.MINUTE));
+    }
+
+    /**
+     * Asserts that the next timeouts computed in bulk are those computed one by one, for timeouts sharing and not
+     * sharing their schedule expression.
+     */
+    @Test
+    public void testGetNextTimeouts() {
+        List<CalendarBasedTimeout> timeouts = new ArrayList<CalendarBasedTimeout>();
+        for (int i = 0; i < 10; i++) {
+            ScheduleExpression expression = new ScheduleExpression();
+            expression.dayOfMonth(i % 2 == 0 ? "Last" : "1st Mon");
+            expression.hour(i % 3 == 0 ? "2" : "*/6");
+            expression.minute("15");
+            expression.timezone(i % 4 == 0 ? "Europe/Berlin" : "America/New_York");
+            timeouts.add(new CalendarBasedTimeout(expression));
+        }
+        ScheduleExpression expired = new ScheduleExpression();
+        expired.year("2000");
+        timeouts.add(new CalendarBasedTimeout(expired));
+
+        Calendar current = new GregorianCalendar();
+        Date[] nextTimeouts = CalendarBasedTimeout.getNextTimeouts(timeouts, current);
+        Assert.assertEquals(timeouts.size(), nextTimeouts.length);
+        for (int i = 0; i < timeouts.size(); i++) {
+            Calendar nextTimeout = timeouts.get(i).getNextTimeout(current);
+            Assert.assertEquals(nextTimeout != null ? nextTimeout.getTime() : null, nextTimeouts[i]);
+        }
+        Assert.assertNull(nextTimeouts[timeouts.size() - 1]);
+    }
+
     private ScheduleExpression getTimezoneSpecificScheduleExpression() {
         ScheduleExpression scheduleExpression = new ScheduleExpression().timezone(this.timezone.getID());
         GregorianCalendar start = new GregorianCalendar(this.timezone);
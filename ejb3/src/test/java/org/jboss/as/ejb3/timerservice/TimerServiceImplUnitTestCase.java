@@ -0,0 +1,514 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ejb.TimerConfig;
+import javax.transaction.TransactionManager;
+
+import org.jboss.as.ejb3.component.EJBComponent;
+import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.msc.service.ServiceName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.clustering.ee.ExpirationListener;
+import org.wildfly.clustering.ee.ExpirationScheduler;
+import org.wildfly.clustering.ee.TimerWheel;
+
+/**
+ * Tests the scheduling of the timeouts of the {@link TimerServiceImpl} on a timer wheel. Most tests expire the scheduled
+ * tasks explicitly, in place of the wheel, and dispatch the timeouts on the calling thread.
+ */
+public class TimerServiceImplUnitTestCase {
+
+    private static final String TIMED_OBJECT_ID = "timedObject";
+    private static final long INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    // the scheduler computes the delay of a task from a clock read slightly later than the one of the task
+    private static final long TOLERANCE = 1000;
+
+    private final EJBComponent component = mock(EJBComponent.class);
+    private final TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+    private final TimerPersistence persistence = mock(TimerPersistence.class);
+    private final TimerWheel wheel = mock(TimerWheel.class);
+    private final ManualScheduler scheduler = new ManualScheduler();
+    private final List<String> timeouts = Collections.synchronizedList(new ArrayList<String>());
+    private TimerServiceImpl timerService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        when(component.getTransactionManager()).thenReturn(mock(TransactionManager.class));
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                timeouts.add(((TimerImpl) invocation.getArguments()[0]).getId());
+                return null;
+            }
+        }).when(invoker).callTimeout(any(TimerImpl.class));
+        when(persistence.registerChangeListener(eq(TIMED_OBJECT_ID), any(TimerPersistence.TimerChangeListener.class))).thenReturn(mock(Closeable.class));
+        when(persistence.shouldRun(any(TimerImpl.class), any(TransactionManager.class))).thenReturn(true);
+        when(persistence.loadActiveTimers(eq(TIMED_OBJECT_ID), any(TimerServiceImpl.class))).thenReturn(Collections.<TimerImpl>emptyList());
+        when(wheel.createScheduler(any(ExpirationListener.class), any(Executor.class))).thenAnswer(new Answer<ExpirationScheduler<Object>>() {
+            @Override
+            public ExpirationScheduler<Object> answer(InvocationOnMock invocation) {
+                scheduler.listener = (ExpirationListener<Object>) invocation.getArguments()[0];
+                return scheduler;
+            }
+        });
+
+        timerService = new TimerServiceImpl(Collections.<Method, List<AutoTimer>>emptyMap(), ServiceName.of("timerService"));
+        timerService.getEjbComponentInjectedValue().inject(component);
+        timerService.getTimedObjectInvoker().inject(invoker);
+        timerService.getTimerPersistence().inject(persistence);
+        timerService.getTimerWheelInjectedValue().inject(wheel);
+        timerService.getExecutorServiceInjectedValue().inject(new DirectExecutorService());
+    }
+
+    @After
+    public void tearDown() {
+        if (timerService.isStarted()) {
+            timerService.stop(null);
+        }
+    }
+
+    @Test
+    public void testSingleActionTimer() throws Exception {
+        timerService.start(null);
+        TimerImpl timer = (TimerImpl) timerService.createSingleActionTimer(INTERVAL, new TimerConfig(null, false));
+        Object task = scheduler.single();
+        assertScheduledAt(System.currentTimeMillis() + INTERVAL, task);
+
+        scheduler.expire(task);
+        assertEquals(Arrays.asList(timer.getId()), timeouts);
+        assertFalse(timerService.isScheduled(timer.getId()));
+        assertTrue(scheduler.getKeys().isEmpty());
+
+        // expiring the same task again, e.g. if the wheel still held it, does not time the timer out again
+        scheduler.expire(task);
+        assertEquals(1, timeouts.size());
+    }
+
+    @Test
+    public void testCancelRacingWithExpiry() throws Exception {
+        timerService.start(null);
+        TimerImpl cancelled = (TimerImpl) timerService.createSingleActionTimer(INTERVAL, new TimerConfig(null, false));
+        Object cancelledTask = scheduler.single();
+        TimerImpl other = (TimerImpl) timerService.createSingleActionTimer(INTERVAL, new TimerConfig(null, false));
+
+        // the wheel already collected the task of the timer, which is cancelled before its timeout is dispatched
+        cancelled.cancel();
+        assertFalse(timerService.isScheduled(cancelled.getId()));
+        scheduler.expire(cancelledTask);
+        assertTrue(timeouts.isEmpty());
+        assertEquals(0, timerService.getTimeoutCount());
+
+        // the other timer is not lost
+        assertTrue(timerService.isScheduled(other.getId()));
+        scheduler.expire(scheduler.single());
+        assertEquals(Arrays.asList(other.getId()), timeouts);
+    }
+
+    @Test
+    public void testCancelDuringTimeout() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                TimerImpl timer = (TimerImpl) invocation.getArguments()[0];
+                timeouts.add(timer.getId());
+                timer.cancel();
+                return null;
+            }
+        }).when(invoker).callTimeout(any(TimerImpl.class));
+        timerService.start(null);
+        TimerImpl timer = (TimerImpl) timerService.createIntervalTimer(INTERVAL, INTERVAL, new TimerConfig(null, false));
+        Object task = scheduler.single();
+
+        // the interval timer is rescheduled before its timeout is dispatched, and cancelled by the timeout
+        scheduler.expire(task);
+        assertEquals(Arrays.asList(timer.getId()), timeouts);
+        assertFalse(timerService.isScheduled(timer.getId()));
+        assertTrue(scheduler.getKeys().isEmpty());
+        scheduler.expire(task);
+        assertEquals(1, timeouts.size());
+    }
+
+    @Test
+    public void testRescheduleRacingWithExpiry() throws Exception {
+        timerService.start(null);
+        long start = System.currentTimeMillis() + INTERVAL;
+        TimerImpl timer = (TimerImpl) timerService.createIntervalTimer(new Date(start), INTERVAL, new TimerConfig(null, false));
+        Object first = scheduler.single();
+        scheduler.expire(first);
+        assertEquals(1, timeouts.size());
+
+        // the timer is rescheduled, e.g. by a refresh of the timers, while its next timeout still is the dispatched one
+        timer.setNextTimeout(new Date(start));
+        timer.scheduleTimeout(true);
+        Object second = scheduler.single();
+        assertNotSame(first, second);
+
+        // the dispatched timeout is skipped
+        assertScheduledAt(start + INTERVAL, second);
+        scheduler.expire(first);
+        assertEquals(1, timeouts.size());
+
+        // but the next one is not lost
+        scheduler.expire(second);
+        assertEquals(2, timeouts.size());
+        assertTrue(timerService.isScheduled(timer.getId()));
+        assertScheduledAt(start + 2 * INTERVAL, scheduler.single());
+    }
+
+    @Test
+    public void testFixedRateDoesNotDrift() throws Exception {
+        timerService.start(null);
+        long start = System.currentTimeMillis() + INTERVAL;
+        timerService.createIntervalTimer(new Date(start), INTERVAL, new TimerConfig(null, false));
+
+        for (int i = 0; i < 5; ++i) {
+            Object task = scheduler.single();
+            // the timeouts are dispatched at arbitrary times, but each one is scheduled relative to the previous expiration
+            assertScheduledAt(start + i * INTERVAL, task);
+            Thread.sleep(10);
+            scheduler.expire(task);
+        }
+        assertEquals(5, timeouts.size());
+    }
+
+    @Test
+    public void testLateTimeoutsDoNotDelayTheNextOnes() throws Exception {
+        timerService.start(null);
+        long start = System.currentTimeMillis() - 5 * INTERVAL;
+        timerService.createIntervalTimer(new Date(start), INTERVAL, new TimerConfig(null, false));
+
+        // the missed expirations are due at once, rather than one interval after the late timeout
+        for (int i = 0; i < 3; ++i) {
+            Object task = scheduler.single();
+            assertEquals(0, scheduler.getDelay(task));
+            scheduler.expire(task);
+        }
+        assertEquals(3, timeouts.size());
+        assertEquals(3, timerService.getTimeoutCount());
+        // the lateness of the timeouts is 5, 4 and 3 intervals
+        assertTrue(timerService.getMaxLateness() >= 5 * INTERVAL);
+        assertTrue(timerService.getMaxLateness() < 5 * INTERVAL + TOLERANCE);
+        assertTrue(timerService.getAverageLateness() >= 4 * INTERVAL);
+        assertTrue(timerService.getAverageLateness() < 4 * INTERVAL + TOLERANCE);
+    }
+
+    @Test
+    public void testLatenessMetrics() throws Exception {
+        timerService.start(null);
+        assertEquals(0, timerService.getTimeoutCount());
+        assertEquals(0, timerService.getAverageLateness());
+        assertEquals(0, timerService.getMaxLateness());
+
+        timerService.createSingleActionTimer(new Date(System.currentTimeMillis() - 200), new TimerConfig(null, false));
+        scheduler.expire(scheduler.single());
+        assertEquals(1, timerService.getTimeoutCount());
+        assertTrue(timerService.getMaxLateness() >= 200);
+        assertTrue(timerService.getAverageLateness() >= 200);
+
+        timerService.createSingleActionTimer(new Date(System.currentTimeMillis() - 600), new TimerConfig(null, false));
+        scheduler.expire(scheduler.single());
+        assertEquals(2, timerService.getTimeoutCount());
+        assertTrue(timerService.getMaxLateness() >= 600);
+        assertTrue(timerService.getAverageLateness() >= 400);
+        assertTrue(timerService.getAverageLateness() <= timerService.getMaxLateness());
+
+        // timeouts dispatched ahead of their expiration are not late
+        long max = timerService.getMaxLateness();
+        timerService.createSingleActionTimer(INTERVAL, new TimerConfig(null, false));
+        scheduler.expire(scheduler.single());
+        assertEquals(3, timerService.getTimeoutCount());
+        assertEquals(max, timerService.getMaxLateness());
+    }
+
+    @Test
+    public void testRestorePersistentTimers() throws Exception {
+        long now = System.currentTimeMillis();
+        TimerImpl future = persistentTimer(new Date(now + INTERVAL), 0, TimerState.ACTIVE);
+        TimerImpl missed = persistentTimer(new Date(now - INTERVAL), INTERVAL, TimerState.ACTIVE);
+        TimerImpl cancelled = persistentTimer(new Date(now + INTERVAL), 0, TimerState.CANCELED);
+        when(persistence.loadActiveTimers(eq(TIMED_OBJECT_ID), any(TimerServiceImpl.class))).thenReturn(Arrays.asList(future, missed, cancelled));
+
+        timerService.start(null);
+        assertTrue(timerService.isScheduled(future.getId()));
+        assertTrue(timerService.isScheduled(missed.getId()));
+        assertFalse(timerService.isScheduled(cancelled.getId()));
+        assertEquals(2, scheduler.getKeys().size());
+        assertEquals(2, timerService.getTimers().size());
+
+        // the expiration missed while the timer service was stopped is due at once
+        Object missedTask = null;
+        for (Object task : scheduler.getKeys()) {
+            if (scheduler.getDelay(task) == 0) {
+                missedTask = task;
+            } else {
+                assertScheduledAt(now + INTERVAL, task);
+            }
+        }
+        scheduler.expire(missedTask);
+        assertEquals(Arrays.asList(missed.getId()), timeouts);
+        verify(persistence, atLeastOnce()).persistTimer(missed);
+        verify(persistence, never()).addTimer(any(TimerImpl.class));
+
+        // the restored interval timer keeps its rate
+        assertTrue(timerService.isScheduled(missed.getId()));
+        assertEquals(2, scheduler.getKeys().size());
+
+        timerService.stop(null);
+        verify(persistence).timerUndeployed(TIMED_OBJECT_ID);
+        assertTrue(scheduler.closed);
+        assertTrue(scheduler.getKeys().isEmpty());
+    }
+
+    @Test
+    public void testCancelRacingWithExpiryOnTimerWheel() throws Exception {
+        final ConcurrentMap<String, AtomicInteger> counts = new ConcurrentHashMap<String, AtomicInteger>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                String id = ((TimerImpl) invocation.getArguments()[0]).getId();
+                AtomicInteger count = counts.putIfAbsent(id, new AtomicInteger(1));
+                if (count != null) {
+                    count.incrementAndGet();
+                }
+                return null;
+            }
+        }).when(invoker).callTimeout(any(TimerImpl.class));
+        final TimerWheel timerWheel = new TimerWheel(1, TimeUnit.MILLISECONDS);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        timerService = new TimerServiceImpl(Collections.<Method, List<AutoTimer>>emptyMap(), ServiceName.of("timerService"));
+        timerService.getEjbComponentInjectedValue().inject(component);
+        timerService.getTimedObjectInvoker().inject(invoker);
+        timerService.getTimerPersistence().inject(persistence);
+        timerService.getTimerWheelInjectedValue().inject(timerWheel);
+        timerService.getExecutorServiceInjectedValue().inject(executor);
+        timerService.start(null);
+        try {
+            final int count = 200;
+            final List<TimerImpl> timers = new ArrayList<TimerImpl>();
+            for (int i = 0; i < count; ++i) {
+                timers.add((TimerImpl) timerService.createSingleActionTimer(i % 5, new TimerConfig(null, false)));
+            }
+            // cancel the timers while the wheel expires them
+            final Map<String, Boolean> cancelled = new ConcurrentHashMap<String, Boolean>();
+            final CountDownLatch done = new CountDownLatch(count);
+            ExecutorService cancellers = Executors.newFixedThreadPool(4);
+            try {
+                for (final TimerImpl timer : timers) {
+                    cancellers.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                timer.cancel();
+                                cancelled.put(timer.getId(), Boolean.TRUE);
+                            } catch (RuntimeException expired) {
+                                cancelled.put(timer.getId(), Boolean.FALSE);
+                            } finally {
+                                done.countDown();
+                            }
+                        }
+                    });
+                }
+                assertTrue(done.await(10, TimeUnit.SECONDS));
+            } finally {
+                cancellers.shutdownNow();
+            }
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (!timerService.getTimers().isEmpty()) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail(timerService.getTimers().toString());
+                }
+                Thread.sleep(10);
+            }
+            // let the wheel dispatch whatever it might still hold
+            Thread.sleep(100);
+
+            for (TimerImpl timer : timers) {
+                AtomicInteger timeouts = counts.get(timer.getId());
+                int timedOut = (timeouts != null) ? timeouts.get() : 0;
+                // no timer times out twice
+                assertTrue(timer.getId(), timedOut <= 1);
+                // a timer that could not be cancelled because it already expired did time out
+                if (!cancelled.get(timer.getId())) {
+                    assertEquals(timer.getId(), 1, timedOut);
+                }
+                assertFalse(timerService.isScheduled(timer.getId()));
+            }
+        } finally {
+            timerService.stop(null);
+            executor.shutdownNow();
+        }
+    }
+
+    private TimerImpl persistentTimer(Date next, long interval, TimerState state) {
+        return TimerImpl.builder()
+                .setId(UUID.randomUUID().toString())
+                .setTimedObjectId(TIMED_OBJECT_ID)
+                .setInitialDate(next)
+                .setNextDate(next)
+                .setRepeatInterval(interval)
+                .setPersistent(true)
+                .setTimerState(state)
+                .build(timerService);
+    }
+
+    private void assertScheduledAt(long expected, Object task) {
+        long expiration = scheduler.getExpiration(task);
+        assertTrue(expected + " != " + expiration, Math.abs(expected - expiration) < TOLERANCE);
+    }
+
+    /**
+     * Records the scheduled tasks, which the tests expire explicitly.
+     */
+    private static class ManualScheduler implements ExpirationScheduler<Object> {
+        volatile ExpirationListener<Object> listener;
+        volatile boolean closed;
+        // the delay and the expiration of each scheduled task
+        private final Map<Object, long[]> scheduled = Collections.synchronizedMap(new HashMap<Object, long[]>());
+
+        @Override
+        public void schedule(Object key, long delay, TimeUnit unit) {
+            if (!closed) {
+                long millis = unit.toMillis(delay);
+                scheduled.put(key, new long[] { millis, System.currentTimeMillis() + millis });
+            }
+        }
+
+        @Override
+        public boolean cancel(Object key) {
+            return scheduled.remove(key) != null;
+        }
+
+        @Override
+        public Set<Object> getKeys() {
+            synchronized (scheduled) {
+                return Collections.unmodifiableSet(new HashSet<Object>(scheduled.keySet()));
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            scheduled.clear();
+        }
+
+        Object single() {
+            Set<Object> keys = getKeys();
+            assertEquals(keys.toString(), 1, keys.size());
+            return keys.iterator().next();
+        }
+
+        long getDelay(Object key) {
+            return scheduled.get(key)[0];
+        }
+
+        long getExpiration(Object key) {
+            return scheduled.get(key)[1];
+        }
+
+        void expire(Object key) {
+            scheduled.remove(key);
+            listener.expired(Collections.singleton(key));
+        }
+    }
+
+    /**
+     * Runs the timeouts on the thread that dispatches them.
+     */
+    private static class DirectExecutorService extends AbstractExecutorService {
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return shutdown;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.marshalling.SimpleClassResolver;
+import org.jboss.util.Base64;
+
+/**
+ * Compares the size and the decode throughput of timer infos stored by the {@link MarshallingTimerInfoCodec} with the
+ * Base64 text stored before. Not a test, run it with {@code main}.
+ */
+public class MarshallingTimerInfoCodecBenchmark {
+
+    private static final int ITERATIONS = 200000;
+
+    public static void main(String... args) throws Exception {
+        MarshallingTimerInfoCodec codec = new MarshallingTimerInfoCodec(new SimpleClassResolver(MarshallingTimerInfoCodecBenchmark.class.getClassLoader()));
+        Map<String, Object> info = MarshallingTimerInfoCodecUnitTestCase.sampleInfo();
+
+        String legacy = Base64.encodeBytes(MarshallingTimerInfoCodecUnitTestCase.legacyEncode(info));
+        byte[] binary = codec.encode(info);
+        String text = Base64.encodeBytes(binary);
+        System.out.printf("row size: legacy text %d, text %d, binary %d bytes%n", legacy.length(), text.length(), binary.length);
+
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("decode legacy text: %,d/s%n", run(codec, legacy, null));
+            System.out.printf("decode text: %,d/s%n", run(codec, text, null));
+            System.out.printf("decode binary: %,d/s%n", run(codec, null, binary));
+        }
+    }
+
+    private static long run(MarshallingTimerInfoCodec codec, String text, byte[] binary) throws Exception {
+        long start = System.nanoTime();
+        int hash = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            Object value = codec.decode(text != null ? Base64.decode(text) : binary);
+            hash += value.hashCode();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (hash == 42) {
+            System.out.println();
+        }
+        return ITERATIONS * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.SimpleClassResolver;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+import org.junit.Test;
+
+/**
+ * Tests the {@link MarshallingTimerInfoCodec}.
+ */
+public class MarshallingTimerInfoCodecUnitTestCase {
+
+    private final MarshallingTimerInfoCodec codec = new MarshallingTimerInfoCodec(new SimpleClassResolver(MarshallingTimerInfoCodecUnitTestCase.class.getClassLoader()));
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<String, Object> info = sampleInfo();
+        byte[] data = codec.encode(info);
+        assertEquals(MarshallingTimerInfoCodec.VERSION, data[0]);
+        assertEquals(info, codec.decode(data));
+
+        assertEquals("info", codec.decode(codec.encode("info")));
+        assertEquals(42L, codec.decode(codec.encode(42L)));
+        assertArrayEquals(new int[] { 1, 2, 3 }, (int[]) codec.decode(codec.encode(new int[] { 1, 2, 3 })));
+        CustomInfo custom = new CustomInfo("custom", 7);
+        assertEquals(custom, codec.decode(codec.encode(custom)));
+    }
+
+    @Test
+    public void testLegacyData() throws Exception {
+        Map<String, Object> info = sampleInfo();
+        assertEquals(info, codec.decode(legacyEncode(info)));
+        CustomInfo custom = new CustomInfo("custom", 7);
+        assertEquals(custom, codec.decode(legacyEncode(custom)));
+    }
+
+    @Test
+    public void testSmallerThanLegacy() throws Exception {
+        Map<String, Object> info = sampleInfo();
+        assertTrue(codec.encode(info).length < legacyEncode(info).length);
+    }
+
+    static Map<String, Object> sampleInfo() {
+        Map<String, Object> info = new HashMap<>();
+        info.put("name", "nightly-report");
+        info.put("count", 12);
+        info.put("limit", 10000L);
+        info.put("created", new Date(1400000000000L));
+        return info;
+    }
+
+    /**
+     * Encodes a value the way timer infos were stored before the codec existed.
+     */
+    static byte[] legacyEncode(Object value) throws IOException {
+        MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setClassResolver(new SimpleClassResolver(MarshallingTimerInfoCodecUnitTestCase.class.getClassLoader()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Marshaller marshaller = new RiverMarshallerFactory().createMarshaller(configuration);
+        marshaller.start(new OutputStreamByteOutput(out));
+        marshaller.writeObject(value);
+        marshaller.finish();
+        return out.toByteArray();
+    }
+
+    static class CustomInfo implements java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String name;
+        private final int priority;
+
+        CustomInfo(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof CustomInfo)) {
+                return false;
+            }
+            CustomInfo info = (CustomInfo) object;
+            return name.equals(info.name) && priority == info.priority;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + priority;
+        }
+    }
+}
@@ -0,0 +1,496 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Timer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.TimerInfoCodec;
+import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
+import org.jboss.as.ejb3.timerservice.persistence.database.DatabaseTimerPersistence.RefreshMode;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.msc.service.ServiceName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests the refresh and the write-behind of the {@link DatabaseTimerPersistence} against an H2 database shared by two nodes.
+ */
+public class DatabaseTimerPersistenceUnitTestCase {
+
+    private static final String TIMED_OBJECT_ID = "timedObject";
+    private static final String PARTITION = "partition";
+
+    private JdbcDataSource dataSource;
+    private TimerServiceImpl timerService;
+    private TransactionManager transactionManager;
+    private volatile Thread writeBlocker;
+    private volatile CountDownLatch writeRelease;
+    private final List<DatabaseTimerPersistence> persistences = new ArrayList<>();
+
+    @Before
+    public void createDatabase() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:timers;DB_CLOSE_DELAY=-1");
+        TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        timerService = mock(TimerServiceImpl.class);
+        when(timerService.getInvoker()).thenReturn(invoker);
+        when(timerService.getServiceName()).thenReturn(ServiceName.of("timerService"));
+        transactionManager = mock(TransactionManager.class);
+    }
+
+    @After
+    public void dropDatabase() throws SQLException {
+        for (DatabaseTimerPersistence persistence : persistences) {
+            persistence.stop(null);
+        }
+        System.clearProperty(DatabaseTimerPersistence.INCREMENTAL_REFRESH_OVERLAP);
+        System.clearProperty(DatabaseTimerPersistence.FULL_REFRESH_INTERVAL);
+        System.clearProperty(DatabaseTimerPersistence.WRITE_BEHIND_INTERVAL);
+        execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testInsertIsRefreshed() throws Exception {
+        DatabaseTimerPersistence first = start(RefreshMode.INCREMENTAL);
+        DatabaseTimerPersistence second = start(RefreshMode.INCREMENTAL);
+        RecordingListener listener = listen(second);
+
+        first.addTimer(timer("a", TimerState.ACTIVE, new Date()));
+        second.refresh();
+        assertEquals(1, listener.added.size());
+        assertEquals("a", listener.added.get(0));
+
+        // timers which are known already are not added again
+        second.refresh();
+        assertEquals(1, listener.added.size());
+        assertTrue(listener.removed.isEmpty());
+    }
+
+    @Test
+    public void testUpdateIsWritten() throws Exception {
+        DatabaseTimerPersistence first = start(RefreshMode.INCREMENTAL);
+        DatabaseTimerPersistence second = start(RefreshMode.INCREMENTAL);
+        RecordingListener listener = listen(second);
+
+        first.addTimer(timer("a", TimerState.ACTIVE, new Date()));
+        second.refresh();
+
+        Date next = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        first.persistTimer(timer("a", TimerState.ACTIVE, next));
+        assertEquals(next.getTime(), nextDate("a").getTime());
+
+        // an update neither adds nor removes the timer
+        second.refresh();
+        assertEquals(1, listener.added.size());
+        assertTrue(listener.removed.isEmpty());
+    }
+
+    @Test
+    public void testDeleteIsRefreshed() throws Exception {
+        DatabaseTimerPersistence first = start(RefreshMode.INCREMENTAL);
+        DatabaseTimerPersistence second = start(RefreshMode.INCREMENTAL);
+        RecordingListener listener = listen(second);
+
+        first.addTimer(timer("a", TimerState.ACTIVE, new Date()));
+        second.refresh();
+
+        first.persistTimer(timer("a", TimerState.CANCELED, new Date()));
+        assertEquals(1, count("SELECT COUNT(*) FROM JBOSS_EJB_TIMER_DELETED WHERE ID='a'"));
+        second.refresh();
+        assertEquals(1, listener.removed.size());
+        assertEquals("a", listener.removed.get(0));
+    }
+
+    @Test
+    public void testExistingTableIsMigrated() throws Exception {
+        execute(loadSql().getProperty("create-table"));
+        execute("INSERT INTO JBOSS_EJB_TIMER (ID, TIMED_OBJECT_ID, INITIAL_DATE, REPEAT_INTERVAL, TIMER_STATE, CALENDAR_TIMER, PARTITION) VALUES ('a', '" + TIMED_OBJECT_ID + "', CURRENT_TIMESTAMP, 0, 'ACTIVE', FALSE, '" + PARTITION + "')");
+
+        DatabaseTimerPersistence persistence = start(RefreshMode.INCREMENTAL);
+        assertEquals(1, count("SELECT COUNT(*) FROM JBOSS_EJB_TIMER WHERE CREATED_DATE IS NOT NULL"));
+        assertEquals(0, count("SELECT COUNT(*) FROM JBOSS_EJB_TIMER_DELETED"));
+
+        // the timers of the old table are still loaded, and the new ones are tracked
+        assertEquals(1, persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService).size());
+        DatabaseTimerPersistence other = start(RefreshMode.INCREMENTAL);
+        RecordingListener listener = listen(other);
+        persistence.addTimer(timer("b", TimerState.ACTIVE, new Date()));
+        other.refresh();
+        assertEquals(1, listener.added.size());
+        assertEquals("b", listener.added.get(0));
+    }
+
+    @Test
+    public void testSwitchFromFullToIncremental() throws Exception {
+        DatabaseTimerPersistence full = start(RefreshMode.FULL);
+        full.addTimer(timer("a", TimerState.ACTIVE, new Date()));
+        // deletions are not tracked by a full refresh
+        full.addTimer(timer("b", TimerState.ACTIVE, new Date()));
+        full.persistTimer(timer("b", TimerState.CANCELED, new Date()));
+
+        DatabaseTimerPersistence incremental = start(RefreshMode.INCREMENTAL);
+        List<TimerImpl> timers = incremental.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        assertEquals(1, timers.size());
+        assertEquals("a", timers.get(0).getId());
+
+        // the timers created before the switch are deleted like the new ones
+        DatabaseTimerPersistence other = start(RefreshMode.INCREMENTAL);
+        RecordingListener listener = listen(other);
+        incremental.addTimer(timer("c", TimerState.ACTIVE, new Date()));
+        incremental.persistTimer(timer("a", TimerState.CANCELED, new Date()));
+        other.refresh();
+        assertEquals(1, listener.added.size());
+        assertEquals("c", listener.added.get(0));
+        assertEquals(1, listener.removed.size());
+        assertEquals("a", listener.removed.get(0));
+    }
+
+    @Test
+    public void testLateInsertIsMissedOutsideOverlap() throws Exception {
+        DatabaseTimerPersistence first = start(RefreshMode.INCREMENTAL);
+        DatabaseTimerPersistence second = start(RefreshMode.INCREMENTAL);
+        RecordingListener listener = listen(second);
+
+        insertLate(first, second, TimeUnit.MINUTES.toMillis(2));
+        second.refresh();
+        assertEquals(1, listener.added.size());
+    }
+
+    @Test
+    public void testLateInsertIsFoundWithinConfiguredOverlap() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.INCREMENTAL_REFRESH_OVERLAP, Long.toString(TimeUnit.MINUTES.toMillis(5)));
+        DatabaseTimerPersistence first = start(RefreshMode.INCREMENTAL);
+        DatabaseTimerPersistence second = start(RefreshMode.INCREMENTAL);
+        RecordingListener listener = listen(second);
+
+        insertLate(first, second, TimeUnit.MINUTES.toMillis(2));
+        second.refresh();
+        assertEquals(2, listener.added.size());
+        assertEquals("late", listener.added.get(1));
+    }
+
+    @Test
+    public void testLateInsertIsFoundByFullRefresh() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.FULL_REFRESH_INTERVAL, "1");
+        DatabaseTimerPersistence first = start(RefreshMode.INCREMENTAL);
+        DatabaseTimerPersistence second = start(RefreshMode.INCREMENTAL);
+        RecordingListener listener = listen(second);
+
+        insertLate(first, second, TimeUnit.MINUTES.toMillis(2));
+        Thread.sleep(10);
+        second.refresh();
+        assertEquals(2, listener.added.size());
+        assertEquals("late", listener.added.get(1));
+    }
+
+    @Test
+    public void testUpdateIsWrittenImmediatelyByDefault() throws Exception {
+        DatabaseTimerPersistence persistence = start(RefreshMode.FULL);
+        persistence.addTimer(timer("a", TimerState.ACTIVE, new Date(1000)));
+
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        persistence.persistTimer(timer("a", TimerState.ACTIVE, new Date(2000)));
+        assertEquals(2000, nextDate("a").getTime());
+    }
+
+    @Test
+    public void testUpdatesAreCoalesced() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.WRITE_BEHIND_INTERVAL, "100");
+        DatabaseTimerPersistence persistence = start(RefreshMode.FULL);
+        persistence.addTimer(timer("a", TimerState.ACTIVE, new Date(1000)));
+
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        persistence.persistTimer(timer("a", TimerState.ACTIVE, new Date(2000)));
+        persistence.persistTimer(timer("a", TimerState.ACTIVE, new Date(3000)));
+        // updates outside of a transaction are written behind
+        assertEquals(1000, nextDate("a").getTime());
+
+        persistence.writePendingUpdates();
+        assertEquals(3000, nextDate("a").getTime());
+    }
+
+    @Test
+    public void testShouldRunWritesPendingUpdate() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.WRITE_BEHIND_INTERVAL, "100");
+        DatabaseTimerPersistence persistence = start(RefreshMode.FULL);
+        persistence.addTimer(timer("a", TimerState.ACTIVE, new Date(1000)));
+
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        TimerImpl timer = timer("a", TimerState.ACTIVE, new Date(2000));
+        persistence.persistTimer(timer);
+        // the compare-and-set matches the next date of the pending update, rather than the written one
+        assertTrue(persistence.shouldRun(timer, transactionManager));
+        assertEquals(2000, nextDate("a").getTime());
+        assertFalse(persistence.shouldRun(timer, transactionManager));
+    }
+
+    @Test
+    public void testTransactionalUpdateSupersedesPendingUpdate() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.WRITE_BEHIND_INTERVAL, "100");
+        DatabaseTimerPersistence persistence = start(RefreshMode.FULL);
+        persistence.addTimer(timer("a", TimerState.ACTIVE, new Date(1000)));
+
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        persistence.persistTimer(timer("a", TimerState.ACTIVE, new Date(2000)));
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_ACTIVE);
+        persistence.persistTimer(timer("a", TimerState.ACTIVE, new Date(3000)));
+        assertEquals(3000, nextDate("a").getTime());
+
+        persistence.writePendingUpdates();
+        assertEquals(3000, nextDate("a").getTime());
+    }
+
+    @Test
+    public void testFailedUpdatesAreRetried() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.WRITE_BEHIND_INTERVAL, "100");
+        DatabaseTimerPersistence persistence = start(RefreshMode.FULL);
+        persistence.addTimer(timer("a", TimerState.ACTIVE, new Date(1000)));
+        persistence.addTimer(timer("b", TimerState.ACTIVE, new Date(1000)));
+
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        persistence.persistTimer(timer("a", TimerState.ACTIVE, new Date(2000)));
+        persistence.persistTimer(timer("b", TimerState.ACTIVE, new Date(2000)));
+        execute("ALTER TABLE JBOSS_EJB_TIMER RENAME TO JBOSS_EJB_TIMER_UNAVAILABLE");
+        persistence.writePendingUpdates();
+        execute("ALTER TABLE JBOSS_EJB_TIMER_UNAVAILABLE RENAME TO JBOSS_EJB_TIMER");
+        assertEquals(1000, nextDate("a").getTime());
+
+        // a newer update of a timer replaces the failed one
+        persistence.persistTimer(timer("b", TimerState.ACTIVE, new Date(3000)));
+        persistence.writePendingUpdates();
+        assertEquals(2000, nextDate("a").getTime());
+        assertEquals(3000, nextDate("b").getTime());
+    }
+
+    @Test(timeout = 10000)
+    public void testTransactionalUpdateDoesNotWaitForBatch() throws Exception {
+        System.setProperty(DatabaseTimerPersistence.WRITE_BEHIND_INTERVAL, "100");
+        final DatabaseTimerPersistence persistence = start(RefreshMode.FULL);
+        persistence.addTimer(timer("a", TimerState.ACTIVE, new Date(1000)));
+
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        persistence.persistTimer(timer("a", TimerState.ACTIVE, new Date(2000)));
+
+        // a batch which took the pending update, but has not written it yet
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread batch = new Thread() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                persistence.writePendingUpdates();
+            }
+        };
+        writeBlocker = batch;
+        writeRelease = release;
+        batch.start();
+        blocked.await();
+        while (batch.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        // the transactional update is written right away
+        Transaction transaction = mock(Transaction.class);
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_ACTIVE);
+        when(transactionManager.getTransaction()).thenReturn(transaction);
+        persistence.persistTimer(timer("a", TimerState.ACTIVE, new Date(3000)));
+        assertEquals(3000, nextDate("a").getTime());
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        // the batch overwrites it with the older update, so the newer one is written again
+        release.countDown();
+        batch.join();
+        assertEquals(2000, nextDate("a").getTime());
+        persistence.writePendingUpdates();
+        assertEquals(3000, nextDate("a").getTime());
+    }
+
+    /**
+     * Adds a timer seen by a refresh of the second node, then one whose creation appears to have committed the
+     * specified time before the first one.
+     */
+    private void insertLate(DatabaseTimerPersistence first, DatabaseTimerPersistence second, long delay) throws SQLException {
+        first.addTimer(timer("a", TimerState.ACTIVE, new Date()));
+        second.refresh();
+        first.addTimer(timer("late", TimerState.ACTIVE, new Date()));
+        Connection connection = dataSource.getConnection();
+        try {
+            PreparedStatement statement = connection.prepareStatement("UPDATE JBOSS_EJB_TIMER SET CREATED_DATE=? WHERE ID='late'");
+            statement.setTimestamp(1, new Timestamp(System.currentTimeMillis() - delay));
+            statement.executeUpdate();
+            statement.close();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private DatabaseTimerPersistence start(RefreshMode mode) throws Exception {
+        DatabaseTimerPersistence persistence = new DatabaseTimerPersistence("timers", "h2", PARTITION, 0, true, mode, mock(TimerInfoCodec.class));
+        ManagedReference reference = mock(ManagedReference.class);
+        when(reference.getInstance()).thenReturn(blockingDataSource());
+        ManagedReferenceFactory factory = mock(ManagedReferenceFactory.class);
+        when(factory.getReference()).thenReturn(reference);
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_ACTIVE);
+        persistence.getDataSourceInjectedValue().inject(factory);
+        persistence.getTimerInjectedValue().inject(mock(Timer.class));
+        persistence.getTransactionManager().inject(transactionManager);
+        persistence.start(null);
+        persistences.add(persistence);
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        return persistence;
+    }
+
+    /**
+     * The data source, on which {@link #writeBlocker} waits for {@link #writeRelease} before it gets a connection.
+     */
+    private DataSource blockingDataSource() {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[] { DataSource.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (Thread.currentThread() == writeBlocker && method.getName().equals("getConnection")) {
+                    writeRelease.await();
+                }
+                try {
+                    return method.invoke(dataSource, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    private RecordingListener listen(DatabaseTimerPersistence persistence) {
+        RecordingListener listener = new RecordingListener();
+        persistence.registerChangeListener(TIMED_OBJECT_ID, listener);
+        return listener;
+    }
+
+    private TimerImpl timer(String id, TimerState state, Date next) {
+        return TimerImpl.builder().setId(id).setTimedObjectId(TIMED_OBJECT_ID).setInitialDate(new Date()).setNextDate(next).setTimerState(state).setPersistent(true).build(timerService);
+    }
+
+    private Date nextDate(String id) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery("SELECT NEXT_DATE FROM JBOSS_EJB_TIMER WHERE ID='" + id + "'");
+            resultSet.next();
+            Date result = resultSet.getTimestamp(1);
+            statement.close();
+            return result;
+        } finally {
+            connection.close();
+        }
+    }
+
+    private int count(String query) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery(query);
+            resultSet.next();
+            int result = resultSet.getInt(1);
+            statement.close();
+            return result;
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            Statement statement = connection.createStatement();
+            statement.execute(sql.endsWith(";") ? sql.substring(0, sql.length() - 1) : sql);
+            statement.close();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static Properties loadSql() throws Exception {
+        Properties sql = new Properties();
+        sql.load(DatabaseTimerPersistence.class.getClassLoader().getResourceAsStream("timer-sql.properties"));
+        return sql;
+    }
+
+    private class RecordingListener implements TimerPersistence.TimerChangeListener {
+        final List<String> added = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+
+        @Override
+        public void timerAdded(TimerImpl timer) {
+            added.add(timer.getId());
+        }
+
+        @Override
+        public void timerRemoved(String timerId) {
+            removed.add(timerId);
+        }
+
+        @Override
+        public TimerServiceImpl getTimerService() {
+            return timerService;
+        }
+    }
+}
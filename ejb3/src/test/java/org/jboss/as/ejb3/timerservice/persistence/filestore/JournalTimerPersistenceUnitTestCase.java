@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.transaction.Status;
+import javax.transaction.TransactionManager;
+
+import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.value.InjectedValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the import of the timers of the {@link FileTimerPersistence} into the {@link JournalTimerPersistence}.
+ */
+public class JournalTimerPersistenceUnitTestCase {
+
+    private static final String TIMED_OBJECT_ID = "timedObject";
+
+    private File baseDir;
+    private File directory;
+    private TimerServiceImpl timerService;
+
+    @Before
+    public void createDirectory() throws IOException {
+        baseDir = Files.createTempDirectory("timers").toFile();
+        directory = new File(baseDir, TIMED_OBJECT_ID);
+        TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        when(invoker.getClassLoader()).thenReturn(getClass().getClassLoader());
+        InjectedValue<TimedObjectInvoker> invokerValue = new InjectedValue<>();
+        invokerValue.inject(invoker);
+        timerService = mock(TimerServiceImpl.class);
+        when(timerService.getInvoker()).thenReturn(invoker);
+        when(timerService.getTimedObjectInvoker()).thenReturn(invokerValue);
+        when(timerService.getServiceName()).thenReturn(ServiceName.of("timerService"));
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+        baseDir.delete();
+    }
+
+    @Test
+    public void testImport() throws Exception {
+        FileTimerPersistence files = start(new FileTimerPersistence(true, "timers", null));
+        files.addTimer(timer("a", new Date(1000)));
+        files.addTimer(timer("b", new Date(1000)));
+        files.stop(null);
+
+        JournalTimerPersistence journal = start(new JournalTimerPersistence(true, "timers", null));
+        assertEquals(ids("a", "b"), ids(journal.loadActiveTimers(TIMED_OBJECT_ID, timerService)));
+        journal.stop(null);
+
+        assertTrue(new File(directory, JournalTimerPersistence.JOURNAL_FILE).exists());
+        assertFalse(new File(directory, "a.xml").exists());
+        assertTrue(new File(directory, "a.xml" + JournalTimerPersistence.MIGRATED_SUFFIX).exists());
+
+        // the imported timers are loaded from the journal only
+        journal = start(new JournalTimerPersistence(true, "timers", null));
+        assertEquals(ids("a", "b"), ids(journal.loadActiveTimers(TIMED_OBJECT_ID, timerService)));
+        journal.stop(null);
+    }
+
+    @Test
+    public void testInterruptedImport() throws Exception {
+        FileTimerPersistence files = start(new FileTimerPersistence(true, "timers", null));
+        files.addTimer(timer("a", new Date(1000)));
+        files.addTimer(timer("b", new Date(1000)));
+        files.stop(null);
+
+        // the journal was created and holds a more recent state of one timer, but the XML files were not renamed
+        try (TimerJournal journal = new TimerJournal(new File(directory, JournalTimerPersistence.JOURNAL_FILE))) {
+            journal.force();
+        }
+        JournalTimerPersistence journal = start(new JournalTimerPersistence(true, "timers", null));
+        journal.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        journal.persistTimer(timer("a", new Date(2000)));
+        journal.stop(null);
+        new File(directory, "a.xml" + JournalTimerPersistence.MIGRATED_SUFFIX).renameTo(new File(directory, "a.xml"));
+        new File(directory, "b.xml" + JournalTimerPersistence.MIGRATED_SUFFIX).renameTo(new File(directory, "b.xml"));
+
+        journal = start(new JournalTimerPersistence(true, "timers", null));
+        List<TimerImpl> timers = journal.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        assertEquals(ids("a", "b"), ids(timers));
+        for (TimerImpl timer : timers) {
+            assertEquals("a".equals(timer.getId()) ? 2000 : 1000, timer.getNextExpiration().getTime());
+        }
+        journal.stop(null);
+        assertFalse(new File(directory, "a.xml").exists());
+        assertFalse(new File(directory, "b.xml").exists());
+    }
+
+    private <T extends FileTimerPersistence> T start(T persistence) {
+        PathManager pathManager = mock(PathManager.class);
+        when(pathManager.resolveRelativePathEntry("timers", null)).thenReturn(baseDir.getAbsolutePath());
+        TransactionManager transactionManager = mock(TransactionManager.class);
+        try {
+            when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        persistence.getPathManager().inject(pathManager);
+        persistence.getModuleLoader().inject(mock(ModuleLoader.class));
+        persistence.getTransactionManager().inject(transactionManager);
+        persistence.start(null);
+        return persistence;
+    }
+
+    private TimerImpl timer(String id, Date next) {
+        return TimerImpl.builder().setId(id).setTimedObjectId(TIMED_OBJECT_ID).setInitialDate(new Date(0)).setNextDate(next).setTimerState(TimerState.ACTIVE).setPersistent(true).build(timerService);
+    }
+
+    private static Set<String> ids(String... ids) {
+        Set<String> result = new HashSet<>();
+        for (String id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static Set<String> ids(List<TimerImpl> timers) {
+        Set<String> result = new HashSet<>();
+        for (TimerImpl timer : timers) {
+            result.add(timer.getId());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link TimerJournal}.
+ */
+public class TimerJournalUnitTestCase {
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("timers", ".journal");
+        file.delete();
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+        new File(file.getPath() + ".compact").delete();
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        try (TimerJournal journal = new TimerJournal(file)) {
+            journal.put("a", new byte[] { 1 });
+            journal.put("b", new byte[] { 2 });
+            journal.put("a", new byte[] { 3, 4 });
+            journal.remove("b");
+            journal.put("c", new byte[0]);
+        }
+        try (TimerJournal journal = new TimerJournal(file)) {
+            Map<String, byte[]> records = journal.getRecords();
+            assertEquals(2, records.size());
+            assertArrayEquals(new byte[] { 3, 4 }, records.get("a"));
+            assertArrayEquals(new byte[0], records.get("c"));
+            assertFalse(journal.contains("b"));
+        }
+    }
+
+    @Test
+    public void testCorruptedRecordIsDropped() throws IOException {
+        try (TimerJournal journal = new TimerJournal(file)) {
+            journal.put("a", new byte[] { 1 });
+            journal.put("b", new byte[] { 2 });
+        }
+        // flip the last byte of the state of "b", which is the last record
+        int offset = 8 + (8 + 3 + 1 + 1) + (8 + 3 + 1);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(offset);
+            raf.write(7);
+        }
+        try (TimerJournal journal = new TimerJournal(file)) {
+            assertTrue(journal.contains("a"));
+            assertFalse(journal.contains("b"));
+            journal.put("c", new byte[] { 3 });
+        }
+        try (TimerJournal journal = new TimerJournal(file)) {
+            Map<String, byte[]> records = journal.getRecords();
+            assertEquals(2, records.size());
+            assertArrayEquals(new byte[] { 1 }, records.get("a"));
+            assertArrayEquals(new byte[] { 3 }, records.get("c"));
+        }
+    }
+
+    @Test
+    public void testPutCopiesState() throws IOException {
+        byte[] state = new byte[] { 1 };
+        try (TimerJournal journal = new TimerJournal(file)) {
+            journal.put("a", state);
+            state[0] = 2;
+            assertArrayEquals(new byte[] { 1 }, journal.getRecords().get("a"));
+        }
+        try (TimerJournal journal = new TimerJournal(file)) {
+            assertArrayEquals(new byte[] { 1 }, journal.getRecords().get("a"));
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        try (TimerJournal journal = new TimerJournal(file)) {
+            for (int i = 0; i < 10000; ++i) {
+                byte[] state = new byte[1024];
+                state[0] = (byte) i;
+                journal.put("timer" + (i % 10), state);
+            }
+            journal.remove("timer9");
+        }
+        // only the latest state of the 9 live timers is left after the journal was compacted
+        assertTrue(file.length() < 1024 * 1024);
+        try (TimerJournal journal = new TimerJournal(file)) {
+            Map<String, byte[]> records = journal.getRecords();
+            assertEquals(9, records.size());
+            assertEquals((byte) 9998, records.get("timer8")[0]);
+            assertFalse(journal.contains("timer9"));
+        }
+    }
+}
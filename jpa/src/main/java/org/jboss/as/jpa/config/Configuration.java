@@ -171,6 +171,13 @@ public class Configuration {
      */
     private static final String JPA_DEFER_DETACH = "jboss.as.jpa.deferdetach";
 
+    /**
+     * set to a positive number to reuse (cleared) entity managers across invocations without a JTA transaction, instead of
+     * creating and closing one per invocation.  The value is the maximum number of idle entity managers kept per thread.
+     * Only applies to transaction scoped entity managers without properties (defaults to 0, no reuse).
+     */
+    public static final String JPA_NONTX_ENTITY_MANAGER_POOL_SIZE = "wildfly.jpa.nontx.entitymanager.poolsize";
+
     /**
      * name of the persistence provider adapter class
      */
@@ -293,4 +300,19 @@ public class Configuration {
         return result;
     }
 
+    /**
+     * Return the maximum number of idle entity managers kept per thread for reuse by non-transactional invocations,
+     * 0 if they are not reused.
+     * Note:  only applies to transaction scoped entity managers used without an active JTA transaction.
+     *
+     * @param properties
+     * @return
+     */
+    public static int nonTxEntityManagerPoolSize(final Map properties) {
+        int result = 0;
+        if ( properties.containsKey(JPA_NONTX_ENTITY_MANAGER_POOL_SIZE))
+            result = Math.max(0, Integer.parseInt((String)properties.get(JPA_NONTX_ENTITY_MANAGER_POOL_SIZE)));
+        return result;
+    }
+
 }
@@ -57,7 +57,11 @@ public class NonTxEmCloser {
     public static void popCall() {
         Map<String, EntityManager> emStack = nonTxStack.pop();
         if (emStack != null) {
-            for (EntityManager entityManager : emStack.values()) {
+            for (Map.Entry<String, EntityManager> entry : emStack.entrySet()) {
+                EntityManager entityManager = entry.getValue();
+                if (NonTxEntityManagerPool.release(entry.getKey(), entityManager)) {
+                    continue;   // cleared and kept for the next non-transactional invocation of this thread
+                }
                 try {
                     if (entityManager.isOpen()) {
                         entityManager.close();
@@ -73,6 +77,14 @@ public class NonTxEmCloser {
         }
     }
 
+    /**
+     * Return true if a session bean or web invocation is in progress, which will close (or give back to its pool) the
+     * transactional entity managers added with {@link #add(String, EntityManager)}.
+     */
+    public static boolean isCallInProgress() {
+        return nonTxStack.getList() != null;
+    }
+
     /**
      * Return the transactional entity manager for the specified scoped persistence unit name
      *
@@ -89,7 +101,7 @@ public class NonTxEmCloser {
 
     public static void add(String puScopedName, EntityManager entityManager) {
         Map<String, EntityManager> map = nonTxStack.get();
-        if (map == null && nonTxStack.getList() != null) {
+        if (map == null && isCallInProgress()) {
             // replace null with a collection to hold the entity managers.
             map = new HashMap<String, EntityManager>();
             nonTxStack.replace(map);    // replace top of stack (currently null) with new collection
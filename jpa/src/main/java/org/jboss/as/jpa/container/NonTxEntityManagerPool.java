@@ -0,0 +1,295 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jpa.container;
+
+import static org.jboss.as.jpa.messages.JpaLogger.ROOT_LOGGER;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+
+/**
+ * Pool of the entity managers that transaction scoped entity managers create for invocations without a JTA transaction.
+ * Instead of closing such an entity manager at the end of the invocation, {@link NonTxEmCloser} clears it and returns it
+ * here, so that the next non-transactional invocation on the same thread can use it again.
+ * <p/>
+ * Each thread has its own idle entity managers, at most {@code maxSize} per persistence unit, so an entity manager is
+ * never used by two threads, nor by two invocations at once (a nested invocation gets another one). An entity manager
+ * goes back to the pool only if it is still open, could be cleared, and has the flush mode and properties it was created
+ * with. Otherwise it is closed, as it would have been without the pool.
+ * <p/>
+ * The idle entity managers of all threads are also registered with the pool, so that they are closed when the persistence
+ * unit stops, instead of lingering in the thread locals of the worker threads. Whoever takes an entity manager out of
+ * that registration owns it, which is either the thread that acquires it or the pool that closes it.
+ * <p/>
+ * Enabled per persistence unit with {@link org.jboss.as.jpa.config.Configuration#JPA_NONTX_ENTITY_MANAGER_POOL_SIZE}.
+ */
+public class NonTxEntityManagerPool {
+
+    // key = scoped persistence unit name
+    private static final ConcurrentMap<String, NonTxEntityManagerPool> pools = new ConcurrentHashMap<String, NonTxEntityManagerPool>();
+
+    private final String puScopedName;
+    private final int maxSize;
+    private final ThreadLocal<ThreadPool> threadPools = new ThreadLocal<ThreadPool>() {
+        @Override
+        protected ThreadPool initialValue() {
+            return new ThreadPool();
+        }
+    };
+    // the idle entity managers of all threads
+    private final Set<PooledEntityManager> idle = Collections.newSetFromMap(new ConcurrentHashMap<PooledEntityManager, Boolean>());
+    private volatile boolean closed;
+
+    private final AtomicLong createCount = new AtomicLong();
+    private final AtomicLong reuseCount = new AtomicLong();
+    private final AtomicLong createTime = new AtomicLong();
+
+    private NonTxEntityManagerPool(final String puScopedName, final int maxSize) {
+        this.puScopedName = puScopedName;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return the pool of the specified scoped persistence unit name, creating it if needed.
+     *
+     * @param puScopedName
+     * @param maxSize maximum number of idle entity managers per thread
+     * @return
+     */
+    public static NonTxEntityManagerPool getOrCreate(final String puScopedName, final int maxSize) {
+        NonTxEntityManagerPool pool = pools.get(puScopedName);
+        if (pool == null) {
+            pool = new NonTxEntityManagerPool(puScopedName, maxSize);
+            final NonTxEntityManagerPool existing = pools.putIfAbsent(puScopedName, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Return the pool of the specified scoped persistence unit name, for example to read its statistics.
+     *
+     * @param puScopedName
+     * @return the pool, or null if the persistence unit did not use one yet
+     */
+    public static NonTxEntityManagerPool get(final String puScopedName) {
+        return pools.get(puScopedName);
+    }
+
+    /**
+     * Forget the pool of the specified scoped persistence unit name and close its idle entity managers, called when the
+     * persistence unit stops. Leased entity managers are closed by their callers, as they can no longer be released.
+     *
+     * @param puScopedName
+     */
+    public static void remove(final String puScopedName) {
+        final NonTxEntityManagerPool pool = pools.remove(puScopedName);
+        if (pool == null) {
+            return;
+        }
+        pool.close();
+        if (ROOT_LOGGER.isDebugEnabled()) {
+            ROOT_LOGGER.debugf("%s: reused %d of %d non-transactional entity managers, saving about %d ms of creation time",
+                    puScopedName, pool.getReuseCount(), pool.getReuseCount() + pool.getCreateCount(),
+                    pool.getCreateTimeSaved(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Give a pooled entity manager back to the pool it was taken from.
+     *
+     * @param puScopedName
+     * @param entityManager
+     * @return true if the entity manager was taken from a pool, which is now responsible for it. false if the caller should
+     * close it.
+     */
+    static boolean release(final String puScopedName, final EntityManager entityManager) {
+        final NonTxEntityManagerPool pool = pools.get(puScopedName);
+        return pool != null && pool.release(entityManager);
+    }
+
+    /**
+     * Take an idle entity manager of the current thread, or create one if there is none.
+     * The entity manager must be given back with {@link #release(String, EntityManager)} on the same thread.
+     *
+     * @param factory creates an entity manager when the pool has none
+     * @return
+     */
+    public EntityManager acquire(final EntityManagerCreator factory) {
+        final ThreadPool threadPool = threadPools.get();
+        PooledEntityManager pooled;
+        while ((pooled = threadPool.idle.pollFirst()) != null) {
+            // entity managers closed by the pool in the meantime are no longer registered
+            if (idle.remove(pooled)) {
+                if (pooled.entityManager.isOpen()) {
+                    reuseCount.incrementAndGet();
+                    break;
+                }
+                pooled.discard();
+            }
+        }
+        if (pooled == null) {
+            final long start = System.nanoTime();
+            final EntityManager entityManager = factory.createEntityManager();
+            createTime.addAndGet(System.nanoTime() - start);
+            createCount.incrementAndGet();
+            pooled = new PooledEntityManager(entityManager);
+        }
+        threadPool.leased.put(pooled.entityManager, pooled);
+        return pooled.entityManager;
+    }
+
+    private boolean release(final EntityManager entityManager) {
+        final ThreadPool threadPool = threadPools.get();
+        final PooledEntityManager pooled = threadPool.leased.remove(entityManager);
+        if (pooled == null) {
+            return false;
+        }
+        if (!closed && threadPool.idle.size() < maxSize && pooled.reset()) {
+            threadPool.idle.addFirst(pooled);
+            idle.add(pooled);
+            // the pool may have been closed while the entity manager was added, in which case the caller closes it
+            if (closed && idle.remove(pooled)) {
+                threadPool.idle.removeFirstOccurrence(pooled);
+                return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void close() {
+        closed = true;
+        for (PooledEntityManager pooled : idle) {
+            if (idle.remove(pooled)) {
+                pooled.close();
+            }
+        }
+    }
+
+    /**
+     * @return number of entity managers created because the pool of the thread was empty
+     */
+    public long getCreateCount() {
+        return createCount.get();
+    }
+
+    /**
+     * @return number of invocations which got an entity manager from the pool instead of creating one
+     */
+    public long getReuseCount() {
+        return reuseCount.get();
+    }
+
+    /**
+     * @return estimated time saved by reusing entity managers, based on the average time to create one
+     */
+    public long getCreateTimeSaved(final TimeUnit unit) {
+        final long created = createCount.get();
+        if (created == 0) {
+            return 0;
+        }
+        return unit.convert(createTime.get() / created * reuseCount.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "NonTxEntityManagerPool[" + puScopedName + "]";
+    }
+
+    /**
+     * Creates the entity managers of a pool.
+     */
+    public interface EntityManagerCreator {
+        EntityManager createEntityManager();
+    }
+
+    private static final class ThreadPool {
+        // most recently released first
+        final ArrayDeque<PooledEntityManager> idle = new ArrayDeque<PooledEntityManager>();
+        final Map<EntityManager, PooledEntityManager> leased = new IdentityHashMap<EntityManager, PooledEntityManager>();
+    }
+
+    private static final class PooledEntityManager {
+        // cleared once the entity manager is closed, as the thread locals may still refer to this
+        EntityManager entityManager;
+        final FlushModeType flushMode;
+        Map<String, Object> properties;
+
+        PooledEntityManager(final EntityManager entityManager) {
+            this.entityManager = entityManager;
+            this.flushMode = entityManager.getFlushMode();
+            this.properties = new HashMap<String, Object>(entityManager.getProperties());
+        }
+
+        /**
+         * Detach all the entities, and check that nothing else of the previous invocation can be seen by the next one.
+         *
+         * @return true if the entity manager can be reused
+         */
+        boolean reset() {
+            try {
+                if (!entityManager.isOpen()) {
+                    return false;
+                }
+                entityManager.clear();
+                return flushMode == entityManager.getFlushMode() && properties.equals(entityManager.getProperties());
+            } catch (RuntimeException notReusable) {
+                if (ROOT_LOGGER.isTraceEnabled()) {
+                    ROOT_LOGGER.trace("Could not clear (non-transactional) container managed entity manager for reuse", notReusable);
+                }
+                return false;
+            }
+        }
+
+        void close() {
+            try {
+                entityManager.close();
+            } catch (RuntimeException e) {
+                if (ROOT_LOGGER.isTraceEnabled()) {
+                    ROOT_LOGGER.trace("Could not close pooled (non-transactional) container managed entity manager", e);
+                }
+            } finally {
+                discard();
+            }
+        }
+
+        void discard() {
+            entityManager = null;
+            properties = null;
+        }
+    }
+}
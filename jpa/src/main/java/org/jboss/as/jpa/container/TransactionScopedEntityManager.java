@@ -61,6 +61,7 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
     private transient boolean isJPA21=true;          // true if persistence provider supports JPA 2.1
     private final SynchronizationType synchronizationType;
     private transient Boolean deferDetach;
+    private transient Integer nonTxPoolSize;
 
     public TransactionScopedEntityManager(String puScopedName, Map properties, EntityManagerFactory emf, SynchronizationType synchronizationType) {
         this.puScopedName = puScopedName;
@@ -81,7 +82,17 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
         } else {
             entityManager = NonTxEmCloser.get(puScopedName);
             if (entityManager == null) {
-                entityManager = createEntityManager(emf, properties, synchronizationType);
+                final NonTxEntityManagerPool pool = NonTxEmCloser.isCallInProgress() ? nonTxEntityManagerPool() : null;
+                if (pool != null) {
+                    entityManager = pool.acquire(new NonTxEntityManagerPool.EntityManagerCreator() {
+                        @Override
+                        public EntityManager createEntityManager() {
+                            return TransactionScopedEntityManager.this.createEntityManager(emf, properties, synchronizationType);
+                        }
+                    });
+                } else {
+                    entityManager = createEntityManager(emf, properties, synchronizationType);
+                }
                 NonTxEmCloser.add(puScopedName, entityManager);
             }
         }
@@ -199,6 +210,19 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
         return deferDetach.booleanValue();
     }
 
+    /**
+     * return the pool of entity managers for non-tx invocations, or null if they are not pooled.
+     * Entity managers with properties are not pooled, as another transaction scoped entity manager of the same
+     * persistence unit could get them from the pool.
+     */
+    private NonTxEntityManagerPool nonTxEntityManagerPool() {
+        if (nonTxPoolSize == null)
+            nonTxPoolSize = properties == null || properties.isEmpty() ?
+                    Configuration.nonTxEntityManagerPoolSize(emf.getProperties()) : 0;
+        final int poolSize = nonTxPoolSize.intValue();
+        return poolSize > 0 ? NonTxEntityManagerPool.getOrCreate(puScopedName, poolSize) : null;
+    }
+
     /**
      * throw error if jta transaction already has an UNSYNCHRONIZED persistence context and a SYNCHRONIZED persistence context
      * is requested.  We are only fussy in this test, if the target component persistence context is SYNCHRONIZED.
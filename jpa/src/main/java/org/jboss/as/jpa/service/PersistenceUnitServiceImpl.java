@@ -37,6 +37,7 @@ import javax.validation.ValidatorFactory;
 
 import org.jboss.as.jpa.beanmanager.ProxyBeanManager;
 import org.jboss.as.jpa.classloader.TempClassLoaderFactoryImpl;
+import org.jboss.as.jpa.container.NonTxEntityManagerPool;
 import org.jboss.as.jpa.spi.PersistenceUnitService;
 import org.jboss.as.jpa.subsystem.PersistenceUnitRegistryImpl;
 import org.jboss.as.jpa.util.JPAServiceNames;
@@ -226,6 +227,7 @@ public class PersistenceUnitServiceImpl implements Service<PersistenceUnitServic
                                         pu.setTempClassLoaderFactory(null);
                                         WritableServiceBasedNamingStore.popOwner();
                                         persistenceUnitRegistry.remove(getScopedPersistenceUnitName());
+                                        NonTxEntityManagerPool.remove(getScopedPersistenceUnitName());
                                     }
                                 }
                                 if (proxyBeanManager != null) {
@@ -273,6 +275,16 @@ public class PersistenceUnitServiceImpl implements Service<PersistenceUnitServic
         return pu.getScopedPersistenceUnitName();
     }
 
+    /**
+     * Returns the pool of the entity managers of non-transactional invocations, whose statistics tell how many entity
+     * managers were reused instead of created.
+     *
+     * @return the pool, or null if it is disabled or no non-transactional invocation used it yet
+     */
+    public NonTxEntityManagerPool getNonTxEntityManagerPool() {
+        return NonTxEntityManagerPool.get(getScopedPersistenceUnitName());
+    }
+
     public Injector<Map> getPropertiesInjector() {
         return properties;
     }
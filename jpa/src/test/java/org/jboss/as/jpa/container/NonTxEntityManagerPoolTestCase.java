@@ -0,0 +1,249 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.jpa.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the {@link NonTxEntityManagerPool}.
+ */
+public class NonTxEntityManagerPoolTestCase {
+
+    private static final String PU = "test.jar#pu";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final NonTxEntityManagerPool.EntityManagerCreator creator = new NonTxEntityManagerPool.EntityManagerCreator() {
+        @Override
+        public EntityManager createEntityManager() {
+            return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(), new Class<?>[] { EntityManager.class }, new EntityManagerHandler());
+        }
+    };
+
+    @After
+    public void removePool() {
+        NonTxEntityManagerPool.remove(PU);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReuse() {
+        NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 2);
+        EntityManager entityManager = pool.acquire(creator);
+        assertTrue(NonTxEntityManagerPool.release(PU, entityManager));
+        assertSame(entityManager, pool.acquire(creator));
+        assertEquals(1, pool.getCreateCount());
+        assertEquals(1, pool.getReuseCount());
+
+        // entity managers which were not taken from the pool are closed by the caller
+        assertFalse(NonTxEntityManagerPool.release(PU, creator.createEntityManager()));
+    }
+
+    @Test
+    public void testStatistics() {
+        final NonTxEntityManagerPool.EntityManagerCreator slowCreator = new NonTxEntityManagerPool.EntityManagerCreator() {
+            @Override
+            public EntityManager createEntityManager() {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return creator.createEntityManager();
+            }
+        };
+        assertNull(NonTxEntityManagerPool.get(PU));
+        NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 2);
+        assertSame(pool, NonTxEntityManagerPool.get(PU));
+        assertEquals(0, pool.getCreateTimeSaved(TimeUnit.NANOSECONDS));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(NonTxEntityManagerPool.release(PU, pool.acquire(slowCreator)));
+        }
+        assertEquals(1, pool.getCreateCount());
+        assertEquals(2, pool.getReuseCount());
+        // each reuse saved the time to create an entity manager
+        assertTrue(pool.getCreateTimeSaved(TimeUnit.MILLISECONDS) >= 20);
+
+        // the statistics are no longer available once the persistence unit stopped
+        NonTxEntityManagerPool.remove(PU);
+        assertNull(NonTxEntityManagerPool.get(PU));
+    }
+
+    @Test
+    public void testThreadIsolation() throws Exception {
+        final NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 2);
+        EntityManager entityManager = pool.acquire(creator);
+        assertTrue(NonTxEntityManagerPool.release(PU, entityManager));
+
+        EntityManager other = executor.submit(new Callable<EntityManager>() {
+            @Override
+            public EntityManager call() {
+                return pool.acquire(creator);
+            }
+        }).get();
+        assertNotSame(entityManager, other);
+        // an entity manager can only be released by the thread which leased it
+        assertFalse(NonTxEntityManagerPool.release(PU, other));
+        assertSame(entityManager, pool.acquire(creator));
+    }
+
+    @Test
+    public void testNestedLeases() {
+        NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 2);
+        EntityManager outer = pool.acquire(creator);
+        EntityManager inner = pool.acquire(creator);
+        assertNotSame(outer, inner);
+        assertTrue(NonTxEntityManagerPool.release(PU, inner));
+        assertTrue(NonTxEntityManagerPool.release(PU, outer));
+
+        // the most recently released one first
+        assertSame(outer, pool.acquire(creator));
+        assertSame(inner, pool.acquire(creator));
+        assertEquals(2, pool.getCreateCount());
+    }
+
+    @Test
+    public void testMaxSize() {
+        NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 1);
+        EntityManager first = pool.acquire(creator);
+        EntityManager second = pool.acquire(creator);
+        assertTrue(NonTxEntityManagerPool.release(PU, first));
+        assertFalse(NonTxEntityManagerPool.release(PU, second));
+    }
+
+    @Test
+    public void testChangedFlushModeIsRejected() {
+        NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 2);
+        EntityManager entityManager = pool.acquire(creator);
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        assertFalse(NonTxEntityManagerPool.release(PU, entityManager));
+        assertNotSame(entityManager, pool.acquire(creator));
+    }
+
+    @Test
+    public void testChangedPropertiesAreRejected() {
+        NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 2);
+        EntityManager entityManager = pool.acquire(creator);
+        entityManager.setProperty("javax.persistence.lock.timeout", 1000);
+        assertFalse(NonTxEntityManagerPool.release(PU, entityManager));
+        assertNotSame(entityManager, pool.acquire(creator));
+    }
+
+    @Test
+    public void testClosedIsRejected() {
+        NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 2);
+        EntityManager entityManager = pool.acquire(creator);
+        entityManager.close();
+        assertFalse(NonTxEntityManagerPool.release(PU, entityManager));
+    }
+
+    @Test
+    public void testRemoveClosesIdleEntityManagers() throws Exception {
+        final NonTxEntityManagerPool pool = NonTxEntityManagerPool.getOrCreate(PU, 2);
+        EntityManager idle = executor.submit(new Callable<EntityManager>() {
+            @Override
+            public EntityManager call() {
+                EntityManager entityManager = pool.acquire(creator);
+                assertTrue(NonTxEntityManagerPool.release(PU, entityManager));
+                return entityManager;
+            }
+        }).get();
+        EntityManager leased = pool.acquire(creator);
+
+        NonTxEntityManagerPool.remove(PU);
+        assertFalse(idle.isOpen());
+        // leased entity managers can no longer be released, so that their callers close them
+        assertTrue(leased.isOpen());
+        assertFalse(NonTxEntityManagerPool.release(PU, leased));
+
+        // the closed entity managers are not handed out again
+        EntityManager entityManager = executor.submit(new Callable<EntityManager>() {
+            @Override
+            public EntityManager call() {
+                return pool.acquire(creator);
+            }
+        }).get();
+        assertNotSame(idle, entityManager);
+        assertTrue(entityManager.isOpen());
+    }
+
+    /**
+     * Keeps the state of an entity manager that the pool inspects.
+     */
+    private static class EntityManagerHandler implements InvocationHandler {
+        private boolean open = true;
+        private FlushModeType flushMode = FlushModeType.AUTO;
+        private final Map<String, Object> properties = new HashMap<String, Object>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "isOpen":
+                    return open;
+                case "close":
+                    open = false;
+                    return null;
+                case "clear":
+                    return null;
+                case "getFlushMode":
+                    return flushMode;
+                case "setFlushMode":
+                    flushMode = (FlushModeType) args[0];
+                    return null;
+                case "getProperties":
+                    return new HashMap<String, Object>(properties);
+                case "setProperty":
+                    properties.put((String) args[0], args[1]);
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "EntityManager@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+}
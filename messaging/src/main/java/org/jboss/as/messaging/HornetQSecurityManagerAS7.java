@@ -25,28 +25,71 @@ package org.jboss.as.messaging;
 import org.hornetq.core.security.CheckType;
 import org.hornetq.core.security.Role;
 import org.jboss.as.messaging.logging.MessagingLogger;
+import org.jboss.as.security.org.jboss.as.security.lru.TinyLFUCache;
+import org.jboss.as.security.plugins.AuthenticationCacheFlushListener;
 import org.jboss.as.security.plugins.SecurityDomainContext;
 import org.jboss.security.SecurityContext;
 import org.jboss.security.SecurityContextAssociation;
 import org.jboss.security.SecurityContextFactory;
 import org.jboss.security.SimplePrincipal;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 import javax.security.auth.Subject;
+import java.nio.charset.StandardCharsets;
 import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.Principal;
 import java.security.PrivilegedAction;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates and authorizes the HornetQ users against a security domain.
+ * <p/>
+ * The decisions are cached for the security invalidation interval of the server, keyed by the user, a salted digest
+ * of the password, the roles that grant the check and the check type, so that reconnecting clients do not go through
+ * the login modules again. Failed authentications are never cached. The cache is flushed along with the
+ * authentication cache of the security domain.
+ */
+public class HornetQSecurityManagerAS7 implements org.hornetq.spi.core.security.HornetQSecurityManager, AuthenticationCacheFlushListener {
+
+    /**
+     * The system property setting the maximum number of cached decisions.
+     */
+    static final String DECISION_CACHE_MAX_ENTRIES = "jboss.messaging.security.decision-cache.max-entries";
+    private static final int DEFAULT_DECISION_CACHE_MAX_ENTRIES = 1000;
 
-public class HornetQSecurityManagerAS7 implements org.hornetq.spi.core.security.HornetQSecurityManager {
     private SecurityDomainContext securityDomainContext;
     private String defaultUser = null;
     private String defaultPassword = null;
+    private final TinyLFUCache<Decision, Boolean> decisions;
+    private final byte[] salt = new byte[16];
+    private boolean started;
 
     public HornetQSecurityManagerAS7(SecurityDomainContext sdc) {
+        this(sdc, 0);
+    }
+
+    /**
+     * @param sdc            the security domain to validate the users against
+     * @param cacheTimeout   the number of milliseconds a decision is cached, 0 to disable the cache
+     */
+    public HornetQSecurityManagerAS7(SecurityDomainContext sdc, long cacheTimeout) {
         securityDomainContext = sdc;
         defaultUser = HornetQDefaultCredentials.getUsername();
         defaultPassword = HornetQDefaultCredentials.getPassword();
+        int maxEntries = Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(DECISION_CACHE_MAX_ENTRIES, String.valueOf(DEFAULT_DECISION_CACHE_MAX_ENTRIES)));
+        if (cacheTimeout > 0 && maxEntries > 0) {
+            decisions = new TinyLFUCache<Decision, Boolean>(maxEntries, cacheTimeout, TimeUnit.MILLISECONDS, null);
+            new SecureRandom().nextBytes(salt);
+        } else {
+            decisions = null;
+        }
     }
 
     @Override
@@ -57,7 +100,16 @@ public class HornetQSecurityManagerAS7 implements org.hornetq.spi.core.security.
         if (securityDomainContext == null)
             throw MessagingLogger.ROOT_LOGGER.securityDomainContextNotSet();
 
-        return securityDomainContext.getAuthenticationManager().isValid(new SimplePrincipal(username), password, new Subject());
+        final Decision decision = decision(username, password, null, null);
+        if (decision != null && decisions.get(decision) != null)
+            return true;
+
+        boolean authenticated = securityDomainContext.getAuthenticationManager().isValid(new SimplePrincipal(username), password, new Subject());
+
+        if (authenticated && decision != null)
+            decisions.put(decision, Boolean.TRUE);
+
+        return authenticated;
     }
 
     @Override
@@ -68,6 +120,20 @@ public class HornetQSecurityManagerAS7 implements org.hornetq.spi.core.security.
         if (securityDomainContext == null)
             throw MessagingLogger.ROOT_LOGGER.securityDomainContextNotSet();
 
+        final Set<String> roleNames = new HashSet<String>();
+        for (Role role : roles) {
+            if (checkType.hasRole(role)) {
+                roleNames.add(role.getName());
+            }
+        }
+
+        final Decision decision = decision(username, password, roleNames, checkType);
+        if (decision != null) {
+            Boolean authorized = decisions.get(decision);
+            if (authorized != null)
+                return authorized;
+        }
+
         final Subject subject = new Subject();
 
         // The authentication call here changes the subject and that subject must be used later.  That is why we don't call validateUser(String, String) here.
@@ -95,10 +161,8 @@ public class HornetQSecurityManagerAS7 implements org.hornetq.spi.core.security.
                     SecurityContextAssociation.setSecurityContext(securityContext);
 
                     final Set<Principal> principals = new HashSet<Principal>();
-                    for (Role role : roles) {
-                        if (checkType.hasRole(role)) {
-                            principals.add(new SimplePrincipal(role.getName()));
-                        }
+                    for (String roleName : roleNames) {
+                        principals.add(new SimplePrincipal(roleName));
                     }
 
                     final boolean authenticated = securityDomainContext.getAuthorizationManager().doesUserHaveRole(new SimplePrincipal(username), principals);
@@ -109,11 +173,59 @@ public class HornetQSecurityManagerAS7 implements org.hornetq.spi.core.security.
                     return authenticated;
                 }
             });
+
+            // the user is known, so the role decision is cached whether it grants the check or not
+            if (decision != null)
+                decisions.put(decision, authenticated);
         }
 
         return authenticated;
     }
 
+    /**
+     * Flushes the cached decisions of a principal, or all of them.
+     */
+    @Override
+    public void flushed(Principal principal) {
+        if (decisions == null)
+            return;
+
+        if (principal == null) {
+            decisions.clear();
+        } else {
+            final String name = principal.getName();
+            Iterator<Decision> iterator = decisions.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().username.equals(name)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the cache of the decisions, or {@code null} if decisions are not cached
+     */
+    TinyLFUCache<?, Boolean> getDecisionCache() {
+        return decisions;
+    }
+
+    private Decision decision(String username, String password, Set<String> roles, CheckType checkType) {
+        return (decisions != null && username != null) ? new Decision(username, digest(password), roles, checkType) : null;
+    }
+
+    private byte[] digest(String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            if (password != null) {
+                digest.update(password.getBytes(StandardCharsets.UTF_8));
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
     @Override
     public void addUser(String s, String s1) {
@@ -136,15 +248,68 @@ public class HornetQSecurityManagerAS7 implements org.hornetq.spi.core.security.
     }
 
     @Override
-    public void start() throws Exception {
+    public synchronized void start() throws Exception {
+        if (!started && decisions != null && securityDomainContext != null) {
+            securityDomainContext.addFlushListener(this);
+        }
+        started = true;
     }
 
     @Override
-    public void stop() throws Exception {
+    public synchronized void stop() throws Exception {
+        if (started && decisions != null && securityDomainContext != null) {
+            securityDomainContext.removeFlushListener(this);
+            decisions.clear();
+        }
+        started = false;
     }
 
     @Override
-    public boolean isStarted() {
-        return false;
+    public synchronized boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * The key of a cached decision. A {@code null} check type stands for the authentication of the user alone.
+     */
+    private static final class Decision {
+        final String username;
+        final byte[] credential;
+        final Set<String> roles;
+        final CheckType checkType;
+        private final int hash;
+
+        Decision(String username, byte[] credential, Set<String> roles, CheckType checkType) {
+            this.username = username;
+            this.credential = credential;
+            this.roles = roles;
+            this.checkType = checkType;
+            int result = username.hashCode();
+            result = 31 * result + Arrays.hashCode(credential);
+            result = 31 * result + (roles != null ? roles.hashCode() : 0);
+            result = 31 * result + (checkType != null ? checkType.hashCode() : 0);
+            this.hash = result;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object)
+                return true;
+            if (!(object instanceof Decision))
+                return false;
+            Decision decision = (Decision) object;
+            return hash == decision.hash && username.equals(decision.username) && Arrays.equals(credential, decision.credential)
+                    && (roles != null ? roles.equals(decision.roles) : decision.roles == null) && checkType == decision.checkType;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return username;
+        }
     }
 }
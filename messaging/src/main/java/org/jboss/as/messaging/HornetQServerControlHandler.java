@@ -34,6 +34,7 @@ import static org.jboss.as.messaging.OperationDefinitionHelper.runtimeOnlyOperat
 import static org.jboss.as.messaging.OperationDefinitionHelper.runtimeReadOnlyOperation;
 import static org.jboss.dmr.ModelType.BOOLEAN;
 import static org.jboss.dmr.ModelType.LIST;
+import static org.jboss.dmr.ModelType.LONG;
 import static org.jboss.dmr.ModelType.STRING;
 
 import org.hornetq.api.core.management.HornetQServerControl;
@@ -51,6 +52,7 @@ import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.messaging.logging.MessagingLogger;
+import org.jboss.as.security.org.jboss.as.security.lru.TinyLFUCache;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 import org.jboss.msc.service.ServiceController;
@@ -75,7 +77,20 @@ public class HornetQServerControlHandler extends AbstractRuntimeOnlyHandler {
     public static final AttributeDefinition VERSION = new SimpleAttributeDefinition(CommonAttributes.VERSION, ModelType.STRING,
             false, AttributeAccess.Flag.STORAGE_RUNTIME);
 
+    public static final AttributeDefinition SECURITY_CACHE_HITS = create("security-cache-hits", LONG)
+            .setStorageRuntime()
+            .build();
+
+    public static final AttributeDefinition SECURITY_CACHE_MISSES = create("security-cache-misses", LONG)
+            .setStorageRuntime()
+            .build();
+
+    public static final AttributeDefinition SECURITY_CACHE_EVICTIONS = create("security-cache-evictions", LONG)
+            .setStorageRuntime()
+            .build();
+
     private static final AttributeDefinition[] ATTRIBUTES = { STARTED, VERSION, ACTIVE };
+    private static final AttributeDefinition[] METRICS = { SECURITY_CACHE_HITS, SECURITY_CACHE_MISSES, SECURITY_CACHE_EVICTIONS };
     public static final String GET_CONNECTORS_AS_JSON = "get-connectors-as-json";
 //    public static final String ENABLE_MESSAGE_COUNTERS = "enable-message-counters";
 //    public static final String DISABLE_MESSAGE_COUNTERS = "disable-message-counters";
@@ -228,6 +243,9 @@ public class HornetQServerControlHandler extends AbstractRuntimeOnlyHandler {
         for (AttributeDefinition attr : ATTRIBUTES) {
             registry.registerReadOnlyAttribute(attr, this);
         }
+        for (AttributeDefinition metric : METRICS) {
+            registry.registerMetric(metric, this);
+        }
     }
 
     public void registerOperations(final ManagementResourceRegistration registry, ResourceDescriptionResolver resolver) {
@@ -342,6 +360,22 @@ public class HornetQServerControlHandler extends AbstractRuntimeOnlyHandler {
         } else if (ACTIVE.getName().equals(name)) {
             boolean active = server.isActive();
             context.getResult().set(active);
+        } else if (SECURITY_CACHE_HITS.getName().equals(name) || SECURITY_CACHE_MISSES.getName().equals(name) || SECURITY_CACHE_EVICTIONS.getName().equals(name)) {
+            TinyLFUCache<?, ?> cache = null;
+            if (server.getSecurityManager() instanceof HornetQSecurityManagerAS7) {
+                cache = ((HornetQSecurityManagerAS7) server.getSecurityManager()).getDecisionCache();
+            }
+            long value = 0;
+            if (cache != null) {
+                if (SECURITY_CACHE_HITS.getName().equals(name)) {
+                    value = cache.getHits();
+                } else if (SECURITY_CACHE_MISSES.getName().equals(name)) {
+                    value = cache.getMisses();
+                } else {
+                    value = cache.getEvictions();
+                }
+            }
+            context.getResult().set(value);
         } else {
             // Bug
             throw MessagingLogger.ROOT_LOGGER.unsupportedAttribute(name);
@@ -275,7 +275,8 @@ class HornetQService implements Service<HornetQServer> {
             }
 
             // security
-            HornetQSecurityManagerAS7 hornetQSecurityManagerAS7 = new HornetQSecurityManagerAS7(securityDomainContextValue.getValue());
+            HornetQSecurityManagerAS7 hornetQSecurityManagerAS7 = new HornetQSecurityManagerAS7(securityDomainContextValue.getValue(),
+                    configuration.isSecurityEnabled() ? configuration.getSecurityInvalidationInterval() : 0);
 
             // Now start the server
             server = new HornetQServerImpl(configuration, mbeanServer.getOptionalValue(), hornetQSecurityManagerAS7);
@@ -301,6 +302,8 @@ class HornetQService implements Service<HornetQServer> {
             if (server != null) {
                 // FIXME stopped by the JMSService
                 // server.stop();
+                // stop listening to the flushes of the security domain
+                server.getSecurityManager().stop();
             }
             pathConfig.closeCallbacks(pathManager.getValue());
         } catch (Exception e) {
@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.security.auth.Subject;
+
+import org.hornetq.core.security.CheckType;
+import org.hornetq.core.security.Role;
+import org.jboss.as.security.org.jboss.as.security.lru.TinyLFUCache;
+import org.jboss.as.security.plugins.SecurityDomainContext;
+import org.jboss.security.AuthenticationManager;
+import org.jboss.security.AuthorizationManager;
+import org.jboss.security.SimplePrincipal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the cache of the authentication and authorization decisions of {@link HornetQSecurityManagerAS7}.
+ */
+public class HornetQSecurityManagerAS7TestCase {
+
+    private static final String USER = "user";
+    private static final String PASSWORD = "password";
+    private static final long CACHE_TIMEOUT = 60000;
+
+    private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+    private final AuthorizationManager authorizationManager = mock(AuthorizationManager.class);
+    private final Set<Role> roles = Collections.singleton(new Role("guest", true, true, false, false, false, false, false));
+    private final Set<Role> otherRoles = Collections.singleton(new Role("other", true, true, false, false, false, false, false));
+    private SecurityDomainContext securityDomainContext;
+    private HornetQSecurityManagerAS7 securityManager;
+
+    @Before
+    public void setUp() throws Exception {
+        when(authenticationManager.getSecurityDomain()).thenReturn("other");
+        when(authenticationManager.isValid(eq(new SimplePrincipal(USER)), eq(PASSWORD), any(Subject.class))).thenReturn(true);
+        when(authorizationManager.doesUserHaveRole(any(Principal.class), anySetOf(Principal.class))).thenReturn(true);
+        securityDomainContext = new SecurityDomainContext(authenticationManager);
+        securityDomainContext.setAuthorizationManager(authorizationManager);
+        securityManager = new HornetQSecurityManagerAS7(securityDomainContext, CACHE_TIMEOUT);
+        securityManager.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        securityManager.stop();
+    }
+
+    @Test
+    public void testCacheHit() {
+        assertTrue(securityManager.validateUser(USER, PASSWORD));
+        assertTrue(securityManager.validateUser(USER, PASSWORD));
+        verifyAuthentications(1);
+
+        assertTrue(securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND));
+        assertTrue(securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND));
+        verifyAuthentications(2);
+        verify(authorizationManager, times(1)).doesUserHaveRole(any(Principal.class), anySetOf(Principal.class));
+    }
+
+    @Test
+    public void testDeniedRoleIsCached() {
+        when(authorizationManager.doesUserHaveRole(any(Principal.class), anySetOf(Principal.class))).thenReturn(false);
+
+        assertFalse(securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND));
+        assertFalse(securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND));
+        verify(authorizationManager, times(1)).doesUserHaveRole(any(Principal.class), anySetOf(Principal.class));
+    }
+
+    @Test
+    public void testMissOnDifferentPassword() {
+        assertTrue(securityManager.validateUser(USER, PASSWORD));
+
+        // a wrong password must never be accepted because of a cached decision
+        assertFalse(securityManager.validateUser(USER, "wrong"));
+        assertFalse(securityManager.validateUserAndRole(USER, "wrong", roles, CheckType.SEND));
+        verifyAuthentications(3);
+
+        // failed authentications are not cached
+        assertFalse(securityManager.validateUser(USER, "wrong"));
+        verifyAuthentications(4);
+    }
+
+    @Test
+    public void testMissOnDifferentRolesOrCheckType() {
+        assertTrue(securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND));
+        assertTrue(securityManager.validateUserAndRole(USER, PASSWORD, otherRoles, CheckType.SEND));
+        assertTrue(securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.CONSUME));
+        verifyAuthentications(3);
+        verify(authorizationManager, times(3)).doesUserHaveRole(any(Principal.class), anySetOf(Principal.class));
+
+        // the authentication alone is a different decision as well
+        assertTrue(securityManager.validateUser(USER, PASSWORD));
+        verifyAuthentications(4);
+    }
+
+    @Test
+    public void testFlushOfPrincipal() {
+        assertTrue(securityManager.validateUser(USER, PASSWORD));
+        when(authenticationManager.isValid(eq(new SimplePrincipal("another")), eq(PASSWORD), any(Subject.class))).thenReturn(true);
+        assertTrue(securityManager.validateUser("another", PASSWORD));
+
+        securityDomainContext.flushed(new SimplePrincipal(USER));
+
+        assertTrue(securityManager.validateUser(USER, PASSWORD));
+        verifyAuthentications(USER, 2);
+        // the decisions of other principals are kept
+        assertTrue(securityManager.validateUser("another", PASSWORD));
+        verifyAuthentications("another", 1);
+    }
+
+    @Test
+    public void testFlushOfSecurityDomain() {
+        assertTrue(securityManager.validateUser(USER, PASSWORD));
+        assertTrue(securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND));
+
+        securityDomainContext.flushed(null);
+        assertEquals(0, securityManager.getDecisionCache().size());
+
+        // e.g. the password was changed, so the user is authenticated again
+        when(authenticationManager.isValid(eq(new SimplePrincipal(USER)), eq(PASSWORD), any(Subject.class))).thenReturn(false);
+        assertFalse(securityManager.validateUser(USER, PASSWORD));
+        assertFalse(securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND));
+    }
+
+    @Test
+    public void testMetrics() {
+        TinyLFUCache<?, Boolean> cache = securityManager.getDecisionCache();
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+
+        securityManager.validateUser(USER, PASSWORD);
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        securityManager.validateUser(USER, PASSWORD);
+        securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND);
+        securityManager.validateUserAndRole(USER, PASSWORD, roles, CheckType.SEND);
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void testExpirationMetric() throws Exception {
+        HornetQSecurityManagerAS7 expiring = new HornetQSecurityManagerAS7(securityDomainContext, 1);
+        TinyLFUCache<?, Boolean> cache = expiring.getDecisionCache();
+
+        assertTrue(expiring.validateUser(USER, PASSWORD));
+        Thread.sleep(10);
+        assertTrue(expiring.validateUser(USER, PASSWORD));
+
+        // the expired decision is a miss, and is counted as evicted
+        verifyAuthentications(2);
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        HornetQSecurityManagerAS7 uncached = new HornetQSecurityManagerAS7(securityDomainContext);
+        assertNull(uncached.getDecisionCache());
+
+        assertTrue(uncached.validateUser(USER, PASSWORD));
+        assertTrue(uncached.validateUser(USER, PASSWORD));
+        verifyAuthentications(2);
+    }
+
+    @Test
+    public void testMaxEntries() {
+        System.setProperty(HornetQSecurityManagerAS7.DECISION_CACHE_MAX_ENTRIES, "0");
+        try {
+            assertNull(new HornetQSecurityManagerAS7(securityDomainContext, CACHE_TIMEOUT).getDecisionCache());
+            System.setProperty(HornetQSecurityManagerAS7.DECISION_CACHE_MAX_ENTRIES, "10");
+            assertEquals(10, new HornetQSecurityManagerAS7(securityDomainContext, CACHE_TIMEOUT).getDecisionCache().getMaxEntries());
+        } finally {
+            System.clearProperty(HornetQSecurityManagerAS7.DECISION_CACHE_MAX_ENTRIES);
+        }
+    }
+
+    private void verifyAuthentications(int count) {
+        verify(authenticationManager, times(count)).isValid(any(Principal.class), any(), any(Subject.class));
+    }
+
+    private void verifyAuthentications(String username, int count) {
+        verify(authenticationManager, times(count)).isValid(eq(new SimplePrincipal(username)), any(), any(Subject.class));
+    }
+}
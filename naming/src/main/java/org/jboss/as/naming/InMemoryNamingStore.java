@@ -32,12 +32,9 @@ import static org.jboss.as.naming.util.NamingUtils.nameNotFoundException;
 import static org.jboss.as.naming.util.NamingUtils.notAContextException;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Hashtable;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
-import java.util.concurrent.locks.ReentrantLock;
 
 import javax.naming.Binding;
 import javax.naming.CannotProceedException;
@@ -53,11 +50,15 @@ import javax.naming.event.NamingEvent;
 import javax.naming.event.NamingListener;
 import javax.naming.spi.ResolveResult;
 import org.jboss.as.naming.logging.NamingLogger;
+import org.jboss.as.naming.util.HashTrieMap;
 
 /**
  * In-memory implementation of the NamingStore.  The backing for the entries is a basic tree structure with either context
  * nodes or binding nodes.  The context nodes are allowed to have children and can be represented by a NamingContext.  A
  * binding node is only allowed to have a normal object binding.
+ * <p/>
+ * Writes do not lock. Each context node holds its children in an immutable map which is replaced with compare-and-set,
+ * so writers to different contexts do not contend, and readers never wait.
  *
  * @author John E. Bailey
  */
@@ -69,8 +70,6 @@ public class InMemoryNamingStore implements WritableNamingStore {
     /* Naming Event Coordinator */
     private final NamingEventCoordinator eventCoordinator;
 
-    private final ReentrantLock writeLock = new ReentrantLock();
-
     private final Name baseName;
 
     /**
@@ -128,11 +127,13 @@ public class InMemoryNamingStore implements WritableNamingStore {
             throw emptyNameException();
         }
 
-        writeLock.lock();
-        try {
-            root.accept(new BindVisitor(true, name, object, bindType.getName()));
-        } finally {
-            writeLock.unlock();
+        for (;;) {
+            try {
+                root.accept(new BindVisitor(true, name, object, bindType.getName()));
+                return;
+            } catch (ContextRemovedException e) {
+                // a context on the path was pruned concurrently, start again from the root
+            }
         }
     }
 
@@ -147,11 +148,13 @@ public class InMemoryNamingStore implements WritableNamingStore {
             throw emptyNameException();
         }
 
-        writeLock.lock();
-        try {
-            root.accept(new RebindVisitor(name, object, bindType.getName()));
-        } finally {
-            writeLock.unlock();
+        for (;;) {
+            try {
+                root.accept(new RebindVisitor(name, object, bindType.getName()));
+                return;
+            } catch (ContextRemovedException e) {
+                // a context on the path was pruned concurrently, start again from the root
+            }
         }
     }
 
@@ -166,11 +169,13 @@ public class InMemoryNamingStore implements WritableNamingStore {
             throw emptyNameException();
         }
 
-        writeLock.lock();
-        try {
-            root.accept(new UnbindVisitor(name));
-        } finally {
-            writeLock.unlock();
+        for (;;) {
+            try {
+                root.accept(new UnbindVisitor(name));
+                return;
+            } catch (ContextRemovedException e) {
+                // a context on the path was pruned concurrently, start again from the root
+            }
         }
     }
 
@@ -223,7 +228,13 @@ public class InMemoryNamingStore implements WritableNamingStore {
         if (isLastComponentEmpty(name)) {
             throw emptyNameException();
         }
-        return root.accept(new CreateSubContextVisitor(name));
+        for (;;) {
+            try {
+                return root.accept(new CreateSubContextVisitor(name));
+            } catch (ContextRemovedException e) {
+                // a context on the path was pruned concurrently, start again from the root
+            }
+        }
     }
 
     /**
@@ -232,12 +243,7 @@ public class InMemoryNamingStore implements WritableNamingStore {
      * @throws NamingException
      */
     public void close() throws NamingException {
-        writeLock.lock();
-        try {
-            root.clear();
-        } finally {
-            writeLock.unlock();
-        }
+        root.clear();
     }
 
     /**
@@ -296,10 +302,16 @@ public class InMemoryNamingStore implements WritableNamingStore {
         protected abstract <T> T accept(NodeVisitor<T> visitor) throws NamingException;
     }
 
-    private static final AtomicMapFieldUpdater<ContextNode, String, TreeNode> childrenUpdater = AtomicMapFieldUpdater.newMapUpdater(AtomicReferenceFieldUpdater.newUpdater(ContextNode.class, Map.class, "children"));
+    private static final HashTrieMap<String, TreeNode> NO_CHILDREN = new HashTrieMap<String, TreeNode>();
+
+    /* The children of a context node which was pruned after its last child was removed. */
+    private static final HashTrieMap<String, TreeNode> REMOVED = new HashTrieMap<String, TreeNode>();
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ContextNode, HashTrieMap> childrenUpdater = AtomicReferenceFieldUpdater.newUpdater(ContextNode.class, HashTrieMap.class, "children");
 
     private class ContextNode extends TreeNode {
-        volatile Map<String, TreeNode> children = Collections.emptyMap();
+        volatile HashTrieMap<String, TreeNode> children = NO_CHILDREN;
         protected final String name;
         protected final ContextNode parentNode;
 
@@ -309,38 +321,91 @@ public class InMemoryNamingStore implements WritableNamingStore {
             this.parentNode = parentNode;
         }
 
+        /**
+         * Get the children to update. If this node was pruned, finish detaching it from its parent and let the writer
+         * start again, as it will have to go through a new node.
+         */
+        private HashTrieMap<String, TreeNode> writableChildren() throws ContextRemovedException {
+            final HashTrieMap<String, TreeNode> children = this.children;
+            if (children == REMOVED) {
+                parentNode.detachChild(name, this);
+                throw ContextRemovedException.INSTANCE;
+            }
+            return children;
+        }
+
         private void addChild(final String childName, final TreeNode childNode) throws NamingException {
-            if (childrenUpdater.putIfAbsent(this, childName, childNode) != null) {
-                throw nameAlreadyBoundException(fullName.add(childName));
+            for (;;) {
+                final HashTrieMap<String, TreeNode> children = writableChildren();
+                if (children.containsKey(childName)) {
+                    throw nameAlreadyBoundException(fullName.add(childName));
+                }
+                if (childrenUpdater.compareAndSet(this, children, children.plus(childName, childNode))) {
+                    return;
+                }
             }
         }
 
         private TreeNode replaceChild(final String childName, final TreeNode childNode) throws NamingException {
-            return childrenUpdater.put(this, childName, childNode);
+            for (;;) {
+                final HashTrieMap<String, TreeNode> children = writableChildren();
+                if (childrenUpdater.compareAndSet(this, children, children.plus(childName, childNode))) {
+                    return children.get(childName);
+                }
+            }
         }
 
-        private TreeNode removeChild(final String childName) throws NameNotFoundException {
-            TreeNode old = childrenUpdater.remove(this, childName);
-            if (old == null) {
-                throw nameNotFoundException(childName, fullName);
+        private TreeNode removeChild(final String childName) throws NamingException {
+            for (;;) {
+                final HashTrieMap<String, TreeNode> children = writableChildren();
+                final TreeNode old = children.get(childName);
+                if (old == null) {
+                    throw nameNotFoundException(childName, fullName);
+                }
+                HashTrieMap<String, TreeNode> newChildren = children.minus(childName);
+                if (parentNode != null && newChildren.isEmpty()) {
+                    newChildren = REMOVED;
+                }
+                if (childrenUpdater.compareAndSet(this, children, newChildren)) {
+                    if (newChildren == REMOVED) {
+                        parentNode.detachChild(name, this);
+                    }
+                    return old;
+                }
             }
-            if(parentNode != null && children.isEmpty()) {
-                childrenUpdater.remove(parentNode, name);
+        }
+
+        private void detachChild(final String childName, final ContextNode childNode) {
+            for (;;) {
+                final HashTrieMap<String, TreeNode> children = this.children;
+                if (children.get(childName) != childNode) {
+                    return;
+                }
+                if (childrenUpdater.compareAndSet(this, children, children.minus(childName))) {
+                    return;
+                }
             }
-            return old;
         }
 
         private void clear() {
-            childrenUpdater.clear(this);
+            children = NO_CHILDREN;
         }
 
         protected final <T> T accept(NodeVisitor<T> visitor) throws NamingException {
             return visitor.visit(this);
         }
 
-        public TreeNode addOrGetChild(final String childName, final TreeNode childNode) {
-            TreeNode appearing = childrenUpdater.putIfAbsent(this, childName, childNode);
-            return appearing == null ? childNode : appearing;
+        public TreeNode addOrGetChild(final String childName, final TreeNode childNode) throws NamingException {
+            for (;;) {
+                final HashTrieMap<String, TreeNode> children = writableChildren();
+                final TreeNode appearing = children.get(childName);
+                if (appearing != null) {
+                    return appearing;
+                }
+                if (childrenUpdater.compareAndSet(this, children, children.plus(childName, childNode))) {
+                    return childNode;
+                }
+            }
         }
     }
 
@@ -566,4 +631,18 @@ public class InMemoryNamingStore implements WritableNamingStore {
             return subContext;
         }
     }
+
+    /**
+     * Thrown to a writer which reached a context node pruned by a concurrent unbind.
+     */
+    private static final class ContextRemovedException extends NamingException {
+        private static final long serialVersionUID = 1L;
+
+        static final ContextRemovedException INSTANCE = new ContextRemovedException();
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
 }
@@ -30,7 +30,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.naming.Binding;
 import javax.naming.CannotProceedException;
@@ -58,6 +62,14 @@ import org.wildfly.security.manager.WildFlySecurityManager;
  * @author Eduardo Martins
  */
 public class ServiceBasedNamingStore implements NamingStore {
+    /**
+     * The maximum number of names whose binding is cached by a store. Names beyond that are resolved on each lookup.
+     */
+    private static final int MAX_CACHED_LOOKUPS = 1024;
+
+    private static final StripedCounter LOOKUP_CACHE_HITS = new StripedCounter();
+    private static final StripedCounter LOOKUP_CACHE_MISSES = new StripedCounter();
+
     private final Name EMPTY_NAME = new CompositeName();
     private Name baseName;
     private final ServiceRegistry serviceRegistry;
@@ -65,6 +77,13 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     private ConcurrentSkipListSet<ServiceName> boundServices = new ConcurrentSkipListSet<ServiceName>();
 
+    /**
+     * The binder services of the names already looked up. It is cleared whenever a binding is added or removed, and
+     * a lookup racing with such a change does not cache what it found.
+     */
+    private final ConcurrentMap<Name, ServiceController<?>> lookupCache = new ConcurrentHashMap<Name, ServiceController<?>>();
+    private final AtomicInteger bindingsVersion = new AtomicInteger();
+
     public ServiceBasedNamingStore(final ServiceRegistry serviceRegistry, final ServiceName serviceNameBase) {
         this.serviceRegistry = serviceRegistry;
         this.serviceNameBase = serviceNameBase;
@@ -79,9 +98,22 @@ public class ServiceBasedNamingStore implements NamingStore {
         if (name.isEmpty()) {
             return new NamingContext(EMPTY_NAME, this, null);
         }
+        final ServiceController<?> cached = lookupCache.get(name);
+        if (cached != null) {
+            final Object obj = lookup(name.toString(), cached, dereference);
+            if (obj != null) {
+                LOOKUP_CACHE_HITS.increment();
+                return obj;
+            }
+        }
+        LOOKUP_CACHE_MISSES.increment();
+        final int bindingsVersion = this.bindingsVersion.get();
         final ServiceName lookupName = buildServiceName(name);
-        Object obj = lookup(name.toString(), lookupName, dereference);
-        if (obj == null) {
+        final ServiceController<?> controller = serviceRegistry.getService(lookupName);
+        Object obj = lookup(name.toString(), controller, dereference);
+        if (obj != null) {
+            cache(name, controller, bindingsVersion);
+        } else {
             final ServiceName lower = boundServices.lower(lookupName);
             if (lower != null && lower.isParentOf(lookupName)) {
                 // Parent might be a reference or a link
@@ -124,9 +156,28 @@ public class ServiceBasedNamingStore implements NamingStore {
         return cpe;
     }
 
+    private void cache(final Name name, final ServiceController<?> controller, final int bindingsVersion) {
+        if (lookupCache.size() < MAX_CACHED_LOOKUPS) {
+            final Name key = (Name) name.clone();
+            lookupCache.putIfAbsent(key, controller);
+            if (this.bindingsVersion.get() != bindingsVersion) {
+                // the bindings changed since the lookup started, the controller may be a stale one
+                lookupCache.remove(key, controller);
+            }
+        }
+    }
+
+    private void invalidateLookupCache() {
+        bindingsVersion.incrementAndGet();
+        lookupCache.clear();
+    }
+
     private Object lookup(final String name, final ServiceName lookupName, boolean dereference) throws NamingException {
+        return lookup(name, serviceRegistry.getService(lookupName), dereference);
+    }
+
+    private Object lookup(final String name, final ServiceController<?> controller, boolean dereference) throws NamingException {
         try {
-            final ServiceController<?> controller = serviceRegistry.getService(lookupName);
             if (controller != null) {
                 final Object object = controller.getValue();
                 if (dereference && object instanceof ManagedReferenceFactory) {
@@ -257,6 +308,7 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     public void close() throws NamingException {
         boundServices.clear();
+        invalidateLookupCache();
     }
 
     public void addNamingListener(Name target, int scope, NamingListener listener) {
@@ -271,10 +323,31 @@ public class ServiceBasedNamingStore implements NamingStore {
             throw NamingLogger.ROOT_LOGGER.serviceAlreadyBound(serviceName);
         }
         boundServices.add(serviceName);
+        invalidateLookupCache();
     }
 
     public void remove(final ServiceName serviceName) {
         boundServices.remove(serviceName);
+        invalidateLookupCache();
+    }
+
+    /**
+     * Returns the number of lookups, in all the service based naming stores, which were resolved by their lookup cache.
+     *
+     * @return the number of lookup cache hits
+     */
+    public static long getLookupCacheHits() {
+        return LOOKUP_CACHE_HITS.sum();
+    }
+
+    /**
+     * Returns the number of lookups, in all the service based naming stores, which had to be resolved against the
+     * service registry.
+     *
+     * @return the number of lookup cache misses
+     */
+    public static long getLookupCacheMisses() {
+        return LOOKUP_CACHE_MISSES.sum();
     }
 
     protected ServiceName buildServiceName(final Name name) {
@@ -367,4 +440,28 @@ public class ServiceBasedNamingStore implements NamingStore {
         }
         return new CompositeName();
     }
+
+    /**
+     * A counter spread over several cells, so that threads counting lookups at the same time do not contend on a single
+     * value.
+     */
+    private static final class StripedCounter {
+        private static final int STRIPES = 16;
+        // cells are 8 longs apart, so that two of them do not share a cache line
+        private static final int SPACING = 8;
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * SPACING);
+
+        void increment() {
+            cells.incrementAndGet((int) (Thread.currentThread().getId() & (STRIPES - 1)) * SPACING);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * SPACING);
+            }
+            return sum;
+        }
+    }
 }
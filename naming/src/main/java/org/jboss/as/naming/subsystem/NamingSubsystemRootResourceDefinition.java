@@ -22,13 +22,21 @@
 
 package org.jboss.as.naming.subsystem;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleOperationDefinition;
 import org.jboss.as.controller.SimpleOperationDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.as.naming.ServiceBasedNamingStore;
 import org.jboss.as.naming.management.JndiViewOperation;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 
 /**
  * {@link org.jboss.as.controller.ResourceDefinition} for the Naming subsystem's root management resource.
@@ -44,11 +52,39 @@ public class NamingSubsystemRootResourceDefinition extends SimpleResourceDefinit
             .withFlag(OperationEntry.Flag.RUNTIME_ONLY)
             .build();
 
+    static final SimpleAttributeDefinition LOOKUP_CACHE_HITS =
+            new SimpleAttributeDefinitionBuilder(NamingSubsystemModel.LOOKUP_CACHE_HITS, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
+    static final SimpleAttributeDefinition LOOKUP_CACHE_MISSES =
+            new SimpleAttributeDefinitionBuilder(NamingSubsystemModel.LOOKUP_CACHE_MISSES, ModelType.LONG, true)
+                    .setStorageRuntime()
+                    .build();
+
     private NamingSubsystemRootResourceDefinition() {
         super(PathElement.pathElement(ModelDescriptionConstants.SUBSYSTEM, NamingExtension.SUBSYSTEM_NAME),
                 NamingExtension.getResourceDescriptionResolver(NamingExtension.SUBSYSTEM_NAME),
                 NamingSubsystemAdd.INSTANCE, NamingSubsystemRemove.INSTANCE);
     }
 
+    /**
+     * Reads the lookup cache counters of the service based naming stores.
+     */
+    static class LookupCacheStatisticsHandler extends AbstractRuntimeOnlyHandler {
+
+        static final LookupCacheStatisticsHandler INSTANCE = new LookupCacheStatisticsHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final String attributeName = operation.require(ModelDescriptionConstants.NAME).asString();
+            if (NamingSubsystemModel.LOOKUP_CACHE_HITS.equals(attributeName)) {
+                context.getResult().set(ServiceBasedNamingStore.getLookupCacheHits());
+            } else if (NamingSubsystemModel.LOOKUP_CACHE_MISSES.equals(attributeName)) {
+                context.getResult().set(ServiceBasedNamingStore.getLookupCacheMisses());
+            }
+            context.stepCompleted();
+        }
+    }
 
 }
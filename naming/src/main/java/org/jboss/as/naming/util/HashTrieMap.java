@@ -0,0 +1,409 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.naming.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.jboss.as.naming.logging.NamingLogger;
+
+/**
+ * An immutable map stored in a hash array mapped trie. {@link #plus} and {@link #minus} return a new map which shares
+ * all the trie nodes of this one except those on the path to the changed key, so an update costs O(log32 n) instead of
+ * a copy of the whole map. This makes it suitable for maps which are updated by replacing a reference with
+ * compare-and-set, no matter how many entries they hold.
+ * <p/>
+ * The mutating methods of {@link Map} are not supported. Null keys and values are not allowed.
+ */
+public final class HashTrieMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    /**
+     * Creates an empty map. Distinct empty maps are not the same instance, so one can be used as a marker.
+     */
+    public HashTrieMap() {
+        this(BitmapNode.EMPTY, 0);
+    }
+
+    private HashTrieMap(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public V get(final Object key) {
+        if (key == null) {
+            return null;
+        }
+        return HashTrieMap.<V>cast(root.get(key, key.hashCode(), 0));
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with the entries of this map and the passed one, which replaces the current value of the key if any.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the new map, or this map if the key was already mapped to the same value
+     */
+    public HashTrieMap<K, V> plus(final K key, final V value) {
+        if (key == null) {
+            throw NamingLogger.ROOT_LOGGER.nullVar("key");
+        }
+        if (value == null) {
+            throw NamingLogger.ROOT_LOGGER.nullVar("value");
+        }
+        final boolean[] added = new boolean[1];
+        final Node root = this.root.put(key, key.hashCode(), value, 0, added);
+        if (root == this.root) {
+            return this;
+        }
+        return new HashTrieMap<K, V>(root, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map with the entries of this map except the one of the passed key.
+     *
+     * @param key the key
+     * @return the new map, or this map if the key was not mapped
+     */
+    public HashTrieMap<K, V> minus(final Object key) {
+        if (key == null) {
+            return this;
+        }
+        final Node root = this.root.remove(key, key.hashCode(), 0);
+        if (root == this.root) {
+            return this;
+        }
+        return new HashTrieMap<K, V>(root != null ? root : BitmapNode.EMPTY, size - 1);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<K, V>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T cast(final Object value) {
+        return (T) value;
+    }
+
+    private interface Node {
+        Object get(Object key, int hash, int shift);
+
+        Node put(Object key, int hash, Object value, int shift, boolean[] added);
+
+        /**
+         * @return the node without the key, this node if it did not hold the key, or null if the node is now empty
+         */
+        Node remove(Object key, int hash, int shift);
+
+        /**
+         * Keys and values, alternately. A null key means the value is a sub node.
+         */
+        Object[] array();
+    }
+
+    /**
+     * A node holding the entries and sub nodes of the hashes whose bits at its level are set in its bitmap.
+     */
+    private static final class BitmapNode implements Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        BitmapNode(final int bitmap, final Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(final int bit) {
+            return Integer.bitCount(bitmap & (bit - 1)) << 1;
+        }
+
+        @Override
+        public Object get(final Object key, final int hash, final int shift) {
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            final int index = index(bit);
+            final Object existingKey = array[index];
+            if (existingKey == null) {
+                return ((Node) array[index + 1]).get(key, hash, shift + BITS);
+            }
+            return key.equals(existingKey) ? array[index + 1] : null;
+        }
+
+        @Override
+        public Node put(final Object key, final int hash, final Object value, final int shift, final boolean[] added) {
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            final int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                final Object[] array = new Object[this.array.length + 2];
+                System.arraycopy(this.array, 0, array, 0, index);
+                array[index] = key;
+                array[index + 1] = value;
+                System.arraycopy(this.array, index, array, index + 2, this.array.length - index);
+                return new BitmapNode(bitmap | bit, array);
+            }
+            final Object existingKey = this.array[index];
+            final Object existingValue = this.array[index + 1];
+            if (existingKey == null) {
+                final Node node = (Node) existingValue;
+                final Node newNode = node.put(key, hash, value, shift + BITS, added);
+                return newNode == node ? this : replace(index, null, newNode);
+            }
+            if (key.equals(existingKey)) {
+                return value == existingValue ? this : replace(index, existingKey, value);
+            }
+            added[0] = true;
+            return replace(index, null, createNode(existingKey, existingValue, key, hash, value, shift + BITS));
+        }
+
+        @Override
+        public Node remove(final Object key, final int hash, final int shift) {
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            final int index = index(bit);
+            final Object existingKey = array[index];
+            if (existingKey == null) {
+                final Node node = (Node) array[index + 1];
+                final Node newNode = node.remove(key, hash, shift + BITS);
+                if (newNode == node) {
+                    return this;
+                }
+                if (newNode != null) {
+                    final Object[] newArray = newNode.array();
+                    // pull a single remaining entry up, so that the trie does not keep chains of single entry nodes
+                    if (newArray.length == 2 && newArray[0] != null) {
+                        return replace(index, newArray[0], newArray[1]);
+                    }
+                    return replace(index, null, newNode);
+                }
+            } else if (!key.equals(existingKey)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            final Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, index);
+            System.arraycopy(this.array, index + 2, array, index, array.length - index);
+            return new BitmapNode(bitmap ^ bit, array);
+        }
+
+        @Override
+        public Object[] array() {
+            return array;
+        }
+
+        private BitmapNode replace(final int index, final Object key, final Object value) {
+            final Object[] array = this.array.clone();
+            array[index] = key;
+            array[index + 1] = value;
+            return new BitmapNode(bitmap, array);
+        }
+
+        private static Node createNode(final Object key1, final Object value1, final Object key2, final int hash2, final Object value2, final int shift) {
+            final int hash1 = key1.hashCode();
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+            }
+            final boolean[] added = new boolean[1];
+            return EMPTY.put(key1, hash1, value1, shift, added).put(key2, hash2, value2, shift, added);
+        }
+    }
+
+    /**
+     * A node holding the entries of keys with the same hash.
+     */
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Object[] array;
+
+        CollisionNode(final int hash, final Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(final Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object get(final Object key, final int hash, final int shift) {
+            if (hash != this.hash) {
+                return null;
+            }
+            final int index = indexOf(key);
+            return index < 0 ? null : array[index + 1];
+        }
+
+        @Override
+        public Node put(final Object key, final int hash, final Object value, final int shift, final boolean[] added) {
+            if (hash != this.hash) {
+                // nest this node in a bitmap node of its level, which then tells the two hashes apart
+                final BitmapNode node = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[] { null, this });
+                return node.put(key, hash, value, shift, added);
+            }
+            final int index = indexOf(key);
+            if (index >= 0) {
+                if (array[index + 1] == value) {
+                    return this;
+                }
+                final Object[] array = this.array.clone();
+                array[index + 1] = value;
+                return new CollisionNode(hash, array);
+            }
+            added[0] = true;
+            final Object[] array = new Object[this.array.length + 2];
+            System.arraycopy(this.array, 0, array, 0, this.array.length);
+            array[this.array.length] = key;
+            array[this.array.length + 1] = value;
+            return new CollisionNode(hash, array);
+        }
+
+        @Override
+        public Node remove(final Object key, final int hash, final int shift) {
+            if (hash != this.hash) {
+                return this;
+            }
+            final int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            final Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, index);
+            System.arraycopy(this.array, index + 2, array, index, array.length - index);
+            return new CollisionNode(hash, array);
+        }
+
+        @Override
+        public Object[] array() {
+            return array;
+        }
+    }
+
+    /**
+     * Walks the trie depth first. The trie is at most 7 levels deep, plus a level of collision nodes.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Object[][] arrays = new Object[8][];
+        private final int[] indexes = new int[8];
+        private int depth;
+        private Entry<K, V> next;
+
+        EntryIterator(final Node root) {
+            arrays[0] = root.array();
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                final Object[] array = arrays[depth];
+                final int index = indexes[depth];
+                if (index >= array.length) {
+                    depth--;
+                    continue;
+                }
+                indexes[depth] = index + 2;
+                final Object key = array[index];
+                if (key == null) {
+                    depth++;
+                    arrays[depth] = ((Node) array[index + 1]).array();
+                    indexes[depth] = 0;
+                } else {
+                    next = new SimpleImmutableEntry<K, V>(HashTrieMap.<K>cast(key), HashTrieMap.<V>cast(array[index + 1]));
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            final Entry<K, V> next = this.next;
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -35,10 +35,15 @@ import javax.naming.NameClassPair;
 import javax.naming.NameNotFoundException;
 import javax.naming.Reference;
 import javax.naming.spi.ResolveResult;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -265,4 +270,50 @@ public class InMemoryNamingStoreTestCase {
             fail("Should have throw name not found exception");
         } catch (NameNotFoundException expected){}
     }
+
+    @Test
+    public void testConcurrentBindAndUnbind() throws Exception {
+        final int threads = 8;
+        final int iterations = 2000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int j = 0; j < iterations; j++) {
+                            // bindings of all threads share the "shared" context, which is pruned whenever it gets empty
+                            final Name shared = new CompositeName("shared/" + thread);
+                            final Object object = new Object();
+                            nameStore.bind(shared, object);
+                            assertEquals(object, nameStore.lookup(shared));
+                            nameStore.rebind(shared, object);
+                            nameStore.unbind(shared);
+
+                            nameStore.bind(new CompositeName("thread" + thread + "/item" + j), j);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < threads; i++) {
+            assertEquals(iterations, nameStore.list(new CompositeName("thread" + i)).size());
+            for (int j = 0; j < iterations; j++) {
+                assertEquals(j, nameStore.lookup(new CompositeName("thread" + i + "/item" + j)));
+            }
+        }
+        try {
+            nameStore.lookup(new CompositeName("shared"));
+            fail("Should have throw name not found exception");
+        } catch (NameNotFoundException expected){}
+    }
 }
@@ -37,6 +37,7 @@ import javax.naming.NamingException;
 
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -98,6 +99,26 @@ public class ServiceBasedNamingStoreTestCase {
         assertEquals(value, obj);
     }
 
+    @Test
+    public void testLookupCache() throws Exception {
+        final ServiceName bindingName = ServiceName.JBOSS.append("foo", "cached");
+        bindObject(bindingName, "first");
+
+        final long hits = ServiceBasedNamingStore.getLookupCacheHits();
+        final long misses = ServiceBasedNamingStore.getLookupCacheMisses();
+        assertEquals("first", store.lookup(new CompositeName("foo/cached")));
+        assertEquals("first", store.lookup(new CompositeName("foo/cached")));
+        assertEquals(hits + 1, ServiceBasedNamingStore.getLookupCacheHits());
+        assertEquals(misses + 1, ServiceBasedNamingStore.getLookupCacheMisses());
+
+        // rebinding the name must not return the value of the removed binder service
+        container.getRequiredService(bindingName).setMode(ServiceController.Mode.REMOVE);
+        container.awaitStability();
+        store.remove(bindingName);
+        bindObject(bindingName, "second");
+        assertEquals("second", store.lookup(new CompositeName("foo/cached")));
+    }
+
     @Test
     public void testLookupParentContext() throws Exception {
         final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
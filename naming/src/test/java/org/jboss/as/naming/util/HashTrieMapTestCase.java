@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.naming.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HashTrieMapTestCase {
+
+    @Test
+    public void testPlusAndMinus() {
+        final HashTrieMap<String, Integer> empty = new HashTrieMap<String, Integer>();
+        final HashTrieMap<String, Integer> one = empty.plus("one", 1);
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.size());
+        assertEquals(Integer.valueOf(1), one.get("one"));
+        assertNull(one.get("two"));
+
+        assertSame(one, one.minus("two"));
+        assertSame(one, one.plus("one", one.get("one")));
+        assertTrue(one.minus("one").isEmpty());
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(42);
+        final Map<Key, Integer> expected = new HashMap<Key, Integer>();
+        HashTrieMap<Key, Integer> map = new HashTrieMap<Key, Integer>();
+        for (int i = 0; i < 100000; i++) {
+            final Key key = new Key(random.nextInt(4000));
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        for (Key key : expected.keySet()) {
+            map = map.minus(key);
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    /**
+     * A key whose hash leaves the low bits empty, so that the trie gets deep, and is shared by three keys.
+     */
+    private static final class Key {
+        private final int id;
+
+        Key(final int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (id / 3) << 12;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof Key && ((Key) object).id == id;
+        }
+    }
+}
@@ -134,6 +134,8 @@ class SecurityDomainAdd extends AbstractAddStepHandler {
 
     protected void populateModel(ModelNode operation, ModelNode model) throws OperationFailedException {
         SecurityDomainResourceDefinition.CACHE_TYPE.validateAndSet(operation, model);
+        SecurityDomainResourceDefinition.CACHE_MAX_ENTRIES.validateAndSet(operation, model);
+        SecurityDomainResourceDefinition.CACHE_EXPIRATION.validateAndSet(operation, model);
     }
 
     protected void performRuntime(OperationContext context, ModelNode operation, final ModelNode model, final ServiceVerificationHandler verificationHandler, final List<ServiceController<?>> newControllers) {
@@ -160,9 +162,11 @@ class SecurityDomainAdd extends AbstractAddStepHandler {
         final ApplicationPolicy applicationPolicy = createApplicationPolicy(context, securityDomain, model);
         final JSSESecurityDomain jsseSecurityDomain = createJSSESecurityDomain(context, securityDomain, model);
         final String cacheType = getAuthenticationCacheType(model);
+        final int cacheMaxEntries = SecurityDomainResourceDefinition.CACHE_MAX_ENTRIES.resolveModelAttribute(context, model).asInt();
+        final long cacheExpiration = SecurityDomainResourceDefinition.CACHE_EXPIRATION.resolveModelAttribute(context, model).asLong();
 
         final SecurityDomainService securityDomainService = new SecurityDomainService(securityDomain,
-                applicationPolicy, jsseSecurityDomain, cacheType);
+                applicationPolicy, jsseSecurityDomain, cacheType, cacheMaxEntries, cacheExpiration);
         final ServiceTarget target = context.getServiceTarget();
         // some login modules may require the TransactionManager
         final Injector<TransactionManager> transactionManagerInjector = new Injector<TransactionManager>() {
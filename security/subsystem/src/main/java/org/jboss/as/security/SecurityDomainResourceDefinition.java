@@ -22,6 +22,7 @@
 package org.jboss.as.security;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 
 import java.security.Principal;
@@ -43,10 +44,15 @@ import org.jboss.as.controller.access.constraint.ApplicationTypeConfig;
 import org.jboss.as.controller.access.management.AccessConstraintDefinition;
 import org.jboss.as.controller.access.management.ApplicationTypeAccessConstraintDefinition;
 import org.jboss.as.controller.access.management.SensitiveTargetAccessConstraintDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.operations.common.Util;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
 import org.jboss.as.security.logging.SecurityLogger;
+import org.jboss.as.security.org.jboss.as.security.lru.TinyLFUCache;
+import org.jboss.as.security.plugins.DefaultAuthenticationCacheFactory;
 import org.jboss.as.security.plugins.SecurityDomainContext;
 import org.jboss.as.security.service.SecurityDomainService;
 import org.jboss.dmr.ModelNode;
@@ -66,6 +72,31 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
             .setAllowExpression(true)
             .build();
 
+    public static final SimpleAttributeDefinition CACHE_MAX_ENTRIES = new SimpleAttributeDefinitionBuilder(Constants.CACHE_MAX_ENTRIES, ModelType.INT, true)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(DefaultAuthenticationCacheFactory.DEFAULT_MAX_ENTRIES))
+            .setValidator(new IntRangeValidator(1, true, true))
+            .build();
+
+    public static final SimpleAttributeDefinition CACHE_EXPIRATION = new SimpleAttributeDefinitionBuilder(Constants.CACHE_EXPIRATION, ModelType.LONG, true)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.SECONDS)
+            .setValidator(new LongRangeValidator(0L, Long.MAX_VALUE, true, true))
+            .build();
+
+    public static final SimpleAttributeDefinition CACHE_HITS = new SimpleAttributeDefinitionBuilder(Constants.CACHE_HITS, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+
+    public static final SimpleAttributeDefinition CACHE_MISSES = new SimpleAttributeDefinitionBuilder(Constants.CACHE_MISSES, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+
+    public static final SimpleAttributeDefinition CACHE_EVICTIONS = new SimpleAttributeDefinitionBuilder(Constants.CACHE_EVICTIONS, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+
     private final boolean registerRuntimeOnly;
     private final List<AccessConstraintDefinition> accessConstraints;
 
@@ -82,6 +113,14 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
     @Override
     public void registerAttributes(final ManagementResourceRegistration resourceRegistration) {
         resourceRegistration.registerReadWriteAttribute(CACHE_TYPE, null, new SecurityDomainReloadWriteHandler(CACHE_TYPE));
+        resourceRegistration.registerReadWriteAttribute(CACHE_MAX_ENTRIES, null, new SecurityDomainReloadWriteHandler(CACHE_MAX_ENTRIES));
+        resourceRegistration.registerReadWriteAttribute(CACHE_EXPIRATION, null, new SecurityDomainReloadWriteHandler(CACHE_EXPIRATION));
+
+        if (registerRuntimeOnly) {
+            resourceRegistration.registerMetric(CACHE_HITS, CacheStatisticsHandler.INSTANCE);
+            resourceRegistration.registerMetric(CACHE_MISSES, CacheStatisticsHandler.INSTANCE);
+            resourceRegistration.registerMetric(CACHE_EVICTIONS, CacheStatisticsHandler.INSTANCE);
+        }
     }
 
     @Override
@@ -176,10 +215,14 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
                 SecurityDomainContext sdc = controller.getValue();
                 @SuppressWarnings("unchecked")
                 CacheableManager<?, Principal> manager = (CacheableManager<?, Principal>) sdc.getAuthenticationManager();
-                if (principal != null)
-                    manager.flushCache(new SimplePrincipal(principal));
-                else
+                if (principal != null) {
+                    SimplePrincipal simplePrincipal = new SimplePrincipal(principal);
+                    manager.flushCache(simplePrincipal);
+                    sdc.flushed(simplePrincipal);
+                } else {
                     manager.flushCache();
+                    sdc.flushed(null);
+                }
             } else {
                 throw SecurityLogger.ROOT_LOGGER.noAuthenticationCacheAvailable(securityDomain);
             }
@@ -188,6 +231,39 @@ class SecurityDomainResourceDefinition extends SimpleResourceDefinition {
         }
     }
 
+    /**
+     * Reads the statistics of the default authentication cache of a security domain. They are 0 if the domain uses
+     * another cache type.
+     */
+    static final class CacheStatisticsHandler extends AbstractRuntimeOnlyHandler {
+        static final CacheStatisticsHandler INSTANCE = new CacheStatisticsHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            ModelNode opAddr = operation.require(OP_ADDR);
+            PathAddress address = PathAddress.pathAddress(opAddr);
+            final String securityDomain = address.getLastElement().getValue();
+            final String name = operation.require(NAME).asString();
+
+            ServiceController<?> controller = context.getServiceRegistry(false).getService(SecurityDomainService.SERVICE_NAME.append(securityDomain));
+            long value = 0L;
+            if (controller != null && controller.getState() == ServiceController.State.UP) {
+                TinyLFUCache<?, ?> cache = ((SecurityDomainService) controller.getService()).getAuthenticationCache();
+                if (cache != null) {
+                    if (Constants.CACHE_HITS.equals(name)) {
+                        value = cache.getHits();
+                    } else if (Constants.CACHE_MISSES.equals(name)) {
+                        value = cache.getMisses();
+                    } else if (Constants.CACHE_EVICTIONS.equals(name)) {
+                        value = cache.getEvictions();
+                    }
+                }
+            }
+            context.getResult().set(value);
+            context.completeStep(OperationContext.RollbackHandler.NOOP_ROLLBACK_HANDLER);
+        }
+    }
+
     /**
      * Wait for the required service to start up and fail otherwise. This method is necessary when a runtime operation
      * uses a service that might have been created within a composite operation.
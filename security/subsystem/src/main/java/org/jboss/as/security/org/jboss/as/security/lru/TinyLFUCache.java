@@ -0,0 +1,684 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.org.jboss.as.security.lru;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache where entries are indexed by a key, admitted following the W-TinyLFU policy.
+ * <p/>
+ * <p>The keys are spread over a number of segments, each owning a share of the capacity. New entries enter the small
+ * LRU window of their segment. An entry leaving the window is only admitted to the main space, a segmented LRU, if
+ * it was accessed more often than the entry it would evict, according to a {@link FrequencySketch}. A burst of keys
+ * that are only used once therefore cannot flush the entries that are used repeatedly.</p>
+ * <p/>
+ * <p>Reads never block: the accessed entries are recorded in a lossy buffer of the segment and applied to the policy
+ * by whichever thread acquires the segment lock next. Writes lock the segment of their key only.</p>
+ * <p/>
+ * <p>Entries may expire a fixed time after they were written. Expired entries are removed when they are read, or
+ * when the segment evicts them. The {@link RemoveCallback} is notified of every entry that is removed, evicted,
+ * expired or replaced, outside of the segment lock.</p>
+ */
+public class TinyLFUCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+    /**
+     * The minimum capacity of a segment, below which the keys are spread over fewer segments.
+     */
+    private static final int MIN_SEGMENT_CAPACITY = 32;
+    /**
+     * The number of reads a segment buffers before they are applied to its policy, a power of two.
+     */
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    private final int maxEntries;
+    private final long expiration;
+    private final RemoveCallback<K, V> removeCallback;
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    public TinyLFUCache(int maxEntries) {
+        this(maxEntries, 0, TimeUnit.NANOSECONDS, null);
+    }
+
+    /**
+     * @param maxEntries     the maximum number of entries
+     * @param expiration     the time after which an entry expires once written, 0 for never
+     * @param unit           the unit of the expiration
+     * @param removeCallback notified of the entries leaving the cache, may be {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLFUCache(int maxEntries, long expiration, TimeUnit unit, RemoveCallback<K, V> removeCallback) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException(String.valueOf(maxEntries));
+        }
+        this.maxEntries = maxEntries;
+        this.expiration = unit.toNanos(expiration);
+        this.removeCallback = removeCallback;
+        this.map = new ConcurrentHashMap<>(Math.min(maxEntries, 1 << 16));
+
+        int segments = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1), MAX_SEGMENTS);
+        while (segments > 1 && maxEntries / segments < MIN_SEGMENT_CAPACITY) {
+            segments >>= 1;
+        }
+        this.segments = new Segment[segments];
+        this.segmentMask = segments - 1;
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new Segment<>(this.map, maxEntries / segments + (i < maxEntries % segments ? 1 : 0));
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return the time after which an entry expires once written, 0 for never
+     */
+    public long getExpiration(TimeUnit unit) {
+        return unit.convert(expiration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of reads that found an entry
+     */
+    public long getHits() {
+        long hits = 0;
+        for (Segment<K, V> segment : segments) {
+            hits += segment.hits.get();
+        }
+        return hits;
+    }
+
+    /**
+     * @return the number of reads that found no entry, or an expired one
+     */
+    public long getMisses() {
+        long misses = 0;
+        for (Segment<K, V> segment : segments) {
+            misses += segment.misses.get();
+        }
+        return misses;
+    }
+
+    /**
+     * @return the number of entries removed because the cache was full, or because they expired
+     */
+    public long getEvictions() {
+        long evictions = 0;
+        for (Segment<K, V> segment : segments) {
+            evictions += segment.evictions.get();
+        }
+        return evictions;
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    private long now() {
+        return expiration > 0 ? System.nanoTime() : 0L;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return expiration > 0 && now - node.expiresAt >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = map.get(key);
+        Segment<K, V> segment = segmentFor(key);
+        if (node == null) {
+            segment.misses.incrementAndGet();
+            return null;
+        }
+        if (isExpired(node, now())) {
+            segment.misses.incrementAndGet();
+            expire(segment, node);
+            return null;
+        }
+        segment.hits.incrementAndGet();
+        segment.recordRead(node);
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Node<K, V> node = map.get(key);
+        return node != null && !isExpired(node, now());
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    private V put(K key, V value, boolean ifAbsent) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        Segment<K, V> segment = segmentFor(key);
+        List<Node<K, V>> removed = new ArrayList<>(2);
+        V old = null;
+        long now = now();
+        segment.lock();
+        try {
+            segment.drainReads();
+            Node<K, V> node = map.get(key);
+            if (node != null && isExpired(node, now)) {
+                map.remove(key, node);
+                segment.unlink(node);
+                segment.evictions.incrementAndGet();
+                removed.add(node);
+                node = null;
+            }
+            if (node == null) {
+                node = new Node<>(key, value, now + expiration);
+                map.put(key, node);
+                segment.add(node, removed);
+            } else {
+                old = node.value;
+                if (!ifAbsent) {
+                    node.value = value;
+                    node.expiresAt = now + expiration;
+                    segment.access(node);
+                }
+            }
+        } finally {
+            segment.unlock();
+        }
+        notifyRemoved(removed);
+        return old;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        Segment<K, V> segment = segmentFor(key);
+        V old;
+        segment.lock();
+        try {
+            Node<K, V> node = map.get(key);
+            if (node == null || isExpired(node, now())) {
+                return null;
+            }
+            old = node.value;
+            node.value = value;
+            segment.access(node);
+        } finally {
+            segment.unlock();
+        }
+        if (removeCallback != null) {
+            removeCallback.afterRemove(key, old);
+        }
+        return old;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null) {
+            throw new NullPointerException();
+        }
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock();
+        try {
+            Node<K, V> node = map.get(key);
+            if (node == null || isExpired(node, now()) || !oldValue.equals(node.value)) {
+                return false;
+            }
+            node.value = newValue;
+            segment.access(node);
+        } finally {
+            segment.unlock();
+        }
+        if (removeCallback != null) {
+            removeCallback.afterRemove(key, oldValue);
+        }
+        return true;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Segment<K, V> segment = segmentFor(key);
+        Node<K, V> node;
+        segment.lock();
+        try {
+            node = map.remove(key);
+            if (node == null) {
+                return null;
+            }
+            segment.unlink(node);
+        } finally {
+            segment.unlock();
+        }
+        if (removeCallback != null) {
+            removeCallback.afterRemove(node.key, node.value);
+        }
+        return node.value;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (value == null) {
+            return false;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        Node<K, V> node;
+        segment.lock();
+        try {
+            node = map.get(key);
+            if (node == null || !value.equals(node.value) || !map.remove(key, node)) {
+                return false;
+            }
+            segment.unlink(node);
+        } finally {
+            segment.unlock();
+        }
+        if (removeCallback != null) {
+            removeCallback.afterRemove(node.key, node.value);
+        }
+        return true;
+    }
+
+    private boolean remove(Node<K, V> node) {
+        Segment<K, V> segment = segmentFor(node.key);
+        segment.lock();
+        try {
+            if (!map.remove(node.key, node)) {
+                return false;
+            }
+            segment.unlink(node);
+        } finally {
+            segment.unlock();
+        }
+        if (removeCallback != null) {
+            removeCallback.afterRemove(node.key, node.value);
+        }
+        return true;
+    }
+
+    private void expire(Segment<K, V> segment, Node<K, V> node) {
+        segment.lock();
+        try {
+            if (!map.remove(node.key, node)) {
+                return;
+            }
+            segment.unlink(node);
+            segment.evictions.incrementAndGet();
+        } finally {
+            segment.unlock();
+        }
+        if (removeCallback != null) {
+            removeCallback.afterRemove(node.key, node.value);
+        }
+    }
+
+    private void notifyRemoved(List<Node<K, V>> removed) {
+        if (removeCallback != null) {
+            for (Node<K, V> node : removed) {
+                removeCallback.afterRemove(node.key, node.value);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Node<K, V> node : map.values()) {
+            remove(node);
+        }
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new WrappedEntrySet();
+    }
+
+    static final class Node<K, V> {
+        static final int WINDOW = 0;
+        static final int PROBATION = 1;
+        static final int PROTECTED = 2;
+        static final int DEAD = 3;
+
+        final K key;
+        volatile V value;
+        volatile long expiresAt;
+
+        // guarded by the segment lock
+        int queue = DEAD;
+        Node<K, V> previous;
+        Node<K, V> next;
+
+        Node(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        public String toString() {
+            return key.toString();
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes in access order, the least recently used first.
+     */
+    static final class AccessQueue<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> node = first;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    static final class Segment<K, V> extends ReentrantLock {
+        private static final long serialVersionUID = 2592245283425813254L;
+
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+
+        private final transient ConcurrentHashMap<K, Node<K, V>> map;
+        private final int windowMax;
+        private final int mainMax;
+        private final int protectedMax;
+        private final transient FrequencySketch sketch;
+        private final transient AccessQueue<K, V> window = new AccessQueue<>();
+        private final transient AccessQueue<K, V> probation = new AccessQueue<>();
+        private final transient AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+        private final transient AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong reads = new AtomicLong();
+
+        Segment(ConcurrentHashMap<K, Node<K, V>> map, int capacity) {
+            this.map = map;
+            this.windowMax = Math.max(1, capacity / 100);
+            this.mainMax = capacity - this.windowMax;
+            this.protectedMax = this.mainMax * 4 / 5;
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        /**
+         * Records a read without blocking. The read is lost if its slot is overwritten before the buffer is drained.
+         */
+        void recordRead(Node<K, V> node) {
+            int index = (int) reads.getAndIncrement() & READ_BUFFER_MASK;
+            readBuffer.lazySet(index, node);
+            if (index == READ_BUFFER_MASK && tryLock()) {
+                try {
+                    drainReads();
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        void drainReads() {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                Node<K, V> node = readBuffer.getAndSet(i, null);
+                if (node != null) {
+                    access(node);
+                }
+            }
+        }
+
+        void access(Node<K, V> node) {
+            switch (node.queue) {
+                case Node.WINDOW:
+                    sketch.increment(node.key);
+                    window.moveToLast(node);
+                    break;
+                case Node.PROBATION:
+                    sketch.increment(node.key);
+                    probation.remove(node);
+                    node.queue = Node.PROTECTED;
+                    protectedQueue.addLast(node);
+                    if (protectedQueue.size() > protectedMax) {
+                        Node<K, V> demoted = protectedQueue.pollFirst();
+                        demoted.queue = Node.PROBATION;
+                        probation.addLast(demoted);
+                    }
+                    break;
+                case Node.PROTECTED:
+                    sketch.increment(node.key);
+                    protectedQueue.moveToLast(node);
+                    break;
+                default:
+                    // removed meanwhile
+            }
+        }
+
+        void add(Node<K, V> node, List<Node<K, V>> evicted) {
+            sketch.increment(node.key);
+            node.queue = Node.WINDOW;
+            window.addLast(node);
+            while (window.size() > windowMax) {
+                admit(window.pollFirst(), evicted);
+            }
+        }
+
+        /**
+         * Moves a candidate from the window to the main space, if it is more popular than the entry it displaces.
+         */
+        private void admit(Node<K, V> candidate, List<Node<K, V>> evicted) {
+            if (probation.size() + protectedQueue.size() < mainMax) {
+                candidate.queue = Node.PROBATION;
+                probation.addLast(candidate);
+                return;
+            }
+            Node<K, V> victim = probation.peekFirst();
+            if (victim == null) {
+                victim = protectedQueue.peekFirst();
+            }
+            if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim, evicted);
+                candidate.queue = Node.PROBATION;
+                probation.addLast(candidate);
+            } else {
+                candidate.queue = Node.DEAD;
+                evict(candidate, evicted);
+            }
+        }
+
+        private void evict(Node<K, V> node, List<Node<K, V>> evicted) {
+            unlink(node);
+            if (map.remove(node.key, node)) {
+                evictions.incrementAndGet();
+                evicted.add(node);
+            }
+        }
+
+        void unlink(Node<K, V> node) {
+            switch (node.queue) {
+                case Node.WINDOW:
+                    window.remove(node);
+                    break;
+                case Node.PROBATION:
+                    probation.remove(node);
+                    break;
+                case Node.PROTECTED:
+                    protectedQueue.remove(node);
+                    break;
+                default:
+                    // not linked
+            }
+            node.queue = Node.DEAD;
+        }
+    }
+
+    private class WrappedEntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new WrappedIterator(map.values().iterator());
+        }
+
+        @Override
+        public int size() {
+            return TinyLFUCache.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Node<K, V> node = map.get(e.getKey());
+            return node != null && !isExpired(node, now()) && node.value.equals(e.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return TinyLFUCache.this.remove(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public void clear() {
+            TinyLFUCache.this.clear();
+        }
+    }
+
+    private class WrappedIterator implements Iterator<Entry<K, V>> {
+        private final Iterator<Node<K, V>> iterator;
+        private final long now = now();
+        private Node<K, V> next;
+        private Node<K, V> last;
+
+        WrappedIterator(Iterator<Node<K, V>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // skip the expired entries
+            while (next == null && iterator.hasNext()) {
+                Node<K, V> node = iterator.next();
+                if (!isExpired(node, now)) {
+                    next = node;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Node<K, V> node = next;
+            next = null;
+            last = node;
+            return new SimpleEntry<K, V>(node.key, node.value) {
+                private static final long serialVersionUID = -2338958018432932367L;
+
+                @Override
+                public V setValue(V value) {
+                    super.setValue(value);
+                    return TinyLFUCache.this.put(node.key, value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException("next() not called");
+            }
+            TinyLFUCache.this.remove(last);
+            last = null;
+        }
+    }
+}
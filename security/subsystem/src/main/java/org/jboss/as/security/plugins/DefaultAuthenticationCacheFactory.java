@@ -23,10 +23,10 @@
 package org.jboss.as.security.plugins;
 
 import java.security.Principal;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
-import org.jboss.as.security.org.jboss.as.security.lru.LRUCache;
 import org.jboss.as.security.org.jboss.as.security.lru.RemoveCallback;
+import org.jboss.as.security.org.jboss.as.security.lru.TinyLFUCache;
 import org.jboss.security.authentication.JBossCachedAuthenticationManager.DomainInfo;
 
 /**
@@ -36,13 +36,32 @@ import org.jboss.security.authentication.JBossCachedAuthenticationManager.Domain
  */
 public class DefaultAuthenticationCacheFactory implements AuthenticationCacheFactory {
 
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final int maxEntries;
+    private final long expiration;
+    private volatile TinyLFUCache<Principal, DomainInfo> cache;
+
+    public DefaultAuthenticationCacheFactory() {
+        this(DEFAULT_MAX_ENTRIES, 0);
+    }
+
+    /**
+     * @param maxEntries the maximum number of cached principals
+     * @param expiration the number of seconds after which a cached principal expires, 0 for never
+     */
+    public DefaultAuthenticationCacheFactory(int maxEntries, long expiration) {
+        this.maxEntries = maxEntries;
+        this.expiration = expiration;
+    }
+
     /**
      * Returns a default cache implementation
      *
      * @return cache implementation
      */
-    public ConcurrentMap<Principal, DomainInfo> getCache() {
-        ConcurrentMap<Principal, DomainInfo> map = new LRUCache<>(1000,  new RemoveCallback<Principal, DomainInfo>() {
+    public TinyLFUCache<Principal, DomainInfo> getCache() {
+        TinyLFUCache<Principal, DomainInfo> cache = new TinyLFUCache<>(maxEntries, expiration, TimeUnit.SECONDS, new RemoveCallback<Principal, DomainInfo>() {
             @Override
             public void afterRemove(Principal key, DomainInfo value) {
                 if (value != null) {
@@ -50,6 +69,16 @@ public class DefaultAuthenticationCacheFactory implements AuthenticationCacheFac
                 }
             }
         });
-        return map;
+        this.cache = cache;
+        return cache;
+    }
+
+    /**
+     * Returns the cache created last by this factory, to read its statistics.
+     *
+     * @return the cache, or {@code null} if none was created yet
+     */
+    public TinyLFUCache<Principal, DomainInfo> getCreatedCache() {
+        return cache;
     }
 }
@@ -22,6 +22,10 @@
 
 package org.jboss.as.security.plugins;
 
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import javax.naming.NamingException;
 import javax.security.auth.Subject;
 import javax.security.jacc.PolicyContext;
@@ -62,6 +66,8 @@ public class SecurityDomainContext {
 
     private static final String SUBJECT_CONTEXT_KEY = "javax.security.auth.Subject.container";
 
+    private final List<AuthenticationCacheFlushListener> flushListeners = new CopyOnWriteArrayList<AuthenticationCacheFlushListener>();
+
     public SecurityDomainContext(AuthenticationManager authenticationMgr) {
         this.authenticationMgr = authenticationMgr;
     }
@@ -147,4 +153,23 @@ public class SecurityDomainContext {
     public void setJSSE(JSSESecurityDomain jsseSecurityDomain) {
         this.jsseSecurityDomain = jsseSecurityDomain;
     }
+
+    public void addFlushListener(AuthenticationCacheFlushListener listener) {
+        flushListeners.add(listener);
+    }
+
+    public void removeFlushListener(AuthenticationCacheFlushListener listener) {
+        flushListeners.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners that the authentication cache was flushed.
+     *
+     * @param principal the flushed principal, or {@code null} if the whole cache was flushed
+     */
+    public void flushed(Principal principal) {
+        for (AuthenticationCacheFlushListener listener : flushListeners) {
+            listener.flushed(principal);
+        }
+    }
 }
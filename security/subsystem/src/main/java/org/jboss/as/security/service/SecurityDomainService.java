@@ -26,6 +26,7 @@ import javax.security.auth.login.Configuration;
 
 import org.jboss.as.security.SecurityExtension;
 import org.jboss.as.security.logging.SecurityLogger;
+import org.jboss.as.security.org.jboss.as.security.lru.TinyLFUCache;
 import org.jboss.as.security.plugins.AuthenticationCacheFactory;
 import org.jboss.as.security.plugins.DefaultAuthenticationCacheFactory;
 import org.jboss.as.security.plugins.InfinispanAuthenticationCacheFactory;
@@ -70,12 +71,30 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
 
     private final String cacheType;
 
+    private final int cacheMaxEntries;
+
+    private final long cacheExpiration;
+
+    private volatile DefaultAuthenticationCacheFactory defaultCacheFactory;
+
     public SecurityDomainService(String name, ApplicationPolicy applicationPolicy, JSSESecurityDomain jsseSecurityDomain,
             String cacheType) {
+        this(name, applicationPolicy, jsseSecurityDomain, cacheType, DefaultAuthenticationCacheFactory.DEFAULT_MAX_ENTRIES, 0);
+    }
+
+    /**
+     * @param cacheMaxEntries the maximum number of principals in the default authentication cache
+     * @param cacheExpiration the number of seconds after which a principal expires from the default authentication
+     *        cache, 0 for never
+     */
+    public SecurityDomainService(String name, ApplicationPolicy applicationPolicy, JSSESecurityDomain jsseSecurityDomain,
+            String cacheType, int cacheMaxEntries, long cacheExpiration) {
         this.name = name;
         this.applicationPolicy = applicationPolicy;
         this.jsseSecurityDomain = jsseSecurityDomain;
         this.cacheType = cacheType;
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.cacheExpiration = cacheExpiration;
     }
 
     /** {@inheritDoc} */
@@ -92,7 +111,8 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         if ("infinispan".equals(cacheType)) {
             cacheFactory = new InfinispanAuthenticationCacheFactory(cacheManagerValue.getValue(), name);
         } else if ("default".equals(cacheType)) {
-            cacheFactory = new DefaultAuthenticationCacheFactory();
+            defaultCacheFactory = new DefaultAuthenticationCacheFactory(cacheMaxEntries, cacheExpiration);
+            cacheFactory = defaultCacheFactory;
         }
         try {
             securityDomainContext = securityManagement.createSecurityDomainContext(name, cacheFactory);
@@ -116,6 +136,10 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         log.debug("Stopping security domain service " + name);
         final JNDIBasedSecurityManagement securityManagement = (JNDIBasedSecurityManagement) securityManagementValue.getValue();
         securityManagement.removeSecurityDomain(name);
+        if (securityDomainContext != null) {
+            // the authentications of the domain must not outlive it
+            securityDomainContext.flushed(null);
+        }
         // TODO clear auth cache?
         final ApplicationPolicyRegistration applicationPolicyRegistration = (ApplicationPolicyRegistration) configurationValue
                 .getValue();
@@ -128,6 +152,16 @@ public class SecurityDomainService implements Service<SecurityDomainContext> {
         return securityDomainContext;
     }
 
+    /**
+     * Returns the default authentication cache of this security domain
+     *
+     * @return the cache, or {@code null} if the domain uses another cache type
+     */
+    public TinyLFUCache<?, ?> getAuthenticationCache() {
+        DefaultAuthenticationCacheFactory factory = defaultCacheFactory;
+        return factory != null ? factory.getCreatedCache() : null;
+    }
+
     /**
      * Target {@code Injector}
      *
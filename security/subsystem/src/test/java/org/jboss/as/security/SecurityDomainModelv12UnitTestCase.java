@@ -652,7 +652,11 @@ public class SecurityDomainModelv12UnitTestCase extends AbstractSubsystemBaseTes
         FailedOperationTransformationConfig config = new FailedOperationTransformationConfig();
 
         config.addFailedAttribute(subsystemAddress, new RejectExpressionsConfig(SecuritySubsystemRootResourceDefinition.DEEP_COPY_SUBJECT_MODE));
-        config.addFailedAttribute(securityDomain, new RejectExpressionsConfig(SecurityDomainResourceDefinition.CACHE_TYPE));
+        config.addFailedAttribute(securityDomain,
+                ChainedConfig.createBuilder(Constants.CACHE_TYPE, Constants.CACHE_MAX_ENTRIES, Constants.CACHE_EXPIRATION)
+                    .addConfig(new RejectExpressionsConfig(SecurityDomainResourceDefinition.CACHE_TYPE))
+                    .addConfig(new NewAttributesConfig(SecurityDomainResourceDefinition.CACHE_MAX_ENTRIES, SecurityDomainResourceDefinition.CACHE_EXPIRATION))
+                    .build());
         config.addFailedAttribute(securityDomainOther.append(SecurityExtension.JSSE_PATH), new RejectExpressionsConfig(JSSEResourceDefinition.ADDITIONAL_PROPERTIES));
         config.addFailedAttribute(subsystemAddress.append(SecurityExtension.VAULT_PATH), new RejectExpressionsConfig(VaultResourceDefinition.OPTIONS));
 
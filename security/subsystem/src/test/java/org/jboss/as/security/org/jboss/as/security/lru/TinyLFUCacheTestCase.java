@@ -0,0 +1,164 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.jboss.as.security.org.jboss.as.security.lru;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests the admission, expiration and statistics of the {@link TinyLFUCache}.
+ */
+public class TinyLFUCacheTestCase {
+
+    static class RecordingCallback implements RemoveCallback<Integer, String> {
+        final List<Integer> removed = new ArrayList<>();
+
+        @Override
+        public synchronized void afterRemove(Integer key, String value) {
+            removed.add(key);
+        }
+    }
+
+    @Test
+    public void testBounded() {
+        RecordingCallback callback = new RecordingCallback();
+        TinyLFUCache<Integer, String> cache = new TinyLFUCache<>(100, 0, TimeUnit.SECONDS, callback);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.getEvictions());
+        // every evicted entry is handed to the callback
+        assertEquals(900, callback.removed.size());
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveScan() {
+        TinyLFUCache<Integer, String> cache = new TinyLFUCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, "hot");
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get(i);
+            }
+        }
+        // a scan of keys used only once must not flush the popular ones
+        for (int i = 1000; i < 11000; i++) {
+            cache.put(i, "cold");
+        }
+        int hot = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.containsKey(i)) {
+                hot++;
+            }
+        }
+        assertTrue(String.valueOf(hot), hot >= 45);
+    }
+
+    @Test
+    public void testStatistics() {
+        TinyLFUCache<Integer, String> cache = new TinyLFUCache<>(10);
+        cache.put(1, "one");
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        RecordingCallback callback = new RecordingCallback();
+        TinyLFUCache<Integer, String> cache = new TinyLFUCache<>(10, 50, TimeUnit.MILLISECONDS, callback);
+        cache.put(1, "one");
+        assertTrue(cache.containsKey(1));
+        Thread.sleep(100);
+        assertFalse(cache.containsKey(1));
+        assertNull(cache.get(1));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, callback.removed.size());
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testRemoveCallback() {
+        RecordingCallback callback = new RecordingCallback();
+        TinyLFUCache<Integer, String> cache = new TinyLFUCache<>(10, 0, TimeUnit.SECONDS, callback);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        // overwriting an entry keeps the value alive
+        cache.put(1, "uno");
+        assertTrue(callback.removed.isEmpty());
+
+        assertEquals("uno", cache.remove(1));
+        assertFalse(cache.remove(2, "zwei"));
+        assertTrue(cache.remove(2, "two"));
+        cache.clear();
+        assertEquals(3, callback.removed.size());
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final TinyLFUCache<Integer, String> cache = new TinyLFUCache<>(500);
+        Callable<Void> task = new Callable<Void>() {
+            public Void call() {
+                for (int i = 0; i < 20000; i++) {
+                    int key = i % 1000;
+                    if (cache.get(key) == null) {
+                        cache.put(key, "v");
+                    }
+                    if (i % 97 == 0) {
+                        cache.remove(key);
+                    }
+                }
+                return null;
+            }
+        };
+
+        ExecutorService service = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(service.submit(task));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            service.shutdown();
+        }
+        assertTrue(String.valueOf(cache.size()), cache.size() <= 500);
+        assertEquals(160000, cache.getHits() + cache.getMisses());
+    }
+}
@@ -14,6 +14,7 @@ import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandDispatcherFactory;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
 import org.wildfly.clustering.group.Node;
 
 @Singleton
@@ -54,6 +55,16 @@ public class CommandDispatcherBean implements CommandDispatcher<Node> {
         return this.dispatcher.submitOnCluster(command, excludedNodes);
     }
 
+    @Override
+    public <R> Map<Node, Future<R>> submitOnCluster(Command<R, Node> command, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception  {
+        return this.dispatcher.submitOnCluster(command, listener, excludedNodes);
+    }
+
+    @Override
+    public <R> Future<Map<Node, CommandResponse<R>>> submitOnCluster(Command<R, Node> command, int quorum, Node... excludedNodes) throws Exception  {
+        return this.dispatcher.submitOnCluster(command, quorum, excludedNodes);
+    }
+
     @Override
     public void close() {
         this.dispatcher.close();